@@ -0,0 +1,612 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.audit.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newActionRequest;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_ID;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.forgerock.audit.AuditingContext;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.NotSupportedException;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.openidm.audit.impl.RepositoryAuditEventHandlerConfiguration.BufferingConfiguration;
+import org.forgerock.openidm.audit.impl.RepositoryAuditEventHandlerConfiguration.OverflowPolicy;
+import org.forgerock.openidm.smartevent.EventEntry;
+import org.forgerock.openidm.smartevent.Name;
+import org.forgerock.openidm.smartevent.Publisher;
+import org.forgerock.openidm.util.ContextUtil;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes the audit events published to the {@link RepositoryAuditEventHandler} in batches, from a background thread.
+ * <p>
+ * Events are held in a bounded buffer until either {@code maxBatchedEvents} of them are pending or the oldest of them
+ * has waited {@code writeInterval}. Each batch is written with a single {@code bulk} action per topic, on repositories
+ * that support it, or one create per event otherwise. Events published while the buffer is full are handled according
+ * to the configured {@link OverflowPolicy}; spilled events are written once the buffer has drained.
+ * <p>
+ * Events that fail to be written are attempted again after {@code writeInterval}, while new events wait in the
+ * buffer, up to {@value #MAX_WRITE_ATTEMPTS} attempts. They are then spilled with the spill overflow policy, and
+ * dropped otherwise. Spilled events that fail to be written are kept in the spill file to be attempted again later.
+ * <p>
+ * The time taken to write each batch is published as the {@value #FLUSH_EVENT} event, with the number of events
+ * written as its payload and the number of events still buffered as its result.
+ */
+class BufferedAuditEventWriter implements BufferedAuditEventWriterMBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(BufferedAuditEventWriter.class);
+
+    /** Event published for each batch of events written */
+    static final String FLUSH_EVENT = "openidm/internal/audit/repository/flush";
+
+    /** Event published for each wait for room in the full buffer */
+    static final String BLOCKED_EVENT = "openidm/internal/audit/repository/blocked";
+
+    private static final Name FLUSH_EVENT_NAME = Name.get(FLUSH_EVENT);
+    private static final Name BLOCKED_EVENT_NAME = Name.get(BLOCKED_EVENT);
+
+    static final String ACTION_BULK = "bulk";
+
+    /** The default spill file, relative to the working location */
+    static final String DEFAULT_SPILL_FILE = "audit/repo-spill.json";
+
+    private static final String SPILL_TOPIC = "topic";
+    private static final String SPILL_EVENT = "event";
+
+    /** How long to wait for the writer thread to drain the buffer on shutdown */
+    private static final long SHUTDOWN_TIMEOUT = 30000L;
+
+    /** How many times the writer thread attempts to write an event before it spills or drops it */
+    static final int MAX_WRITE_ATTEMPTS = 5;
+
+    /** How long to wait before writing the spilled events again after some of them failed, in milliseconds */
+    private static final long SPILL_RETRY_INTERVAL = 60000L;
+
+    private static final String MBEAN_NAME = "org.forgerock.openidm.audit:type=RepositoryAuditBuffer";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final ConnectionFactory connectionFactory;
+    private final ResourcePath resourcePath;
+    private final BlockingQueue<Event> buffer;
+    private final int maxBatchedEvents;
+    private final long writeInterval;
+    private final OverflowPolicy overflowPolicy;
+    private final File spillFile;
+    private final Object spillLock = new Object();
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+
+    /** Whether the repository supports the bulk action, until it fails with it */
+    private volatile boolean bulkSupported = true;
+    private volatile boolean running;
+    private Thread thread;
+
+    /** The open spill file, guarded by spillLock */
+    private Writer spillWriter;
+
+    /** When to write the spilled events again after some of them failed */
+    private volatile long nextSpillReplay = 0;
+
+    BufferedAuditEventWriter(final ConnectionFactory connectionFactory, final ResourcePath resourcePath,
+            final BufferingConfiguration config, final File spillFile) {
+        this.connectionFactory = connectionFactory;
+        this.resourcePath = resourcePath;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, config.getMaxSize()));
+        this.maxBatchedEvents = Math.max(1, config.getMaxBatchedEvents());
+        this.writeInterval = Duration.duration(config.getWriteInterval()).to(TimeUnit.MILLISECONDS);
+        this.overflowPolicy = config.getOverflowPolicy() != null ? config.getOverflowPolicy() : OverflowPolicy.block;
+        this.spillFile = spillFile;
+    }
+
+    /**
+     * Starts the thread writing the buffered events, and any events left spilled by a previous run.
+     */
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeEvents();
+            }
+        }, "audit-repository-writer");
+        thread.setDaemon(true);
+        thread.start();
+        registerMBean();
+    }
+
+    /**
+     * Stops the writer thread once it has written the buffered events. Events it could not write in time are spilled
+     * with the spill overflow policy, and lost otherwise.
+     */
+    synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        unregisterMBean();
+        try {
+            thread.join(SHUTDOWN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            thread.interrupt();
+        }
+        thread = null;
+
+        final List<Event> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            if (overflowPolicy == OverflowPolicy.spill) {
+                for (Event event : remaining) {
+                    spill(event);
+                }
+            } else {
+                logger.warn("{} buffered audit events were not written to the repository before shutdown",
+                        remaining.size());
+            }
+        }
+        synchronized (spillLock) {
+            closeSpillWriter();
+        }
+    }
+
+    /**
+     * Buffers an event to be written, applying the overflow policy if the buffer is full.
+     *
+     * @param topic the topic of the event
+     * @param content the event
+     * @throws ResourceException if the event could be neither buffered nor written
+     */
+    void publish(final String topic, final JsonValue content) throws ResourceException {
+        final Event event = new Event(topic, content);
+        if (!running) {
+            // Not started, or shutting down: write the event directly
+            write(event);
+            return;
+        }
+        if (buffer.offer(event)) {
+            return;
+        }
+        handleOverflow(event);
+    }
+
+    /**
+     * Buffers an event to be written, if the buffer has room for it.
+     *
+     * @param topic the topic of the event
+     * @param content the event
+     * @return true if the event was buffered
+     */
+    boolean offer(final String topic, final JsonValue content) {
+        return buffer.offer(new Event(topic, content));
+    }
+
+    private void handleOverflow(final Event event) throws ResourceException {
+        switch (overflowPolicy) {
+        case drop:
+            if (dropped.incrementAndGet() % 1000 == 1) {
+                logger.warn("Audit event buffer full, {} events dropped so far", dropped.get());
+            }
+            break;
+        case spill:
+            spill(event);
+            break;
+        default:
+            final EventEntry measure = Publisher.start(BLOCKED_EVENT_NAME, event.topic, null);
+            try {
+                while (!buffer.offer(event, writeInterval, TimeUnit.MILLISECONDS)) {
+                    if (!running) {
+                        write(event);
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                write(event);
+            } finally {
+                measure.end();
+            }
+        }
+    }
+
+    @Override
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public long getSpilledCount() {
+        return spilled.get();
+    }
+
+    /**
+     * Writes the buffered events, and then the spilled events, without waiting for any more events. Events that fail
+     * to be written are buffered again.
+     */
+    void flush() {
+        final List<Event> batch = new ArrayList<>(maxBatchedEvents);
+        final List<Event> failed = new ArrayList<>();
+        while (buffer.drainTo(batch, maxBatchedEvents) > 0) {
+            failed.addAll(writeBatch(batch));
+            batch.clear();
+        }
+        for (Event event : failed) {
+            if (!buffer.offer(event)) {
+                giveUp(event);
+            }
+        }
+        nextSpillReplay = 0;
+        writeSpilled();
+    }
+
+    private void writeEvents() {
+        final List<Event> batch = new ArrayList<>(maxBatchedEvents);
+        writeSpilled();
+        while (running || !buffer.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (!batch.isEmpty()) {
+                    // attempt the failed events again after a while, new events waiting in the buffer meanwhile
+                    Thread.sleep(writeInterval);
+                } else {
+                    final Event first = buffer.poll(writeInterval, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        writeSpilled();
+                        continue;
+                    }
+                    batch.add(first);
+                    final long deadline = System.currentTimeMillis() + writeInterval;
+                    while (batch.size() < maxBatchedEvents) {
+                        if (buffer.drainTo(batch, maxBatchedEvents - batch.size()) > 0) {
+                            continue;
+                        }
+                        final long remaining = deadline - System.currentTimeMillis();
+                        final Event next = remaining > 0 && running
+                                ? buffer.poll(remaining, TimeUnit.MILLISECONDS)
+                                : null;
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                }
+                List<Event> failed;
+                try {
+                    failed = writeBatch(batch);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to write {} audit events to the repository", batch.size(), e);
+                    failed = new ArrayList<>(batch);
+                }
+                batch.clear();
+                for (Event event : failed) {
+                    if (running && ++event.attempts < MAX_WRITE_ATTEMPTS) {
+                        batch.add(event);
+                    } else {
+                        giveUp(event);
+                    }
+                }
+                if (batch.isEmpty() && buffer.isEmpty()) {
+                    writeSpilled();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Event event : batch) {
+            giveUp(event);
+        }
+    }
+
+    /**
+     * Spills an event that could not be written with the spill overflow policy, or drops it otherwise.
+     */
+    private void giveUp(final Event event) {
+        if (overflowPolicy == OverflowPolicy.spill) {
+            spill(event);
+        } else {
+            logger.error("Failed to write audit event {} to {}, dropping it",
+                    event.content.get(FIELD_CONTENT_ID).asString(), event.topic);
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes a batch of events, grouped by topic.
+     *
+     * @return the events that failed to be written
+     */
+    private List<Event> writeBatch(final List<Event> batch) {
+        final List<Event> failed = new ArrayList<>();
+        final EventEntry measure = Publisher.start(FLUSH_EVENT_NAME, batch.size(), null);
+        try {
+            final Map<String, List<Event>> eventsByTopic = new LinkedHashMap<>();
+            for (Event event : batch) {
+                List<Event> events = eventsByTopic.get(event.topic);
+                if (events == null) {
+                    events = new ArrayList<>();
+                    eventsByTopic.put(event.topic, events);
+                }
+                events.add(event);
+            }
+            for (Map.Entry<String, List<Event>> entry : eventsByTopic.entrySet()) {
+                writeTopic(entry.getKey(), entry.getValue(), failed);
+            }
+        } finally {
+            measure.setResult(buffer.size());
+            measure.end();
+        }
+        return failed;
+    }
+
+    /**
+     * Writes the events of a topic with a single bulk action, or one by one if the repository does not support it.
+     *
+     * @param failed the list to add the events that failed to be written to
+     */
+    private void writeTopic(final String topic, final List<Event> events, final List<Event> failed) {
+        if (bulkSupported && events.size() > 1) {
+            final List<Object> requests = new ArrayList<>(events.size());
+            for (Event event : events) {
+                requests.add(object(
+                        field("operation", "create"),
+                        field(FIELD_CONTENT_ID, event.content.get(FIELD_CONTENT_ID).asString()),
+                        field("content", event.content.getObject())));
+            }
+            try {
+                final ActionResponse response = connectionFactory.getConnection().action(newContext(),
+                        newActionRequest(resourcePath.concat(topic), ACTION_BULK)
+                                .setContent(json(object(field("requests", requests)))));
+                final JsonValue results = response.getJsonContent().get("results");
+                for (int i = 0; i < events.size() && i < results.size(); i++) {
+                    if (results.get(i).isDefined(ResourceException.FIELD_CODE)) {
+                        logger.warn("Failed to write audit event {} to {}: {}",
+                                events.get(i).content.get(FIELD_CONTENT_ID).asString(), topic,
+                                results.get(i).get(ResourceException.FIELD_MESSAGE).asString());
+                        failed.add(events.get(i));
+                    }
+                }
+                return;
+            } catch (NotSupportedException | BadRequestException e) {
+                logger.info("The repository does not support bulk writes, writing audit events one by one");
+                bulkSupported = false;
+            } catch (ResourceException e) {
+                logger.warn("Failed to write {} {} audit events in bulk, writing them one by one",
+                        events.size(), topic, e);
+            }
+        }
+        for (Event event : events) {
+            try {
+                write(event);
+            } catch (ResourceException | RuntimeException e) {
+                logger.warn("Failed to write audit event {} to {}", event.content.get(FIELD_CONTENT_ID).asString(),
+                        topic, e);
+                failed.add(event);
+            }
+        }
+    }
+
+    private void write(final Event event) throws ResourceException {
+        connectionFactory.getConnection().create(newContext(),
+                newCreateRequest(resourcePath.concat(event.topic),
+                        event.content.get(FIELD_CONTENT_ID).asString(), event.content));
+    }
+
+    private Context newContext() {
+        return new AuditingContext(ContextUtil.createInternalContext());
+    }
+
+    /**
+     * Appends an event to the spill file, or drops it if it cannot be written there.
+     */
+    private void spill(final Event event) {
+        synchronized (spillLock) {
+            try {
+                if (spillWriter == null) {
+                    spillFile.getParentFile().mkdirs();
+                    spillWriter = new BufferedWriter(new OutputStreamWriter(
+                            new FileOutputStream(spillFile, true), StandardCharsets.UTF_8));
+                }
+                writeSpillLine(spillWriter, event);
+                spillWriter.flush();
+                spilled.incrementAndGet();
+            } catch (IOException e) {
+                logger.error("Failed to spill audit event {} to {}, dropping it",
+                        event.content.get(FIELD_CONTENT_ID).asString(), spillFile, e);
+                dropped.incrementAndGet();
+                closeSpillWriter();
+            }
+        }
+    }
+
+    private static void writeSpillLine(final Writer writer, final Event event) throws IOException {
+        writer.write(mapper.writeValueAsString(object(
+                field(SPILL_TOPIC, event.topic),
+                field(SPILL_EVENT, event.content.getObject()))));
+        writer.write('\n');
+    }
+
+    /**
+     * Writes the events of the spill file, if any. The file is moved aside first, so that events spilled meanwhile
+     * go to a new one. The moved file is deleted once all its events are written, and otherwise keeps the events that
+     * failed, to be written again after {@link #SPILL_RETRY_INTERVAL}.
+     */
+    private void writeSpilled() {
+        if (spillFile == null || System.currentTimeMillis() < nextSpillReplay) {
+            return;
+        }
+        final File replayFile = new File(spillFile.getPath() + ".replay");
+        synchronized (spillLock) {
+            if (!replayFile.exists()) {
+                if (!spillFile.exists()) {
+                    return;
+                }
+                closeSpillWriter();
+                if (!spillFile.renameTo(replayFile)) {
+                    logger.warn("Failed to move aside the audit spill file {}", spillFile);
+                    return;
+                }
+            }
+        }
+
+        final List<Event> batch = new ArrayList<>(maxBatchedEvents);
+        final List<Event> failed = new ArrayList<>();
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(replayFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                final JsonValue spilledEvent = json(mapper.readValue(line, Map.class));
+                batch.add(new Event(spilledEvent.get(SPILL_TOPIC).asString(), spilledEvent.get(SPILL_EVENT)));
+                if (batch.size() == maxBatchedEvents) {
+                    failed.addAll(writeBatch(batch));
+                    count += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                failed.addAll(writeBatch(batch));
+                count += batch.size();
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read the audit spill file {}", replayFile, e);
+            nextSpillReplay = System.currentTimeMillis() + SPILL_RETRY_INTERVAL;
+            return;
+        }
+        if (failed.isEmpty()) {
+            if (!replayFile.delete()) {
+                logger.warn("Failed to delete the audit spill file {}", replayFile);
+            }
+            logger.info("Wrote {} spilled audit events to the repository", count);
+            return;
+        }
+
+        nextSpillReplay = System.currentTimeMillis() + SPILL_RETRY_INTERVAL;
+        final File retainedFile = new File(replayFile.getPath() + ".tmp");
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(retainedFile), StandardCharsets.UTF_8))) {
+                for (Event event : failed) {
+                    writeSpillLine(writer, event);
+                }
+            }
+            Files.move(retainedFile.toPath(), replayFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            logger.warn("Failed to write {} of {} spilled audit events to the repository, keeping them in {}",
+                    failed.size(), count, replayFile);
+        } catch (IOException e) {
+            // the events written are written again with the failed ones, rather than losing the failed ones
+            logger.error("Failed to keep the {} spilled audit events that could not be written, keeping all {} in {}",
+                    failed.size(), count, replayFile, e);
+        }
+    }
+
+    private void closeSpillWriter() {
+        if (spillWriter != null) {
+            try {
+                spillWriter.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close the audit spill file {}", spillFile, e);
+            }
+            spillWriter = null;
+        }
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            mBeanServer.registerMBean(this, new ObjectName(MBEAN_NAME));
+        } catch (Exception ex) {
+            logger.warn("Failed to register audit buffer MBean", ex);
+        }
+    }
+
+    private void unregisterMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            mBeanServer.unregisterMBean(new ObjectName(MBEAN_NAME));
+        } catch (Exception ex) {
+            logger.warn("Failed to unregister audit buffer MBean", ex);
+        }
+    }
+
+    /**
+     * An audit event and its topic.
+     */
+    private static final class Event {
+        private final String topic;
+        private final JsonValue content;
+
+        /** The number of failed attempts to write the event, used by the writer thread only */
+        private int attempts;
+
+        private Event(final String topic, final JsonValue content) {
+            this.topic = topic;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.audit.impl;
+
+/**
+ * Provide JMX / MBean access for monitoring the buffer of the repository audit event handler.
+ */
+public interface BufferedAuditEventWriterMBean {
+
+    /**
+     * Gets the number of audit events waiting in the buffer to be written.
+     * @return the number of buffered events.
+     */
+    public int getBufferedCount();
+
+    /**
+     * Gets the number of audit events lost, because the buffer was full or they could not be written.
+     * @return the number of dropped events.
+     */
+    public long getDroppedCount();
+
+    /**
+     * Gets the number of audit events spilled to file, because the buffer was full or they could not be written.
+     * @return the number of spilled events.
+     */
+    public long getSpilledCount();
+}
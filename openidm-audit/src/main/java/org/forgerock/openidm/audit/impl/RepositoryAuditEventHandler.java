@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
- * Portions copyright 2025 3A Systems LLC.
+ * Portions copyright 2025-2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.audit.impl;
@@ -20,6 +20,7 @@ package org.forgerock.openidm.audit.impl;
 import static org.forgerock.json.resource.Requests.copyOfQueryRequest;
 import static org.forgerock.json.resource.Requests.newCreateRequest;
 import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.forgerock.util.promise.Promises.newResultPromise;
 
 import jakarta.inject.Inject;
@@ -36,12 +37,16 @@ import org.forgerock.json.resource.QueryResponse;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourcePath;
 import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.services.context.Context;
 import org.forgerock.util.promise.Promise;
 
 /**
  * Audit event handler for Repository.  This is implemented to use the router where the resourcePath is
  * hardcoded to be "repo/audit".
+ * <p>
+ * With buffering enabled, events are not written as they are published but handed over to a
+ * {@link BufferedAuditEventWriter}, and so may not be readable or queryable until their batch has been written.
  */
 public class RepositoryAuditEventHandler extends AuditEventHandlerBase {
     /**
@@ -54,6 +59,11 @@ public class RepositoryAuditEventHandler extends AuditEventHandlerBase {
      */
     private final ConnectionFactory connectionFactory;
 
+    /**
+     * The writer of buffered events, or null if events are written as they are published.
+     */
+    private final BufferedAuditEventWriter bufferedWriter;
+
     @Inject
     public RepositoryAuditEventHandler(
             final RepositoryAuditEventHandlerConfiguration configuration,
@@ -62,16 +72,27 @@ public class RepositoryAuditEventHandler extends AuditEventHandlerBase {
         super(configuration.getName(), eventTopicsMetaData, configuration.getTopics(), configuration.isEnabled());
         this.resourcePath = ResourcePath.valueOf(configuration.getResourcePath());
         this.connectionFactory = connectionFactory;
+        final RepositoryAuditEventHandlerConfiguration.BufferingConfiguration buffering = configuration.getBuffering();
+        this.bufferedWriter = buffering.isEnabled()
+                ? new BufferedAuditEventWriter(connectionFactory, resourcePath, buffering,
+                        IdentityServer.getFileForWorkingPath(buffering.getSpillFile() != null
+                                ? buffering.getSpillFile()
+                                : BufferedAuditEventWriter.DEFAULT_SPILL_FILE))
+                : null;
     }
 
     @Override
     public void startup() throws ResourceException {
-        // do nothing
+        if (bufferedWriter != null) {
+            bufferedWriter.start();
+        }
     }
 
     @Override
     public void shutdown() throws ResourceException {
-        // do nothing
+        if (bufferedWriter != null) {
+            bufferedWriter.stop();
+        }
     }
 
     @Override
@@ -80,6 +101,10 @@ public class RepositoryAuditEventHandler extends AuditEventHandlerBase {
             final JsonValue auditEventContent) {
         try {
             final String auditEventId = auditEventContent.get(ResourceResponse.FIELD_CONTENT_ID).asString();
+            if (bufferedWriter != null) {
+                bufferedWriter.publish(auditEventTopic, auditEventContent);
+                return newResultPromise(newResourceResponse(auditEventId, null, auditEventContent));
+            }
             return newResultPromise(connectionFactory.getConnection().create(new AuditingContext(context),
                     newCreateRequest(
                             resourcePath.concat(auditEventTopic),
@@ -12,22 +12,43 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.audit.impl;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.forgerock.audit.events.handlers.EventHandlerConfiguration;
 
 /**
  * Configuration class for RepositoryAuditEventHandler.
+ * <p>
+ * Events are written to the repository as they are published, unless buffering is enabled. Example of valid JSON
+ * configuration with buffering:
+ * <pre>
+ *  {
+ *    "name" : "repo",
+ *    "topics" : [ "access", "activity", "recon", "sync", "authentication", "config" ],
+ *    "buffering" : {
+ *      "enabled" : true,
+ *      "maxSize" : 10000,
+ *      "maxBatchedEvents" : 100,
+ *      "writeInterval" : "100 millis",
+ *      "overflowPolicy" : "block"
+ *    }
+ *  }
+ * </pre>
  * @see RepositoryAuditEventHandler
  */
 @JsonIgnoreProperties(ignoreUnknown=true)
 public class RepositoryAuditEventHandlerConfiguration extends EventHandlerConfiguration {
     private static final String REPO_AUDIT_PATH = "repo/audit";
 
+    @JsonProperty
+    private BufferingConfiguration buffering = new BufferingConfiguration();
+
     /**
      * Returns the fixed path to repository audits.
      * @return #REPO_AUDIT_PATH
@@ -37,8 +58,158 @@ public class RepositoryAuditEventHandlerConfiguration extends EventHandlerConfig
         return REPO_AUDIT_PATH;
     }
 
+    /**
+     * Returns the configuration of the buffering of events.
+     * @return the buffering configuration, never null
+     */
+    public BufferingConfiguration getBuffering() {
+        return buffering;
+    }
+
+    /**
+     * Sets the configuration of the buffering of events.
+     * @param buffering the buffering configuration
+     */
+    public void setBuffering(BufferingConfiguration buffering) {
+        this.buffering = buffering != null ? buffering : new BufferingConfiguration();
+    }
+
     @Override
     public boolean isUsableForQueries() {
         return true;
     }
+
+    /**
+     * What to do with an event published while the buffer is full.
+     */
+    public enum OverflowPolicy {
+        /** Wait for the buffer to have room for the event */
+        block,
+        /** Discard the event */
+        drop,
+        /** Append the event to the spill file, to be written once the buffer has drained */
+        spill
+    }
+
+    /**
+     * Configuration of the buffering of events, which are then written to the repository in batches by a
+     * background thread.
+     */
+    @JsonIgnoreProperties(ignoreUnknown=true)
+    public static class BufferingConfiguration {
+
+        @JsonProperty
+        private boolean enabled = false;
+
+        @JsonProperty
+        private int maxSize = 10000;
+
+        @JsonProperty
+        private int maxBatchedEvents = 100;
+
+        @JsonProperty
+        private String writeInterval = "100 millis";
+
+        @JsonProperty
+        private OverflowPolicy overflowPolicy = OverflowPolicy.block;
+
+        @JsonProperty
+        private String spillFile;
+
+        /**
+         * Returns whether events are buffered and written in batches.
+         * @return true if events are buffered
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether events are buffered and written in batches.
+         * @param enabled true to buffer events
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Returns the maximum number of events held in the buffer.
+         * @return the capacity of the buffer
+         */
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        /**
+         * Sets the maximum number of events held in the buffer.
+         * @param maxSize the capacity of the buffer
+         */
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Returns the maximum number of events written in a single batch.
+         * @return the maximum batch size
+         */
+        public int getMaxBatchedEvents() {
+            return maxBatchedEvents;
+        }
+
+        /**
+         * Sets the maximum number of events written in a single batch; a batch is written as soon as it is full.
+         * @param maxBatchedEvents the maximum batch size
+         */
+        public void setMaxBatchedEvents(int maxBatchedEvents) {
+            this.maxBatchedEvents = maxBatchedEvents;
+        }
+
+        /**
+         * Returns the longest an event waits in the buffer for its batch to fill up, such as "100 millis".
+         * @return the write interval duration
+         */
+        public String getWriteInterval() {
+            return writeInterval;
+        }
+
+        /**
+         * Sets the longest an event waits in the buffer for its batch to fill up.
+         * @param writeInterval the write interval duration, such as "100 millis"
+         */
+        public void setWriteInterval(String writeInterval) {
+            this.writeInterval = writeInterval;
+        }
+
+        /**
+         * Returns what to do with an event published while the buffer is full.
+         * @return the overflow policy
+         */
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        /**
+         * Sets what to do with an event published while the buffer is full.
+         * @param overflowPolicy the overflow policy
+         */
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        /**
+         * Returns the file events are spilled to when the buffer is full, with the spill overflow policy.
+         * @return the spill file path, or null for the default
+         */
+        public String getSpillFile() {
+            return spillFile;
+        }
+
+        /**
+         * Sets the file events are spilled to when the buffer is full, with the spill overflow policy.
+         * @param spillFile the spill file path
+         */
+        public void setSpillFile(String spillFile) {
+            this.spillFile = spillFile;
+        }
+    }
 }
\ No newline at end of file
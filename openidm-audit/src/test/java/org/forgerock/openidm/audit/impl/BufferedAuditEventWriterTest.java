@@ -0,0 +1,222 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.audit.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newActionResponse;
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_ID;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.NotSupportedException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.openidm.audit.impl.RepositoryAuditEventHandlerConfiguration.BufferingConfiguration;
+import org.forgerock.openidm.audit.impl.RepositoryAuditEventHandlerConfiguration.OverflowPolicy;
+import org.forgerock.services.context.Context;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class BufferedAuditEventWriterTest {
+
+    private Connection connection;
+    private ConnectionFactory connectionFactory;
+    private File spillFile;
+    private File replayFile;
+    private BufferedAuditEventWriter writer;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        connection = mock(Connection.class);
+        connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        BufferingConfiguration config = new BufferingConfiguration();
+        config.setEnabled(true);
+        spillFile = File.createTempFile("audit-spill", ".json");
+        spillFile.delete();
+        replayFile = new File(spillFile.getPath() + ".replay");
+        writer = new BufferedAuditEventWriter(connectionFactory, ResourcePath.valueOf("repo/audit"), config,
+                spillFile);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        writer.stop();
+        spillFile.delete();
+        replayFile.delete();
+    }
+
+    @Test
+    public void testWritesDirectlyWhenStopped() throws Exception {
+        writer.start();
+        writer.stop();
+
+        writer.publish("access", event("1"));
+        writer.publish("access", event("2"));
+        verify(connection, times(2)).create(any(Context.class), any(CreateRequest.class));
+    }
+
+    @Test
+    public void testFlushWritesBufferedEventsInBulk() throws Exception {
+        when(connection.action(any(Context.class), any(ActionRequest.class)))
+                .thenReturn(newActionResponse(json(object(field("results", array())))));
+        writer.offer("access", event("1"));
+        writer.offer("access", event("2"));
+        writer.offer("activity", event("3"));
+        assertThat(writer.getBufferedCount()).isEqualTo(3);
+
+        writer.flush();
+
+        ArgumentCaptor<ActionRequest> captor = ArgumentCaptor.forClass(ActionRequest.class);
+        verify(connection).action(any(Context.class), captor.capture());
+        assertThat(captor.getValue().getAction()).isEqualTo(BufferedAuditEventWriter.ACTION_BULK);
+        assertThat(captor.getValue().getResourcePath()).isEqualTo("repo/audit/access");
+        assertThat(captor.getValue().getContent().get("requests").size()).isEqualTo(2);
+        // A single event is created as is
+        verify(connection).create(any(Context.class), any(CreateRequest.class));
+        assertThat(writer.getBufferedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testFallsBackToCreatesWithoutBulkSupport() throws Exception {
+        when(connection.action(any(Context.class), any(ActionRequest.class)))
+                .thenThrow(new NotSupportedException());
+        writer.offer("access", event("1"));
+        writer.offer("access", event("2"));
+        writer.flush();
+        writer.offer("access", event("3"));
+        writer.offer("access", event("4"));
+        writer.flush();
+
+        // The bulk action is not attempted again
+        verify(connection, times(1)).action(any(Context.class), any(ActionRequest.class));
+        verify(connection, times(4)).create(any(Context.class), any(CreateRequest.class));
+    }
+
+    @Test
+    public void testFlushKeepsFailedEventsBuffered() throws Exception {
+        when(connection.action(any(Context.class), any(ActionRequest.class)))
+                .thenReturn(newActionResponse(json(object(field("results", array(
+                        object(field(FIELD_CONTENT_ID, "1")),
+                        object(field("code", 500), field("message", "Internal Server Error"))))))));
+        writer.offer("access", event("1"));
+        writer.offer("access", event("2"));
+
+        writer.flush();
+
+        assertThat(writer.getBufferedCount()).isEqualTo(1);
+        assertThat(writer.getDroppedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDropsEventsThatKeepFailing() throws Exception {
+        when(connection.create(any(Context.class), any(CreateRequest.class)))
+                .thenThrow(new InternalServerErrorException("unavailable"));
+        writer = startedWriter(OverflowPolicy.drop);
+
+        writer.publish("access", event("1"));
+
+        awaitCount(writer, 0, 1);
+        verify(connection, times(BufferedAuditEventWriter.MAX_WRITE_ATTEMPTS))
+                .create(any(Context.class), any(CreateRequest.class));
+    }
+
+    @Test
+    public void testSpillsEventsThatKeepFailing() throws Exception {
+        when(connection.create(any(Context.class), any(CreateRequest.class)))
+                .thenThrow(new InternalServerErrorException("unavailable"));
+        writer = startedWriter(OverflowPolicy.spill);
+
+        writer.publish("access", event("1"));
+
+        awaitCount(writer, 1, 0);
+        writer.stop();
+        // Written again from the spill file once the buffer had drained, and kept there as it failed again
+        String spilled = new String(Files.readAllBytes(
+                (replayFile.exists() ? replayFile : spillFile).toPath()), StandardCharsets.UTF_8);
+        assertThat(spilled).contains("tx-1");
+    }
+
+    @Test
+    public void testKeepsSpilledEventsUntilWritten() throws Exception {
+        Files.write(spillFile.toPath(), Collections.singletonList(
+                "{\"topic\":\"access\",\"event\":{\"_id\":\"1\",\"transactionId\":\"tx-1\"}}"),
+                StandardCharsets.UTF_8);
+        when(connection.create(any(Context.class), any(CreateRequest.class)))
+                .thenThrow(new InternalServerErrorException("unavailable"));
+
+        writer.flush();
+
+        assertThat(replayFile.exists()).isTrue();
+        assertThat(new String(Files.readAllBytes(replayFile.toPath()), StandardCharsets.UTF_8)).contains("tx-1");
+
+        connection = mock(Connection.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        writer.flush();
+
+        ArgumentCaptor<CreateRequest> captor = ArgumentCaptor.forClass(CreateRequest.class);
+        verify(connection).create(any(Context.class), captor.capture());
+        assertThat(captor.getValue().getNewResourceId()).isEqualTo("1");
+        assertThat(replayFile.exists()).isFalse();
+        assertThat(spillFile.exists()).isFalse();
+    }
+
+    private BufferedAuditEventWriter startedWriter(OverflowPolicy overflowPolicy) {
+        BufferingConfiguration config = new BufferingConfiguration();
+        config.setEnabled(true);
+        config.setWriteInterval("10 millis");
+        config.setOverflowPolicy(overflowPolicy);
+        BufferedAuditEventWriter started = new BufferedAuditEventWriter(connectionFactory,
+                ResourcePath.valueOf("repo/audit"), config, spillFile);
+        started.start();
+        return started;
+    }
+
+    private static void awaitCount(BufferedAuditEventWriter writer, long spilled, long dropped)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while ((writer.getSpilledCount() < spilled || writer.getDroppedCount() < dropped)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(writer.getSpilledCount()).isEqualTo(spilled);
+        assertThat(writer.getDroppedCount()).isEqualTo(dropped);
+    }
+
+    private static JsonValue event(String id) {
+        return json(object(field(FIELD_CONTENT_ID, id), field("transactionId", "tx-" + id)));
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.auth;
+
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.Filter;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.Request;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.encode.Base64;
+import org.forgerock.util.promise.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * A short-lived cache of successful credential verifications, shared by the {@link ResourceQueryAuthenticator}s.
+ * <p>
+ * Entries are keyed by a keyed hash (HMAC) of the authenticating resource, query, username and password, with a key
+ * generated randomly for each cache, so that neither the password nor an offline-attackable hash of it is held in
+ * memory. Each entry holds the user resource the credentials were verified against, so that an authentication that
+ * hits the cache needs neither the user query nor the password hash comparison; roles are then calculated from the
+ * cached resource as usual.
+ * <p>
+ * Entries expire after a short time to live, and are invalidated as soon as the user they authenticated is updated,
+ * patched or deleted through the router, by the {@link #asFilter() filter} this cache registers on the router.
+ */
+class AuthenticationCache implements AuthenticationCacheMBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticationCache.class);
+
+    /** The configuration key of the cache in authentication.json */
+    static final String CONFIG_KEY = "authenticationCache";
+
+    private static final String CONFIG_ENABLED = "enabled";
+    private static final String CONFIG_MAX_ENTRIES = "maxEntries";
+    private static final String CONFIG_TTL = "ttl";
+
+    private static final String MBEAN_NAME = "org.forgerock.openidm.auth:type=AuthenticationCache";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, Entry> cache;
+    private final SecretKeySpec key;
+    private final Filter filter = new InvalidationFilter();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /** The resources users are queried on, changes to which invalidate the cache */
+    private final Set<ResourcePath> userResources = ConcurrentHashMap.newKeySet();
+
+    /** Incremented by each invalidation, so that a verification started before it is not cached after it */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Creates an authentication cache.
+     *
+     * @param maxEntries the maximum number of credential verifications to cache
+     * @param ttl the time to live of a cached verification, in seconds
+     */
+    AuthenticationCache(final long maxEntries, final long ttl) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        final byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+    }
+
+    /**
+     * Creates the authentication cache from the authentication configuration.
+     *
+     * @param config the {@value #CONFIG_KEY} configuration
+     * @return the cache, or null if it is not enabled
+     */
+    static AuthenticationCache fromConfig(final JsonValue config) {
+        if (config.isNull() || !config.get(CONFIG_ENABLED).defaultTo(false).asBoolean()) {
+            return null;
+        }
+        return new AuthenticationCache(
+                config.get(CONFIG_MAX_ENTRIES).defaultTo(1000).asLong(),
+                config.get(CONFIG_TTL).defaultTo(60).asLong());
+    }
+
+    /**
+     * Computes the key under which a verification of the credentials is cached.
+     *
+     * @param queryOnResource the resource the user is queried on
+     * @param queryId the query used to find the user
+     * @param username the username
+     * @param password the password
+     * @return the cache key
+     */
+    String key(final String queryOnResource, final String queryId, final String username, final String password) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            for (String part : new String[] { queryOnResource, queryId, username }) {
+                mac.update(part.getBytes(StandardCharsets.UTF_8));
+                mac.update((byte) 0);
+            }
+            if (password != null) {
+                mac.update(password.getBytes(StandardCharsets.UTF_8));
+            }
+            return Base64.encode(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute the authentication cache key", e);
+        }
+    }
+
+    /**
+     * Watches the changes to the users queried on the resource, to invalidate their cached verifications.
+     *
+     * @param queryOnResource the resource users are queried on
+     */
+    void watch(final String queryOnResource) {
+        userResources.add(ResourcePath.valueOf(queryOnResource));
+    }
+
+    /**
+     * @return the current generation, to pass to {@link #put} once the credentials are verified
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Gets the user resource the credentials were verified against.
+     *
+     * @param key the cache key of the credentials
+     * @return a copy of the resource, or null if the credentials are not cached
+     */
+    ResourceResponse get(final String key) {
+        final Entry entry = cache.getIfPresent(key);
+        return entry != null ? entry.copyOfResource() : null;
+    }
+
+    /**
+     * Caches a successful verification of credentials, unless a user changed since it started.
+     *
+     * @param key the cache key of the credentials
+     * @param generation the {@link #generation()} before the user was queried
+     * @param queryOnResource the resource the user was queried on
+     * @param resource the user resource the credentials were verified against
+     */
+    void put(final String key, final long generation, final String queryOnResource,
+            final ResourceResponse resource) {
+        if (resource == null || resource.getId() == null) {
+            return;
+        }
+        final Entry entry = new Entry(ResourcePath.valueOf(queryOnResource).child(resource.getId()), resource);
+        cache.put(key, entry);
+        if (this.generation.get() != generation) {
+            // An invalidation may have missed the entry
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Invalidates the verifications of the user at the given path, or of all the users under it.
+     *
+     * @param path the path of a changed resource
+     */
+    void invalidate(final ResourcePath path) {
+        if (!isUserPath(path)) {
+            return;
+        }
+        generation.incrementAndGet();
+        final Iterator<Entry> entries = cache.asMap().values().iterator();
+        while (entries.hasNext()) {
+            final ResourcePath userPath = entries.next().path;
+            if (userPath.startsWith(path) || path.startsWith(userPath)) {
+                entries.remove();
+                invalidations.incrementAndGet();
+                logger.debug("Invalidated cached authentication of {}", userPath);
+            }
+        }
+    }
+
+    private boolean isUserPath(final ResourcePath path) {
+        for (ResourcePath userResource : userResources) {
+            if (path.startsWith(userResource) || userResource.startsWith(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all the cached verifications.
+     */
+    void clear() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return the router filter invalidating the verifications of the users changed through the router
+     */
+    Filter asFilter() {
+        return filter;
+    }
+
+    void registerMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            mBeanServer.registerMBean(this, new ObjectName(MBEAN_NAME));
+        } catch (Exception ex) {
+            logger.warn("Failed to register authentication cache MBean", ex);
+        }
+    }
+
+    void unregisterMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            mBeanServer.unregisterMBean(new ObjectName(MBEAN_NAME));
+        } catch (Exception ex) {
+            logger.warn("Failed to unregister authentication cache MBean", ex);
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        final CacheStats stats = cache.stats();
+        return stats.requestCount() == 0 ? 0 : stats.hitRate();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    /**
+     * A verified user resource, with its full path.
+     */
+    private static final class Entry {
+        private final ResourcePath path;
+        private final ResourceResponse resource;
+
+        private Entry(final ResourcePath path, final ResourceResponse resource) {
+            this.path = path;
+            this.resource = copyOf(resource);
+        }
+
+        private ResourceResponse copyOfResource() {
+            return copyOf(resource);
+        }
+
+        private static ResourceResponse copyOf(final ResourceResponse resource) {
+            return newResourceResponse(resource.getId(), resource.getRevision(), resource.getContent().copy());
+        }
+    }
+
+    /**
+     * Invalidates the cached verifications of the users changed by the requests it passes on. Any update, patch,
+     * delete or action on a user, or on a collection of users, invalidates them, whether or not it succeeds.
+     */
+    private final class InvalidationFilter implements Filter {
+
+        /**
+         * Invalidates the users changed by the request both as it is passed on and once it completes.
+         */
+        private <V> Promise<V, ResourceException> invalidate(final Request request,
+                final Promise<V, ResourceException> promise) {
+            AuthenticationCache.this.invalidate(request.getResourcePathObject());
+            return promise.thenAlways(new Runnable() {
+                @Override
+                public void run() {
+                    AuthenticationCache.this.invalidate(request.getResourcePathObject());
+                }
+            });
+        }
+
+        @Override
+        public Promise<ActionResponse, ResourceException> filterAction(Context context, ActionRequest actionRequest,
+                RequestHandler handler) {
+            return invalidate(actionRequest, handler.handleAction(context, actionRequest));
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> filterCreate(Context context, CreateRequest createRequest,
+                RequestHandler handler) {
+            return handler.handleCreate(context, createRequest);
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> filterDelete(Context context, DeleteRequest deleteRequest,
+                RequestHandler handler) {
+            return invalidate(deleteRequest, handler.handleDelete(context, deleteRequest));
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> filterPatch(Context context, PatchRequest patchRequest,
+                RequestHandler handler) {
+            return invalidate(patchRequest, handler.handlePatch(context, patchRequest));
+        }
+
+        @Override
+        public Promise<QueryResponse, ResourceException> filterQuery(Context context, QueryRequest queryRequest,
+                QueryResourceHandler queryResourceHandler, RequestHandler handler) {
+            return handler.handleQuery(context, queryRequest, queryResourceHandler);
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> filterRead(Context context, ReadRequest readRequest,
+                RequestHandler handler) {
+            return handler.handleRead(context, readRequest);
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> filterUpdate(Context context, UpdateRequest updateRequest,
+                RequestHandler handler) {
+            return invalidate(updateRequest, handler.handleUpdate(context, updateRequest));
+        }
+    }
+}
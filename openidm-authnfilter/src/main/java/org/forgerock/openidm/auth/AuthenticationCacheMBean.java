@@ -0,0 +1,59 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.auth;
+
+/**
+ * Provide JMX / MBean access for monitoring the authentication cache.
+ */
+public interface AuthenticationCacheMBean {
+
+    /**
+     * Gets the number of credential verifications currently cached.
+     * @return the number of cached entries.
+     */
+    public long getSize();
+
+    /**
+     * Gets the number of authentications answered from the cache.
+     * @return the number of cache hits.
+     */
+    public long getHitCount();
+
+    /**
+     * Gets the number of authentications that had to query the user and verify the credentials.
+     * @return the number of cache misses.
+     */
+    public long getMissCount();
+
+    /**
+     * Gets the ratio of authentications answered from the cache.
+     * @return the hit rate, between 0 and 1.
+     */
+    public double getHitRate();
+
+    /**
+     * Gets the number of entries evicted because the cache was full or they expired.
+     * @return the number of evictions.
+     */
+    public long getEvictionCount();
+
+    /**
+     * Gets the number of entries removed because the user they authenticated changed.
+     * @return the number of invalidations.
+     */
+    public long getInvalidationCount();
+}
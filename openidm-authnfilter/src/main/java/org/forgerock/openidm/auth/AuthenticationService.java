@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS
- * Portions copyright 2024-2025 3A Systems LLC.
+ * Portions copyright 2024-2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.auth;
@@ -95,6 +95,7 @@ import org.forgerock.openidm.idp.impl.IdentityProviderService;
 import org.forgerock.openidm.idp.impl.IdentityProviderServiceException;
 import org.forgerock.openidm.idp.impl.ProviderConfigMapper;
 import org.forgerock.openidm.router.IDMConnectionFactory;
+import org.forgerock.openidm.router.RouterFilterRegistration;
 import org.forgerock.openidm.util.HeaderUtil;
 import org.forgerock.openidm.util.JettyPropertyUtil;
 import org.forgerock.script.ScriptRegistry;
@@ -256,6 +257,34 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         identityProviderService = null;
     }
 
+    /** The registration of router filters, to invalidate the authentication cache on user changes */
+    private RouterFilterRegistration routerFilterRegistration;
+
+    /** The cache of successful authentications, or null if not enabled */
+    private volatile AuthenticationCache authenticationCache;
+
+    @Reference(
+            name = "RouterFilterRegistration",
+            service = RouterFilterRegistration.class,
+            unbind = "unbindRouterFilterRegistration",
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC)
+    synchronized void bindRouterFilterRegistration(RouterFilterRegistration registration) {
+        routerFilterRegistration = registration;
+        if (authenticationCache != null) {
+            registration.addFilter(authenticationCache.asFilter());
+        }
+    }
+
+    synchronized void unbindRouterFilterRegistration(RouterFilterRegistration registration) {
+        if (authenticationCache != null) {
+            registration.removeFilter(authenticationCache.asFilter());
+        }
+        if (routerFilterRegistration == registration) {
+            routerFilterRegistration = null;
+        }
+    }
+
     /** An on-demand Provider for the ConnectionFactory */
     private final Provider<ConnectionFactory> connectionFactoryProvider =
             new Provider<ConnectionFactory>() {
@@ -274,9 +303,18 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
                 }
             };
 
+    /** An on-demand Provider for the AuthenticationCache */
+    private final Provider<AuthenticationCache> authenticationCacheProvider =
+            new Provider<AuthenticationCache>() {
+                @Override
+                public AuthenticationCache get() {
+                    return authenticationCache;
+                }
+            };
+
     /** a factory Function to build an Authenticator from an auth module config */
     private final AuthenticatorFactory toAuthenticatorFromProperties =
-            new AuthenticatorFactory(connectionFactoryProvider, cryptoServiceProvider);
+            new AuthenticatorFactory(connectionFactoryProvider, cryptoServiceProvider, authenticationCacheProvider);
 
     /** A {@link Predicate} that returns whether the auth module is enabled */
     private static final Predicate<JsonValue> enabledAuthModules =
@@ -521,6 +559,7 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
             throws AuthenticationException, IdentityProviderServiceException {
         logger.info("Activating Authentication Service with configuration {}", context.getProperties());
         config = enhancedConfig.getConfigurationAsJson(context);
+        startAuthenticationCache(AuthenticationCache.fromConfig(config.get(AuthenticationCache.CONFIG_KEY)));
         identityProviderConfigChanged();
         logger.debug("OpenIDM Config for Authentication {} is activated.", config.get(Constants.SERVICE_PID));
     }
@@ -535,6 +574,7 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         logger.debug("OpenIDM Config for Authentication {} is deactivated.", config.get(Constants.SERVICE_PID));
         config = null;
         authenticators.clear();
+        startAuthenticationCache(null);
 
         // remove CAF filter from CHF filter wrapper
         if (authFilterWrapper != null) {
@@ -546,6 +586,31 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         }
     }
 
+    /**
+     * Replaces the authentication cache, registering the new one for invalidation on user changes.
+     *
+     * @param cache the new authentication cache, or null to stop caching authentications
+     */
+    private synchronized void startAuthenticationCache(AuthenticationCache cache) {
+        if (authenticationCache != null) {
+            if (routerFilterRegistration != null) {
+                routerFilterRegistration.removeFilter(authenticationCache.asFilter());
+            }
+            authenticationCache.unregisterMBean();
+            authenticationCache.clear();
+        }
+        authenticationCache = cache;
+        if (cache != null) {
+            if (routerFilterRegistration != null) {
+                routerFilterRegistration.addFilter(cache.asFilter());
+            } else {
+                logger.warn("No router filter registration available, cached authentications will not be "
+                        + "invalidated when users change");
+            }
+            cache.registerMBean();
+        }
+    }
+
     /**
      * Configures the commons Authentication Filter with the given configuration.
      *
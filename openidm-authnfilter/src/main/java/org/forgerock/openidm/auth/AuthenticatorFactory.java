@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2015 ForgeRock AS.
- * Portions copyright 2025 3A Systems LLC.
+ * Portions copyright 2025-2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.auth;
@@ -44,11 +44,19 @@ public class AuthenticatorFactory implements Function<JsonValue, Authenticator>
 
     private final Provider<ConnectionFactory> connectionFactoryProvider;
     private final Provider<CryptoService> cryptoServiceProvider;
+    private final Provider<AuthenticationCache> authenticationCacheProvider;
 
     public AuthenticatorFactory(final Provider<ConnectionFactory> connectionFactoryProvider,
             final Provider<CryptoService> cryptoServiceProvider) {
+        this(connectionFactoryProvider, cryptoServiceProvider, null);
+    }
+
+    AuthenticatorFactory(final Provider<ConnectionFactory> connectionFactoryProvider,
+            final Provider<CryptoService> cryptoServiceProvider,
+            final Provider<AuthenticationCache> authenticationCacheProvider) {
         this.connectionFactoryProvider = connectionFactoryProvider;
         this.cryptoServiceProvider = cryptoServiceProvider;
+        this.authenticationCacheProvider = authenticationCacheProvider;
     }
 
     /**
@@ -62,6 +70,7 @@ public class AuthenticatorFactory implements Function<JsonValue, Authenticator>
     public Authenticator apply(JsonValue jsonValue) {
         if (!jsonValue.get(QUERY_ID).isNull()) {
             return new ResourceQueryAuthenticator(cryptoServiceProvider, connectionFactoryProvider,
+                    authenticationCacheProvider,
                     jsonValue.get(QUERY_ON_RESOURCE).required().asString(),
                     jsonValue.get(QUERY_ID).required().asString(),
                     jsonValue.get(PROPERTY_MAPPING).get(AUTHENTICATION_ID).required().asString(),
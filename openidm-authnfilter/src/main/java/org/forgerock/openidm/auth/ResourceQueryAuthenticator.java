@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2015 ForgeRock AS.
- * Portions copyright 2024-2025 3A Systems LLC.
+ * Portions copyright 2024-2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.auth;
@@ -30,6 +30,9 @@ import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.services.context.Context;
 import org.forgerock.openidm.crypto.CryptoService;
+import org.forgerock.openidm.smartevent.EventEntry;
+import org.forgerock.openidm.smartevent.Name;
+import org.forgerock.openidm.smartevent.Publisher;
 import org.forgerock.util.Reject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,12 +43,21 @@ import jakarta.inject.Provider;
 
 /**
  * Authenticator class which performs authentication against managed/internal user tables using a queryId to fetch
- * the complete local user data and validates the password locally.
+ * the complete local user data and validates the password locally. Successful authentications are remembered in the
+ * {@link AuthenticationCache}, if one is enabled.
  */
 class ResourceQueryAuthenticator implements Authenticator {
 
     private static final Logger logger = LoggerFactory.getLogger(ResourceQueryAuthenticator.class);
 
+    /** Event measuring an authentication that queried the user and verified the credentials */
+    private static final Name AUTHENTICATE_EVENT =
+            Name.get("openidm/internal/authentication/resourceQuery/authenticate");
+
+    /** Event measuring an authentication answered from the authentication cache */
+    private static final Name AUTHENTICATE_CACHED_EVENT =
+            Name.get("openidm/internal/authentication/resourceQuery/authenticate/cached");
+
     private final Provider<CryptoService> cryptoServiceProvider;
     private final Provider<ConnectionFactory> connectionFactoryProvider;
     private final String queryOnResource;
@@ -53,6 +65,7 @@ class ResourceQueryAuthenticator implements Authenticator {
     private final String userRolesProperty;
     private final String authenticationIdProperty;
     private final String userCredentialProperty;
+    private final Provider<AuthenticationCache> authenticationCacheProvider;
 
     /**
      * Constructs an instance of the ResourceQueryAuthenticator.
@@ -66,6 +79,24 @@ class ResourceQueryAuthenticator implements Authenticator {
      */
     public ResourceQueryAuthenticator(Provider<CryptoService> cryptoService, Provider<ConnectionFactory> connectionFactory,
             String queryOnResource, String queryId,  String authenticationIdProperty, String userCredentialProperty, String userRolesProperty) {
+        this(cryptoService, connectionFactory, null, queryOnResource, queryId, authenticationIdProperty,
+                userCredentialProperty, userRolesProperty);
+    }
+
+    /**
+     * Constructs an instance of the ResourceQueryAuthenticator which caches successful authentications.
+     * @param cryptoService The CryptoService.
+     * @param connectionFactory The ConnectionFactory.
+     * @param authenticationCache The AuthenticationCache, providing null if caching is not enabled.
+     * @param queryOnResource The query resource.
+     * @param queryId The query id.
+     * @param authenticationIdProperty The user id property.
+     * @param userCredentialProperty The user credential property.
+     * @param userRolesProperty The property for reading authorization roles
+     */
+    public ResourceQueryAuthenticator(Provider<CryptoService> cryptoService, Provider<ConnectionFactory> connectionFactory,
+            Provider<AuthenticationCache> authenticationCache, String queryOnResource, String queryId,
+            String authenticationIdProperty, String userCredentialProperty, String userRolesProperty) {
 
         Reject.ifNull(cryptoService, "CryptoService is null");
         Reject.ifNull(connectionFactory, "ConnectionFactory is null");
@@ -81,6 +112,7 @@ class ResourceQueryAuthenticator implements Authenticator {
         this.authenticationIdProperty = authenticationIdProperty;
         this.userCredentialProperty = userCredentialProperty;
         this.userRolesProperty = userRolesProperty;
+        this.authenticationCacheProvider = authenticationCache;
     }
 
     /**
@@ -101,6 +133,44 @@ class ResourceQueryAuthenticator implements Authenticator {
             throw new InternalServerErrorException("No CryptoService available");
         }
 
+        final AuthenticationCache cache = authenticationCacheProvider != null
+                ? authenticationCacheProvider.get()
+                : null;
+        if (cache == null) {
+            final EventEntry measure = Publisher.start(AUTHENTICATE_EVENT, username, context);
+            try {
+                return authenticate(cryptoService, username, password, context);
+            } finally {
+                measure.end();
+            }
+        }
+
+        // a lookup that misses is not ended, which leaves it out of the statistics
+        final EventEntry lookup = Publisher.start(AUTHENTICATE_CACHED_EVENT, username, context);
+        cache.watch(queryOnResource);
+        final String key = cache.key(queryOnResource, queryId, username, password);
+        final ResourceResponse cached = cache.get(key);
+        if (cached != null) {
+            logger.debug("Authentication succeeded for {} from cache", username);
+            lookup.end();
+            return AuthenticatorResult.authenticationSuccess(cached);
+        }
+
+        final EventEntry measure = Publisher.start(AUTHENTICATE_EVENT, username, context);
+        try {
+            final long generation = cache.generation();
+            final AuthenticatorResult result = authenticate(cryptoService, username, password, context);
+            if (result.isAuthenticated()) {
+                cache.put(key, generation, queryOnResource, result.getResource());
+            }
+            return result;
+        } finally {
+            measure.end();
+        }
+    }
+
+    private AuthenticatorResult authenticate(CryptoService cryptoService, String username, String password,
+            Context context) throws ResourceException {
         final ResourceResponse resource = getResource(username, context);
         if (resource != null) {
             if (cryptoService.isHashed(resource.getContent().get(userCredentialProperty))) {
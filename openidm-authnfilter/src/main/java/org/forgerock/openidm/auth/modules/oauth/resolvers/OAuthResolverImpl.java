@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.auth.modules.oauth.resolvers;
 
@@ -19,15 +20,19 @@ import static org.forgerock.json.JsonValue.json;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import org.forgerock.http.Client;
 import org.forgerock.http.header.GenericHeader;
 import org.forgerock.http.protocol.Request;
 import org.forgerock.http.protocol.Response;
+import org.forgerock.http.util.Json;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.auth.modules.oauth.exceptions.OAuthVerificationException;
-import org.forgerock.util.Function;
-import org.forgerock.util.promise.NeverThrowsException;
+import org.forgerock.openidm.auth.modules.oauth.resolvers.OAuthTokenCache.Validation;
+import org.forgerock.util.encode.Base64url;
 
 /**
  * Implementation for OAuth 2.0 resolvers.
@@ -38,6 +43,7 @@ public class OAuthResolverImpl implements OAuthResolver {
     private final Client httpClient;
     private final String resolver;
     private final String subjectKey;
+    private final OAuthTokenCache tokenCache;
 
     private String subject;
 
@@ -46,6 +52,7 @@ public class OAuthResolverImpl implements OAuthResolver {
         this.resolver = resolver;
         this.httpClient = httpClient;
         this.subjectKey = resolverConfig.get(AUTHENTICATION_ID).asString();
+        this.tokenCache = OAuthTokenCache.fromConfig(resolverConfig.get(OAuthTokenCache.CONFIG_KEY));
     }
 
     /**
@@ -57,18 +64,29 @@ public class OAuthResolverImpl implements OAuthResolver {
      * the subject that we will use to query a known profile later to determine
      * if there is an account associated with that subject.
      *
+     * If a token cache is configured, the outcome of a recent validation of
+     * the same token is reused instead.
+     *
      * @param accessToken access token to verify.
      * @throws OAuthVerificationException if the accessToken is unable to be verified
      */
     @Override
     public void validateIdentity(final String accessToken) throws OAuthVerificationException {
-        final JsonValue response = sendGetRequest(
-                URI.create(config.get(USER_INFO_ENDPOINT).asString()), accessToken);
-        if (response.get(this.subjectKey) != null) {
-            this.subject = response.get(this.subjectKey).asString();
+        final Validation validation;
+        if (tokenCache != null) {
+            validation = tokenCache.get(accessToken, new Callable<Validation>() {
+                @Override
+                public Validation call() throws OAuthVerificationException {
+                    return requestValidation(accessToken);
+                }
+            });
         } else {
+            validation = requestValidation(accessToken);
+        }
+        if (!validation.isValid()) {
             throw new OAuthVerificationException("Unable to validate identity.");
         }
+        this.subject = validation.getSubject();
     }
 
     @Override
@@ -81,31 +99,62 @@ public class OAuthResolverImpl implements OAuthResolver {
         return this.resolver;
     }
 
-    private JsonValue sendGetRequest(URI uri, String access_token) {
+    /**
+     * Returns the token cache of this resolver.
+     *
+     * @return the token cache, or null if validated tokens are not cached
+     */
+    public OAuthTokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    /**
+     * Validates the access token against the user info endpoint. A token the Idp rejects, or whose user profile
+     * lacks the subject, is invalid; failing to reach the Idp is an error, so that it is not cached as such.
+     */
+    private Validation requestValidation(final String accessToken) throws OAuthVerificationException {
         final Request request = new Request()
                 .setMethod("GET")
-                .setUri(uri);
-        request.getHeaders().put(new GenericHeader("Authorization", "Bearer " + access_token));
-        return httpClient
-                .send(request)
-                .then(
-                        new Function<Response, JsonValue, NeverThrowsException>() {
-                            @Override
-                            public JsonValue apply(Response response) {
-                                try {
-                                    return json(response.getEntity().getJson());
-                                } catch (IOException e) {
-                                    throw new IllegalStateException("Unable to perform request", e);
-                                }
-                            }
-                        },
-                        new Function<NeverThrowsException, JsonValue, NeverThrowsException>() {
-                            @Override
-                            public JsonValue apply(NeverThrowsException e) {
-                                // return null on Exceptions
-                                return null;
-                            }
-                        })
-                .getOrThrowUninterruptibly();
+                .setUri(URI.create(config.get(USER_INFO_ENDPOINT).asString()));
+        request.getHeaders().put(new GenericHeader("Authorization", "Bearer " + accessToken));
+        try (final Response response = httpClient.send(request).getOrThrowUninterruptibly()) {
+            if (response.getStatus().isClientError()) {
+                return Validation.invalid();
+            }
+            if (!response.getStatus().isSuccessful()) {
+                throw new OAuthVerificationException("Unable to reach the user info endpoint: "
+                        + response.getStatus(), response.getCause());
+            }
+            final JsonValue userInfo = json(response.getEntity().getJson());
+            final String subject = userInfo.get(subjectKey).asString();
+            return subject != null
+                    ? Validation.valid(subject, expiresAt(userInfo, accessToken))
+                    : Validation.invalid();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new OAuthVerificationException("Unable to read the user info", e);
+        }
+    }
+
+    /**
+     * Gets the expiry of the access token, from the user profile if it has an "exp" claim, or from the token
+     * itself if it is a JWT.
+     *
+     * @return the time, in milliseconds since the epoch, the token expires, or null if unknown
+     */
+    private static Long expiresAt(final JsonValue userInfo, final String accessToken) {
+        JsonValue exp = userInfo.get("exp");
+        if (exp.isNull()) {
+            final String[] parts = accessToken.split("\\.");
+            if (parts.length == 3) {
+                try {
+                    exp = json(Json.readJson(new String(Base64url.decode(parts[1]), StandardCharsets.UTF_8)))
+                            .get("exp");
+                } catch (IOException | RuntimeException e) {
+                    // not a JWT after all
+                    return null;
+                }
+            }
+        }
+        return exp.isNumber() ? TimeUnit.SECONDS.toMillis(exp.asLong()) : null;
     }
 }
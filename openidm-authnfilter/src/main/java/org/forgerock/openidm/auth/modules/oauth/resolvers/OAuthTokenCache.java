@@ -0,0 +1,249 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.auth.modules.oauth.resolvers;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.openidm.auth.modules.oauth.exceptions.OAuthVerificationException;
+import org.forgerock.util.encode.Base64;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Caches the outcome of access token validations, so that a bearer token presented on every request is only
+ * sent to the identity provider once in a while.
+ *
+ * A valid token is cached until it expires, as far as its expiry is known, and never longer than the configured
+ * maximum time to live. A token the identity provider rejected is cached for the shorter negative time to live.
+ * Concurrent validations of the same token are coalesced into a single request to the identity provider, and
+ * failures to reach the identity provider are not cached. Tokens are only held as digests.
+ */
+public class OAuthTokenCache {
+
+    /** Lookup key for the token cache configuration of a resolver. */
+    public static final String CONFIG_KEY = "tokenCache";
+
+    /** Whether validated tokens are cached; false by default. */
+    static final String CONFIG_ENABLED = "enabled";
+
+    /** The maximum number of cached tokens. */
+    static final String CONFIG_MAX_ENTRIES = "maxEntries";
+
+    /** The maximum time, in seconds, a valid token is cached. */
+    static final String CONFIG_MAX_TTL = "maxTtl";
+
+    /** The time, in seconds, an invalid token is cached. */
+    static final String CONFIG_NEGATIVE_TTL = "negativeTtl";
+
+    private static final long DEFAULT_MAX_ENTRIES = 10000;
+    private static final long DEFAULT_MAX_TTL = 300;
+    private static final long DEFAULT_NEGATIVE_TTL = 30;
+
+    private final Cache<String, Entry> cache;
+    private final long maxTtl;
+    private final long negativeTtl;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructs a token cache.
+     *
+     * @param maxEntries the maximum number of cached tokens
+     * @param maxTtl the maximum time, in milliseconds, a valid token is cached
+     * @param negativeTtl the time, in milliseconds, an invalid token is cached
+     */
+    OAuthTokenCache(final long maxEntries, final long maxTtl, final long negativeTtl) {
+        this.maxTtl = maxTtl;
+        this.negativeTtl = negativeTtl;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Math.max(maxTtl, negativeTtl), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Creates the token cache described by the resolver configuration.
+     *
+     * @param config the {@link #CONFIG_KEY} configuration of a resolver
+     * @return the token cache, or null if tokens are not to be cached
+     */
+    public static OAuthTokenCache fromConfig(final JsonValue config) {
+        if (config.isNull() || !config.get(CONFIG_ENABLED).defaultTo(false).asBoolean()) {
+            return null;
+        }
+        return new OAuthTokenCache(
+                config.get(CONFIG_MAX_ENTRIES).defaultTo(DEFAULT_MAX_ENTRIES).asLong(),
+                TimeUnit.SECONDS.toMillis(config.get(CONFIG_MAX_TTL).defaultTo(DEFAULT_MAX_TTL).asLong()),
+                TimeUnit.SECONDS.toMillis(config.get(CONFIG_NEGATIVE_TTL).defaultTo(DEFAULT_NEGATIVE_TTL).asLong()));
+    }
+
+    /**
+     * Returns the cached validation of the access token, or validates it if there is none. Concurrent callers for
+     * the same token wait for a single validation.
+     *
+     * @param accessToken the access token
+     * @param validation validates the access token against the identity provider
+     * @return the validation of the access token
+     * @throws OAuthVerificationException if the access token could not be validated
+     */
+    Validation get(final String accessToken, final Callable<Validation> validation)
+            throws OAuthVerificationException {
+        final String key = digest(accessToken);
+        final boolean[] loaded = { false };
+        final Callable<Entry> loader = new Callable<Entry>() {
+            @Override
+            public Entry call() throws Exception {
+                loaded[0] = true;
+                misses.incrementAndGet();
+                final Validation result = validation.call();
+                return new Entry(result, expiresAt(result));
+            }
+        };
+        try {
+            Entry entry = cache.get(key, loader);
+            if (!loaded[0] && entry.isExpired()) {
+                cache.asMap().remove(key, entry);
+                entry = cache.get(key, loader);
+            }
+            if (!loaded[0]) {
+                (entry.validation.isValid() ? hits : negativeHits).incrementAndGet();
+            }
+            return entry.validation;
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof OAuthVerificationException) {
+                throw (OAuthVerificationException) e.getCause();
+            }
+            throw new OAuthVerificationException("Unable to validate identity.", e.getCause());
+        }
+    }
+
+    private long expiresAt(final Validation validation) {
+        final long now = System.currentTimeMillis();
+        if (!validation.isValid()) {
+            return now + negativeTtl;
+        }
+        final long expiresAt = now + maxTtl;
+        return validation.expiresAt != null ? Math.min(expiresAt, validation.expiresAt) : expiresAt;
+    }
+
+    /**
+     * Gets the statistics of this cache.
+     *
+     * @return the number of cached tokens, the hits on valid and invalid tokens, the requests sent to the
+     *         identity provider, the hit rate and the evictions
+     */
+    public JsonValue getStatistics() {
+        final long hitCount = hits.get() + negativeHits.get();
+        final long requestCount = hitCount + misses.get();
+        return json(object(
+                field("size", cache.size()),
+                field("hitCount", hits.get()),
+                field("negativeHitCount", negativeHits.get()),
+                field("missCount", misses.get()),
+                field("hitRate", requestCount == 0 ? 1.0 : (double) hitCount / requestCount),
+                field("evictionCount", cache.stats().evictionCount())));
+    }
+
+    /**
+     * Removes all cached tokens.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private static String digest(final String accessToken) {
+        try {
+            return Base64.encode(MessageDigest.getInstance("SHA-256")
+                    .digest(accessToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The outcome of validating an access token against the identity provider.
+     */
+    static final class Validation {
+
+        private static final Validation INVALID = new Validation(null, null);
+
+        private final String subject;
+        private final Long expiresAt;
+
+        private Validation(final String subject, final Long expiresAt) {
+            this.subject = subject;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * A token the identity provider accepted.
+         *
+         * @param subject the subject of the token
+         * @param expiresAt the time, in milliseconds since the epoch, the token expires, or null if unknown
+         * @return the validation
+         */
+        static Validation valid(final String subject, final Long expiresAt) {
+            return new Validation(subject, expiresAt);
+        }
+
+        /**
+         * A token the identity provider rejected.
+         *
+         * @return the validation
+         */
+        static Validation invalid() {
+            return INVALID;
+        }
+
+        boolean isValid() {
+            return subject != null;
+        }
+
+        String getSubject() {
+            return subject;
+        }
+    }
+
+    private static final class Entry {
+        private final Validation validation;
+        private final long expiresAt;
+
+        private Entry(final Validation validation, final long expiresAt) {
+            this.validation = validation;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
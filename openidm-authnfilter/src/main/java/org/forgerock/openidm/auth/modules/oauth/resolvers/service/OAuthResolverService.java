@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.auth.modules.oauth.resolvers.service;
 
@@ -51,4 +52,12 @@ public interface OAuthResolverService {
      * @return true if the resolver is configured correctly; false otherwise
      */
     boolean configureOAuthResolver(JsonValue config);
+
+    /**
+     * Returns the token cache statistics of the configured resolvers, keyed by resolver name. Resolvers that do
+     * not cache validated tokens are left out.
+     *
+     * @return the token cache statistics
+     */
+    JsonValue getTokenCacheStatistics();
 }
@@ -12,11 +12,14 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.auth.modules.oauth.resolvers.service;
 
 import static org.forgerock.caf.authentication.framework.AuthenticationFramework.LOG;
 import static org.forgerock.http.handler.HttpClientHandler.OPTION_LOADER;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -28,6 +31,7 @@ import org.forgerock.http.handler.HttpClientHandler;
 import org.forgerock.http.spi.Loader;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.auth.modules.oauth.resolvers.OAuthResolverImpl;
+import org.forgerock.openidm.auth.modules.oauth.resolvers.OAuthTokenCache;
 import org.forgerock.util.Options;
 
 /**
@@ -62,6 +66,18 @@ public class OAuthResolverServiceImpl implements OAuthResolverService {
         return true;
     }
 
+    @Override
+    public JsonValue getTokenCacheStatistics() {
+        final JsonValue statistics = json(object());
+        for (final OAuthResolverImpl resolver : oauthResolvers.values()) {
+            final OAuthTokenCache tokenCache = resolver.getTokenCache();
+            if (tokenCache != null) {
+                statistics.put(resolver.getName(), tokenCache.getStatistics().getObject());
+            }
+        }
+        return statistics;
+    }
+
     /** HTTP Client used for OAuth Http Requests.
      *
      * @return an instance of {@link Client}
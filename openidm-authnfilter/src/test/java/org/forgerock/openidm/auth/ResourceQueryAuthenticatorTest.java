@@ -0,0 +1,163 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.json.resource.Requests.newUpdateRequest;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.forgerock.util.promise.Promises.newResultPromise;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+
+import jakarta.inject.Provider;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.crypto.CryptoService;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ResourceQueryAuthenticatorTest {
+
+    private static final String USERS = "managed/user";
+
+    private Connection connection;
+    private AuthenticationCache cache;
+    private ResourceQueryAuthenticator authenticator;
+
+    @BeforeMethod
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        connection = mock(Connection.class);
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(Collection.class)))
+                .thenAnswer(new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) {
+                        Collection<ResourceResponse> results = (Collection<ResourceResponse>) invocation.getArguments()[2];
+                        results.add(newResourceResponse("bjensen", "1", json(object(
+                                field("_id", "bjensen"),
+                                field("userName", "bjensen"),
+                                field("password", "hashed")))));
+                        return newQueryResponse();
+                    }
+                });
+        final ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        final CryptoService cryptoService = mock(CryptoService.class);
+        when(cryptoService.isHashed(any(JsonValue.class))).thenReturn(true);
+        when(cryptoService.matches(anyString(), any(JsonValue.class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return "Passw0rd".equals(invocation.getArguments()[0]);
+            }
+        });
+
+        cache = new AuthenticationCache(100, 60);
+        authenticator = new ResourceQueryAuthenticator(provider(cryptoService), provider(connectionFactory),
+                provider(cache), USERS, "credential-query", "username", "password", null);
+    }
+
+    @Test
+    public void testCachedAuthenticationSkipsQuery() throws Exception {
+        assertThat(authenticator.authenticate("bjensen", "Passw0rd", new RootContext()).isAuthenticated()).isTrue();
+        final Authenticator.AuthenticatorResult cached =
+                authenticator.authenticate("bjensen", "Passw0rd", new RootContext());
+
+        assertThat(cached.isAuthenticated()).isTrue();
+        assertThat(cached.getResource().getId()).isEqualTo("bjensen");
+        verify(connection, times(1)).query(any(Context.class), any(QueryRequest.class), any(Collection.class));
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWrongPasswordIsNotCached() throws Exception {
+        authenticator.authenticate("bjensen", "Passw0rd", new RootContext());
+        assertThat(authenticator.authenticate("bjensen", "wrong", new RootContext()).isAuthenticated()).isFalse();
+        assertThat(authenticator.authenticate("bjensen", "wrong", new RootContext()).isAuthenticated()).isFalse();
+
+        verify(connection, times(3)).query(any(Context.class), any(QueryRequest.class), any(Collection.class));
+    }
+
+    @Test
+    public void testUserChangeInvalidatesCache() throws Exception {
+        authenticator.authenticate("bjensen", "Passw0rd", new RootContext());
+
+        final RequestHandler handler = mock(RequestHandler.class);
+        when(handler.handleUpdate(any(Context.class), any(UpdateRequest.class)))
+                .thenReturn(newResultPromise(newResourceResponse("bjensen", "2", json(object()))));
+        when(handler.handleRead(any(Context.class), any(ReadRequest.class)))
+                .thenReturn(newResultPromise(newResourceResponse("bjensen", "1", json(object()))));
+
+        // an update of another user leaves the cache as is
+        cache.asFilter().filterUpdate(new RootContext(),
+                newUpdateRequest(USERS + "/scarter", json(object())), handler);
+        // a read of the user leaves the cache as is
+        cache.asFilter().filterRead(new RootContext(), newReadRequest(USERS + "/bjensen"), handler);
+        assertThat(cache.getSize()).isEqualTo(1);
+
+        cache.asFilter().filterUpdate(new RootContext(),
+                newUpdateRequest(USERS + "/bjensen", json(object())), handler);
+        assertThat(cache.getSize()).isEqualTo(0);
+        assertThat(cache.getInvalidationCount()).isEqualTo(1);
+
+        authenticator.authenticate("bjensen", "Passw0rd", new RootContext());
+        verify(connection, times(2)).query(any(Context.class), any(QueryRequest.class), any(Collection.class));
+    }
+
+    @Test
+    public void testVerificationRacingAnInvalidationIsNotCached() throws Exception {
+        final long generation = cache.generation();
+        cache.watch(USERS);
+        cache.invalidate(ResourcePath.valueOf(USERS + "/bjensen"));
+
+        final String key = cache.key(USERS, "credential-query", "bjensen", "Passw0rd");
+        cache.put(key, generation, USERS, newResourceResponse("bjensen", "1", json(object())));
+
+        assertThat(cache.get(key)).isNull();
+    }
+
+    private static <T> Provider<T> provider(final T value) {
+        return new Provider<T>() {
+            @Override
+            public T get() {
+                return value;
+            }
+        };
+    }
+}
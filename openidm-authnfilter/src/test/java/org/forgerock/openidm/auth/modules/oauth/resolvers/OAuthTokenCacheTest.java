@@ -0,0 +1,146 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.auth.modules.oauth.resolvers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.openidm.auth.modules.oauth.exceptions.OAuthVerificationException;
+import org.forgerock.openidm.auth.modules.oauth.resolvers.OAuthTokenCache.Validation;
+import org.testng.annotations.Test;
+
+public class OAuthTokenCacheTest {
+
+    @Test
+    public void testDisabledByDefault() {
+        assertThat(OAuthTokenCache.fromConfig(json(null))).isNull();
+        assertThat(OAuthTokenCache.fromConfig(json(object(field("maxTtl", 60))))).isNull();
+        assertThat(OAuthTokenCache.fromConfig(json(object(field("enabled", true))))).isNotNull();
+    }
+
+    @Test
+    public void testCachesValidAndInvalidTokens() throws Exception {
+        final OAuthTokenCache cache = new OAuthTokenCache(10, 60000, 60000);
+        final CountingValidation valid = new CountingValidation(Validation.valid("bjensen", null));
+        final CountingValidation invalid = new CountingValidation(Validation.invalid());
+
+        assertThat(cache.get("good", valid).getSubject()).isEqualTo("bjensen");
+        assertThat(cache.get("good", valid).getSubject()).isEqualTo("bjensen");
+        assertThat(cache.get("bad", invalid).isValid()).isFalse();
+        assertThat(cache.get("bad", invalid).isValid()).isFalse();
+
+        assertThat(valid.calls.get()).isEqualTo(1);
+        assertThat(invalid.calls.get()).isEqualTo(1);
+        assertThat(cache.getStatistics().get("hitCount").asLong()).isEqualTo(1);
+        assertThat(cache.getStatistics().get("negativeHitCount").asLong()).isEqualTo(1);
+        assertThat(cache.getStatistics().get("missCount").asLong()).isEqualTo(2);
+    }
+
+    @Test
+    public void testExpiredTokenIsValidatedAgain() throws Exception {
+        final OAuthTokenCache cache = new OAuthTokenCache(10, 60000, 60000);
+        final CountingValidation expired =
+                new CountingValidation(Validation.valid("bjensen", System.currentTimeMillis() - 1));
+
+        cache.get("token", expired);
+        cache.get("token", expired);
+
+        assertThat(expired.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFailureIsNotCached() throws Exception {
+        final OAuthTokenCache cache = new OAuthTokenCache(10, 60000, 60000);
+        final AtomicInteger calls = new AtomicInteger();
+        final Callable<Validation> unreachable = new Callable<Validation>() {
+            @Override
+            public Validation call() throws Exception {
+                calls.incrementAndGet();
+                throw new OAuthVerificationException("Unable to reach the user info endpoint");
+            }
+        };
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.get("token", unreachable);
+            } catch (OAuthVerificationException e) {
+                assertThat(e).hasMessageContaining("user info endpoint");
+            }
+        }
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConcurrentValidationsAreCoalesced() throws Exception {
+        final OAuthTokenCache cache = new OAuthTokenCache(10, 60000, 60000);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final Callable<Validation> slow = new Callable<Validation>() {
+            @Override
+            public Validation call() throws Exception {
+                calls.incrementAndGet();
+                release.await(5, TimeUnit.SECONDS);
+                return Validation.valid("bjensen", null);
+            }
+        };
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Callable<Validation> lookup = new Callable<Validation>() {
+                @Override
+                public Validation call() throws Exception {
+                    return cache.get("token", slow);
+                }
+            };
+            final Future<?>[] lookups = new Future<?>[4];
+            for (int i = 0; i < lookups.length; i++) {
+                lookups[i] = executor.submit(lookup);
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<?> result : lookups) {
+                assertThat(((Validation) result.get(5, TimeUnit.SECONDS)).getSubject()).isEqualTo("bjensen");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    private static final class CountingValidation implements Callable<Validation> {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final Validation validation;
+
+        private CountingValidation(final Validation validation) {
+            this.validation = validation;
+        }
+
+        @Override
+        public Validation call() {
+            calls.incrementAndGet();
+            return validation;
+        }
+    }
+}
@@ -61,6 +61,7 @@ import org.forgerock.openidm.smartevent.Publisher;
 import org.forgerock.services.context.Context;
 import org.forgerock.util.AsyncFunction;
 import org.forgerock.util.Function;
+import org.forgerock.util.promise.NeverThrowsException;
 import org.forgerock.util.promise.Promise;
 import org.forgerock.util.query.QueryFilter;
 import org.forgerock.util.query.QueryFilterVisitor;
@@ -141,6 +142,18 @@ class CollectionRelationshipProvider extends RelationshipProvider implements Col
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected JsonValue toRelationshipValue(final String resourceId, final List<ResourceResponse> relationships) {
+        final Function<ResourceResponse, ResourceResponse, NeverThrowsException> format =
+                formatResponseNoException(resourceContainer.child(resourceId).toString());
+        final JsonValue value = json(array());
+        for (ResourceResponse relationship : relationships) {
+            value.add(format.apply(relationship).getContent().getObject());
+        }
+        return value;
+    }
+
     @Override
     public Promise<JsonValue, ResourceException> setRelationshipValueForResource(final boolean clearExisting, Context context, String resourceId,
             JsonValue relationships) {
@@ -390,7 +403,9 @@ class CollectionRelationshipProvider extends RelationshipProvider implements Col
                 queryRequest.setQueryFilter(filter);
             }
             
-            // Issue the query and handle the response
+            // Issue the query and handle the response, expanding the relationships in batches
+            final ExpandingQueryResourceHandler expandingHandler = new ExpandingQueryResourceHandler(context, request,
+                    handler);
             final Promise<QueryResponse, ResourceException> response = getConnection().queryAsync(context, queryRequest, 
                     new QueryResourceHandler() {
                 @Override
@@ -402,13 +417,13 @@ class CollectionRelationshipProvider extends RelationshipProvider implements Col
                         filteredResourceResponse.addField(FIELD_ID);
                         return handler.handleResource(filteredResourceResponse);
                     }
-                    try {
-                        filteredResourceResponse = 
-                                expandFields(context, request, filteredResourceResponse).getOrThrow();
-                    } catch (Exception e) {
-                        logger.error("Error expanding resource: " + e.getMessage(), e);
-                    }
-                    return handler.handleResource(filteredResourceResponse);
+                    return expandingHandler.handleResource(filteredResourceResponse);
+                }
+            }).then(new Function<QueryResponse, QueryResponse, ResourceException>() {
+                @Override
+                public QueryResponse apply(QueryResponse queryResponse) {
+                    expandingHandler.flush();
+                    return queryResponse;
                 }
             });
             
@@ -433,6 +448,50 @@ class CollectionRelationshipProvider extends RelationshipProvider implements Col
         }
     }
 
+    /**
+     * Expands the relationships of the query results in batches of {@link ReferencedResources#BATCH_SIZE}, passing
+     * them on in order once expanded.
+     */
+    private class ExpandingQueryResourceHandler implements QueryResourceHandler {
+        private final Context context;
+        private final QueryRequest request;
+        private final QueryResourceHandler handler;
+        private final List<ResourceResponse> pending = new ArrayList<>();
+        private boolean more = true;
+
+        ExpandingQueryResourceHandler(Context context, QueryRequest request, QueryResourceHandler handler) {
+            this.context = context;
+            this.request = request;
+            this.handler = handler;
+        }
+
+        @Override
+        public boolean handleResource(ResourceResponse resource) {
+            pending.add(resource);
+            if (pending.size() >= ReferencedResources.BATCH_SIZE) {
+                flush();
+            }
+            return more;
+        }
+
+        /**
+         * Expands the pending results and passes them on.
+         */
+        void flush() {
+            try {
+                expandFields(context, request, pending);
+            } catch (Exception e) {
+                logger.error("Error expanding resources: " + e.getMessage(), e);
+            }
+            for (ResourceResponse resource : pending) {
+                if (more) {
+                    more = handler.handleResource(resource);
+                }
+            }
+            pending.clear();
+        }
+    }
+
     static QueryFilter<JsonPointer> asRelationshipQueryFilter(Boolean isReverse, QueryFilter<JsonPointer> filter) {
         return filter.accept(VISITOR, isReverse);
     }
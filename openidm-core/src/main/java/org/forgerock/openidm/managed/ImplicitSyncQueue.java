@@ -0,0 +1,610 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.CountPolicy;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.core.ServerConstants;
+import org.forgerock.openidm.sync.impl.SynchronizationService.SyncServiceAction;
+import org.forgerock.openidm.util.ContextUtil;
+import org.forgerock.services.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A durable queue of managed object changes to synchronize, held in the repository and drained by worker threads
+ * on every node of the cluster.
+ * <p>
+ * The queue holds one entry per managed object. A change to an object without an entry creates one; a change to an
+ * object with a pending entry is merged into it, so that repeated updates are synchronized once. An entry is
+ * claimed by one node at a time, by an optimistic update of its revision, and changes made to the object while it
+ * is being synchronized are held in the entry until it completes, keeping the changes to one object in order.
+ * <p>
+ * Entries that fail to synchronize are put back to be retried after a delay, up to a maximum number of attempts,
+ * before the onSync hook is told of the failure. Entries whose synchronization failed unexpectedly are put back too.
+ * Entries claimed by a node that failed are put back by {@link #releaseInstance(String)}, and those claimed by this
+ * node before it stopped are put back when it starts.
+ */
+class ImplicitSyncQueue implements ImplicitSyncQueueMBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImplicitSyncQueue.class);
+
+    /**
+     * The repository container holding the queued changes.
+     */
+    static final String QUEUE_CONTAINER = "repo/synchronisation/syncQueue";
+
+    static final String STATE_PENDING = "PENDING";
+    static final String STATE_ACTIVE = "ACTIVE";
+
+    static final String RESOURCE_CONTAINER = "resourceContainer";
+    static final String RESOURCE_ID = "resourceId";
+    static final String ACTION = "action";
+    static final String OLD_VALUE = "oldValue";
+    static final String NEW_VALUE = "newValue";
+    static final String QUEUED = "queued";
+    static final String DUE = "due";
+    static final String STATE = "state";
+    static final String INSTANCE_ID = "instanceId";
+    static final String ATTEMPTS = "attempts";
+    static final String NEXT = "next";
+
+    private static final String MBEAN_NAME = "org.forgerock.openidm.managed:type=ImplicitSyncQueue";
+
+    /** How often the queue depth and lag are counted, in milliseconds */
+    private static final long STATS_INTERVAL = 30000;
+
+    /**
+     * Looks up the managed object set to synchronize a queued change with.
+     */
+    interface ObjectSets {
+        /**
+         * @param resourceContainer the managed object path, such as managed/user
+         * @return the managed object set, or null if there is none
+         */
+        ManagedObjectSet get(String resourceContainer);
+    }
+
+    private final ConnectionFactory connectionFactory;
+    private final ObjectSets objectSets;
+    private final String instanceId;
+    private final int workerCount;
+    private final int batchSize;
+    private final long pollInterval;
+    private final int maxRetries;
+    private final long retryInterval;
+
+    private ScheduledExecutorService poller;
+    private ExecutorService workers;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong synced = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private volatile long depth = -1;
+    private volatile long lag = -1;
+    private long lastCounted = 0;
+
+    /**
+     * Constructs a queue from the {@code syncQueue} configuration of the managed objects.
+     *
+     * @param connectionFactory the connection factory to access the repository and sync service with
+     * @param objectSets the managed object sets to synchronize the queued changes with
+     * @param instanceId the instance id of this node
+     * @param config the queue configuration
+     */
+    ImplicitSyncQueue(ConnectionFactory connectionFactory, ObjectSets objectSets, String instanceId,
+            JsonValue config) {
+        this.connectionFactory = connectionFactory;
+        this.objectSets = objectSets;
+        this.instanceId = instanceId;
+        this.workerCount = config.get("workers").defaultTo(4).asInteger();
+        this.batchSize = config.get("batchSize").defaultTo(100).asInteger();
+        this.pollInterval = config.get("pollInterval").defaultTo(1000).asLong();
+        this.maxRetries = config.get("maxRetries").defaultTo(5).asInteger();
+        this.retryInterval = config.get("retryInterval").defaultTo(30000).asLong();
+    }
+
+    /**
+     * Puts back the entries claimed by this node before it last stopped, and starts draining the queue.
+     */
+    synchronized void start() {
+        try {
+            releaseInstance(instanceId);
+        } catch (ResourceException e) {
+            logger.warn("Failed to release the implicit sync queue entries of instance {}", instanceId, e);
+        }
+        workers = Executors.newFixedThreadPool(workerCount, threadFactory("implicit-sync-worker-"));
+        poller = Executors.newSingleThreadScheduledExecutor(threadFactory("implicit-sync-poller-"));
+        poller.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                poll();
+            }
+        }, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+        registerMBean();
+        logger.info("Implicit sync queue started with {} workers", workerCount);
+    }
+
+    /**
+     * Stops draining the queue, waiting for the entries being synchronized. Changes are still queued while stopped.
+     */
+    synchronized void stop() {
+        if (poller == null) {
+            return;
+        }
+        unregisterMBean();
+        poller.shutdown();
+        try {
+            poller.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdown();
+        poller = null;
+        workers = null;
+        logger.info("Implicit sync queue stopped");
+    }
+
+    /**
+     * Queues a change to a managed object, merging it with the change already queued for the object, if any.
+     *
+     * @param context the context to access the repository with
+     * @param resourceContainer the managed object path, such as managed/user
+     * @param resourceId the id of the managed object
+     * @param action the sync action for the change
+     * @param oldValue the value of the object before the change
+     * @param newValue the value of the object after the change
+     * @throws ResourceException if storing the change failed
+     */
+    void enqueue(Context context, String resourceContainer, String resourceId, SyncServiceAction action,
+            JsonValue oldValue, JsonValue newValue) throws ResourceException {
+        final String entryId = entryId(resourceContainer, resourceId);
+        final long now = System.currentTimeMillis();
+        final JsonValue change = json(object(
+                field(ACTION, action.name()),
+                field(OLD_VALUE, oldValue.getObject()),
+                field(NEW_VALUE, newValue.getObject()),
+                field(QUEUED, now)));
+        while (true) {
+            try {
+                ResourceResponse entry = read(context, entryId);
+                if (entry == null) {
+                    JsonValue content = change.copy();
+                    content.put(RESOURCE_CONTAINER, resourceContainer);
+                    content.put(RESOURCE_ID, resourceId);
+                    content.put(DUE, now);
+                    content.put(STATE, STATE_PENDING);
+                    content.put(INSTANCE_ID, null);
+                    content.put(ATTEMPTS, 0);
+                    content.put(NEXT, null);
+                    connectionFactory.getConnection().create(context,
+                            Requests.newCreateRequest(QUEUE_CONTAINER, entryId, content));
+                    enqueued.incrementAndGet();
+                    return;
+                }
+
+                JsonValue content = entry.getContent().copy();
+                if (STATE_ACTIVE.equals(content.get(STATE).asString())) {
+                    // hold the change until the one being synchronized completes
+                    JsonValue next = content.get(NEXT);
+                    JsonValue merged = next.isNull() ? change : coalesce(next, change, false);
+                    content.put(NEXT, merged == null ? null : merged.getObject());
+                    update(context, entry, content);
+                } else {
+                    JsonValue merged = coalesce(content, change, content.get(ATTEMPTS).asInteger() > 0);
+                    if (merged == null) {
+                        delete(context, entry);
+                    } else {
+                        setChange(content, merged);
+                        update(context, entry, content);
+                    }
+                }
+                enqueued.incrementAndGet();
+                coalesced.incrementAndGet();
+                return;
+            } catch (PreconditionFailedException | NotFoundException e) {
+                logger.debug("Implicit sync queue entry for {}/{} changed concurrently, retrying",
+                        resourceContainer, resourceId);
+            }
+        }
+    }
+
+    /**
+     * Puts back the entries claimed by a node to be synchronized again.
+     *
+     * @param claimingInstanceId the instance id of the node
+     * @throws ResourceException if reading or updating the entries failed
+     */
+    void releaseInstance(String claimingInstanceId) throws ResourceException {
+        Context context = ContextUtil.createInternalContext();
+        QueryRequest request = Requests.newQueryRequest(QUEUE_CONTAINER)
+                .setQueryFilter(QueryFilters.parse(INSTANCE_ID + " eq \"" + claimingInstanceId + "\""));
+        List<ResourceResponse> claimed = new ArrayList<>();
+        connectionFactory.getConnection().query(context, request, claimed);
+        for (ResourceResponse entry : claimed) {
+            release(context, entry, claimingInstanceId, entry.getContent().get(ATTEMPTS).asInteger(),
+                    System.currentTimeMillis());
+        }
+        if (!claimed.isEmpty()) {
+            logger.info("Released {} implicit sync queue entries claimed by instance {}",
+                    claimed.size(), claimingInstanceId);
+        }
+    }
+
+    /**
+     * Claims a batch of due entries and synchronizes them, waiting for them to complete.
+     */
+    void poll() {
+        final Context context = ContextUtil.createInternalContext();
+        try {
+            countQueue(context);
+
+            QueryRequest request = Requests.newQueryRequest(QUEUE_CONTAINER)
+                    .setQueryFilter(QueryFilters.parse(STATE + " eq \"" + STATE_PENDING + "\""))
+                    .addSortKey(DUE)
+                    .setPageSize(batchSize);
+            List<ResourceResponse> pending = new ArrayList<>();
+            connectionFactory.getConnection().query(context, request, pending);
+
+            long now = System.currentTimeMillis();
+            List<Future<?>> processing = new ArrayList<>();
+            for (ResourceResponse entry : pending) {
+                if (entry.getContent().get(DUE).asLong() > now) {
+                    break;
+                }
+                final ResourceResponse claimed = claim(context, entry);
+                if (claimed != null) {
+                    processing.add(workers.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            process(context, claimed);
+                        }
+                    }));
+                }
+            }
+            for (Future<?> future : processing) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Failed to drain the implicit sync queue", e);
+        }
+    }
+
+    /**
+     * Synchronizes a claimed entry, then completes it or puts it back to be retried.
+     *
+     * @param context the context to synchronize with
+     * @param entry the claimed entry
+     */
+    private void process(Context context, ResourceResponse entry) {
+        JsonValue content = entry.getContent();
+        String resourceContainer = content.get(RESOURCE_CONTAINER).asString();
+        String resourceId = content.get(RESOURCE_ID).asString();
+        int attempts = content.get(ATTEMPTS).asInteger() + 1;
+        try {
+            ManagedObjectSet objectSet = objectSets.get(resourceContainer);
+            if (objectSet == null) {
+                logger.warn("Dropping queued change to {}/{}, no longer a managed object",
+                        resourceContainer, resourceId);
+                complete(context, entry);
+                return;
+            }
+            Boolean success = objectSet.syncQueued(context, resourceId,
+                    SyncServiceAction.valueOf(content.get(ACTION).asString()),
+                    content.get(OLD_VALUE), content.get(NEW_VALUE), attempts < maxRetries);
+            if (success == null) {
+                // the sync service is not available, try again later without counting the attempt
+                release(context, entry, instanceId, attempts - 1, System.currentTimeMillis() + retryInterval);
+            } else if (!success && attempts < maxRetries) {
+                logger.debug("Failed to sync {}/{}, retrying in {} ms", resourceContainer, resourceId,
+                        retryInterval);
+                retried.incrementAndGet();
+                release(context, entry, instanceId, attempts, System.currentTimeMillis() + retryInterval);
+            } else {
+                (success ? synced : failed).incrementAndGet();
+                complete(context, entry);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to sync queued change to {}/{}, retrying in {} ms", resourceContainer, resourceId,
+                    retryInterval, e);
+            retried.incrementAndGet();
+            try {
+                release(context, entry, instanceId, attempts, System.currentTimeMillis() + retryInterval);
+            } catch (ResourceException re) {
+                // left claimed, the entry is put back when this node restarts or is recovered
+                logger.warn("Failed to release implicit sync queue entry for {}/{}",
+                        resourceContainer, resourceId, re);
+            }
+        }
+    }
+
+    /**
+     * Claims an entry for this node.
+     *
+     * @return the claimed entry, or null if it was changed or claimed concurrently
+     */
+    private ResourceResponse claim(Context context, ResourceResponse entry) throws ResourceException {
+        JsonValue content = entry.getContent().copy();
+        content.put(STATE, STATE_ACTIVE);
+        content.put(INSTANCE_ID, instanceId);
+        try {
+            return update(context, entry, content);
+        } catch (PreconditionFailedException | NotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Removes a synchronized entry, or makes the changes held while it was synchronized pending.
+     */
+    private void complete(Context context, ResourceResponse entry) throws ResourceException {
+        while (entry != null) {
+            try {
+                JsonValue content = entry.getContent().copy();
+                JsonValue next = content.get(NEXT);
+                if (next.isNull()) {
+                    delete(context, entry);
+                } else {
+                    setChange(content, next);
+                    content.put(DUE, next.get(QUEUED).asLong());
+                    content.put(STATE, STATE_PENDING);
+                    content.put(INSTANCE_ID, null);
+                    content.put(ATTEMPTS, 0);
+                    content.put(NEXT, null);
+                    update(context, entry, content);
+                }
+                return;
+            } catch (PreconditionFailedException | NotFoundException e) {
+                // a change was held in the entry concurrently
+                entry = read(context, entry.getId());
+            }
+        }
+    }
+
+    /**
+     * Puts back a claimed entry to be synchronized again, along with the changes held while it was claimed.
+     */
+    private void release(Context context, ResourceResponse entry, String claimingInstanceId, int attempts,
+            long due) throws ResourceException {
+        while (entry != null) {
+            JsonValue content = entry.getContent().copy();
+            if (!STATE_ACTIVE.equals(content.get(STATE).asString())
+                    || !claimingInstanceId.equals(content.get(INSTANCE_ID).asString())) {
+                return;
+            }
+            JsonValue next = content.get(NEXT);
+            if (next.isNotNull()) {
+                // the entry was attempted, so the merged change is never empty
+                setChange(content, coalesce(content, next, true));
+            }
+            content.put(DUE, due);
+            content.put(STATE, STATE_PENDING);
+            content.put(INSTANCE_ID, null);
+            content.put(ATTEMPTS, attempts);
+            content.put(NEXT, null);
+            try {
+                update(context, entry, content);
+                return;
+            } catch (PreconditionFailedException | NotFoundException e) {
+                entry = read(context, entry.getId());
+            }
+        }
+    }
+
+    /**
+     * Merges two changes to the same object into one.
+     *
+     * @param first the earlier change
+     * @param second the later change
+     * @param attempted whether the earlier change may have been partially synchronized already
+     * @return the merged change, or null if the changes cancel out
+     */
+    static JsonValue coalesce(JsonValue first, JsonValue second, boolean attempted) {
+        SyncServiceAction firstAction = SyncServiceAction.valueOf(first.get(ACTION).asString());
+        SyncServiceAction secondAction = SyncServiceAction.valueOf(second.get(ACTION).asString());
+        SyncServiceAction action;
+        Object oldValue = first.get(OLD_VALUE).getObject();
+        Object newValue = second.get(NEW_VALUE).getObject();
+        if (secondAction == SyncServiceAction.notifyDelete) {
+            if (firstAction == SyncServiceAction.notifyCreate && !attempted) {
+                // created and deleted before being synchronized
+                return null;
+            }
+            action = SyncServiceAction.notifyDelete;
+            oldValue = second.get(OLD_VALUE).getObject();
+        } else if (firstAction == SyncServiceAction.notifyCreate) {
+            action = SyncServiceAction.notifyCreate;
+            oldValue = null;
+        } else if (firstAction == SyncServiceAction.notifyDelete) {
+            // deleted and created again
+            action = SyncServiceAction.notifyUpdate;
+        } else {
+            action = secondAction;
+        }
+        return json(object(
+                field(ACTION, action.name()),
+                field(OLD_VALUE, oldValue),
+                field(NEW_VALUE, newValue),
+                field(QUEUED, first.get(QUEUED).getObject())));
+    }
+
+    /**
+     * @return the id of the queue entry of a managed object
+     */
+    static String entryId(String resourceContainer, String resourceId) {
+        return UUID.nameUUIDFromBytes((resourceContainer + "/" + resourceId).getBytes(StandardCharsets.UTF_8))
+                .toString();
+    }
+
+    private static void setChange(JsonValue content, JsonValue change) {
+        content.put(ACTION, change.get(ACTION).getObject());
+        content.put(OLD_VALUE, change.get(OLD_VALUE).getObject());
+        content.put(NEW_VALUE, change.get(NEW_VALUE).getObject());
+        content.put(QUEUED, change.get(QUEUED).getObject());
+    }
+
+    private ResourceResponse read(Context context, String entryId) throws ResourceException {
+        try {
+            return connectionFactory.getConnection().read(context,
+                    Requests.newReadRequest(QUEUE_CONTAINER, entryId));
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    private ResourceResponse update(Context context, ResourceResponse entry, JsonValue content)
+            throws ResourceException {
+        UpdateRequest request = Requests.newUpdateRequest(QUEUE_CONTAINER, entry.getId(), content);
+        request.setRevision(entry.getRevision());
+        return connectionFactory.getConnection().update(context, request);
+    }
+
+    private void delete(Context context, ResourceResponse entry) throws ResourceException {
+        connectionFactory.getConnection().delete(context,
+                Requests.newDeleteRequest(QUEUE_CONTAINER, entry.getId()).setRevision(entry.getRevision()));
+    }
+
+    /**
+     * Counts the queued entries and the age of the oldest, at most every {@link #STATS_INTERVAL}.
+     */
+    private void countQueue(Context context) throws ResourceException {
+        long now = System.currentTimeMillis();
+        if (now - lastCounted < STATS_INTERVAL) {
+            return;
+        }
+        lastCounted = now;
+        // the repositories count the results of a query id with its -count query, but not those of a filter
+        QueryRequest countRequest = Requests.newQueryRequest(QUEUE_CONTAINER)
+                .setQueryId(ServerConstants.QUERY_ALL_IDS)
+                .setPageSize(1)
+                .setTotalPagedResultsPolicy(CountPolicy.EXACT);
+        QueryResponse count = connectionFactory.getConnection().query(context, countRequest,
+                new ArrayList<ResourceResponse>());
+        depth = count.getTotalPagedResults();
+
+        // read the oldest entry only
+        QueryRequest oldestRequest = Requests.newQueryRequest(QUEUE_CONTAINER)
+                .setQueryFilter(QueryFilters.parse("true"))
+                .addSortKey(QUEUED)
+                .setPageSize(1)
+                .addField(QUEUED);
+        List<ResourceResponse> oldest = new ArrayList<>();
+        connectionFactory.getConnection().query(context, oldestRequest, oldest);
+        lag = oldest.isEmpty() ? 0 : now - oldest.get(0).getContent().get(QUEUED).defaultTo(now).asLong();
+    }
+
+    private static ThreadFactory threadFactory(final String prefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            mBeanServer.registerMBean(this, new ObjectName(MBEAN_NAME));
+        } catch (Exception ex) {
+            logger.warn("Failed to register implicit sync queue MBean", ex);
+        }
+    }
+
+    private void unregisterMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            mBeanServer.unregisterMBean(new ObjectName(MBEAN_NAME));
+        } catch (Exception ex) {
+            logger.warn("Failed to unregister implicit sync queue MBean", ex);
+        }
+    }
+
+    @Override
+    public long getDepth() {
+        return depth;
+    }
+
+    @Override
+    public long getLag() {
+        return lag;
+    }
+
+    @Override
+    public long getEnqueued() {
+        return enqueued.get();
+    }
+
+    @Override
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    @Override
+    public long getSynced() {
+        return synced.get();
+    }
+
+    @Override
+    public long getFailed() {
+        return failed.get();
+    }
+
+    @Override
+    public long getRetried() {
+        return retried.get();
+    }
+}
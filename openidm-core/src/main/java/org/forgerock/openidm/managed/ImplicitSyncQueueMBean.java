@@ -0,0 +1,66 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+/**
+ * Provide JMX / MBean access for monitoring the implicit synchronization queue.
+ */
+public interface ImplicitSyncQueueMBean {
+
+    /**
+     * Gets the number of managed objects with changes queued, across the cluster, as of the last count.
+     * @return the number of queued objects, or -1 if not counted yet.
+     */
+    public long getDepth();
+
+    /**
+     * Gets the age of the oldest queued change, as of the last count.
+     * @return the age of the oldest queued change in milliseconds, 0 if the queue is empty, or -1 if not
+     *      counted yet.
+     */
+    public long getLag();
+
+    /**
+     * Gets the number of changes queued by this node.
+     * @return the number of changes queued by this node.
+     */
+    public long getEnqueued();
+
+    /**
+     * Gets the number of changes queued by this node that were merged with a change already queued.
+     * @return the number of changes merged.
+     */
+    public long getCoalesced();
+
+    /**
+     * Gets the number of queued changes this node synchronized successfully.
+     * @return the number of changes synchronized.
+     */
+    public long getSynced();
+
+    /**
+     * Gets the number of queued changes this node failed to synchronize, once out of retries.
+     * @return the number of changes that failed.
+     */
+    public long getFailed();
+
+    /**
+     * Gets the number of times this node put back a queued change to be retried.
+     * @return the number of retries.
+     */
+    public long getRetried();
+}
@@ -51,7 +51,12 @@ import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.Router;
 import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.cluster.ClusterEvent;
+import org.forgerock.openidm.cluster.ClusterEventListener;
+import org.forgerock.openidm.cluster.ClusterEventType;
+import org.forgerock.openidm.cluster.ClusterManagementService;
 import org.forgerock.openidm.config.enhanced.EnhancedConfig;
+import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.openidm.router.IDMConnectionFactory;
@@ -87,10 +92,13 @@ import org.slf4j.LoggerFactory;
         })
 @ServiceVendor(ServerConstants.SERVER_VENDOR_NAME)
 @ServiceDescription("OpenIDM managed objects service")
-public class ManagedObjectService implements RequestHandler, Describable<ApiDescription, Request> {
+public class ManagedObjectService
+        implements RequestHandler, Describable<ApiDescription, Request>, ClusterEventListener {
 
     public static final String PID = "org.forgerock.openidm.managed";
 
+    private static final String LISTENER_ID = "managedObjectService";
+
     /**
      * Setup logging for the {@link ManagedObjectService}.
      */
@@ -139,6 +147,32 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
 
     private final Router managedRouter = new Router();
 
+    /** The managed object sets, keyed by their path, such as managed/user */
+    private final ConcurrentMap<String, ManagedObjectSet> objectSets = new ConcurrentHashMap<>();
+
+    /** The queue of changes to synchronize, or null if changes are synchronized as they are made */
+    private volatile ImplicitSyncQueue syncQueue;
+
+    /**
+     * The cluster management service, used to release the queued changes claimed by failed nodes.
+     */
+    private volatile ClusterManagementService clusterManager;
+
+    @Reference(
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unbindClusterManager"
+    )
+    void bindClusterManager(ClusterManagementService clusterManager) {
+        this.clusterManager = clusterManager;
+        clusterManager.register(LISTENER_ID, this);
+    }
+
+    void unbindClusterManager(ClusterManagementService clusterManager) {
+        clusterManager.unregister(LISTENER_ID);
+        this.clusterManager = null;
+    }
+
     /**
      * RequestHandler to handle requests for both a {@link ManagedObjectSet} and its nested
      * {@link RelationshipProvider}s.
@@ -240,8 +274,10 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
     @Activate
     protected void activate(ComponentContext context) throws Exception {
         JsonValue configuration = enhancedConfig.getConfigurationAsJson(context);
+        ImplicitSyncQueue queue = newSyncQueue(configuration.get("syncQueue"));
         for (JsonValue managedObjectConfig : configuration.get("objects").expect(List.class)) {
             final ManagedObjectSet objectSet = new ManagedObjectSet(scriptRegistry, cryptoService, syncRoute, connectionFactory, managedObjectConfig);
+            objectSet.setSyncQueue(queue);
             if (managedRoutes.containsKey(objectSet.getName())) {
                 throw new ComponentException("Duplicate definition of managed object type: " + objectSet.getName());
             }
@@ -249,7 +285,9 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
             managedRoutes.put(objectSet.getName(),
                     managedRouter.addRoute(RoutingMode.STARTS_WITH, uriTemplate(objectSet.getTemplate()),
                             new ManagedObjectSetRequestHandler(objectSet)));
+            objectSets.put(objectSet.getPath().toString(), objectSet);
         }
+        startSyncQueue(queue);
     }
 
     /**
@@ -260,10 +298,13 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
     @Modified
     protected void modified(ComponentContext context) throws Exception {
         JsonValue configuration = enhancedConfig.getConfigurationAsJson(context);
+        stopSyncQueue();
+        ImplicitSyncQueue queue = newSyncQueue(configuration.get("syncQueue"));
 
         Set<String> routesToKeep = new HashSet<String>();
         for (JsonValue value : configuration.get("objects").expect(List.class)) {
             ManagedObjectSet objectSet = new ManagedObjectSet(scriptRegistry, cryptoService, syncRoute, connectionFactory, value);
+            objectSet.setSyncQueue(queue);
             if (routesToKeep.contains(objectSet.getName())) {
                 throw new ComponentException("Duplicate definition of managed object type: " + objectSet.getName());
             }
@@ -274,6 +315,7 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
             managedRoutes.put(objectSet.getName(),
                     managedRouter.addRoute(RoutingMode.STARTS_WITH, uriTemplate(objectSet.getTemplate()),
                             new ManagedObjectSetRequestHandler(objectSet)));
+            objectSets.put(objectSet.getPath().toString(), objectSet);
             routesToKeep.add(objectSet.getName());
         }
         for (Map.Entry<String, RouteMatcher<Request>> entry : managedRoutes.entrySet()){
@@ -282,7 +324,9 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
                 continue;
             }
             managedRouter.removeRoute(managedRoutes.remove(entry.getKey()));
+            objectSets.remove(new ResourcePath("managed").child(entry.getKey()).toString());
         }
+        startSyncQueue(queue);
     }
 
 
@@ -293,8 +337,75 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
      */
     @Deactivate
     protected void deactivate(ComponentContext context) {
+        stopSyncQueue();
         managedRouter.removeAllRoutes();
         managedRoutes.clear();
+        objectSets.clear();
+    }
+
+    /**
+     * Creates the queue of changes to synchronize, for the managed object sets to record their changes in.
+     *
+     * @param config the {@code syncQueue} configuration
+     * @return the queue, or null if changes are synchronized as they are made
+     */
+    private ImplicitSyncQueue newSyncQueue(JsonValue config) {
+        if (!config.get("enabled").defaultTo(false).asBoolean()) {
+            return null;
+        }
+        ClusterManagementService cluster = clusterManager;
+        String instanceId = cluster != null
+                ? cluster.getInstanceId()
+                : IdentityServer.getInstance().getProperty(IdentityServer.NODE_ID, "instance0");
+        return new ImplicitSyncQueue(connectionFactory, new ImplicitSyncQueue.ObjectSets() {
+            @Override
+            public ManagedObjectSet get(String resourceContainer) {
+                return objectSets.get(resourceContainer);
+            }
+        }, instanceId, config);
+    }
+
+    /**
+     * Starts draining the queue of changes to synchronize.
+     *
+     * @param queue the queue, or null if changes are synchronized as they are made
+     */
+    private void startSyncQueue(ImplicitSyncQueue queue) {
+        if (queue != null) {
+            queue.start();
+            syncQueue = queue;
+        }
+    }
+
+    /**
+     * Stops draining the queue of changes to synchronize. The managed object sets still record their changes in it
+     * until they are replaced.
+     */
+    private void stopSyncQueue() {
+        ImplicitSyncQueue queue = syncQueue;
+        syncQueue = null;
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    /**
+     * Releases the queued changes claimed by a failed node.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean handleEvent(ClusterEvent event) {
+        ImplicitSyncQueue queue = syncQueue;
+        if (event.getType() == ClusterEventType.RECOVERY_INITIATED && queue != null) {
+            try {
+                queue.releaseInstance(event.getInstanceId());
+            } catch (ResourceException e) {
+                logger.warn("Failed to release the queued changes of instance {}", event.getInstanceId(), e);
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
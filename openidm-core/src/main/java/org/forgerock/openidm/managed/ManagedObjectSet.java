@@ -87,6 +87,7 @@ import org.forgerock.openidm.sync.impl.SynchronizationService;
 import org.forgerock.openidm.util.ContextUtil;
 import org.forgerock.openidm.util.RelationshipUtil;
 import org.forgerock.openidm.util.RequestUtil;
+import org.forgerock.openidm.util.TransactionContext;
 import org.forgerock.script.Script;
 import org.forgerock.script.ScriptEntry;
 import org.forgerock.script.ScriptEvent;
@@ -97,9 +98,7 @@ import org.forgerock.services.context.Context;
 import org.forgerock.util.AsyncFunction;
 import org.forgerock.util.Function;
 import org.forgerock.util.Pair;
-import org.forgerock.util.promise.ExceptionHandler;
 import org.forgerock.util.promise.Promise;
-import org.forgerock.util.promise.ResultHandler;
 import org.forgerock.util.query.QueryFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -115,6 +114,13 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
     public static final String COUNT_TRIGGERED = "countTriggered";
     public static final String STATUS = "status";
 
+    /**
+     * The query parameter that marks a query as reading the objects it is given the ids of, as the expansion of
+     * relationships does in batches: the results go through the onRetrieve and onRead hooks of a read rather than
+     * the onQueryResult hook.
+     */
+    static final String EXECUTE_ON_READ = "executeOnRead";
+
     /** Actions supported by this resource provider */
     enum Action {
         patch,
@@ -200,6 +206,9 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
 
     private final JsonValue config;
 
+    /** The queue to record changes to synchronize in, or null to synchronize them as they are made */
+    private volatile ImplicitSyncQueue syncQueue;
+
     /**
      * Constructs a new managed object set.
      *
@@ -582,18 +591,25 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         // Perform pre-property encryption
         onStore(context, decryptedNew); // performs per-property encryption
 
-        // Perform update
-        UpdateRequest updateRequest = Requests.newUpdateRequest(repoId(resourceId), decryptedNew);
-        updateRequest.setRevision(rev);
-        ResourceResponse response = connectionFactory.getConnection().update(context, updateRequest);
-        JsonValue responseContent = response.getContent();
-
-        // Put relationships back in before we respond
-        responseContent.asMap().putAll(strippedRelationshipFields.asMap());
-
-        // Persists all relationship fields that are present in the new value and updates their values.
-        responseContent.asMap().putAll(persistRelationships(true, managedContext, resourceId, oldValue, responseContent, relationshipFields)
-                .asMap());
+        // Perform update, and persist the relationships in the same unit of work
+        final TransactionContext transaction = new TransactionContext(managedContext);
+        final JsonValue responseContent;
+        try {
+            UpdateRequest updateRequest = Requests.newUpdateRequest(repoId(resourceId), decryptedNew);
+            updateRequest.setRevision(rev);
+            ResourceResponse response = connectionFactory.getConnection().update(transaction, updateRequest);
+            responseContent = response.getContent();
+
+            // Put relationships back in before we respond
+            responseContent.asMap().putAll(strippedRelationshipFields.asMap());
+
+            // Persists all relationship fields that are present in the new value and updates their values.
+            responseContent.asMap().putAll(persistRelationships(true, transaction, resourceId, oldValue, responseContent, relationshipFields)
+                    .asMap());
+            transaction.commit();
+        } finally {
+            transaction.rollback();
+        }
 
         // Execute the postUpdate script if configured
         executePostUpdate(context, request, resourceId, decryptedOld, responseContent);
@@ -816,22 +832,28 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
             // includes per-property encryption
             onStore(managedContext, value);
 
-            // Persist the managed object in the repository
-            CreateRequest createRequest = Requests.newCreateRequest(repoId(null), resourceId, value);
-            ResourceResponse createResponse = connectionFactory.getConnection().create(managedContext, createRequest);
-            content = createResponse.getContent();
-            resourceId = createResponse.getId();
+            // Persist the managed object and its relationships in the repository as one unit of work
+            final TransactionContext transaction = new TransactionContext(managedContext);
+            try {
+                CreateRequest createRequest = Requests.newCreateRequest(repoId(null), resourceId, value);
+                ResourceResponse createResponse = connectionFactory.getConnection().create(transaction, createRequest);
+                content = createResponse.getContent();
+                resourceId = createResponse.getId();
+
+                // Place stripped relationships back in content
+                content.asMap().putAll(strippedRelationshipFields.asMap());
+
+                // Persists all relationship fields and place their persisted values in content
+                content.asMap().putAll(persistRelationships(false, transaction, resourceId, json(null), content,
+                        relationshipProviders.keySet()).asMap());
+                transaction.commit();
+            } finally {
+                transaction.rollback();
+            }
 
             activityLogger.log(managedContext, request, "create", managedId(resourceId).toString(), null, content, 
                     Status.SUCCESS);
 
-            // Place stripped relationships back in content
-            content.asMap().putAll(strippedRelationshipFields.asMap());
-
-            // Persists all relationship fields and place their persisted values in content
-            content.asMap().putAll(persistRelationships(false, managedContext, resourceId, json(null), content,
-                    relationshipProviders.keySet()).asMap());
-
             // Execute the postCreate script if configured
             execScriptHook(managedContext, ScriptHook.postCreate, content,
                     prepareScriptBindings(managedContext, request, resourceId, new JsonValue(null), content));
@@ -897,36 +919,51 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         try {
             final JsonValue joined = json(object());
 
-            /*
-             * Create set only containing the head of request fields
-             * Allows for a relationship to be fetched when only an expansion is requested.
-             * ie. a field of foo/name will retrieve the foo relationship
-             */
-            final Set<JsonPointer> fieldHeads = new HashSet<>();
-            for (JsonPointer field : requestFields) {
-                // A blank _fields param can yield a single '/' (empty) pointer
-                if (!field.isEmpty()) {
-                    fieldHeads.add(new JsonPointer(field.get(0)));
+            for (Map.Entry<JsonPointer, RelationshipProvider> entry : getRequestedRelationships(requestFields).entrySet()) {
+                final JsonPointer field = entry.getKey();
+                final RelationshipProvider provider = entry.getValue();
+
+                try {
+                    joined.put(field, provider.getRelationshipValueForResource(context,
+                            resourceId).getOrThrow().getObject());
+                } catch (NotFoundException e) {
+                    logger.debug("No {} relationships found for {}", field, resourceId);
+                    joined.put(field, null);
                 }
             }
 
-            for (Map.Entry<JsonPointer, RelationshipProvider> entry : relationshipProviders.entrySet()) {
-                final JsonPointer field = entry.getKey();
-                final RelationshipProvider provider = entry.getValue();
+            return joined;
+        } finally {
+            measure.end();
+        }
+    }
 
-                if (requestFields.contains(SchemaField.FIELD_ALL_RELATIONSHIPS)
-                        || provider.getSchemaField().isReturnedByDefault()
-                        || fieldHeads.contains(field)) { // only check head of request fields (see above)
-                    try {
-                        joined.put(field, provider.getRelationshipValueForResource(context,
-                                resourceId).getOrThrow().getObject());
-                    } catch (NotFoundException e) {
-                        logger.debug("No {} relationships found for {}", field, resourceId);
-                        joined.put(field, null);
-                    }
-                } else {
-                    // relationship was not requested or set to return by default
-                    logger.debug("Relationship field {} skipped", field);
+    /**
+     * Fetch the current relationship(s) of several resources for relationship fields set to be returned by default
+     * or specified in the request fields, fetching each relationship field of all the resources at once.
+     *
+     * @param context The current context
+     * @param resourceIds The ids of the resources to fetch relationships of
+     * @param requestFields The fields requested in the initial request
+     * @return A {@link JsonValue} map containing all relationship fields and their values, for each resource id
+     * @throws ResourceException if the relationships could not be fetched
+     */
+    private Map<String, JsonValue> fetchRelationshipFields(final Context context, final List<String> resourceIds,
+            final List<JsonPointer> requestFields) throws ResourceException {
+        EventEntry measure = Publisher.start(Name.get("openidm/internal/managed/set/fetchRealtionshipFields"),
+                resourceIds, context);
+
+        try {
+            final Map<String, JsonValue> joined = new HashMap<>();
+            for (String resourceId : resourceIds) {
+                joined.put(resourceId, json(object()));
+            }
+
+            for (Map.Entry<JsonPointer, RelationshipProvider> entry : getRequestedRelationships(requestFields).entrySet()) {
+                final Map<String, JsonValue> values =
+                        entry.getValue().getRelationshipValuesForResources(context, resourceIds);
+                for (String resourceId : resourceIds) {
+                    joined.get(resourceId).put(entry.getKey(), values.get(resourceId).getObject());
                 }
             }
 
@@ -936,6 +973,43 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         }
     }
 
+    /**
+     * Returns the relationship fields set to be returned by default or specified in the request fields.
+     *
+     * @param requestFields The fields requested in the initial request
+     * @return the providers of the relationship fields to fetch, keyed by field
+     */
+    private Map<JsonPointer, RelationshipProvider> getRequestedRelationships(final List<JsonPointer> requestFields) {
+        /*
+         * Create set only containing the head of request fields
+         * Allows for a relationship to be fetched when only an expansion is requested.
+         * ie. a field of foo/name will retrieve the foo relationship
+         */
+        final Set<JsonPointer> fieldHeads = new HashSet<>();
+        for (JsonPointer field : requestFields) {
+            // A blank _fields param can yield a single '/' (empty) pointer
+            if (!field.isEmpty()) {
+                fieldHeads.add(new JsonPointer(field.get(0)));
+            }
+        }
+
+        final Map<JsonPointer, RelationshipProvider> requested = new LinkedHashMap<>();
+        for (Map.Entry<JsonPointer, RelationshipProvider> entry : relationshipProviders.entrySet()) {
+            final JsonPointer field = entry.getKey();
+            final RelationshipProvider provider = entry.getValue();
+
+            if (requestFields.contains(SchemaField.FIELD_ALL_RELATIONSHIPS)
+                    || provider.getSchemaField().isReturnedByDefault()
+                    || fieldHeads.contains(field)) { // only check head of request fields (see above)
+                requested.put(field, provider);
+            } else {
+                // relationship was not requested or set to return by default
+                logger.debug("Relationship field {} skipped", field);
+            }
+        }
+        return requested;
+    }
+
     /**
      * This will traverse the jsonValue and validate that all relationship references are valid and available for
      * assignment.
@@ -1049,15 +1123,22 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
                 deleteRequest.setRevision(resource.getRevision());
             }
 
-            connectionFactory.getConnection().delete(managedContext, deleteRequest);
+            // Delete the resource and its relationships in the repository as one unit of work
+            final TransactionContext transaction = new TransactionContext(managedContext);
+            try {
+                connectionFactory.getConnection().delete(transaction, deleteRequest);
 
-            // Delete any relationships associated with this resource
-            final List<Promise<JsonValue, ResourceException>> deleted = new ArrayList<>();
-            for (RelationshipProvider relationshipProvider : relationshipProviders.values()) {
-                deleted.add(relationshipProvider.clear(managedContext, resourceId));
+                // Delete any relationships associated with this resource
+                final List<Promise<JsonValue, ResourceException>> deleted = new ArrayList<>();
+                for (RelationshipProvider relationshipProvider : relationshipProviders.values()) {
+                    deleted.add(relationshipProvider.clear(transaction, resourceId));
+                }
+                // Wait for deletions to complete before continuing
+                when(deleted).getOrThrowUninterruptibly();
+                transaction.commit();
+            } finally {
+                transaction.rollback();
             }
-            // Wait for deletions to complete before continuing
-            when(deleted).getOrThrowUninterruptibly();
 
             activityLogger.log(managedContext, request, "delete", managedId(resource.getId()).toString(),
                     resource.getContent(), null, Status.SUCCESS);
@@ -1255,10 +1336,15 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         // The "executeOnRetrieve" parameter is used to indicate if is returning a full managed object
         String executeOnRetrieve = request.getAdditionalParameter("executeOnRetrieve");
         
+        // A query reading objects by id runs the hooks of a read
+        final boolean onRead = Boolean.parseBoolean(request.getAdditionalParameter(EXECUTE_ON_READ));
+
         // The onRetrieve script should only be run queries that return full managed objects
-        final boolean onRetrieve = executeOnRetrieve != null && Boolean.parseBoolean(executeOnRetrieve);
+        final boolean onRetrieve = onRead
+                || (executeOnRetrieve != null && Boolean.parseBoolean(executeOnRetrieve));
 
         final List<Map<String,Object>> results = new ArrayList<Map<String,Object>>();
+        final List<ResourceResponse> pending = new ArrayList<>();
         final ResourceException[] ex = new ResourceException[]{null};
         try {
             // Create new QueryRequest to send to the repository
@@ -1280,7 +1366,6 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
             		new QueryResourceHandler() {
                 @Override
                 public boolean handleResource(ResourceResponse resource) {
-                    ResourceResponse resourceResponse = null;
                     // Check if the onRetrieve script should be run
                     if (onRetrieve) {
                         try {
@@ -1290,54 +1375,67 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
                             return false;
                         }
                     }
-                    // Execute the onQueryResult script if configured; skip object if it returns a falsy value
-                    try {
-                        Object queryResultScriptResult = execScriptHook(managedContext, ScriptHook.onQueryResult,
-                                resource.getContent(),
-                                prepareScriptBindings(managedContext, request, resource.getId(),
-                                        new JsonValue(null), new JsonValue(null)));
-                        // Normalize the script result using simple truthiness semantics:
-                        // - null (or no return) => include (do not filter)
-                        // - Boolean false, numeric zero, or empty string => exclude
-                        if (queryResultScriptResult != null) {
-                            boolean include = true;
-                            if (queryResultScriptResult instanceof Boolean) {
-                                include = (Boolean) queryResultScriptResult;
-                            } else if (queryResultScriptResult instanceof Number) {
-                                include = ((Number) queryResultScriptResult).doubleValue() != 0.0d;
-                            } else if (queryResultScriptResult instanceof CharSequence) {
-                                include = ((CharSequence) queryResultScriptResult).length() != 0;
-                            }
-                            if (!include) {
-                                // Object excluded by onQueryResult script
-                                return true;
-                            }
+                    if (onRead) {
+                        try {
+                            execScriptHook(managedContext, ScriptHook.onRead, resource.getContent(), null);
+                        } catch (ResourceException e) {
+                            ex[0] = e;
+                            return false;
                         }
-                    } catch (ResourceException e) {
-                        ex[0] = e;
-                        return false;
-                    }
-                    if (ServerConstants.QUERY_ALL_IDS.equals(request.getQueryId())) {
-                        // Don't populate relationships if this is a query-all-ids query.
-                        resourceResponse = resource;    
                     } else {
-                        // Populate the relationship fields
+                        // Execute the onQueryResult script if configured; skip object if it returns a falsy value
                         try {
-                            JsonValue relationships = fetchRelationshipFields(managedContext, resource.getId(), request.getFields());
-                            resource.getContent().asMap().putAll(relationships.asMap());
-                            resourceResponse = prepareResponse(managedContext, resource, request.getFields());
+                            Object queryResultScriptResult = execScriptHook(managedContext, ScriptHook.onQueryResult,
+                                    resource.getContent(),
+                                    prepareScriptBindings(managedContext, request, resource.getId(),
+                                            new JsonValue(null), new JsonValue(null)));
+                            // Normalize the script result using simple truthiness semantics:
+                            // - null (or no return) => include (do not filter)
+                            // - Boolean false, numeric zero, or empty string => exclude
+                            if (queryResultScriptResult != null) {
+                                boolean include = true;
+                                if (queryResultScriptResult instanceof Boolean) {
+                                    include = (Boolean) queryResultScriptResult;
+                                } else if (queryResultScriptResult instanceof Number) {
+                                    include = ((Number) queryResultScriptResult).doubleValue() != 0.0d;
+                                } else if (queryResultScriptResult instanceof CharSequence) {
+                                    include = ((CharSequence) queryResultScriptResult).length() != 0;
+                                }
+                                if (!include) {
+                                    // Object excluded by onQueryResult script
+                                    return true;
+                                }
+                            }
                         } catch (ResourceException e) {
                             ex[0] = e;
                             return false;
-                        } catch (Exception e) {
-                            ex[0] = new InternalServerErrorException(e.getMessage(), e);
-                            return false;
                         }
                     }
-                    results.add(resourceResponse.getContent().asMap());
-                    return handler.handleResource(prepareResponse(managedContext, resourceResponse, request.getFields()));
+                    if (ServerConstants.QUERY_ALL_IDS.equals(request.getQueryId())) {
+                        // Don't populate relationships if this is a query-all-ids query.
+                        results.add(resource.getContent().asMap());
+                        return handler.handleResource(prepareResponse(managedContext, resource, request.getFields()));
+                    }
+                    // Populate the relationship fields of a batch of results at once
+                    pending.add(resource);
+                    if (pending.size() < ReferencedResources.BATCH_SIZE) {
+                        return true;
+                    }
+                    try {
+                        return handleQueryResults(managedContext, request, pending, results, handler);
+                    } catch (ResourceException e) {
+                        ex[0] = e;
+                        return false;
+                    }
                 }
             });
+            if (ex[0] == null && !pending.isEmpty()) {
+                try {
+                    handleQueryResults(managedContext, request, pending, results, handler);
+                } catch (ResourceException e) {
+                    ex[0] = e;
+                }
+            }
         	
         	if(ex[0] != null) {
             	return ex[0].asPromise();
@@ -1356,6 +1454,47 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         }
     }
 
+    /**
+     * Populates the relationship fields of a batch of query results, fetching each relationship field of the whole
+     * batch with a single repository query, and passes the results on in order.
+     *
+     * @param context The current context
+     * @param request The query request
+     * @param resources The query results to pass on, cleared once passed on
+     * @param results The results passed on, for activity logging
+     * @param handler The handler to pass the results on to
+     * @return false if the handler does not want any more results
+     * @throws ResourceException if the relationship fields could not be fetched
+     */
+    private boolean handleQueryResults(final Context context, final QueryRequest request,
+            final List<ResourceResponse> resources, final List<Map<String, Object>> results,
+            final QueryResourceHandler handler) throws ResourceException {
+        final List<String> resourceIds = new ArrayList<>(resources.size());
+        for (ResourceResponse resource : resources) {
+            resourceIds.add(resource.getId());
+        }
+        final Map<String, JsonValue> relationships;
+        try {
+            relationships = fetchRelationshipFields(context, resourceIds, request.getFields());
+        } catch (ResourceException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InternalServerErrorException(e.getMessage(), e);
+        }
+        boolean more = true;
+        for (ResourceResponse resource : resources) {
+            if (!more) {
+                break;
+            }
+            resource.getContent().asMap().putAll(relationships.get(resource.getId()).asMap());
+            ResourceResponse resourceResponse = prepareResponse(context, resource, request.getFields());
+            results.add(resourceResponse.getContent().asMap());
+            more = handler.handleResource(prepareResponse(context, resourceResponse, request.getFields()));
+        }
+        resources.clear();
+        return more;
+    }
+
     @Override
     public Promise<ActionResponse, ResourceException> actionInstance(Context context, String resourceId,
     		ActionRequest request) {
@@ -1608,8 +1747,6 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
             resource.getContent().remove(key);
         }
 
-        // List of promises representing results of resource expansion
-        List<Promise<ResourceResponse, ResourceException>> promises = new ArrayList<>();
         // Loop over the relationship fields to expand
         for (JsonPointer fieldToExpand : resourceExpansionMap.keySet()) {
             // The schema for the field to expand
@@ -1618,33 +1755,24 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
             List<JsonPointer> fieldsList = resourceExpansionMap.get(fieldToExpand);
             // The value of the relationship field
             JsonValue fieldValue = resource.getContent().get(fieldToExpand);
-            try {
-                // Perform the resource expansion
-                if (fieldValue != null && !fieldValue.isNull()) {
-                    if (schemaField.isArray()) {
-                        // The field is an array of relationship objects
-                        for (JsonValue value : fieldValue) {
-                            promises.add(expandResource(context, value, fieldsList));
-                        }
-                    } else {
-                        // The field is a relationship object  
-                        promises.add(expandResource(context, fieldValue, fieldsList));
+            // Perform the resource expansion
+            if (fieldValue != null && !fieldValue.isNull()) {
+                List<JsonValue> values = new ArrayList<>();
+                if (schemaField.isArray()) {
+                    // The field is an array of relationship objects
+                    for (JsonValue value : fieldValue) {
+                        values.add(value);
                     }
                 } else {
-                    logger.debug("Cannot expand a null relationship object");
+                    // The field is a relationship object
+                    values.add(fieldValue);
                 }
-            } catch (ResourceException e) {
-                logger.error("Error expanding resource " + fieldToExpand + " with value " + fieldValue, e);
+                expandResources(context, values, fieldsList);
+            } else {
+                logger.debug("Cannot expand a null relationship object");
             }
         }
         
-        try {
-            when(promises).getOrThrowUninterruptibly();
-        } catch (ResourceException e) {
-            // Exceptions are already handled in expandResource, so this should never happen.
-            logger.error("Error performing resource expansion", e);
-        }
-        
         // only cull private properties if this is an external call
         if (ContextUtil.isExternal(context)) {
             for (JsonPointer key : Collections.unmodifiableSet(getSchema().getFields().keySet())) {
@@ -1664,42 +1792,51 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
     }
 
     /**
-     * Expands the provided resource represented by a {@link JsonValue} relationship object.  A read request  will be 
-     * issued for the resource identified by the "_ref" field in the supplied relationship object. A supplied 
-     * {@link List} of fields indicates which fields to read and then merge with the relationship object.
+     * Expands the provided resources represented by {@link JsonValue} relationship objects.  The resources identified
+     * by the "_ref" field of the supplied relationship objects are read in batches, with the supplied {@link List}
+     * of fields, and merged with the relationship objects. Relationship objects whose resource cannot be read are
+     * flagged with the error instead.
      *    
      * @param context the {@link Context} of the request
-     * @param value the value of the relationship object
-     * @param fieldsList the list of fields to read and merge with the relationship object.
-     * @throws ResourceException if an error is encountered.
+     * @param values the values of the relationship objects
+     * @param fieldsList the list of fields to read and merge with the relationship objects.
      */
-    private Promise<ResourceResponse, ResourceException> expandResource(Context context, final JsonValue value, 
-            List<JsonPointer> fieldsList) throws ResourceException {
-        if (!value.isNull() && value.get(SchemaField.FIELD_REFERENCE) != null) {
-            final Connection connection = ContextUtil.isExternal(context) 
+    private void expandResources(Context context, List<JsonValue> values, List<JsonPointer> fieldsList) {
+        List<JsonValue> relationships = new ArrayList<>(values.size());
+        List<String> references = new ArrayList<>(values.size());
+        for (JsonValue value : values) {
+            if (!value.isNull() && value.get(SchemaField.FIELD_REFERENCE).isNotNull()) {
+                relationships.add(value);
+                references.add(value.get(SchemaField.FIELD_REFERENCE).asString());
+            } else {
+                logger.warn("Cannot expand a null relationship object");
+            }
+        }
+        if (relationships.isEmpty()) {
+            return;
+        }
+
+        ReferencedResources referenced;
+        try {
+            final Connection connection = ContextUtil.isExternal(context)
                     ? connectionFactory.getExternalConnection()
                     : connectionFactory.getConnection();
-            // Create and issue a read request on the referenced resource with the specified list of fields
-            ReadRequest request = Requests.newReadRequest(value.get(SchemaField.FIELD_REFERENCE).asString());
-            request.addField(fieldsList.toArray(new JsonPointer[fieldsList.size()]));
-            return connection.readAsync(context, request).thenOnResultOrException(
-                    new ResultHandler<ResourceResponse>() {
-                        @Override
-                        public void handleResult(ResourceResponse resource) {
-                            // Merge the result with the supplied relationship object
-                            value.asMap().putAll(resource.getContent().asMap());
-                        }
-                    }, new ExceptionHandler<ResourceException>() {
-                        @Override
-                        public void handleException(ResourceException exception) {
-                            Map<String, Object> valueMap = value.asMap();
-                            valueMap.put(RelationshipUtil.REFERENCE_ERROR, true);
-                            valueMap.put(RelationshipUtil.REFERENCE_ERROR_MESSAGE, exception.getMessage());
-                        }
-                    });
-        } else {
-            logger.warn("Cannot expand a null relationship object");
-            return newResourceResponse(null, null, null).asPromise();
+            referenced = ReferencedResources.read(connection, context, references, fieldsList);
+        } catch (ResourceException e) {
+            logger.error("Error performing resource expansion", e);
+            return;
+        }
+        for (int i = 0; i < relationships.size(); i++) {
+            Map<String, Object> valueMap = relationships.get(i).asMap();
+            JsonValue content = referenced.get(references.get(i));
+            if (content != null) {
+                // Merge the result with the supplied relationship object
+                valueMap.putAll(content.asMap());
+            } else {
+                valueMap.put(RelationshipUtil.REFERENCE_ERROR, true);
+                valueMap.put(RelationshipUtil.REFERENCE_ERROR_MESSAGE,
+                        referenced.getFailure(references.get(i)).getMessage());
+            }
         }
     }
 
@@ -1732,6 +1869,20 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
             final SynchronizationService.SyncServiceAction action, final JsonValue oldValue, final JsonValue newValue)
         throws ResourceException {
 
+        if (context.containsContext(SyncContext.class)
+                && !context.asContext(SyncContext.class).isSyncEnabled()) {
+            // Do not try to sync if sync has been disabled
+            logger.debug("Sync has been disabled. {} ", context.asContext(SyncContext.class));
+            return;
+        }
+
+        final ImplicitSyncQueue queue = syncQueue;
+        if (queue != null) {
+            // The queue workers sync the change, even if the sync service is not available now
+            queue.enqueue(context, managedObjectPath.toString(), resourceId, action, oldValue, newValue);
+            return;
+        }
+
         // The "sync" route may be down (unconfigured) or in the process of being re-configured;
         // if this is the case, we don't want a router error on the ActionRequest below.  Just log
         // the warning and return.  When the SynchronizationService comes back up (or when the
@@ -1741,37 +1892,90 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
             logger.warn("Sync service was not available.");
             return;
         }
-        if (context.containsContext(SyncContext.class)
-                && !context.asContext(SyncContext.class).isSyncEnabled()) {
-            // Do not try to sync if sync has been disabled
-            logger.debug("Sync has been disabled. {} ", context.asContext(SyncContext.class));
+
+        // A change made within the unit of work of an enclosing request, such as the update of a referenced object
+        // by a relationship, is synchronized once that unit of work committed, so that the sync sees the committed
+        // change and remote systems are not called while the unit of work holds database locks
+        final TransactionContext transaction = TransactionContext.getActive(context);
+        if (transaction != null) {
+            transaction.afterCommit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        performSyncAction(context, request, resourceId, action, oldValue, newValue);
+                    } catch (ResourceException e) {
+                        logger.warn("Failed to synchronize {} of {}:{} after its commit", action.name(), name,
+                                resourceId, e);
+                    }
+                }
+            });
             return;
         }
 
+        Pair<Boolean, JsonValue> result = sync(context, resourceId, action, oldValue, newValue);
+        onSync(context, request, resourceId, action, oldValue, newValue, result.getFirst(), result.getSecond());
+    }
+
+    /**
+     * Synchronizes a change queued by the {@link ImplicitSyncQueue}, executing the onSync script once the
+     * synchronization succeeded or is not going to be retried.
+     *
+     * @param context the context to synchronize with
+     * @param resourceId the id of the changed managed object
+     * @param action the sync action for the change
+     * @param oldValue the value of the object before the change
+     * @param newValue the value of the object after the change
+     * @param retry whether a failure is going to be retried
+     * @return whether the synchronization succeeded, or null if the sync service was not available
+     * @throws ResourceException if the onSync script failed
+     */
+    Boolean syncQueued(final Context context, final String resourceId,
+            final SynchronizationService.SyncServiceAction action, final JsonValue oldValue, final JsonValue newValue,
+            final boolean retry) throws ResourceException {
+        if (null == syncRoute.get()) {
+            return null;
+        }
+        Pair<Boolean, JsonValue> result = sync(context, resourceId, action, oldValue, newValue);
+        if (result.getFirst() || !retry) {
+            onSync(context, newActionRequest(managedId(resourceId), action.name()), resourceId, action, oldValue,
+                    newValue, result.getFirst(), result.getSecond());
+        }
+        return result.getFirst();
+    }
+
+    /**
+     * Sends a change to the sync service.
+     *
+     * @return whether the synchronization succeeded, and its details
+     */
+    private Pair<Boolean, JsonValue> sync(final Context context, final String resourceId,
+            final SynchronizationService.SyncServiceAction action, final JsonValue oldValue, final JsonValue newValue) {
+        JsonValue content = new JsonValue(new LinkedHashMap<String, Object>(2));
+        content.put("oldValue", oldValue.getObject());
+        content.put("newValue", newValue.getObject());
+        final ActionRequest syncRequest = newActionRequest("sync", action.name())
+                .setAdditionalParameter(SynchronizationService.ACTION_PARAM_RESOURCE_CONTAINER, managedObjectPath
+                        .toString())
+                .setAdditionalParameter(SynchronizationService.ACTION_PARAM_RESOURCE_ID, resourceId)
+                .setContent(content);
+
         try {
-            JsonValue content = new JsonValue(new LinkedHashMap<String, Object>(2));
-            content.put("oldValue", oldValue.getObject());
-            content.put("newValue", newValue.getObject());
-            final ActionRequest syncRequest = newActionRequest("sync", action.name())
-                    .setAdditionalParameter(SynchronizationService.ACTION_PARAM_RESOURCE_CONTAINER, managedObjectPath
-                            .toString())
-                    .setAdditionalParameter(SynchronizationService.ACTION_PARAM_RESOURCE_ID, resourceId)
-                    .setContent(content);
-
-            JsonValue details;
-            boolean success = false;
-            try {
-				ActionResponse actionResponse = connectionFactory.getConnection().action(context, syncRequest);
-				success = true;
-				details = actionResponse.getJsonContent();
-			} catch (ResourceException e) {
-				success = false;
-				details = e.getDetail();
-			} catch (Exception e) {
-				success = false;
-				details = new InternalServerErrorException(e.getMessage(), e).getDetail();
-			}
+            ActionResponse actionResponse = connectionFactory.getConnection().action(context, syncRequest);
+            return Pair.of(true, actionResponse.getJsonContent());
+        } catch (ResourceException e) {
+            return Pair.of(false, e.getDetail());
+        } catch (Exception e) {
+            return Pair.of(false, new InternalServerErrorException(e.getMessage(), e).getDetail());
+        }
+    }
 
+    /**
+     * Executes the onSync script, if defined, with the results of synchronizing a change.
+     */
+    private void onSync(final Context context, final Request request, final String resourceId,
+            final SynchronizationService.SyncServiceAction action, final JsonValue oldValue, final JsonValue newValue,
+            final boolean success, final JsonValue details) throws ResourceException {
+        try {
             final ScriptEntry onSyncScriptEntry = scriptHooks.get(ScriptHook.onSync);
             if (onSyncScriptEntry == null || !onSyncScriptEntry.isActive()) {
                 logger.debug("onSync script not defined or not active");
@@ -1792,8 +1996,7 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
                 scriptBindings.put("syncResults", syncResults);
                 execScriptHook(context, ScriptHook.onSync, null, scriptBindings);
             } catch (ResourceException e) {
-                logger.warn("Failed executing onSync script on {} {}:{}",
-                        syncRequest.getAction(), name, syncRequest.getResourcePath(), e);
+                logger.warn("Failed executing onSync script on {} {}:{}", action.name(), name, resourceId, e);
             	throw e;
             }
         } catch (NotFoundException e) {
@@ -1802,6 +2005,16 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         }
     }
 
+    /**
+     * Sets the queue to record changes in for the queue workers to synchronize, instead of synchronizing them as
+     * they are made.
+     *
+     * @param syncQueue the queue, or null to synchronize changes as they are made
+     */
+    void setSyncQueue(ImplicitSyncQueue syncQueue) {
+        this.syncQueue = syncQueue;
+    }
+
     /**
      * Get the {@link ResourcePath} associated with this set.
      * @return The {@link ResourcePath} associated with this object set.
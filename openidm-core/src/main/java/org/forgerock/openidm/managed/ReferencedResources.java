@@ -0,0 +1,170 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_ID;
+import static org.forgerock.util.query.QueryFilter.equalTo;
+import static org.forgerock.util.query.QueryFilter.or;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.query.QueryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The resources referenced by a set of relationships, read to expand the relationships.
+ * <p>
+ * Rather than reading each referenced resource, the references are grouped by resource collection and the resources
+ * of each collection are queried by id, up to {@link #BATCH_SIZE} at a time. If a collection cannot be queried by
+ * id, its resources are read one by one instead, as are the resources that its query did not return under the id
+ * they are referenced by.
+ * <p>
+ * The query of a managed object collection is marked with {@link ManagedObjectSet#EXECUTE_ON_READ}, so that the
+ * managed objects queried go through the same onRetrieve and onRead hooks as those read one by one.
+ */
+final class ReferencedResources {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferencedResources.class);
+
+    /** The maximum number of resources to query at once */
+    static final int BATCH_SIZE = 50;
+
+    /** The parent of the managed object collections */
+    private static final String MANAGED = "managed";
+
+    private final Map<String, JsonValue> resources = new HashMap<>();
+    private final Map<String, ResourceException> failures = new HashMap<>();
+
+    private ReferencedResources() {
+        // use read
+    }
+
+    /**
+     * Reads the referenced resources.
+     *
+     * @param connection the connection to read the resources with
+     * @param context the context to read the resources with
+     * @param references the references, as resource paths such as managed/user/bjensen
+     * @param fields the fields of the resources to read, or none for the default fields
+     * @return the resources read, and the failures to read them
+     */
+    static ReferencedResources read(Connection connection, Context context, Collection<String> references,
+            List<JsonPointer> fields) {
+        ReferencedResources referenced = new ReferencedResources();
+        Map<ResourcePath, List<String>> idsByCollection = new LinkedHashMap<>();
+        for (String reference : new LinkedHashSet<>(references)) {
+            ResourcePath path = ResourcePath.valueOf(reference);
+            if (path.size() < 2) {
+                referenced.failures.put(path.toString(), new BadRequestException("Invalid reference " + reference));
+                continue;
+            }
+            List<String> ids = idsByCollection.get(path.parent());
+            if (ids == null) {
+                ids = new ArrayList<>();
+                idsByCollection.put(path.parent(), ids);
+            }
+            ids.add(path.leaf());
+        }
+
+        JsonPointer[] fieldArray = fields.toArray(new JsonPointer[fields.size()]);
+        for (Map.Entry<ResourcePath, List<String>> collection : idsByCollection.entrySet()) {
+            List<String> ids = collection.getValue();
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                referenced.readBatch(connection, context, collection.getKey(),
+                        ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())), fieldArray);
+            }
+        }
+        return referenced;
+    }
+
+    /**
+     * @param reference a reference
+     * @return the content of the referenced resource, or null if it could not be read
+     */
+    JsonValue get(String reference) {
+        return resources.get(ResourcePath.valueOf(reference).toString());
+    }
+
+    /**
+     * @param reference a reference
+     * @return the failure to read the referenced resource, or null if it was read
+     */
+    ResourceException getFailure(String reference) {
+        return failures.get(ResourcePath.valueOf(reference).toString());
+    }
+
+    private void readBatch(Connection connection, Context context, ResourcePath collection, List<String> ids,
+            JsonPointer[] fields) {
+        List<String> toRead = ids;
+        if (ids.size() > 1) {
+            List<QueryFilter<JsonPointer>> filters = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                filters.add(equalTo(new JsonPointer(FIELD_CONTENT_ID), id));
+            }
+            QueryRequest request = Requests.newQueryRequest(collection).setQueryFilter(or(filters));
+            request.addField(fields);
+            if (MANAGED.equals(collection.get(0))) {
+                request.setAdditionalParameter(ManagedObjectSet.EXECUTE_ON_READ, Boolean.TRUE.toString());
+            }
+            List<ResourceResponse> results = new ArrayList<>();
+            try {
+                connection.query(context, request, results);
+                for (ResourceResponse result : results) {
+                    resources.put(collection.child(result.getId()).toString(), result.getContent());
+                }
+                // An id may match a resource whose id differs in case, or be returned otherwise by the query:
+                // read the resources not returned as such, rather than taking them for missing
+                toRead = new ArrayList<>();
+                for (String id : ids) {
+                    if (!resources.containsKey(collection.child(id).toString())) {
+                        toRead.add(id);
+                    }
+                }
+            } catch (ResourceException e) {
+                logger.debug("Failed to query {} by id, reading the resources one by one", collection, e);
+            }
+        }
+        for (String id : toRead) {
+            String reference = collection.child(id).toString();
+            ReadRequest request = Requests.newReadRequest(collection.child(id));
+            request.addField(fields);
+            try {
+                resources.put(reference, connection.read(context, request).getContent());
+            } catch (ResourceException e) {
+                failures.put(reference, e);
+            }
+        }
+    }
+}
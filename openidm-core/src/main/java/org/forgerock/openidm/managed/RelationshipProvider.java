@@ -28,6 +28,7 @@ import static org.forgerock.util.promise.Promises.newResultPromise;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -45,8 +46,10 @@ import org.forgerock.json.resource.ConnectionFactory;
 import org.forgerock.json.resource.CreateRequest;
 import org.forgerock.json.resource.DeleteRequest;
 import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.NotFoundException;
 import org.forgerock.json.resource.PatchRequest;
 import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.Request;
 import org.forgerock.json.resource.RequestHandler;
@@ -58,6 +61,7 @@ import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.audit.util.ActivityLogger;
 import org.forgerock.openidm.audit.util.Status;
 import org.forgerock.openidm.patch.JsonValuePatch;
+import org.forgerock.openidm.util.TransactionContext;
 import org.forgerock.services.context.Context;
 import org.forgerock.util.AsyncFunction;
 import org.forgerock.util.Function;
@@ -105,6 +109,12 @@ public abstract class RelationshipProvider {
     
     /** A query field representing the full path of the managed object instance of this relationship field  */
     protected static final String QUERY_FIELD_RESOURCE_PATH = "fullResourceId";
+
+    /** An optimized query ID for the relationships of several resources */
+    protected static final String RELATIONSHIPS_QUERY_ID = "find-relationships-for-resources";
+
+    /** A query field representing the comma separated full paths of several managed object instances */
+    protected static final String QUERY_FIELD_RESOURCE_PATHS = "fullResourceIds";
     
     /** A query field representing the field name of this relationship field  */
     protected static final String QUERY_FIELD_FIELD_NAME = "resourceFieldName";
@@ -195,10 +205,19 @@ public abstract class RelationshipProvider {
      */
     protected Function<ResourceResponse, ResourceResponse, NeverThrowsException> formatResponseNoException(
             final Context context, final Request request) {
+        return formatResponseNoException(getResourceFullPath(context, request).toString());
+    }
+
+    /**
+     * Returns a Function to format a resource from the repository to that expected by the provider consumer, for the
+     * relationships of the managed object at the given path.
+     *
+     * @param resourceFullPath the full path of the managed object the relationships are fetched on
+     * @see #formatResponseNoException(Context, Request)
+     */
+    protected Function<ResourceResponse, ResourceResponse, NeverThrowsException> formatResponseNoException(
+            final String resourceFullPath) {
         return new Function<ResourceResponse, ResourceResponse, NeverThrowsException>() {
-            
-                public String resourceFullPath = getResourceFullPath(context, request).toString();
-                
                 @Override
                 public ResourceResponse apply(final ResourceResponse raw) {
                     final JsonValue rawContent = raw.getContent();
@@ -335,6 +354,111 @@ public abstract class RelationshipProvider {
     public abstract Promise<JsonValue, ResourceException> getRelationshipValueForResource(Context context, 
             String resourceId);
 
+    /**
+     * Get the full relationship representation for this provider for each of several resources. The relationships of
+     * up to {@link ReferencedResources#BATCH_SIZE} resources are fetched with a single repository query.
+     *
+     * @param context Context of this request
+     * @param resourceIds Ids of the resources to fetch relationships on
+     * @return the full representation of the relationship on each of the resources, keyed by resource id
+     * @throws ResourceException if an error occurred fetching the relationships
+     */
+    public Map<String, JsonValue> getRelationshipValuesForResources(final Context context,
+            final List<String> resourceIds) throws ResourceException {
+        final Map<String, JsonValue> values = new HashMap<>();
+        final List<String> batch = new ArrayList<>();
+        for (String resourceId : resourceIds) {
+            if (resourceId.contains(",")) {
+                // Cannot be passed in a list query parameter
+                values.put(resourceId, getRelationshipValue(context, resourceId));
+                continue;
+            }
+            batch.add(resourceId);
+            if (batch.size() == ReferencedResources.BATCH_SIZE) {
+                values.putAll(getRelationshipValues(context, batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            values.putAll(getRelationshipValues(context, batch));
+        }
+        return values;
+    }
+
+    /**
+     * Converts the relationships found for a resource to the full relationship representation for this provider.
+     *
+     * @param resourceId Id of the resource the relationships were fetched on
+     * @param relationships the relationships found, as read from the repository
+     * @return the full representation of the relationship on the resource
+     */
+    protected abstract JsonValue toRelationshipValue(String resourceId, List<ResourceResponse> relationships);
+
+    /**
+     * Fetches the relationships of a batch of resources with a single query, or one resource at a time if the
+     * repository does not define the query.
+     */
+    private Map<String, JsonValue> getRelationshipValues(final Context context, final List<String> resourceIds)
+            throws ResourceException {
+        final Map<String, String> resourceIdsByPath = new LinkedHashMap<>();
+        final Map<String, Map<String, ResourceResponse>> relationships = new HashMap<>();
+        for (String resourceId : resourceIds) {
+            resourceIdsByPath.put(resourceContainer.child(resourceId).toString(), resourceId);
+            relationships.put(resourceId, new LinkedHashMap<String, ResourceResponse>());
+        }
+        final QueryRequest queryRequest = Requests.newQueryRequest(REPO_RESOURCE_PATH)
+                .setQueryId(RELATIONSHIPS_QUERY_ID)
+                .setAdditionalParameter(QUERY_FIELD_RESOURCE_PATHS, StringUtils.join(resourceIdsByPath.keySet(), ","))
+                .setAdditionalParameter(QUERY_FIELD_FIELD_NAME, schemaField.getName());
+        final List<ResourceResponse> results = new ArrayList<>();
+        final Map<String, JsonValue> values = new HashMap<>();
+        try {
+            getConnection().query(context, queryRequest, results);
+        } catch (BadRequestException e) {
+            logger.debug("Unable to query {} relationships of several resources, querying them one by one",
+                    schemaField.getName(), e);
+            for (String resourceId : resourceIds) {
+                values.put(resourceId, getRelationshipValue(context, resourceId));
+            }
+            return values;
+        }
+
+        // Assign each relationship to the resource(s) at either end of it; a relationship is returned once for each
+        // end that matched
+        for (ResourceResponse result : results) {
+            final JsonValue content = result.getContent();
+            if (schemaField.getName().equals(content.get(REPO_FIELD_FIRST_PROPERTY_NAME).asString())) {
+                final String resourceId = resourceIdsByPath.get(content.get(REPO_FIELD_FIRST_ID).asString());
+                if (resourceId != null) {
+                    relationships.get(resourceId).put(result.getId(), result);
+                }
+            }
+            if (schemaField.getName().equals(content.get(REPO_FIELD_SECOND_PROPERTY_NAME).asString())) {
+                final String resourceId = resourceIdsByPath.get(content.get(REPO_FIELD_SECOND_ID).asString());
+                if (resourceId != null) {
+                    relationships.get(resourceId).put(result.getId(), result);
+                }
+            }
+        }
+        for (String resourceId : resourceIds) {
+            values.put(resourceId, toRelationshipValue(resourceId,
+                    new ArrayList<>(relationships.get(resourceId).values())));
+        }
+        return values;
+    }
+
+    /**
+     * Fetches the relationships of a single resource, as a null value if there are none on a singleton relationship.
+     */
+    private JsonValue getRelationshipValue(final Context context, final String resourceId)
+            throws ResourceException {
+        try {
+            return getRelationshipValueForResource(context, resourceId).getOrThrowUninterruptibly();
+        } catch (NotFoundException e) {
+            return json(null);
+        }
+    }
+
     /**
      * Set the supplied {@link JsonValue} as the current state of this relationship. This will support updating any 
      * existing relationship (_id is present) and remove any relationship not present in the value from the repository.
@@ -938,36 +1062,76 @@ public abstract class RelationshipProvider {
      */
     protected Promise<ResourceResponse, ResourceException> expandFields(final Context context, final Request request,
             ResourceResponse response) throws ResourceException {
+        List<JsonPointer> refFields = getReferencedFields(request);
+        if (!refFields.isEmpty()) {
+            // Perform the field expansion
+            ReadRequest readRequest = 
+                    Requests.newReadRequest(response.getContent().get(SchemaField.FIELD_REFERENCE).asString());
+            readRequest.addField(refFields.toArray(new JsonPointer[refFields.size()]));
+            ResourceResponse readResponse = getConnection().read(context, readRequest);
+            mergeExpandedFields(request, response, readResponse.getContent());
+        }
+        return newResultPromise(response);
+    }
+
+    /**
+     * Performs resourceExpansion on the supplied responses based on the fields specified in the current request,
+     * reading the referenced resources in batches. Responses whose referenced resource cannot be read are left
+     * unexpanded.
+     *
+     * @param context the current {@link Context} object
+     * @param request the current {@link Request} object
+     * @param responses the {@link ResourceResponse}s to expand fields on.
+     * @throws ResourceException if the connection to read the referenced resources with is not available
+     */
+    protected void expandFields(final Context context, final Request request, List<ResourceResponse> responses)
+            throws ResourceException {
+        List<JsonPointer> refFields = getReferencedFields(request);
+        if (refFields.isEmpty() || responses.isEmpty()) {
+            return;
+        }
+        List<String> references = new ArrayList<>(responses.size());
+        for (ResourceResponse response : responses) {
+            references.add(response.getContent().get(SchemaField.FIELD_REFERENCE).asString());
+        }
+        ReferencedResources referenced = ReferencedResources.read(getConnection(), context, references, refFields);
+        for (int i = 0; i < responses.size(); i++) {
+            JsonValue content = referenced.get(references.get(i));
+            if (content != null) {
+                mergeExpandedFields(request, responses.get(i), content);
+            } else {
+                ResourceException e = referenced.getFailure(references.get(i));
+                logger.error("Error expanding resource: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @return the fields of the current request that are read from the referenced resource
+     */
+    private List<JsonPointer> getReferencedFields(Request request) {
         List<JsonPointer> refFields = new ArrayList<JsonPointer>();
-        List<JsonPointer> otherFields = new ArrayList<JsonPointer>();
         for (JsonPointer field : request.getFields()) {
             if (!field.toString().startsWith(SchemaField.FIELD_REFERENCE.toString())
                     && !field.toString().startsWith(SchemaField.FIELD_PROPERTIES.toString())) {
                 refFields.add(field);
-            } else {
-                otherFields.add(field);
             }
         }
-        if (!refFields.isEmpty()) {
-            // Perform the field expansion
-            ReadRequest readRequest = 
-                    Requests.newReadRequest(response.getContent().get(SchemaField.FIELD_REFERENCE).asString());
-            readRequest.addField(refFields.toArray(new JsonPointer[refFields.size()]));
-            ResourceResponse readResponse = getConnection().read(context, readRequest);
-            response.getContent().asMap().putAll(readResponse.getContent().asMap());
+        return refFields;
+    }
 
-            for (JsonPointer field : otherFields) {
+    /**
+     * Merges the fields read from the referenced resource into the response.
+     */
+    private void mergeExpandedFields(Request request, ResourceResponse response, JsonValue referencedContent) {
+        response.getContent().asMap().putAll(referencedContent.asMap());
+        for (JsonPointer field : request.getFields()) {
+            if (field.equals(SchemaField.FIELD_ALL)) {
+                response.addField(SchemaField.FIELD_EMPTY);
+            } else {
                 response.addField(field);
             }
-            for (JsonPointer field : refFields) {
-                if (field.equals(SchemaField.FIELD_ALL)) {
-                    response.addField(SchemaField.FIELD_EMPTY);
-                } else {
-                    response.addField(field);
-                }
-            }
         }
-        return newResultPromise(response);
     }
 
     /**
@@ -1105,6 +1269,22 @@ public abstract class RelationshipProvider {
 
             @Override
             public void handleResult(ResourceResponse invokeResponse) {
+                // The sync must see the committed change, and must not call remote systems while the unit of work
+                // of the request holds database locks
+                final TransactionContext transaction = TransactionContext.getActive(context);
+                if (transaction != null) {
+                    transaction.afterCommit(new Runnable() {
+                        @Override
+                        public void run() {
+                            performSync();
+                        }
+                    });
+                } else {
+                    performSync();
+                }
+            }
+
+            private void performSync() {
                 try {
                     // now re-read the referenced object to see the aftermath of the request
                     ResourceResponse afterResponse = getConnection()
@@ -134,29 +134,55 @@ class SingletonRelationshipProvider extends RelationshipProvider implements Sing
             } else if (relationships.size() == 1) {
                 return newResultPromise(formatResponse(context, queryRequest).apply(relationships.get(0)));
             } else {
-                // This is a singleton relationship with more than 1 reference - this is an error.
-                // Collect all the erroneous references and add them to the error message.
-                List<String> errorReferences = new ArrayList<>();
-                for (ResourceResponse relationship : relationships) {
-                    JsonValue content = relationship.getContent();
-                    if (schemaField.isReverseRelationship() &&
-                            content.get(REPO_FIELD_FIRST_ID).defaultTo("").asString().equals(resourceFullPath)) {
-                        errorReferences.add(content.get(REPO_FIELD_SECOND_ID).asString());
-                    } else {
-                        errorReferences.add(content.get(REPO_FIELD_FIRST_ID).asString());
-                    }
-                }
-                ResourceResponse relationship = relationships.get(0);
-                relationship.getContent().add(RelationshipUtil.REFERENCE_ERROR, true);
-                relationship.getContent().add(RelationshipUtil.REFERENCE_ERROR_MESSAGE,
-                        "Multiple references found for singleton relationship " + errorReferences);
-                return newResultPromise(formatResponse(context, queryRequest).apply(relationship));
+                return newResultPromise(formatResponse(context, queryRequest)
+                        .apply(referenceError(resourceFullPath, relationships)));
             }
         } catch (ResourceException e) {
             return e.asPromise();
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected JsonValue toRelationshipValue(final String resourceId, final List<ResourceResponse> relationships) {
+        final String resourceFullPath = resourceContainer.child(resourceId).toString();
+        if (relationships.isEmpty()) {
+            return json(null);
+        }
+        final ResourceResponse relationship = relationships.size() == 1
+                ? relationships.get(0)
+                : referenceError(resourceFullPath, relationships);
+        return formatResponseNoException(resourceFullPath).apply(relationship).getContent();
+    }
+
+    /**
+     * Flags the first of several relationships found for this singleton relationship as an error, listing all the
+     * erroneous references in the error message.
+     *
+     * @param resourceFullPath The full path of the managed object the relationships were found for
+     * @param relationships The relationships found, as read from the repository
+     * @return the first relationship, flagged as an error
+     */
+    private ResourceResponse referenceError(final String resourceFullPath, final List<ResourceResponse> relationships) {
+        // This is a singleton relationship with more than 1 reference - this is an error.
+        // Collect all the erroneous references and add them to the error message.
+        List<String> errorReferences = new ArrayList<>();
+        for (ResourceResponse relationship : relationships) {
+            JsonValue content = relationship.getContent();
+            if (schemaField.isReverseRelationship() &&
+                    content.get(REPO_FIELD_FIRST_ID).defaultTo("").asString().equals(resourceFullPath)) {
+                errorReferences.add(content.get(REPO_FIELD_SECOND_ID).asString());
+            } else {
+                errorReferences.add(content.get(REPO_FIELD_FIRST_ID).asString());
+            }
+        }
+        ResourceResponse relationship = relationships.get(0);
+        relationship.getContent().add(RelationshipUtil.REFERENCE_ERROR, true);
+        relationship.getContent().add(RelationshipUtil.REFERENCE_ERROR_MESSAGE,
+                "Multiple references found for singleton relationship " + errorReferences);
+        return relationship;
+    }
+
     @Override
     public Promise<JsonValue, ResourceException> setRelationshipValueForResource(final boolean clearExisting,
             final Context context, final String resourceId, final JsonValue value) {
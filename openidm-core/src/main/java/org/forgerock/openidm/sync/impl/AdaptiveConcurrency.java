@@ -0,0 +1,153 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.json.JsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adjusts the number of threads processing reconciliation tasks from the observed task latency and
+ * failure rate, using additive increase and multiplicative decrease (AIMD).
+ * <p>
+ * Task completions are sampled in windows of {@code sampleSize} tasks. At the end of each window, the number of
+ * threads is halved if the failure rate exceeded {@code maxFailureRate}, or if the mean task latency exceeded the
+ * lowest observed mean latency by more than {@code latencyTolerance}. Otherwise one thread is added, up to
+ * {@code maxThreads}. The lowest observed latency slowly follows the observed latency upwards, so that a target
+ * that becomes slower for good does not keep the concurrency at its minimum.
+ */
+class AdaptiveConcurrency {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrency.class);
+
+    static final int DEFAULT_MIN_THREADS = 1;
+    static final int DEFAULT_MAX_THREADS = 50;
+    static final int DEFAULT_SAMPLE_SIZE = 100;
+    static final double DEFAULT_MAX_FAILURE_RATE = 0.05;
+    static final double DEFAULT_LATENCY_TOLERANCE = 0.5;
+
+    private final int minThreads;
+    private final int maxThreads;
+    private final int sampleSize;
+    private final double maxFailureRate;
+    private final double latencyTolerance;
+    private final ThreadPoolExecutor executor;
+
+    private volatile int limit;
+
+    // State of the current sampling window
+    private int samples = 0;
+    private long latencySum = 0;
+    private int windowStartFailures = 0;
+    private double baselineLatency = -1;
+
+    /**
+     * Creates the adaptive concurrency from the {@code adaptiveTaskThreads} mapping configuration.
+     *
+     * @param config the adaptive configuration
+     * @param initialThreads the number of threads to start with
+     */
+    AdaptiveConcurrency(JsonValue config, int initialThreads) {
+        this(config.get("minThreads").defaultTo(DEFAULT_MIN_THREADS).asInteger(),
+                config.get("maxThreads").defaultTo(DEFAULT_MAX_THREADS).asInteger(),
+                initialThreads,
+                config.get("sampleSize").defaultTo(DEFAULT_SAMPLE_SIZE).asInteger(),
+                config.get("maxFailureRate").defaultTo(DEFAULT_MAX_FAILURE_RATE).asDouble(),
+                config.get("latencyTolerance").defaultTo(DEFAULT_LATENCY_TOLERANCE).asDouble());
+    }
+
+    AdaptiveConcurrency(int minThreads, int maxThreads, int initialThreads, int sampleSize, double maxFailureRate,
+            double latencyTolerance) {
+        this.minThreads = Math.max(1, minThreads);
+        this.maxThreads = Math.max(this.minThreads, maxThreads);
+        this.sampleSize = Math.max(1, sampleSize);
+        this.maxFailureRate = maxFailureRate;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.min(this.maxThreads, Math.max(this.minThreads, initialThreads));
+        this.executor = new ThreadPoolExecutor(limit, limit, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+    }
+
+    /**
+     * @return the executor, resized as the concurrency changes
+     */
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return the current number of threads processing tasks
+     */
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Records the completion of a task, adjusting the concurrency at the end of each sampling window.
+     *
+     * @param latencyNanos the time the task took to process
+     * @param totalFailures the total number of failed entries of the reconciliation so far
+     */
+    synchronized void taskCompleted(long latencyNanos, int totalFailures) {
+        samples++;
+        latencySum += latencyNanos;
+        if (samples < sampleSize) {
+            return;
+        }
+
+        double meanLatency = (double) latencySum / samples;
+        double failureRate = (double) (totalFailures - windowStartFailures) / samples;
+        int newLimit;
+        if (failureRate > maxFailureRate
+                || (baselineLatency > 0 && meanLatency > baselineLatency * (1 + latencyTolerance))) {
+            newLimit = Math.max(minThreads, limit / 2);
+        } else {
+            newLimit = Math.min(maxThreads, limit + 1);
+        }
+
+        if (baselineLatency < 0 || meanLatency < baselineLatency) {
+            baselineLatency = meanLatency;
+        } else {
+            baselineLatency += (meanLatency - baselineLatency) / 16;
+        }
+
+        if (newLimit != limit) {
+            LOGGER.debug("Adjusting recon task threads from {} to {}, mean latency {} ns, failure rate {}",
+                    limit, newLimit, (long) meanLatency, failureRate);
+            resize(newLimit);
+        }
+        samples = 0;
+        latencySum = 0;
+        windowStartFailures = totalFailures;
+    }
+
+    private void resize(int newLimit) {
+        // The core size must never exceed the maximum size, so the order of the updates depends on the direction
+        if (newLimit > limit) {
+            executor.setMaximumPoolSize(newLimit);
+            executor.setCorePoolSize(newLimit);
+        } else {
+            executor.setCorePoolSize(newLimit);
+            executor.setMaximumPoolSize(newLimit);
+        }
+        limit = newLimit;
+    }
+}
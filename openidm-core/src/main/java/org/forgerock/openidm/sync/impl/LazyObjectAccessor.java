@@ -15,19 +15,28 @@
  */
 package org.forgerock.openidm.sync.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.ConnectionFactory;
 import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.openidm.smartevent.EventEntry;
 import org.forgerock.openidm.smartevent.Name;
 import org.forgerock.openidm.smartevent.Publisher;
 import org.forgerock.openidm.sync.SynchronizationException;
 import org.forgerock.services.context.Context;
+import org.forgerock.util.query.QueryFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +49,7 @@ public class LazyObjectAccessor {
     private static final Logger logger = LoggerFactory.getLogger(LazyObjectAccessor.class);
 
     public static final Name EVENT_READ_OBJ = Name.get("openidm/internal/discovery-engine/sync/read-object");
+    public static final Name EVENT_READ_OBJECTS = Name.get("openidm/internal/discovery-engine/sync/read-objects");
 
     private ConnectionFactory connectionFactory;
     private JsonValue object = null;       // The object once loaded, or null if not found
@@ -154,6 +164,48 @@ public class LazyObjectAccessor {
         }
     }
 
+    /**
+     * Reads a batch of objects with a single query on {@code _id}, rather than one read per object.
+     * Objects that no longer exist are absent from the result.
+     *
+     * @param connectionFactory the ConnectionFactory
+     * @param context the context to query with
+     * @param resourceContainer location where the objects are stored
+     * @param resourceIds the object identifiers
+     * @throws SynchronizationException if querying the objects failed
+     * @return the found object values, keyed by the {@code _id} they were returned with
+     */
+    public static Map<String, JsonValue> rawReadObjects(ConnectionFactory connectionFactory, Context context,
+            String resourceContainer, Collection<String> resourceIds) throws SynchronizationException {
+        final Map<String, JsonValue> results = new HashMap<>(resourceIds.size() * 2);
+        if (resourceIds.isEmpty()) {
+            return results;
+        }
+        List<QueryFilter<JsonPointer>> idFilters = new ArrayList<>(resourceIds.size());
+        for (String resourceId : resourceIds) {
+            idFilters.add(QueryFilter.equalTo(new JsonPointer(ResourceResponse.FIELD_CONTENT_ID), resourceId));
+        }
+        EventEntry measure = Publisher.start(EVENT_READ_OBJECTS, null, resourceContainer);
+        try {
+            QueryRequest request = Requests.newQueryRequest(resourceContainer).setQueryFilter(QueryFilter.or(idFilters));
+            connectionFactory.getConnection().query(context, request, new QueryResourceHandler() {
+                @Override
+                public boolean handleResource(ResourceResponse resource) {
+                    if (resource.getId() != null) {
+                        results.put(resource.getId(), resource.getContent());
+                    }
+                    return true;
+                }
+            });
+            return results;
+        } catch (ResourceException ose) {
+            logger.warn("Failed to read batch of objects from {}", resourceContainer, ose);
+            throw new SynchronizationException(ose);
+        } finally {
+            measure.end();
+        }
+    }
+
     /**
      * @param componentContext the resource component name the localId is relative to
      * @param localId local identifier within the component context
@@ -40,8 +40,10 @@ import org.forgerock.json.resource.CreateRequest;
 import org.forgerock.json.resource.DeleteRequest;
 import org.forgerock.json.resource.QueryRequest;
 import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.SortKey;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.util.RequestUtil;
 import org.forgerock.util.query.QueryFilter;
@@ -308,24 +310,84 @@ class Link {
      * @return the mapping from source identifier to the link object for it
      */
     public static Map<String, Link> getLinksForMapping(ObjectMapping mapping, String linkQualifier) throws SynchronizationException {
-        Map<String, Link> sourceIdToLink = new ConcurrentHashMap<String, Link>();
+        final Map<String, Link> sourceIdToLink = new ConcurrentHashMap<String, Link>();
         if (mapping != null) {
-            JsonValue query = new JsonValue(new HashMap<String, Object>());
-            query.put(FIELD_QUERY_FILTER,
-                    QueryFilter.and(Arrays.asList(
-                            QueryFilter.equalTo("/linkType", mapping.getLinkType().getName()),
-                            QueryFilter.equalTo("/linkQualifier", linkQualifier)))
-                            .toString());
-            JsonValue queryResults = linkQuery(mapping.getConnectionFactory(), ObjectSetContext.get(), query);
-            for (JsonValue entry : queryResults) {
-                Link link = new Link(mapping);
-                link.fromJsonValue(entry);
-                sourceIdToLink.put(link.sourceId, link);
-            }
+            queryLinksForMapping(mapping, linkQualifier, ObjectSetContext.get(), 0, new LinkHandler() {
+                @Override
+                public boolean handleLink(Link link) {
+                    sourceIdToLink.put(link.sourceId, link);
+                    return true;
+                }
+            });
         }
         return sourceIdToLink;
     }
 
+    /**
+     * Queries all the links for a given mapping and passes them one at a time to a handler, without
+     * holding them all in memory.
+     * <p>
+     * With a positive page size, the links are queried a page at a time, in the order of their identifiers.
+     *
+     * @param mapping the mapping to look up the links for
+     * @param linkQualifier the link qualifier of the links
+     * @param context the Context chain for the request
+     * @param pageSize the number of links to query at a time, or 0 to query them all at once
+     * @param handler the handler to pass the links to
+     * @throws SynchronizationException if the query could not be performed.
+     */
+    static void queryLinksForMapping(final ObjectMapping mapping, String linkQualifier, Context context,
+            int pageSize, final LinkHandler handler) throws SynchronizationException {
+        JsonValue query = new JsonValue(new HashMap<String, Object>());
+        query.put(FIELD_QUERY_FILTER,
+                QueryFilter.and(Arrays.asList(
+                        QueryFilter.equalTo("/linkType", mapping.getLinkType().getName()),
+                        QueryFilter.equalTo("/linkQualifier", linkQualifier)))
+                        .toString());
+        final boolean[] stopped = { false };
+        String pagedResultsCookie = null;
+        try {
+            do {
+                QueryRequest request = RequestUtil.buildQueryRequestFromParameterMap(linkId(null), query.asMap());
+                if (pageSize > 0) {
+                    request.setPageSize(pageSize);
+                    request.setPagedResultsCookie(pagedResultsCookie);
+                    request.addSortKey(SortKey.ascendingOrder("_id"));
+                }
+                QueryResponse response = mapping.getConnectionFactory().getConnection().query(context, request,
+                        new QueryResourceHandler() {
+                            @Override
+                            public boolean handleResource(ResourceResponse resource) {
+                                // Not all repositories stop the query when asked to
+                                if (stopped[0]) {
+                                    return false;
+                                }
+                                Link link = new Link(mapping);
+                                link.fromJsonValue(resource.getContent());
+                                stopped[0] = !handler.handleLink(link);
+                                return !stopped[0];
+                            }
+                        });
+                pagedResultsCookie = response.getPagedResultsCookie();
+            } while (pageSize > 0 && pagedResultsCookie != null && !stopped[0]);
+        } catch (JsonValueException jve) {
+            throw new SynchronizationException("Malformed link query response", jve);
+        } catch (ResourceException ose) {
+            throw new SynchronizationException("Link query failed", ose);
+        }
+    }
+
+    /**
+     * Receives the links of a mapping one at a time.
+     */
+    interface LinkHandler {
+        /**
+         * @param link a link of the mapping
+         * @return true to receive further links, false to stop the query
+         */
+        boolean handleLink(Link link);
+    }
+
     /** Compares the given Id to the current targetId,
      * taking into account the settings for case sensitivity
      * @param compareTargetId The target id to compare
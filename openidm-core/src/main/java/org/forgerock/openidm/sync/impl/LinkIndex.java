@@ -0,0 +1,267 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.services.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The links of a mapping pre-fetched for a reconciliation, keyed by normalized source id.
+ * <p>
+ * Only the id, revision and target id of each link are held, packed into one UTF-8 encoded byte array, rather
+ * than the full link objects and the query results they were read from. The links are queried a page at a time,
+ * either before the source phase starts, or in the background on a task thread of the reconciliation while it
+ * runs.
+ * <p>
+ * A source without a link in the index is only known to be unlinked once the index is complete. Until the
+ * links are all loaded, or if loading stopped because the index exceeded its memory budget or failed, the
+ * link of such a source is read individually instead.
+ */
+class LinkIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LinkIndex.class);
+
+    /** The default number of links to query at a time */
+    static final int DEFAULT_PAGE_SIZE = 10000;
+
+    /** The estimated memory held per link besides its characters: the key and value headers, and the map entry */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    /** Separates the fields of a packed link; the UTF-8 encoding of an id never contains a zero byte */
+    private static final byte SEPARATOR = 0;
+
+    private final ObjectMapping mapping;
+    private final int pageSize;
+    private final long maxBytes;
+    private final Map<String, Map<String, byte[]>> links = new ConcurrentHashMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicInteger entries = new AtomicInteger();
+    private volatile boolean complete = false;
+    private volatile boolean closed = false;
+
+    /** The load submitted to run in the background, null if none was */
+    private volatile Future<Void> backgroundLoad;
+
+    /** Whether the load submitted to run in the background started, or is not to start as the index was closed */
+    private final AtomicBoolean backgroundLoadStarted = new AtomicBoolean();
+
+    /**
+     * @param mapping the mapping of the links
+     * @param pageSize the number of links to query at a time, or 0 to query them all at once
+     * @param maxBytes the estimated memory the index may hold, or 0 for no limit
+     */
+    LinkIndex(ObjectMapping mapping, int pageSize, long maxBytes) {
+        this.mapping = mapping;
+        this.pageSize = pageSize;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Loads the links of the given link qualifiers.
+     *
+     * @param context the context to query the links with
+     * @param linkQualifiers the link qualifiers to load the links of
+     * @param reconContext the reconciliation the links are loaded for
+     * @throws SynchronizationException if the links could not be queried
+     */
+    void load(Context context, Set<String> linkQualifiers, final ReconciliationContext reconContext)
+            throws SynchronizationException {
+        final ReconciliationStatistic stats = reconContext.getStatistics();
+        stats.linkQueryStart();
+        boolean stopped = false;
+        for (String linkQualifier : linkQualifiers) {
+            if (closed) {
+                stopped = true;
+                break;
+            }
+            final Map<String, byte[]> linksByQualifier = new ConcurrentHashMap<>();
+            links.put(linkQualifier, linksByQualifier);
+            final boolean[] overBudget = { false };
+            final long linkQueryStart = ObjectMapping.startNanoTime(reconContext);
+            Link.queryLinksForMapping(mapping, linkQualifier, context, pageSize, new Link.LinkHandler() {
+                @Override
+                public boolean handleLink(Link link) {
+                    if (closed || reconContext.isCanceled()) {
+                        return false;
+                    }
+                    byte[] packed = pack(link);
+                    long size = ENTRY_OVERHEAD + 2L * link.sourceId.length() + packed.length;
+                    if (maxBytes > 0 && bytes.addAndGet(size) > maxBytes) {
+                        overBudget[0] = true;
+                        return false;
+                    }
+                    if (linksByQualifier.put(link.sourceId, packed) == null) {
+                        entries.incrementAndGet();
+                    }
+                    return true;
+                }
+            });
+            stats.addDuration(ReconciliationStatistic.DurationMetric.linkQuery, linkQueryStart);
+            if (overBudget[0]) {
+                LOGGER.info("Links of mapping {} exceed the memory budget of {} bytes after {} links, "
+                        + "reading the remaining links individually", mapping.getName(), maxBytes, entries.get());
+            }
+            if (overBudget[0] || closed || reconContext.isCanceled()) {
+                stopped = true;
+                break;
+            }
+        }
+        complete = !stopped;
+        reconContext.setTotalLinkEntries(entries.get());
+        stats.linkQueryEnd();
+    }
+
+    /**
+     * Loads the links of the given link qualifiers on a task thread of the reconciliation, which it holds until
+     * the links are loaded. Lookups of sources not loaded yet report them as unknown. A failure to load is logged,
+     * and the links not loaded are then read individually. Without task threads, the links are loaded right away.
+     *
+     * @param context the context to query the links with
+     * @param linkQualifiers the link qualifiers to load the links of
+     * @param reconContext the reconciliation the links are loaded for
+     * @throws SynchronizationException if the links were loaded right away, and could not be queried
+     */
+    void loadInBackground(final Context context, final Set<String> linkQualifiers,
+            final ReconciliationContext reconContext) throws SynchronizationException {
+        Executor executor = reconContext.getExcecutor();
+        if (executor == null) {
+            load(context, linkQualifiers, reconContext);
+            return;
+        }
+        FutureTask<Void> task = new FutureTask<>(new Runnable() {
+            @Override
+            public void run() {
+                if (!backgroundLoadStarted.compareAndSet(false, true)) {
+                    // Closed before it started
+                    return;
+                }
+                try {
+                    load(context, linkQualifiers, reconContext);
+                } catch (SynchronizationException | RuntimeException e) {
+                    LOGGER.warn("Failed to pre-fetch the links of mapping {} for reconciliation {}, "
+                            + "reading them individually", mapping.getName(), reconContext.getReconId(), e);
+                }
+            }
+        }, null);
+        backgroundLoad = task;
+        executor.execute(task);
+    }
+
+    /**
+     * Returns whether the index holds all the links of a link qualifier, so that a source missing from it is
+     * known to be unlinked.
+     *
+     * @param linkQualifier the link qualifier
+     * @return whether the links of the link qualifier are completely loaded
+     */
+    boolean isComplete(String linkQualifier) {
+        return complete && !closed && links.containsKey(linkQualifier);
+    }
+
+    /**
+     * @return the link qualifiers the index holds links for
+     */
+    Collection<String> getLinkQualifiers() {
+        return links.keySet();
+    }
+
+    /**
+     * Looks up the link of a source.
+     *
+     * @param linkQualifier the link qualifier of the link
+     * @param normalizedSourceId the normalized source id
+     * @return the link, or null if the index does not hold a link for the source
+     */
+    Link getLink(String linkQualifier, String normalizedSourceId) {
+        Map<String, byte[]> linksByQualifier = links.get(linkQualifier);
+        byte[] packed = linksByQualifier != null ? linksByQualifier.get(normalizedSourceId) : null;
+        if (packed == null) {
+            return null;
+        }
+        String[] fields = unpack(packed);
+        Link link = new Link(mapping);
+        link._id = fields[0];
+        link._rev = fields[1].isEmpty() ? null : fields[1];
+        link.targetId = fields[2];
+        link.sourceId = normalizedSourceId;
+        link.linkQualifier = linkQualifier;
+        link.initialized = true;
+        return link;
+    }
+
+    /**
+     * Stops loading and releases the links held. A load submitted to run in the background does not start if it has
+     * not yet, or else stops at the next link or link qualifier, and is waited for, so that it holds no links once
+     * closed.
+     */
+    void close() {
+        closed = true;
+        Future<Void> task = backgroundLoad;
+        if (task != null && !backgroundLoadStarted.compareAndSet(false, true)) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                LOGGER.warn("Failed to pre-fetch the links of mapping {}", mapping.getName(), e.getCause());
+            }
+        }
+        links.clear();
+    }
+
+    private static byte[] pack(Link link) {
+        byte[] id = link._id.getBytes(StandardCharsets.UTF_8);
+        byte[] rev = link._rev != null ? link._rev.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] targetId = link.targetId.getBytes(StandardCharsets.UTF_8);
+        byte[] packed = new byte[id.length + rev.length + targetId.length + 2];
+        System.arraycopy(id, 0, packed, 0, id.length);
+        packed[id.length] = SEPARATOR;
+        System.arraycopy(rev, 0, packed, id.length + 1, rev.length);
+        packed[id.length + rev.length + 1] = SEPARATOR;
+        System.arraycopy(targetId, 0, packed, id.length + rev.length + 2, targetId.length);
+        return packed;
+    }
+
+    private static String[] unpack(byte[] packed) {
+        String[] fields = new String[3];
+        int start = 0;
+        for (int i = 0; i < 2; i++) {
+            int end = start;
+            while (packed[end] != SEPARATOR) {
+                end++;
+            }
+            fields[i] = new String(packed, start, end - start, StandardCharsets.UTF_8);
+            start = end + 1;
+        }
+        fields[2] = new String(packed, start, packed.length - start, StandardCharsets.UTF_8);
+        return fields;
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.sync.impl;
 
@@ -23,11 +24,11 @@ import static org.forgerock.json.JsonValueFunctions.enumConstant;
 import static org.forgerock.json.JsonValueFunctions.setOf;
 import static org.forgerock.openidm.sync.impl.ReconciliationStatistic.DurationMetric;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -159,6 +160,15 @@ class ObjectMapping {
      */
     private final boolean prefetchLinks;
 
+    /** The number of links to pre-fetch at a time, or 0 to pre-fetch them all with a single query */
+    private final int prefetchLinksPageSize;
+
+    /** The estimated memory the pre-fetched links may hold, or 0 for no limit */
+    private final long prefetchLinksMaxBytes;
+
+    /** Whether links are pre-fetched while the source phase starts, rather than before it */
+    private final boolean prefetchLinksInBackground;
+
     /**
      * Whether to maintain links for sync-d targets
      * Default to {@code TRUE}
@@ -171,6 +181,33 @@ class ObjectMapping {
     /** The number of initial tasks the ReconFeeder should submit to executors */
     private int feedSize;
 
+    /**
+     * The configuration for adapting the number of processing threads to the observed latency and failures,
+     * or null to use a fixed number of threads
+     */
+    private final JsonValue adaptiveTaskThreads;
+
+    /**
+     * The number of entries the ReconFeeder reads in bulk before submitting their tasks.
+     * 1 reads each source, target and linked target individually, as each task needs it.
+     */
+    private int reconBatchSize;
+
+    /**
+     * Whether the target phase should spool target ids to disk and merge them against the matched targets,
+     * rather than holding all target ids (and optionally values) in memory.
+     */
+    private final boolean streamTargetPhase;
+
+    /** The number of target ids the streaming target phase holds in memory before spilling a sorted run */
+    private final int targetIdRunSize;
+
+    /**
+     * The number of partitions the source phase is split into across the nodes of a cluster.
+     * 0 or 1 reconciles the whole source on the node starting the recon.
+     */
+    private final int clusterPartitions;
+
     /** a reference to the {@link ConnectionFactory} */
     private final ConnectionFactory connectionFactory;
 
@@ -219,8 +256,18 @@ class ObjectMapping {
                     field(SourceUnit.ATTR_NAME, "roles/onRecon.groovy")))));
         resultScript = Scripts.newScript(config.get("result"));
         prefetchLinks = config.get("prefetchLinks").defaultTo(true).asBoolean();
+        prefetchLinksPageSize = config.get("prefetchLinksPageSize").defaultTo(LinkIndex.DEFAULT_PAGE_SIZE).asInteger();
+        prefetchLinksMaxBytes = config.get("prefetchLinksMaxBytes").defaultTo(0L).asLong();
+        prefetchLinksInBackground = config.get("prefetchLinksInBackground").defaultTo(false).asBoolean();
         taskThreads = config.get("taskThreads").defaultTo(DEFAULT_TASK_THREADS).asInteger();
         feedSize = config.get("feedSize").defaultTo(ReconFeeder.DEFAULT_FEED_SIZE).asInteger();
+        reconBatchSize = config.get("reconBatchSize").defaultTo(1).asInteger();
+        adaptiveTaskThreads = config.get("adaptiveTaskThreads").isNull()
+                ? null
+                : config.get("adaptiveTaskThreads").expect(Map.class);
+        streamTargetPhase = config.get("streamTargetPhase").defaultTo(false).asBoolean();
+        targetIdRunSize = config.get("targetIdRunSize").defaultTo(SortedIdSpool.DEFAULT_RUN_SIZE).asInteger();
+        clusterPartitions = config.get("clusterPartitions").defaultTo(0).asInteger();
         syncEnabled = config.get("enableSync").defaultTo(true).asBoolean();
         linkingEnabled = config.get("enableLinking").defaultTo(true).asBoolean();
         reconSourceQueryPaging = config.get("reconSourceQueryPaging").defaultTo(false).asBoolean();
@@ -266,6 +313,38 @@ class ObjectMapping {
         return connectionFactory;
     }
 
+    /**
+     * Reads a batch of source objects with a single query.
+     *
+     * @param sourceIds the source ids to read
+     * @return the found source values, keyed by their normalized source id
+     * @throws SynchronizationException if querying the sources failed
+     */
+    Map<String, JsonValue> readSourceObjects(Collection<String> sourceIds) throws SynchronizationException {
+        Map<String, JsonValue> sources = new HashMap<>(sourceIds.size() * 2);
+        for (Map.Entry<String, JsonValue> source : LazyObjectAccessor.rawReadObjects(
+                connectionFactory, ObjectSetContext.get(), sourceObjectSet, sourceIds).entrySet()) {
+            sources.put(linkType.normalizeSourceId(source.getKey()), source.getValue());
+        }
+        return sources;
+    }
+
+    /**
+     * Reads a batch of target objects with a single query.
+     *
+     * @param targetIds the target ids to read, normalized or not
+     * @return the found target values, keyed by their normalized target id
+     * @throws SynchronizationException if querying the targets failed
+     */
+    Map<String, JsonValue> readTargetObjects(Collection<String> targetIds) throws SynchronizationException {
+        Map<String, JsonValue> targets = new HashMap<>(targetIds.size() * 2);
+        for (Map.Entry<String, JsonValue> target : LazyObjectAccessor.rawReadObjects(
+                connectionFactory, ObjectSetContext.get(), targetObjectSet, targetIds).entrySet()) {
+            targets.put(linkType.normalizeTargetId(target.getKey()), target.getValue());
+        }
+        return targets;
+    }
+
     /**
      * @return The name of the object mapping
      */
@@ -688,6 +767,26 @@ class ObjectMapping {
         measure.end();
     }
 
+    /**
+     * Adapts an iterator of identifiers to an iterator of entries without values.
+     *
+     * @param ids the identifiers
+     * @return the entries of the identifiers
+     */
+    private static Iterator<ResultEntry> idEntries(final Iterator<String> ids) {
+        return new Iterator<ResultEntry>() {
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+
+            @Override
+            public ResultEntry next() {
+                return new ResultEntry(ids.next(), null);
+            }
+        };
+    }
+
     /**
      * TEMPORARY. Future version will have this break-down into discrete units of work.
      * @param reconContext
@@ -700,6 +799,9 @@ class ObjectMapping {
         EventEntry measureIdQueries = Publisher.start(EVENT_RECON_ID_QUERIES, reconId, null);
         reconContext.setStage(ReconStage.ACTIVE_QUERY_ENTRIES);
         Context context = ObjectSetContext.get();
+        SortedIdSpool targetIdSpool = null;
+        SortedIdSpool matchedTargetIdSpool = null;
+        LinkIndex linkIndex = null;
         try {
             // Execute onRecon script.
             executeOnRecon(context, reconContext);
@@ -717,7 +819,7 @@ class ObjectMapping {
 
             stats.addDuration(DurationMetric.sourceQuery, firstSourceQueryStart);
             stats.sourceQueryEnd();
-            if (!sourceIter.hasNext()) {
+            if (sourceQueryResult.getAllIds().isEmpty()) {
                 if (!reconContext.getReconHandler().allowEmptySourceSet()) {
                     LOGGER.warn("Cannot reconcile from an empty data source, unless allowEmptySourceSet is true.");
                     reconContext.setStage(ReconStage.COMPLETED_FAILED);
@@ -728,37 +830,39 @@ class ObjectMapping {
             }
 
             // If we will handle a target phase, pre-load all relevant target identifiers
-            Set<String> remainingTargetIds = new LinkedHashSet<>();
+            ReconIdSet remainingTargetIdSet = new ReconIdSet();
+            RemainingIds remainingTargetIds = remainingTargetIdSet;
             ResultIterable targetIterable =
                     new ResultIterable(Collections.<String>emptyList(), Collections.<JsonValue>emptyList());
             if (reconContext.getReconHandler().isRunTargetPhase()) {
                 stats.targetQueryStart();
                 final long targetQueryStart = startNanoTime(reconContext);
 
-                targetIterable = reconContext.queryTarget();
-                remainingTargetIds.addAll(targetIterable.getAllIds());
-                remainingTargetIds = Collections.synchronizedSet(remainingTargetIds);
+                if (streamTargetPhase) {
+                    // Spool target ids to disk, and the targets matched in the source phase alongside them
+                    targetIdSpool = new SortedIdSpool(targetIdRunSize);
+                    matchedTargetIdSpool = new SortedIdSpool(targetIdRunSize);
+                    reconContext.spoolTarget(targetIdSpool);
+                    remainingTargetIds = targetIdSpool.without(matchedTargetIdSpool);
+                } else {
+                    targetIterable = reconContext.queryTarget();
+                    remainingTargetIdSet = new ReconIdSet(targetIterable.getAllIds());
+                    remainingTargetIds = remainingTargetIdSet;
+                }
 
                 stats.addDuration(DurationMetric.targetQuery, targetQueryStart);
                 stats.targetQueryEnd();
             }            
 
-            // Optionally get all links up front as well
-            Map<String, Map<String, Link>> allLinks = null;
+            // Optionally get all links up front as well, or while the source phase starts
             if (prefetchLinks) {
-                allLinks = new HashMap<>();
-                int totalLinkEntries = 0;
-                stats.linkQueryStart();
-                for (String linkQualifier : getAllLinkQualifiers(context, reconContext)) {
-                    final long linkQueryStart = startNanoTime(reconContext);
-                    Map<String, Link> linksByQualifier = Link.getLinksForMapping(ObjectMapping.this, linkQualifier);
-                    stats.addDuration(DurationMetric.linkQuery, linkQueryStart);
-
-                    allLinks.put(linkQualifier, linksByQualifier);
-                    totalLinkEntries += linksByQualifier.size();
+                linkIndex = new LinkIndex(ObjectMapping.this, prefetchLinksPageSize, prefetchLinksMaxBytes);
+                Set<String> linkQualifiers = getAllLinkQualifiers(context, reconContext);
+                if (prefetchLinksInBackground) {
+                    linkIndex.loadInBackground(context, linkQualifiers, reconContext);
+                } else {
+                    linkIndex.load(context, linkQualifiers, reconContext);
                 }
-                reconContext.setTotalLinkEntries(totalLinkEntries);
-                stats.linkQueryEnd();
             }
 
             measureIdQueries.end();
@@ -770,25 +874,42 @@ class ObjectMapping {
             final long sourcePhaseStart = startNanoTime(reconContext);
             
             boolean queryNextPage = false;
+            boolean nextSourcePass;
+            remainingTargetIds = reconContext.getReconHandler().sourcePhaseStarted(remainingTargetIds);
 
             LOGGER.info("Performing source sync for recon {} on mapping {}", reconId, name);
             do {
-                // Query next page of results if paging
-                if (queryNextPage) {
-                    LOGGER.debug("Querying next page of source ids");
-                    final long pagedSourceQueryStart = startNanoTime(reconContext);
-                    sourceQueryResult = reconContext.querySourceIter(reconSourceQueryPageSize, 
-                            sourceQueryResult.getPagingCookie());
+                do {
+                    // Query next page of results if paging
+                    if (queryNextPage) {
+                        LOGGER.debug("Querying next page of source ids");
+                        final long pagedSourceQueryStart = startNanoTime(reconContext);
+                        sourceQueryResult = reconContext.querySourceIter(reconSourceQueryPageSize,
+                                sourceQueryResult.getPagingCookie());
+                        sourceIter = sourceQueryResult.getIterator();
+                        stats.addDuration(DurationMetric.sourceQuery, pagedSourceQueryStart);
+                    }
+                    // Perform source recon phase on current set of source ids
+                    ReconPhase sourcePhase =
+                            new ReconPhase(sourceIter, reconContext, context, linkIndex, remainingTargetIds, sourceRecon);
+                    sourcePhase.setFeedSize(feedSize);
+                    sourcePhase.setBatchSize(reconBatchSize);
+                    sourcePhase.execute();
+                    queryNextPage = true;
+                } while (reconSourceQueryPaging && sourceQueryResult.getPagingCookie() != null); // If paging, loop through next pages
+
+                // Partitioned recons query the source again for each further partition claimed
+                nextSourcePass = reconContext.getReconHandler().nextSourcePass();
+                if (nextSourcePass) {
+                    LOGGER.debug("Querying source ids for the next source pass");
+                    final long passSourceQueryStart = startNanoTime(reconContext);
+                    sourceQueryResult = reconContext.querySourceIter(reconSourceQueryPageSize, null);
                     sourceIter = sourceQueryResult.getIterator();
-                    stats.addDuration(DurationMetric.sourceQuery, pagedSourceQueryStart);
+                    stats.addDuration(DurationMetric.sourceQuery, passSourceQueryStart);
+                    queryNextPage = false;
                 }
-                // Perform source recon phase on current set of source ids
-                ReconPhase sourcePhase = 
-                        new ReconPhase(sourceIter, reconContext, context, allLinks, remainingTargetIds, sourceRecon);
-                sourcePhase.setFeedSize(feedSize);
-                sourcePhase.execute();
-                queryNextPage = true;
-            } while (reconSourceQueryPaging && sourceQueryResult.getPagingCookie() != null); // If paging, loop through next pages
+            } while (nextSourcePass);
+            reconContext.getReconHandler().sourcePhaseCompleted(remainingTargetIds);
 
             stats.addDuration(DurationMetric.sourcePhase, sourcePhaseStart);
             stats.sourcePhaseEnd();
@@ -800,11 +921,18 @@ class ObjectMapping {
                 EventEntry measureTarget = Publisher.start(EVENT_RECON_TARGET, reconId, null);
                 final long targetPhaseStart = startNanoTime(reconContext);
                 reconContext.setStage(ReconStage.ACTIVE_RECONCILING_TARGET);
-                targetIterable = targetIterable.removeNotMatchingEntries(remainingTargetIds);
+                final Iterator<ResultEntry> targetEntries;
+                if (streamTargetPhase) {
+                    // Remaining targets are the sorted difference of the spooled and the matched target ids
+                    targetEntries = idEntries(remainingTargetIds.iterator());
+                } else {
+                    targetEntries = targetIterable.removeNotMatchingEntries(remainingTargetIdSet).iterator();
+                }
                 stats.targetPhaseStart();
-                ReconPhase targetPhase = new ReconPhase(targetIterable.iterator(), reconContext, context,
-                        allLinks, null, targetRecon);
+                ReconPhase targetPhase = new ReconPhase(targetEntries, reconContext, context,
+                        linkIndex, null, targetRecon);
                 targetPhase.setFeedSize(feedSize);
+                targetPhase.setBatchSize(reconBatchSize);
                 targetPhase.execute();
                 stats.addDuration(DurationMetric.targetPhase, targetPhaseStart);
                 stats.targetPhaseEnd();
@@ -814,6 +942,7 @@ class ObjectMapping {
             stats.reconEnd();
             reconContext.setStage(ReconStage.ACTIVE_PROCESSING_RESULTS);
             doResults(reconContext, context);
+            reconContext.getReconHandler().reconSucceeded();
             reconContext.setStage(ReconStage.COMPLETED_SUCCESS);
             logReconEndSuccess(reconContext, context);
         } catch (InterruptedException ex) {
@@ -846,6 +975,13 @@ class ObjectMapping {
             throw new SynchronizationException("Synchronization failed", e);
         } finally {
             ObjectSetContext.pop(); // pop the TriggerContext
+            if (targetIdSpool != null) {
+                targetIdSpool.close();
+                matchedTargetIdSpool.close();
+            }
+            if (linkIndex != null) {
+                linkIndex.close();
+            }
             if (!stats.hasEnded()) {
                 stats.reconEnd();
             }
@@ -913,6 +1049,21 @@ class ObjectMapping {
         return taskThreads;
     }
 
+    /**
+     * @return the configuration for adapting the number of processing threads,
+     * or null if the configured number of threads is fixed
+     */
+    JsonValue getAdaptiveTaskThreads() {
+        return adaptiveTaskThreads;
+    }
+
+    /**
+     * @return the number of partitions the source phase is split into across the nodes of a cluster
+     */
+    int getClusterPartitions() {
+        return clusterPartitions;
+    }
+
     /**
      * Creates an entry in the audit log.
      *
@@ -12,12 +12,12 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
-import java.util.Map;
+import java.util.List;
 
 import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.sync.SynchronizationException;
@@ -35,10 +35,21 @@ interface Recon {
      * @param entry an optional value if the given entry was pre-loaded, or null if not
      * @param reconContext reconciliation context
      * @param rootContext json resource root ctx
-     * @param allLinks all links if pre-queried, or null for on-demand link querying
+     * @param linkIndex the pre-fetched links, or null for on-demand link querying
      * @param remainingIds The set to update/remove any targets that were matched
      * @throws SynchronizationException if there is a failure reported in reconciling this id
      */
     void recon(String id, JsonValue entry, ReconciliationContext reconContext, Context rootContext,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds) throws SynchronizationException;
+            LinkIndex linkIndex, RemainingIds remainingIds) throws SynchronizationException;
+
+    /**
+     * Read the objects of a batch of entries in bulk, before the entries are reconciled
+     * @param entries the batch of entries to reconcile
+     * @param reconContext reconciliation context
+     * @param linkIndex the pre-fetched links, or null for on-demand link querying
+     * @return the entries, in the same order, with values populated for the objects that were read
+     * @throws SynchronizationException if the bulk read failed
+     */
+    List<ResultEntry> prefetch(List<ResultEntry> entries, ReconciliationContext reconContext,
+            LinkIndex linkIndex) throws SynchronizationException;
 }
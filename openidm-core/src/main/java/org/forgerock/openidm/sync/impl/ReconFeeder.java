@@ -24,9 +24,14 @@
 */
 package org.forgerock.openidm.sync.impl;
 
+import org.forgerock.openidm.audit.util.Status;
 import org.forgerock.openidm.sync.SynchronizationException;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
@@ -40,7 +45,11 @@ import java.util.concurrent.Future;
  * multi-threaded using an executor.
  *
  * Keeps the executor loaded to a desirable level, rather than filling up
- * its queue with all tasks up front.
+ * its queue with all tasks up front. With adaptive task threads the level
+ * follows the current number of threads, otherwise it is the feed size.
+ *
+ * Optionally pulls entries in batches, giving the phase a chance to read the
+ * objects of a whole batch in bulk before the tasks for its entries are created.
  */
 public abstract class ReconFeeder {
     
@@ -51,9 +60,11 @@ public abstract class ReconFeeder {
     
     CompletionService<Void> completionService;
     int feedSize = DEFAULT_FEED_SIZE;
+    int batchSize = 1;
     int submitted = 0;
 
     Iterator<ResultEntry> entriesIter;
+    private final Deque<ResultEntry> batch = new ArrayDeque<ResultEntry>();
     ReconciliationContext reconContext;
 
     protected ReconFeeder(Iterator<ResultEntry> entriesIter, ReconciliationContext reconContext) {
@@ -65,12 +76,19 @@ public abstract class ReconFeeder {
         this.feedSize = feedSize;
     }
 
+    /**
+     * @param batchSize the number of entries to pull and prefetch together; 1 or less disables batching
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
     void execute() throws SynchronizationException, InterruptedException {
         Executor executor = reconContext.getExcecutor();
         if (executor == null) {
             // Execute single threaded
-            while (entriesIter.hasNext()) {
-                ResultEntry entry = entriesIter.next();
+            while (hasNextEntry()) {
+                ResultEntry entry = nextEntry();
                 try {
                     createTask(entry).call();
                 } catch (Exception ex) {
@@ -82,12 +100,10 @@ public abstract class ReconFeeder {
             completionService = new ExecutorCompletionService<Void>(executor);
 
             // Pre-load configured number of items
-            for (int i = 0; i < feedSize; ++i) {
-                submitNextIfPresent();
-            }
+            submitUpTo(inFlightLimit());
 
             // Check all submitted tasks for exception, and
-            // each time one completes, submit another if there is any more
+            // each time one completes, top up the submitted tasks if there are any more
             for (int processed = 0; processed < submitted; ++processed) {
                 Future<Void> future = completionService.take();
                 try {
@@ -96,20 +112,93 @@ public abstract class ReconFeeder {
                 } catch (ExecutionException ex) {
                     translateTaskThrowable(ex);
                 }
-                submitNextIfPresent();
+                submitUpTo(processed + 1 + inFlightLimit());
             }
         }
     }
 
+    /**
+     * @return the number of tasks to keep submitted to the executor
+     */
+    int inFlightLimit() {
+        AdaptiveConcurrency adaptiveConcurrency = reconContext.getAdaptiveConcurrency();
+        // Queue one task per thread on top of the running ones, so threads do not wait on the feeder
+        return adaptiveConcurrency == null ? feedSize : adaptiveConcurrency.getLimit() * 2;
+    }
+
+    void submitUpTo(int totalSubmitted) throws SynchronizationException {
+        reconContext.checkCanceled();
+        while (submitted < totalSubmitted && hasNextEntry()) {
+            submitNextIfPresent();
+        }
+    }
+
     void submitNextIfPresent() throws SynchronizationException {
         reconContext.checkCanceled();
-        if (entriesIter.hasNext()) {
-            ResultEntry entry = entriesIter.next();
-            completionService.submit(createTask(entry));
+        if (hasNextEntry()) {
+            ResultEntry entry = nextEntry();
+            AdaptiveConcurrency adaptiveConcurrency = reconContext.getAdaptiveConcurrency();
+            completionService.submit(adaptiveConcurrency == null
+                    ? createTask(entry)
+                    : measure(createTask(entry), adaptiveConcurrency));
             ++submitted;
         }
     }
 
+    /**
+     * Wraps a task to report its latency to the adaptive concurrency
+     * @param task the task to measure
+     * @param adaptiveConcurrency the adaptive concurrency to report to
+     * @return the measured task
+     */
+    private Callable<Void> measure(final Callable<Void> task, final AdaptiveConcurrency adaptiveConcurrency) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                final long start = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    adaptiveConcurrency.taskCompleted(System.nanoTime() - start,
+                            reconContext.getStatistics().getStatusProcessed(Status.FAILURE));
+                }
+            }
+        };
+    }
+
+    boolean hasNextEntry() {
+        return !batch.isEmpty() || entriesIter.hasNext();
+    }
+
+    /**
+     * Returns the next entry, pulling and prefetching the next batch of entries when the current batch is used up
+     * @return the next entry to create a task for
+     * @throws SynchronizationException if prefetching the batch failed
+     */
+    ResultEntry nextEntry() throws SynchronizationException {
+        if (batchSize <= 1) {
+            return entriesIter.next();
+        }
+        if (batch.isEmpty()) {
+            List<ResultEntry> entries = new ArrayList<ResultEntry>(batchSize);
+            while (entries.size() < batchSize && entriesIter.hasNext()) {
+                entries.add(entriesIter.next());
+            }
+            batch.addAll(prefetch(entries));
+        }
+        return batch.poll();
+    }
+
+    /**
+     * Read the objects of a batch of entries in bulk. By default entries are returned as they are.
+     * @param entries the batch of entries
+     * @return the entries, with values populated for the objects that were read
+     * @throws SynchronizationException if reading the batch failed
+     */
+    List<ResultEntry> prefetch(List<ResultEntry> entries) throws SynchronizationException {
+        return entries;
+    }
+
     void translateTaskThrowable(Throwable throwable) throws SynchronizationException {
         Throwable cause = throwable.getCause();
         
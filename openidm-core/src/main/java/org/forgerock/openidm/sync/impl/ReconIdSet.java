@@ -0,0 +1,303 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A concurrent set of object identifiers with a small per-entry footprint, used to track the
+ * source and remaining target identifiers of a reconciliation run.
+ * <p>
+ * Identifiers are stored UTF-8 encoded in lock-striped open addressing tables, so each entry costs
+ * the encoded bytes plus a slot reference and a cached hash, rather than a {@link String} and a map node.
+ * Removals from different stripes do not contend, and a stripe shrinks as its entries are removed.
+ * <p>
+ * Iteration is weakly consistent and in no particular order.
+ */
+class ReconIdSet extends AbstractSet<String> implements RemainingIds {
+
+    /** The default number of lock stripes */
+    static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private static final int MIN_CAPACITY = 16;
+
+    /** Marker for removed slots, keeping probe sequences intact */
+    private static final byte[] REMOVED = new byte[0];
+
+    private final Stripe[] stripes;
+    private final int stripeBits;
+
+    /**
+     * Creates an empty set with the default concurrency level.
+     */
+    ReconIdSet() {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a set containing the given identifiers, with the default concurrency level.
+     *
+     * @param ids the identifiers to add
+     */
+    ReconIdSet(Collection<String> ids) {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+        addAll(ids);
+    }
+
+    /**
+     * Creates an empty set.
+     *
+     * @param concurrencyLevel the expected number of threads concurrently updating the set
+     */
+    ReconIdSet(int concurrencyLevel) {
+        int bits = 0;
+        while ((1 << bits) < concurrencyLevel && bits < 16) {
+            bits++;
+        }
+        stripeBits = bits;
+        stripes = new Stripe[1 << bits];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public boolean add(String id) {
+        int hash = hash(id);
+        return stripeFor(hash).add(hash >>> stripeBits, id.getBytes(UTF_8));
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        int hash = hash((String) o);
+        return stripeFor(hash).contains(hash >>> stripeBits, ((String) o).getBytes(UTF_8));
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        int hash = hash((String) o);
+        return stripeFor(hash).remove(hash >>> stripeBits, ((String) o).getBytes(UTF_8));
+    }
+
+    @Override
+    public boolean remove(String id) {
+        return remove((Object) id);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of slots of the tables, each costing a reference and a cached hash besides the entries
+     */
+    int capacity() {
+        int capacity = 0;
+        for (Stripe stripe : stripes) {
+            capacity += stripe.capacity();
+        }
+        return capacity;
+    }
+
+    @Override
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int nextStripe = 0;
+            private byte[][] batch;
+            private int position;
+            private String last;
+
+            @Override
+            public boolean hasNext() {
+                while ((batch == null || position >= batch.length) && nextStripe < stripes.length) {
+                    batch = stripes[nextStripe++].snapshot();
+                    position = 0;
+                }
+                return batch != null && position < batch.length;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = new String(batch[position++], UTF_8);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                ReconIdSet.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    private Stripe stripeFor(int hash) {
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+    private static int hash(String id) {
+        int h = id.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * One lock stripe: a linear probing table of encoded identifiers and their hashes.
+     */
+    private static final class Stripe {
+        private int[] hashes;
+        private byte[][] keys;
+        private int size;
+        /** Live and removed slots; bounds the probe sequence length */
+        private int used;
+
+        Stripe() {
+            allocate(MIN_CAPACITY);
+        }
+
+        synchronized boolean contains(int hash, byte[] key) {
+            return indexOf(hash, key) >= 0;
+        }
+
+        synchronized boolean add(int hash, byte[] key) {
+            if (indexOf(hash, key) >= 0) {
+                return false;
+            }
+            if (used + 1 > keys.length / 4 * 3) {
+                rehash(size + 1);
+            }
+            int mask = keys.length - 1;
+            int i = hash & mask;
+            while (keys[i] != null && keys[i] != REMOVED) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == null) {
+                used++;
+            }
+            keys[i] = key;
+            hashes[i] = hash;
+            size++;
+            return true;
+        }
+
+        synchronized boolean remove(int hash, byte[] key) {
+            int i = indexOf(hash, key);
+            if (i < 0) {
+                return false;
+            }
+            keys[i] = REMOVED;
+            size--;
+            if (keys.length > MIN_CAPACITY && size < keys.length / 8) {
+                rehash(size);
+            }
+            return true;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized int capacity() {
+            return keys.length;
+        }
+
+        synchronized void clear() {
+            allocate(MIN_CAPACITY);
+        }
+
+        synchronized byte[][] snapshot() {
+            byte[][] live = new byte[size][];
+            int n = 0;
+            for (byte[] key : keys) {
+                if (key != null && key != REMOVED) {
+                    live[n++] = key;
+                }
+            }
+            return live;
+        }
+
+        private int indexOf(int hash, byte[] key) {
+            int mask = keys.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                byte[] candidate = keys[i];
+                if (candidate == null) {
+                    return -1;
+                }
+                if (candidate != REMOVED && hashes[i] == hash && Arrays.equals(candidate, key)) {
+                    return i;
+                }
+            }
+        }
+
+        private void rehash(int expectedSize) {
+            int capacity = MIN_CAPACITY;
+            while (capacity < expectedSize * 2) {
+                capacity <<= 1;
+            }
+            int[] oldHashes = hashes;
+            byte[][] oldKeys = keys;
+            allocate(capacity);
+            int mask = capacity - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != null && oldKeys[j] != REMOVED) {
+                    int i = oldHashes[j] & mask;
+                    while (keys[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    hashes[i] = oldHashes[j];
+                    size++;
+                    used++;
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            hashes = new int[capacity];
+            keys = new byte[capacity][];
+            size = 0;
+            used = 0;
+        }
+    }
+}
@@ -0,0 +1,509 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.services.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The partitions of a reconciliation processed across the nodes of a cluster, held in a repository object
+ * shared by the nodes.
+ * <p>
+ * Each partition is claimed by one node at a time. Claims and all other changes are optimistic updates of the
+ * object revision, retried on conflict. The object also holds the id ranges of the partitions, if the source is
+ * queried by id range, the progress made on each partition by the node that completed it, and whether the
+ * reconciliation was canceled. It is removed by the coordinating node once the reconciliation ends, which the
+ * other nodes treat as a cancellation.
+ * <p>
+ * The targets matched by the source entries of a partition are stored alongside, in objects of
+ * {@link #MATCHED_TARGETS_PER_OBJECT} ids at most, for the coordinating node to leave them out of the target
+ * phase.
+ */
+class ReconPartitions {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconPartitions.class);
+
+    /**
+     * The repository container holding the partitions of the running reconciliations.
+     */
+    static final String RECON_PARTITIONS_CONTAINER = "repo/synchronisation/reconPartitions";
+
+    /**
+     * The repository container holding the targets matched by the partitions of the running reconciliations.
+     */
+    static final String RECON_PARTITION_TARGETS_CONTAINER = "repo/synchronisation/reconPartitionTargets";
+
+    /**
+     * The maximum number of matched target ids stored in one object.
+     */
+    static final int MATCHED_TARGETS_PER_OBJECT = 10000;
+
+    static final String STATE_PENDING = "PENDING";
+    static final String STATE_ACTIVE = "ACTIVE";
+    static final String STATE_COMPLETED = "COMPLETED";
+    static final String STATE_FAILED = "FAILED";
+
+    private static final String PARTITIONS = "partitions";
+    private static final String PROGRESS = "progress";
+    private static final String CANCELED = "canceled";
+    private static final String STATE = "state";
+    private static final String INSTANCE_ID = "instanceId";
+    private static final String BOUNDS = "bounds";
+    private static final String MATCHED_TARGETS = "matchedTargets";
+    private static final String TARGET_IDS = "targetIds";
+
+    private final ConnectionFactory connectionFactory;
+    private final Context context;
+    private volatile ResourceResponse partitions;
+
+    private ReconPartitions(ConnectionFactory connectionFactory, Context context, ResourceResponse partitions) {
+        this.connectionFactory = connectionFactory;
+        this.context = context;
+        this.partitions = partitions;
+    }
+
+    /**
+     * Stores the partitions of a new reconciliation, all pending.
+     *
+     * @param connectionFactory the connection factory to access the repository with
+     * @param context the context to access the repository with
+     * @param reconId the id of the reconciliation on the coordinating node
+     * @param mapping the name of the reconciled mapping
+     * @param coordinator the instance id of the coordinating node
+     * @param count the number of partitions
+     * @param bounds the ids the source id ranges of the partitions are bounded by, see
+     * {@link ReconTypePartitioned#rangeOf(int, List)}, or null if the partitions are given by the hash of the ids
+     * @return the stored partitions
+     * @throws ResourceException if storing the partitions failed
+     */
+    static ReconPartitions create(ConnectionFactory connectionFactory, Context context, String reconId,
+            String mapping, String coordinator, int count, List<String> bounds) throws ResourceException {
+        List<Object> partitionList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            partitionList.add(object(field(STATE, STATE_PENDING), field(INSTANCE_ID, null)));
+        }
+        JsonValue content = json(object(
+                field("mapping", mapping),
+                field("reconId", reconId),
+                field("coordinator", coordinator),
+                field(CANCELED, false),
+                field(BOUNDS, bounds),
+                field(PARTITIONS, partitionList)));
+        return new ReconPartitions(connectionFactory, context, connectionFactory.getConnection().create(context,
+                Requests.newCreateRequest(RECON_PARTITIONS_CONTAINER, reconId, content)));
+    }
+
+    /**
+     * Reads the partitions of a running reconciliation.
+     *
+     * @param connectionFactory the connection factory to access the repository with
+     * @param context the context to access the repository with
+     * @param reconId the id of the reconciliation on the coordinating node
+     * @return the partitions, or null if the reconciliation is no longer running
+     * @throws ResourceException if reading the partitions failed
+     */
+    static ReconPartitions read(ConnectionFactory connectionFactory, Context context, String reconId)
+            throws ResourceException {
+        try {
+            return new ReconPartitions(connectionFactory, context, connectionFactory.getConnection().read(context,
+                    Requests.newReadRequest(RECON_PARTITIONS_CONTAINER, reconId)));
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the partitions claimed by a failed node to the pending state, in all running reconciliations.
+     *
+     * @param connectionFactory the connection factory to access the repository with
+     * @param context the context to access the repository with
+     * @param failedInstanceId the instance id of the failed node
+     * @throws ResourceException if reading or updating the partitions failed
+     */
+    static void releaseInstance(ConnectionFactory connectionFactory, Context context, final String failedInstanceId)
+            throws ResourceException {
+        QueryRequest request = Requests.newQueryRequest(RECON_PARTITIONS_CONTAINER)
+                .setQueryFilter(QueryFilters.parse("true"));
+        List<ResourceResponse> running = new ArrayList<>();
+        connectionFactory.getConnection().query(context, request, running);
+        for (ResourceResponse resource : running) {
+            ReconPartitions partitions = new ReconPartitions(connectionFactory, context, resource);
+            boolean released = partitions.change(new Change() {
+                @Override
+                boolean apply(JsonValue content) {
+                    boolean released = false;
+                    for (JsonValue partition : content.get(PARTITIONS)) {
+                        if (STATE_ACTIVE.equals(partition.get(STATE).asString())
+                                && failedInstanceId.equals(partition.get(INSTANCE_ID).asString())) {
+                            partition.put(STATE, STATE_PENDING);
+                            partition.put(INSTANCE_ID, null);
+                            released = true;
+                        }
+                    }
+                    return released;
+                }
+            });
+            if (released) {
+                logger.info("Released the partitions of reconciliation {} claimed by failed instance {}",
+                        resource.getId(), failedInstanceId);
+            }
+        }
+    }
+
+    /**
+     * Claims a pending partition for a node.
+     *
+     * @param instanceId the instance id of the claiming node
+     * @return the claimed partition, or null if no partition is pending
+     * @throws ResourceException if claiming failed
+     */
+    Integer claim(final String instanceId) throws ResourceException {
+        final Integer[] claimed = new Integer[1];
+        change(new Change() {
+            @Override
+            boolean apply(JsonValue content) {
+                claimed[0] = null;
+                if (content.get(CANCELED).asBoolean()) {
+                    return false;
+                }
+                JsonValue partitionList = content.get(PARTITIONS);
+                for (int i = 0; i < partitionList.size(); i++) {
+                    JsonValue partition = partitionList.get(i);
+                    if (STATE_PENDING.equals(partition.get(STATE).asString())) {
+                        partition.put(STATE, STATE_ACTIVE);
+                        partition.put(INSTANCE_ID, instanceId);
+                        claimed[0] = i;
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+        return claimed[0];
+    }
+
+    /**
+     * Records a partition as completed or failed, along with the progress made on it. Nothing is recorded if the
+     * partition was released meanwhile, as it is then reconciled again, and its progress counted, by another node.
+     *
+     * @param partition the partition
+     * @param instanceId the instance id of the node that processed the partition
+     * @param succeeded whether the partition was processed successfully
+     * @param progress the progress made on the partition
+     * @param matchedTargetObjects the number of objects the matched targets of the partition were stored in
+     * @return false if the node no longer held the partition
+     * @throws ResourceException if recording the completion failed
+     */
+    boolean complete(final int partition, final String instanceId, final boolean succeeded,
+            final Map<String, Object> progress, final int matchedTargetObjects) throws ResourceException {
+        return change(new Change() {
+            @Override
+            boolean apply(JsonValue content) {
+                JsonValue claimed = content.get(PARTITIONS).get(partition);
+                if (!STATE_ACTIVE.equals(claimed.get(STATE).asString())
+                        || !instanceId.equals(claimed.get(INSTANCE_ID).asString())) {
+                    return false;
+                }
+                claimed.put(STATE, succeeded ? STATE_COMPLETED : STATE_FAILED);
+                claimed.put(PROGRESS, progress);
+                claimed.put(MATCHED_TARGETS, matchedTargetObjects);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Stores the (normalized) ids of the targets matched by the source entries of a partition, replacing those
+     * stored by a node that held the partition before.
+     *
+     * @param partition the partition
+     * @param targetIds the ids of the matched targets
+     * @return the number of objects the ids were stored in
+     * @throws ResourceException if storing the ids failed
+     */
+    int storeMatchedTargets(int partition, Iterable<String> targetIds) throws ResourceException {
+        int objects = 0;
+        List<String> ids = new ArrayList<>();
+        for (String targetId : targetIds) {
+            ids.add(targetId);
+            if (ids.size() == MATCHED_TARGETS_PER_OBJECT) {
+                storeMatchedTargets(matchedTargetsId(partition, objects++), ids);
+                ids = new ArrayList<>();
+            }
+        }
+        if (!ids.isEmpty()) {
+            storeMatchedTargets(matchedTargetsId(partition, objects++), ids);
+        }
+        return objects;
+    }
+
+    private void storeMatchedTargets(String id, List<String> ids) throws ResourceException {
+        JsonValue content = json(object(field(TARGET_IDS, ids)));
+        try {
+            connectionFactory.getConnection().create(context,
+                    Requests.newCreateRequest(RECON_PARTITION_TARGETS_CONTAINER, id, content));
+        } catch (PreconditionFailedException e) {
+            // Stored by a node that held the partition before
+            connectionFactory.getConnection().delete(context,
+                    Requests.newDeleteRequest(RECON_PARTITION_TARGETS_CONTAINER, id));
+            connectionFactory.getConnection().create(context,
+                    Requests.newCreateRequest(RECON_PARTITION_TARGETS_CONTAINER, id, content));
+        }
+    }
+
+    /**
+     * Removes the targets matched by the completed partitions, as of the last read, from the remaining targets.
+     *
+     * @param remainingTargetIds the (normalized) ids of the remaining targets
+     * @throws ResourceException if reading the matched targets failed
+     */
+    void removeMatchedTargets(RemainingIds remainingTargetIds) throws ResourceException {
+        JsonValue partitionList = partitions.getContent().get(PARTITIONS);
+        for (int partition = 0; partition < partitionList.size(); partition++) {
+            JsonValue completed = partitionList.get(partition);
+            if (!STATE_COMPLETED.equals(completed.get(STATE).asString())) {
+                continue;
+            }
+            int objects = completed.get(MATCHED_TARGETS).defaultTo(0).asInteger();
+            for (int i = 0; i < objects; i++) {
+                ResourceResponse matched = connectionFactory.getConnection().read(context,
+                        Requests.newReadRequest(RECON_PARTITION_TARGETS_CONTAINER, matchedTargetsId(partition, i)));
+                for (JsonValue targetId : matched.getContent().get(TARGET_IDS)) {
+                    remainingTargetIds.remove(targetId.asString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the reconciliation as canceled.
+     *
+     * @throws ResourceException if recording the cancellation failed
+     */
+    void cancel() throws ResourceException {
+        change(new Change() {
+            @Override
+            boolean apply(JsonValue content) {
+                if (content.get(CANCELED).asBoolean()) {
+                    return false;
+                }
+                content.put(CANCELED, true);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Re-reads the partitions.
+     *
+     * @return false if the reconciliation is no longer running
+     * @throws ResourceException if reading the partitions failed
+     */
+    boolean refresh() throws ResourceException {
+        try {
+            partitions = connectionFactory.getConnection().read(context,
+                    Requests.newReadRequest(RECON_PARTITIONS_CONTAINER, partitions.getId()));
+            return true;
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Removes the partitions once the reconciliation ended.
+     *
+     * @throws ResourceException if removing the partitions failed
+     */
+    void delete() throws ResourceException {
+        for (int partition = 0; partition < getCount(); partition++) {
+            // Including the objects left by a node that held the partition before, and stored more of them
+            try {
+                for (int i = 0; ; i++) {
+                    connectionFactory.getConnection().delete(context, Requests.newDeleteRequest(
+                            RECON_PARTITION_TARGETS_CONTAINER, matchedTargetsId(partition, i)));
+                }
+            } catch (NotFoundException e) {
+                // No further object
+            }
+        }
+        try {
+            connectionFactory.getConnection().delete(context,
+                    Requests.newDeleteRequest(RECON_PARTITIONS_CONTAINER, partitions.getId()));
+        } catch (NotFoundException e) {
+            // Already removed
+        }
+    }
+
+    /**
+     * @return whether the reconciliation was canceled, as of the last read
+     */
+    boolean isCanceled() {
+        return partitions.getContent().get(CANCELED).defaultTo(false).asBoolean();
+    }
+
+    /**
+     * @return the ids the source id ranges of the partitions are bounded by, or null if the partitions are given
+     * by the hash of the ids
+     */
+    List<String> getBounds() {
+        JsonValue bounds = partitions.getContent().get(BOUNDS);
+        return bounds.isNull() ? null : bounds.asList(String.class);
+    }
+
+    /**
+     * @return the number of partitions
+     */
+    int getCount() {
+        return partitions.getContent().get(PARTITIONS).size();
+    }
+
+    /**
+     * @param state a partition state
+     * @return the number of partitions in the given state, as of the last read
+     */
+    int count(String state) {
+        int count = 0;
+        for (JsonValue partition : partitions.getContent().get(PARTITIONS)) {
+            if (state.equals(partition.get(STATE).asString())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the instance ids of the nodes that failed to process a partition, as of the last read
+     */
+    List<String> getFailedInstances() {
+        List<String> failed = new ArrayList<>();
+        for (JsonValue partition : partitions.getContent().get(PARTITIONS)) {
+            if (STATE_FAILED.equals(partition.get(STATE).asString())) {
+                failed.add(partition.get(INSTANCE_ID).asString());
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * @return the progress made by each node on the partitions it completed or failed, keyed by instance id, as of
+     * the last read
+     */
+    @SuppressWarnings("unchecked")
+    Map<String, Object> getNodes() {
+        Map<String, Object> nodes = new LinkedHashMap<>();
+        for (JsonValue partition : partitions.getContent().get(PARTITIONS)) {
+            if (partition.get(PROGRESS).isNull()) {
+                continue;
+            }
+            String instanceId = partition.get(INSTANCE_ID).asString();
+            Map<String, Object> node = (Map<String, Object>) nodes.get(instanceId);
+            if (node == null) {
+                node = new LinkedHashMap<>();
+                nodes.put(instanceId, node);
+            }
+            addProgress(node, partition.get(PROGRESS).asMap());
+        }
+        return nodes;
+    }
+
+    /**
+     * Adds up progress, the counts of which may be nested in maps.
+     *
+     * @param total the progress to add to
+     * @param progress the progress to add
+     */
+    @SuppressWarnings("unchecked")
+    private static void addProgress(Map<String, Object> total, Map<String, Object> progress) {
+        for (Map.Entry<String, Object> entry : progress.entrySet()) {
+            Object current = total.get(entry.getKey());
+            if (entry.getValue() instanceof Number) {
+                int count = current instanceof Number ? ((Number) current).intValue() : 0;
+                total.put(entry.getKey(), count + ((Number) entry.getValue()).intValue());
+            } else if (entry.getValue() instanceof Map) {
+                if (!(current instanceof Map)) {
+                    current = new LinkedHashMap<String, Object>();
+                    total.put(entry.getKey(), current);
+                }
+                addProgress((Map<String, Object>) current, (Map<String, Object>) entry.getValue());
+            } else {
+                total.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private String matchedTargetsId(int partition, int object) {
+        return partitions.getId() + "-" + partition + "-" + object;
+    }
+
+    /**
+     * Applies a change to the content and stores it, re-reading and re-applying it if the partitions were
+     * updated concurrently.
+     *
+     * @param change the change to apply
+     * @return false if there was nothing to change
+     * @throws ResourceException if the reconciliation is no longer running, or storing the change failed
+     */
+    private boolean change(Change change) throws ResourceException {
+        while (true) {
+            JsonValue content = partitions.getContent().copy();
+            if (!change.apply(content)) {
+                return false;
+            }
+            UpdateRequest request = Requests.newUpdateRequest(RECON_PARTITIONS_CONTAINER, partitions.getId(), content);
+            request.setRevision(partitions.getRevision());
+            try {
+                partitions = connectionFactory.getConnection().update(context, request);
+                return true;
+            } catch (PreconditionFailedException e) {
+                logger.debug("Partitions of reconciliation {} changed concurrently, retrying", partitions.getId());
+                if (!refresh()) {
+                    throw new NotFoundException("Reconciliation " + partitions.getId() + " is no longer running");
+                }
+            }
+        }
+    }
+
+    /**
+     * A change to the content of the partitions.
+     */
+    private abstract static class Change {
+        /**
+         * @param content a copy of the content to change
+         * @return false if there is nothing to change
+         */
+        abstract boolean apply(JsonValue content);
+    }
+}
@@ -12,13 +12,13 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import org.forgerock.openidm.sync.SynchronizationException;
@@ -29,21 +29,26 @@ import org.forgerock.services.context.Context;
  */
 class ReconPhase extends ReconFeeder {
     private final Context parentContext;
-    private final Map<String, Map<String, Link>> allLinks;
-    private final Collection<String> remainingIds;
+    private final LinkIndex linkIndex;
+    private final RemainingIds remainingIds;
     private final Recon reconById;
 
     ReconPhase(Iterator<ResultEntry> resultIter, ReconciliationContext reconContext, Context parentContext,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds, Recon reconById) {
+            LinkIndex linkIndex, RemainingIds remainingIds, Recon reconById) {
         super(resultIter, reconContext);
         this.parentContext = parentContext;
-        this.allLinks = allLinks;
+        this.linkIndex = linkIndex;
         this.remainingIds = remainingIds;
         this.reconById = reconById;
     }
+    @Override
+    List<ResultEntry> prefetch(List<ResultEntry> entries) throws SynchronizationException {
+        return reconById.prefetch(entries, reconContext, linkIndex);
+    }
+
     @Override
     Callable<Void> createTask(ResultEntry objectEntry) throws SynchronizationException {
         return new ReconTask(objectEntry, reconContext, parentContext,
-                allLinks, remainingIds, reconById);
+                linkIndex, remainingIds, reconById);
     }
 }
@@ -43,6 +43,11 @@ public class ReconQueryResult {
      */
     private String pagingCookie;
 
+    /**
+     * All IDs returned by the query, if more than the iterated results.
+     */
+    private Collection<String> allIds;
+
     /**
      * A no-argument constructor.
      */
@@ -78,7 +83,7 @@ public class ReconQueryResult {
      * @return a {@link Collection} of all IDs.
      */
     public Collection<String> getAllIds() {
-        return resultIterable.getAllIds();
+        return allIds != null ? allIds : resultIterable.getAllIds();
     }
     
     /**
@@ -112,6 +117,15 @@ public class ReconQueryResult {
         this.resultIterable = resultIterable;
     }
 
+    /**
+     * Sets all IDs returned by the query, when only some of the results are to be iterated.
+     * 
+     * @param allIds all IDs returned by the query.
+     */
+    public void setAllIds(Collection<String> allIds) {
+        this.allIds = allIds;
+    }
+
     /**
      * Sets the paging cookie.
      * 
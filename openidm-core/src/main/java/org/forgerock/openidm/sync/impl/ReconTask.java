@@ -12,12 +12,11 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
-import java.util.Map;
 import java.util.concurrent.Callable;
 
 import org.forgerock.json.JsonValue;
@@ -37,12 +36,12 @@ class ReconTask implements Callable<Void> {
     private final JsonValue objectEntry;
     private final ReconciliationContext reconContext;
     private final Context parentContext;
-    private final Map<String, Map<String, Link>> allLinks;
-    private final Collection<String> remainingIds;
+    private final LinkIndex linkIndex;
+    private final RemainingIds remainingIds;
     private final Recon reconById;
 
     ReconTask(ResultEntry resultEntry, ReconciliationContext reconContext, Context parentContext,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds, Recon reconById) {
+            LinkIndex linkIndex, RemainingIds remainingIds, Recon reconById) {
         this.id = resultEntry.getId();
         // This value is null if it wasn't pre-queried
         this.objectEntry = resultEntry.getValue();
@@ -50,7 +49,7 @@ class ReconTask implements Callable<Void> {
 
         this.reconContext = reconContext;
         this.parentContext = parentContext;
-        this.allLinks = allLinks;
+        this.linkIndex = linkIndex;
         this.remainingIds = remainingIds;
         this.reconById = reconById;
     }
@@ -59,7 +58,7 @@ class ReconTask implements Callable<Void> {
         //TODO I miss the Request Context
         ObjectSetContext.push(parentContext);
         try {
-            reconById.recon(id, objectEntry, reconContext, parentContext, allLinks, remainingIds);
+            reconById.recon(id, objectEntry, reconContext, parentContext, linkIndex, remainingIds);
         } finally {
             ObjectSetContext.pop();
         }
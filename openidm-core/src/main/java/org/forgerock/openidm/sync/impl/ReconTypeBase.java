@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2014-2015 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.sync.impl;
 
@@ -23,6 +24,7 @@ import static org.forgerock.openidm.util.RequestUtil.hasQueryId;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
@@ -117,6 +119,63 @@ public abstract class ReconTypeBase implements ReconTypeHandler {
         return allowEmptySourceSet;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFullScope() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean nextSourcePass() throws SynchronizationException {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RemainingIds sourcePhaseStarted(RemainingIds remainingTargetIds) {
+        // The matched targets are only removed from the remaining targets by default
+        return remainingTargetIds;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sourcePhaseCompleted(RemainingIds remainingTargetIds) throws SynchronizationException {
+        // All source entries are reconciled by this recon by default
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reconSucceeded() throws SynchronizationException {
+        // Nothing to record by default
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reconEnded(ReconStage stage) {
+        // Nothing to release by default
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void completeSummary(Map<String, Object> reconSummary) {
+        // Nothing to add by default
+    }
+
     /**
      * Calculate the effective configuration for the given configuration property
      * Properties passed with the request body are given precedence, they override the default configuration
@@ -211,6 +270,29 @@ public abstract class ReconTypeBase implements ReconTypeHandler {
     protected ReconQueryResult query(final String objectSet, final JsonValue query, final ReconciliationContext reconContext, 
             final Collection<String> collectionToPopulate, final boolean caseSensitive, final QuerySide querySide,
             int pageSize, String pagingCookie) throws SynchronizationException {
+        return query(objectSet, query, reconContext, collectionToPopulate, caseSensitive, querySide, pageSize,
+                pagingCookie, true);
+    }
+
+    /**
+     * Execute the specified query
+     *
+     * @param objectSet the object set to query
+     * @param query the query parameters
+     * @param collectionToPopulate the collection to populate with results
+     * @param caseSensitive whether the collection should be populated in case
+     * sensitive fashion, or if false it populates as lower case only
+     * @param pageSize the page size if paging
+     * @param pagingCookie the cookie to use if paging, null if first page
+     * @param reconContext the {@link RconciliationContext} object associated with this recon
+     * @param querySide an indicator for which side of a reconciliation (source or target) a query is for
+     * @param retainValues whether full entries returned by the query should be kept; false to only collect ids
+     * @return a {@link ReconQueryResult} containing the collection of (unqualified) ids
+     * @throws SynchronizationException if retrieving or processing the ids failed
+     */
+    protected ReconQueryResult query(final String objectSet, final JsonValue query, final ReconciliationContext reconContext,
+            final Collection<String> collectionToPopulate, final boolean caseSensitive, final QuerySide querySide,
+            int pageSize, String pagingCookie, final boolean retainValues) throws SynchronizationException {
         final Collection<String> ids = collectionToPopulate;
         final JsonValue objList = new JsonValue(new LinkedList<>());
         final ReconQueryResult reconQueryResult = new ReconQueryResult();
@@ -230,7 +312,7 @@ public abstract class ReconTypeBase implements ReconTypeHandler {
             					logger.warn("Resource {} id is null!", resource);
             				}
             				else {
-            					if (fullEntriesDetected == false && hasFullEntry(resource.getContent(), querySide)) {
+            					if (retainValues && fullEntriesDetected == false && hasFullEntry(resource.getContent(), querySide)) {
             						fullEntriesDetected = true;
             						logger.debug("Detected full entries in query");
             					}
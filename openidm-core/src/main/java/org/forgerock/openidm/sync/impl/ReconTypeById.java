@@ -93,6 +93,22 @@ public class ReconTypeById extends ReconTypeBase {
                 null).getResultIterable();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void spoolTarget(SortedIdSpool spool) throws SynchronizationException {
+        query(targetQuery.get("resourceName").asString(),
+                targetQuery,
+                reconContext,
+                spool,
+                reconContext.getObjectMapping().getLinkType().isTargetCaseSensitive(),
+                QuerySide.TARGET,
+                0,
+                null,
+                false);
+    }
+
     /**
      * {@inheritDoc}
      */
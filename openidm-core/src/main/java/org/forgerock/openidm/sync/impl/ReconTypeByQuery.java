@@ -12,19 +12,31 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2013-2015 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.sync.impl;
 
 import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.QueryRequest.FIELD_QUERY_FILTER;
+import static org.forgerock.json.resource.QueryRequest.FIELD_QUERY_ID;
+import static org.forgerock.json.resource.http.HttpUtils.PARAM_FIELDS;
+import static org.forgerock.json.resource.http.HttpUtils.PARAM_QUERY_FILTER;
+import static org.forgerock.json.resource.http.HttpUtils.PARAM_QUERY_ID;
+import static org.forgerock.openidm.util.RequestUtil.hasQueryFilter;
 
 import java.util.Collections;
 import java.util.LinkedHashSet;
 
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.util.query.QueryFilter;
 
 /**
  * Represents a reconciliation of a set defined by query/queries,
@@ -65,8 +77,22 @@ public class ReconTypeByQuery extends ReconTypeBase {
      */
     @Override
     public ReconQueryResult querySource(int pageSize, String pagingCookie) throws SynchronizationException {
-        return query(sourceQuery.get("resourceName").asString(), 
-                sourceQuery, 
+        return querySource(sourceQuery, pageSize, pagingCookie);
+    }
+
+    /**
+     * Queries a page of the source with the given query.
+     *
+     * @param query the source query
+     * @param pageSize the page size if paging
+     * @param pagingCookie the cookie to use if paging, null if first page
+     * @return the source ids of the page, and the source entries if the query returns them
+     * @throws SynchronizationException if querying the source failed
+     */
+    ReconQueryResult querySource(JsonValue query, int pageSize, String pagingCookie)
+            throws SynchronizationException {
+        return query(query.get("resourceName").asString(), 
+                query, 
                 reconContext, 
                 Collections.synchronizedSet(new LinkedHashSet<String>()), 
                 true, 
@@ -87,6 +113,16 @@ public class ReconTypeByQuery extends ReconTypeBase {
         ).getResultIterable();                
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void spoolTarget(SortedIdSpool spool) throws SynchronizationException {
+        query(targetQuery.get("resourceName").asString(), targetQuery, reconContext, spool,
+                reconContext.getObjectMapping().getLinkType().isTargetCaseSensitive(), QuerySide.TARGET,
+                0, null, false);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -97,4 +133,41 @@ public class ReconTypeByQuery extends ReconTypeBase {
                 field("targetQuery", targetQuery.getObject())
         ));
     }
+
+    /**
+     * Returns whether a query can be restricted with a query filter, which requires either a query filter, or the
+     * default query of all ids which is then replaced with a query filter.
+     *
+     * @param query the effective query
+     * @return true if the query can be restricted
+     */
+    static boolean isRestrictable(JsonValue query) {
+        return hasQueryFilter(query) || isQueryAllIds(query);
+    }
+
+    private static boolean isQueryAllIds(JsonValue query) {
+        return ServerConstants.QUERY_ALL_IDS.equals(query.get(FIELD_QUERY_ID).asString())
+                || ServerConstants.QUERY_ALL_IDS.equals(query.get(PARAM_QUERY_ID).asString());
+    }
+
+    /**
+     * Restricts a query to the objects matching a query filter.
+     *
+     * @param query the effective query, which is left unchanged; see {@link #isRestrictable(JsonValue)}
+     * @param filter the filter the objects must match
+     * @return the restricted query
+     */
+    static JsonValue restrict(JsonValue query, QueryFilter<JsonPointer> filter) {
+        JsonValue restricted = query.copy();
+        if (hasQueryFilter(query)) {
+            String key = query.isDefined(PARAM_QUERY_FILTER) ? PARAM_QUERY_FILTER : FIELD_QUERY_FILTER;
+            restricted.put(key, QueryFilter.and(QueryFilters.parse(query.get(key).asString()), filter).toString());
+        } else {
+            restricted.remove(FIELD_QUERY_ID);
+            restricted.remove(PARAM_QUERY_ID);
+            restricted.put(PARAM_QUERY_FILTER, filter.toString());
+            restricted.put(PARAM_FIELDS, ResourceResponse.FIELD_CONTENT_ID);
+        }
+        return restricted;
+    }
 }
@@ -12,9 +12,12 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2013-2015 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.sync.impl;
 
+import java.util.Map;
+
 import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.sync.SynchronizationException;
 
@@ -40,6 +43,15 @@ public interface ReconTypeHandler {
      * @throws SynchronizationException
      */
     ResultIterable queryTarget() throws SynchronizationException;
+
+    /**
+     * Performs the target query, appending the target identifiers to the given spool rather than
+     * holding them, or any full target values, in memory.
+     *
+     * @param spool the spool to append the (normalized) target identifiers to
+     * @throws SynchronizationException
+     */
+    void spoolTarget(SortedIdSpool spool) throws SynchronizationException;
     
     /**
      * Returns a boolean indicating if the target phase should be executed for this recon.
@@ -55,6 +67,62 @@ public interface ReconTypeHandler {
      */
     boolean allowEmptySourceSet();
 
+    /**
+     * Returns a boolean indicating if the source and target queries return all objects in the scope of the recon,
+     * so that the existence of an object can be checked against the queried ids.
+     *
+     * @return true if the queries return all objects in scope, false if they only return a sub-set such as
+     * the changed objects
+     */
+    boolean isFullScope();
+
+    /**
+     * Returns whether the source is to be queried for a further pass of the source phase, once all pages of
+     * the current pass were reconciled.
+     *
+     * @return true to query the source again from its first page, false if the source phase is complete
+     * @throws SynchronizationException if preparing the next pass failed
+     */
+    boolean nextSourcePass() throws SynchronizationException;
+
+    /**
+     * Invoked before the source phase, to let the recon keep track of the targets matched by the source phase.
+     *
+     * @param remainingTargetIds the (normalized) target identifiers not matched yet
+     * @return the target identifiers for the source phase to remove the matched targets from
+     */
+    RemainingIds sourcePhaseStarted(RemainingIds remainingTargetIds);
+
+    /**
+     * Invoked once the source phase is complete, before the target phase.
+     *
+     * @param remainingTargetIds the (normalized) target identifiers not matched during the source phase, which
+     * can be removed from if they were reconciled otherwise
+     * @throws SynchronizationException if completing the source phase failed
+     */
+    void sourcePhaseCompleted(RemainingIds remainingTargetIds) throws SynchronizationException;
+
+    /**
+     * Invoked once the recon completed successfully, before its stage is set to completed.
+     *
+     * @throws SynchronizationException if recording the completion failed
+     */
+    void reconSucceeded() throws SynchronizationException;
+
+    /**
+     * Invoked once the recon reached a completed stage, whether successfully or not.
+     *
+     * @param stage the completed stage
+     */
+    void reconEnded(ReconStage stage);
+
+    /**
+     * Adds any details specific to the recon type to the summary of the recon.
+     *
+     * @param reconSummary the summary of the recon
+     */
+    void completeSummary(Map<String, Object> reconSummary);
+
     /**
      * Returns a {@link JsonValue} object containing parameters concerning source and target selection.
      * 
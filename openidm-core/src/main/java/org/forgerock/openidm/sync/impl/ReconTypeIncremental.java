@@ -0,0 +1,287 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.util.query.QueryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Represents an incremental reconciliation, restricting the source and target queries to the objects
+ * modified since the last successful reconciliation of the mapping.
+ * <p>
+ * The modification time of an object is read from a configured change field, and the high-water mark is
+ * kept per mapping in the repository. The first run, having no high-water mark, reconciles the full sets.
+ * As only changed objects are queried, the queried ids can not be used to check the existence of an object,
+ * which is instead read from the source or target as needed.
+ */
+public class ReconTypeIncremental extends ReconTypeByQuery {
+
+    /**
+     * Logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ReconTypeIncremental.class);
+
+    /**
+     * The repository container holding the high-water marks of the mappings.
+     */
+    static final String RECON_PROGRESS_CONTAINER = "repo/synchronisation/reconProgress";
+
+    /**
+     * Defaulting the overlap subtracted from the high-water mark to one minute, to allow for clock skew
+     * and for changes committed while the last reconciliation was querying.
+     */
+    static final long DEFAULT_OVERLAP = 60000L;
+
+    private static final String HIGH_WATER_MARK = "highWaterMark";
+
+    /**
+     * The change field of the source objects.
+     */
+    private final ChangeField sourceChangeField;
+
+    /**
+     * The change field of the target objects, or null if the target phase is not incremental.
+     */
+    private final ChangeField targetChangeField;
+
+    /**
+     * The milliseconds subtracted from the high-water mark when querying changed objects.
+     */
+    private final long overlap;
+
+    /**
+     * The time the source was first queried by this run, stored as the high-water mark once it completes
+     * successfully. Null until the run queries the source.
+     */
+    private Instant reconStart;
+
+    /**
+     * The stored progress of the last successful reconciliation, null if none was read or found.
+     */
+    private ResourceResponse progress;
+
+    /**
+     * The high-water mark the queries are restricted to, null if reconciling the full sets.
+     */
+    private Instant highWaterMark;
+
+    /**
+     * A constructor.
+     *
+     * @param reconContext a {@link ReconciliationContext} object.
+     * @throws BadRequestException if the mapping does not configure the incremental change fields
+     */
+    public ReconTypeIncremental(ReconciliationContext reconContext) throws BadRequestException {
+        super(reconContext);
+
+        JsonValue incremental = calcEffectiveConfig("incremental");
+        if (incremental.isNull() || incremental.get("source").get("changeField").isNull()) {
+            throw new BadRequestException("Incremental reconciliation of mapping " + reconContext.getMapping()
+                    + " requires the incremental/source/changeField configuration");
+        }
+        sourceChangeField = new ChangeField(incremental.get("source"));
+        targetChangeField = incremental.get("target").get("changeField").isNull()
+                ? null
+                : new ChangeField(incremental.get("target"));
+        overlap = incremental.get("overlap").defaultTo(DEFAULT_OVERLAP).asLong();
+        checkIncrementalQuery(sourceQuery, "sourceQuery");
+        if (targetChangeField != null) {
+            checkIncrementalQuery(targetQuery, "targetQuery");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The target phase only runs if the target objects have a change field as well, as otherwise it would
+     * enumerate the full target set.
+     */
+    @Override
+    public boolean isRunTargetPhase() {
+        return runTargetPhase && targetChangeField != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * No source object may have changed since the last reconciliation.
+     */
+    @Override
+    public boolean allowEmptySourceSet() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFullScope() {
+        return highWaterMark == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first query of the run takes the time it starts, so that objects changed while the handler waited to
+     * run are queried again by the next run.
+     */
+    @Override
+    public ReconQueryResult querySource(int pageSize, String pagingCookie) throws SynchronizationException {
+        if (pagingCookie == null && reconStart == null) {
+            reconStart = Instant.now();
+            readProgress();
+        }
+        return super.querySource(pageSize, pagingCookie);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reconSucceeded() throws SynchronizationException {
+        JsonValue content = json(object(
+                field("mapping", reconContext.getMapping()),
+                field("reconId", reconContext.getReconId()),
+                field(HIGH_WATER_MARK, reconStart.toString())));
+        try {
+            if (progress != null) {
+                UpdateRequest updateRequest =
+                        Requests.newUpdateRequest(RECON_PROGRESS_CONTAINER, progress.getId(), content);
+                updateRequest.setRevision(progress.getRevision());
+                progress = reconContext.getService().getConnectionFactory().getConnection().update(
+                        reconContext.getService().getContext(), updateRequest);
+            } else {
+                progress = reconContext.getService().getConnectionFactory().getConnection().create(
+                        reconContext.getService().getContext(),
+                        Requests.newCreateRequest(RECON_PROGRESS_CONTAINER, progressId(), content));
+            }
+        } catch (ResourceException e) {
+            throw new SynchronizationException("Failed to store the high-water mark of incremental reconciliation "
+                    + reconContext.getReconId(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JsonValue getReconParameters() {
+        JsonValue params = super.getReconParameters();
+        params.put(HIGH_WATER_MARK, highWaterMark == null ? null : highWaterMark.toString());
+        return params;
+    }
+
+    /**
+     * Reads the high-water mark of the last successful reconciliation and restricts the queries to the objects
+     * changed since.
+     *
+     * @throws SynchronizationException if reading the high-water mark failed
+     */
+    private void readProgress() throws SynchronizationException {
+        try {
+            progress = reconContext.getService().getConnectionFactory().getConnection().read(
+                    reconContext.getService().getContext(),
+                    Requests.newReadRequest(RECON_PROGRESS_CONTAINER, progressId()));
+        } catch (NotFoundException e) {
+            logger.info("No high-water mark found for mapping {}, reconciling all objects", reconContext.getMapping());
+            return;
+        } catch (ResourceException e) {
+            throw new SynchronizationException("Failed to read the high-water mark of mapping "
+                    + reconContext.getMapping(), e);
+        }
+
+        highWaterMark = Instant.parse(progress.getContent().get(HIGH_WATER_MARK).required().asString());
+        Instant changedSince = highWaterMark.minusMillis(overlap);
+        logger.info("Reconciling objects of mapping {} changed since {}", reconContext.getMapping(), changedSince);
+        sourceQuery = changedSince(sourceQuery, sourceChangeField, changedSince);
+        if (targetChangeField != null) {
+            targetQuery = changedSince(targetQuery, targetChangeField, changedSince);
+        }
+    }
+
+    /**
+     * @return the repository id of the high-water mark of this mapping
+     */
+    private String progressId() {
+        return reconContext.getMapping();
+    }
+
+    /**
+     * Checks that the query can be restricted to changed objects, which requires either a query filter,
+     * or the default query of all ids which is then replaced with a query filter.
+     *
+     * @param query the effective query
+     * @param queryName the name of the query configuration
+     * @throws BadRequestException if the query can not be restricted
+     */
+    private static void checkIncrementalQuery(JsonValue query, String queryName) throws BadRequestException {
+        if (!isRestrictable(query)) {
+            throw new BadRequestException("Incremental reconciliation requires the " + queryName
+                    + " to be a query filter, or not to be specified");
+        }
+    }
+
+    /**
+     * Restricts a query to the objects changed since the given time.
+     *
+     * @param query the effective query, which is left unchanged
+     * @param changeField the change field of the queried objects
+     * @param changedSince the time the objects must have changed after
+     * @return the restricted query
+     */
+    static JsonValue changedSince(JsonValue query, ChangeField changeField, Instant changedSince) {
+        return restrict(query,
+                QueryFilter.greaterThan(new JsonPointer(changeField.name), changeField.format(changedSince)));
+    }
+
+    /**
+     * The field holding the modification time of the objects on one side of the mapping.
+     */
+    static final class ChangeField {
+        final String name;
+        final DateTimeFormatter formatter;
+
+        ChangeField(JsonValue config) {
+            name = config.get("changeField").required().asString();
+            String pattern = config.get("timestampFormat").asString();
+            formatter = pattern == null
+                    ? DateTimeFormatter.ISO_INSTANT
+                    : DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC);
+        }
+
+        String format(Instant instant) {
+            return formatter.format(instant);
+        }
+    }
+}
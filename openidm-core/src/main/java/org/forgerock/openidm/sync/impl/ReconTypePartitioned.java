@@ -0,0 +1,711 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.resource.http.HttpUtils.PARAM_FIELDS;
+import static org.forgerock.openidm.util.RequestUtil.hasQueryFilter;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.util.query.QueryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Represents a reconciliation whose source phase is split into partitions processed in parallel by the nodes
+ * of a cluster.
+ * <p>
+ * The node starting the reconciliation coordinates it: it stores the partitions in the repository, notifies the
+ * other nodes, and claims partitions along with them. A partition is a range of source ids, bounded by ids
+ * sampled by the coordinating node in a pass over the source ids, and its entries are queried by restricting the
+ * source query to the range. If the source query cannot be restricted, or {@code partitionByIdRange} is false, a
+ * source entry belongs to the partition given by the hash of its id instead, and each claimed partition is a full
+ * pass over the source query, reconciling only the entries of that partition.
+ * <p>
+ * Once no partition is left, the coordinating node waits for the other nodes to complete theirs, and then runs
+ * the target phase alone, skipping the targets matched on the other nodes, which these store alongside the
+ * partitions. Cancellation and failure on one node stop the other nodes at their next source page or partition.
+ */
+public class ReconTypePartitioned extends ReconTypeByQuery {
+
+    /**
+     * Logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ReconTypePartitioned.class);
+
+    /**
+     * The recon parameter holding the id of the coordinating reconciliation, set on the other nodes.
+     */
+    static final String PARTITION_OF = "partitionOf";
+
+    /**
+     * Defaulting the interval at which the coordinating node checks the progress of the other nodes to one second.
+     */
+    static final long DEFAULT_POLL_INTERVAL = 1000L;
+
+    /**
+     * The number of source ids sampled per partition to bound the id ranges of the partitions with.
+     */
+    static final int SAMPLE_SIZE_PER_PARTITION = 100;
+
+    /**
+     * The id of the coordinating reconciliation, or null if this is the coordinating node.
+     */
+    private final String coordinatorReconId;
+
+    /**
+     * The number of partitions, as configured on the coordinating node.
+     */
+    private int partitionCount;
+
+    /**
+     * The milliseconds between checks of the progress of the other nodes.
+     */
+    private final long pollInterval;
+
+    /**
+     * The partitions shared by the nodes, null until the source is first queried.
+     */
+    private ReconPartitions partitions;
+
+    /**
+     * The partition currently reconciled by this node, null if none.
+     */
+    private Integer partition;
+
+    /**
+     * The progress of this node when it claimed the current partition, null if none.
+     */
+    private Map<String, Object> claimedProgress;
+
+    /**
+     * Whether the coordinating node is to partition the source by id range, if the source query can be restricted.
+     */
+    private final boolean partitionByIdRange;
+
+    /**
+     * The ids the id ranges of the partitions are bounded by, null if partitioned by the hash of the ids.
+     */
+    private List<String> bounds;
+
+    /**
+     * The number of source ids the coordinating node queried to bound the id ranges with.
+     */
+    private long boundedSourceIds;
+
+    /**
+     * The ids of all sources in scope, collected by the coordinating node before or during its first pass if it
+     * runs the target phase.
+     */
+    private final ReconIdSet allSourceIds;
+
+    /**
+     * Whether this node shares the targets it matches with the coordinating node, for its target phase.
+     */
+    private final boolean shareMatchedTargets;
+
+    /**
+     * The (normalized) ids of the targets matched during the current partition, if shared.
+     */
+    private final ReconIdSet matchedTargetIds = new ReconIdSet();
+
+    /**
+     * Whether the current pass is the first pass over the source query.
+     */
+    private boolean firstPass = true;
+
+    /**
+     * A constructor.
+     *
+     * @param reconContext a {@link ReconciliationContext} object.
+     */
+    public ReconTypePartitioned(ReconciliationContext reconContext) {
+        super(reconContext);
+        JsonValue reconParams = reconContext.getReconParams();
+        coordinatorReconId = reconParams == null ? null : reconParams.get(PARTITION_OF).asString();
+        partitionCount = reconContext.getObjectMapping().getClusterPartitions();
+        pollInterval = calcEffectiveConfig("partitionPollInterval").defaultTo(DEFAULT_POLL_INTERVAL).asLong();
+        partitionByIdRange = calcEffectiveConfig("partitionByIdRange").defaultTo(true).asBoolean();
+        allSourceIds = isRunTargetPhase() ? new ReconIdSet() : null;
+        shareMatchedTargets = !isCoordinator() && runTargetPhase;
+    }
+
+    /**
+     * Returns whether a reconciliation is to be partitioned across the nodes of the cluster.
+     *
+     * @param reconContext the context of the reconciliation
+     * @return true if the mapping is partitioned and the node is clustered, or if the reconciliation processes
+     * the partitions of another node's reconciliation
+     */
+    static boolean isPartitioned(ReconciliationContext reconContext) {
+        JsonValue reconParams = reconContext.getReconParams();
+        if (reconParams != null && reconParams.isDefined(PARTITION_OF)) {
+            return true;
+        }
+        return reconContext.getObjectMapping().getClusterPartitions() > 1 && reconContext.getService().isClustered();
+    }
+
+    /**
+     * @return whether this node coordinates the reconciliation
+     */
+    boolean isCoordinator() {
+        return coordinatorReconId == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the coordinating node runs the target phase.
+     */
+    @Override
+    public boolean isRunTargetPhase() {
+        return isCoordinator() && runTargetPhase;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The other nodes may have no partition left to claim, and the first partition claimed by the coordinating
+     * node may be empty while the others are not.
+     */
+    @Override
+    public boolean allowEmptySourceSet() {
+        return !isCoordinator() || allowEmptySourceSet || boundedSourceIds > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the entries of the claimed partition are iterated. On the coordinating node running the target phase,
+     * the returned ids are all source ids in scope, as far as known. Otherwise they are the source ids of the
+     * page.
+     */
+    @Override
+    public ReconQueryResult querySource(int pageSize, String pagingCookie) throws SynchronizationException {
+        if (partitions == null) {
+            startPartitions(pageSize);
+        } else if (pagingCookie != null) {
+            checkPartitionsCanceled();
+        }
+        if (bounds != null) {
+            return queryRange(pageSize, pagingCookie);
+        }
+        if (partition == null && !(isCoordinator() && firstPass)) {
+            // Nothing to reconcile on this node
+            return new ReconQueryResult(new ResultIterable(Collections.<String>emptyList(), null));
+        }
+
+        ReconQueryResult result = super.querySource(pageSize, pagingCookie);
+        ResultIterable page = result.getResultIterable();
+        if (allSourceIds != null && firstPass) {
+            allSourceIds.addAll(page.getAllIds());
+        }
+
+        List<String> partitionIds = new ArrayList<>();
+        List<JsonValue> partitionValues = page.hasValues() ? new ArrayList<JsonValue>() : null;
+        if (partition != null) {
+            for (ResultEntry entry : page) {
+                if (partitionOf(entry.getId(), partitionCount) == partition) {
+                    partitionIds.add(entry.getId());
+                    if (partitionValues != null) {
+                        partitionValues.add(entry.getValue());
+                    }
+                }
+            }
+        }
+        result.setResultIterable(new ResultIterable(partitionIds, partitionValues));
+        result.setAllIds(allSourceIds != null ? allSourceIds : page.getAllIds());
+        return result;
+    }
+
+    /**
+     * Queries a page of the id range of the claimed partition.
+     *
+     * @param pageSize the page size if paging
+     * @param pagingCookie the cookie to use if paging, null if first page
+     * @return the source ids and entries of the page
+     * @throws SynchronizationException if querying the source failed
+     */
+    private ReconQueryResult queryRange(int pageSize, String pagingCookie) throws SynchronizationException {
+        ReconQueryResult result;
+        if (partition == null || partition > bounds.size()) {
+            // Nothing to reconcile on this node, or in a partition past the ids of an empty source
+            result = new ReconQueryResult(new ResultIterable(Collections.<String>emptyList(), null));
+        } else {
+            result = querySource(restrict(sourceQuery, rangeOf(partition, bounds)), pageSize, pagingCookie);
+        }
+        if (allSourceIds != null) {
+            result.setAllIds(allSourceIds);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On the nodes sharing their matched targets with the coordinating node, also records the targets matched
+     * during the current partition.
+     */
+    @Override
+    public RemainingIds sourcePhaseStarted(final RemainingIds remainingTargetIds) {
+        if (!shareMatchedTargets) {
+            return remainingTargetIds;
+        }
+        return new RemainingIds() {
+            @Override
+            public boolean remove(String id) {
+                matchedTargetIds.add(id);
+                return remainingTargetIds.remove(id);
+            }
+
+            @Override
+            public Iterator<String> iterator() {
+                return remainingTargetIds.iterator();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Stores the targets matched during the partition just reconciled if shared, records the partition as
+     * completed, and claims the next one. Once none is left to claim, the coordinating node waits for the
+     * partitions claimed by the other nodes to complete, claiming those that are released by failed nodes.
+     */
+    @Override
+    public boolean nextSourcePass() throws SynchronizationException {
+        try {
+            if (partition != null) {
+                int matchedTargetObjects = shareMatchedTargets
+                        ? partitions.storeMatchedTargets(partition, matchedTargetIds)
+                        : 0;
+                matchedTargetIds.clear();
+                if (partitions.complete(partition, getInstanceId(), true, getPartitionProgress(),
+                        matchedTargetObjects)) {
+                    logger.info("Completed partition {} of reconciliation {}", partition, partitionsId());
+                } else {
+                    logger.info("Partition {} of reconciliation {} was released to another node meanwhile",
+                            partition, partitionsId());
+                }
+            }
+            firstPass = false;
+            partition = null;
+            while (true) {
+                checkPartitionsCanceled();
+                partition = partitions.claim(getInstanceId());
+                if (partition != null) {
+                    claimedProgress = getNodeProgress();
+                    logger.info("Claimed partition {} of reconciliation {}", partition, partitionsId());
+                    return true;
+                }
+                if (!isCoordinator()) {
+                    return false;
+                }
+                if (!partitions.getFailedInstances().isEmpty()) {
+                    throw new SynchronizationException("Partitions of reconciliation " + partitionsId()
+                            + " failed on instances " + partitions.getFailedInstances());
+                }
+                if (partitions.count(ReconPartitions.STATE_COMPLETED) == partitions.getCount()) {
+                    return false;
+                }
+                Thread.sleep(pollInterval);
+                partitions.refresh();
+            }
+        } catch (ResourceException e) {
+            throw new SynchronizationException("Failed to claim a partition of reconciliation " + partitionsId(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SynchronizationException("Interrupted while waiting for the partitions of reconciliation "
+                    + partitionsId(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Removes the targets matched during the source phase on the other nodes, as stored with the partitions
+     * they completed, from the remaining targets.
+     */
+    @Override
+    public void sourcePhaseCompleted(RemainingIds remainingTargetIds) throws SynchronizationException {
+        if (!isRunTargetPhase()) {
+            return;
+        }
+        try {
+            partitions.removeMatchedTargets(remainingTargetIds);
+        } catch (ResourceException e) {
+            throw new SynchronizationException("Failed to read the targets matched by the partitions of "
+                    + "reconciliation " + partitionsId(), e);
+        }
+        reconContext.checkCanceled();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reconEnded(ReconStage stage) {
+        if (partitions == null) {
+            return;
+        }
+        try {
+            if (isCoordinator()) {
+                partitions.delete();
+            } else if (partition != null) {
+                partitions.complete(partition, getInstanceId(), stage == ReconStage.COMPLETED_SUCCESS,
+                        getPartitionProgress(), 0);
+            }
+        } catch (ResourceException e) {
+            logger.warn("Failed to record the end of reconciliation {} in its partitions", partitionsId(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On the coordinating node, adds the progress and statistics of the other nodes to the summary.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void completeSummary(Map<String, Object> reconSummary) {
+        if (partitions == null) {
+            return;
+        }
+        Map<String, Object> partitionSummary = new LinkedHashMap<>();
+        partitionSummary.put("partitionOf", coordinatorReconId);
+        partitionSummary.put("count", partitionCount);
+        partitionSummary.put("completed", partitions.count(ReconPartitions.STATE_COMPLETED));
+        Map<String, Object> nodes = partitions.getNodes();
+        partitionSummary.put("nodes", nodes);
+        reconSummary.put("partitions", partitionSummary);
+        if (!isCoordinator()) {
+            return;
+        }
+
+        JsonValue summary = new JsonValue(reconSummary);
+        for (Map.Entry<String, Object> node : nodes.entrySet()) {
+            if (node.getKey().equals(getInstanceId())) {
+                continue;
+            }
+            JsonValue nodeProgress = new JsonValue(node.getValue());
+            addCount(summary, "/progress/source/existing/processed", nodeProgress.get("sourceProcessed"));
+            addCount(summary, "/progress/target/created", nodeProgress.get("targetCreated"));
+            addCount(summary, "/progress/links/existing/processed", nodeProgress.get("linkProcessed"));
+            addCount(summary, "/progress/links/created", nodeProgress.get("linkCreated"));
+            for (String situation : nodeProgress.get("situationSummary").keys()) {
+                addCount(summary, "/situationSummary/" + situation,
+                        nodeProgress.get("situationSummary").get(situation));
+            }
+            for (String status : nodeProgress.get("statusSummary").keys()) {
+                addCount(summary, "/statusSummary/" + status, nodeProgress.get("statusSummary").get(status));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JsonValue getReconParameters() {
+        JsonValue params = super.getReconParameters();
+        params.put(PARTITION_OF, coordinatorReconId);
+        params.put("partitions", partitionCount);
+        return params;
+    }
+
+    /**
+     * Returns the partition of a source entry.
+     *
+     * @param sourceId the id of the source entry, as returned by the source query
+     * @param partitionCount the number of partitions
+     * @return the partition of the entry
+     */
+    static int partitionOf(String sourceId, int partitionCount) {
+        // String hash codes are specified, and so are the same on all nodes
+        return Math.floorMod(sourceId.hashCode(), partitionCount);
+    }
+
+    /**
+     * Returns the filter restricting the source to the id range of a partition. Partition p holds the ids from
+     * bound p - 1 included, if p is not the first partition, to bound p excluded. As the source may order ids
+     * differently than the bounds were sorted by, the ids are also required to be less than all further bounds,
+     * so that each id belongs to exactly one partition regardless of the ordering.
+     *
+     * @param partition the partition, at most the number of bounds
+     * @param bounds the ids the id ranges of the partitions are bounded by
+     * @return the filter of the id range of the partition
+     */
+    static QueryFilter<JsonPointer> rangeOf(int partition, List<String> bounds) {
+        JsonPointer id = new JsonPointer(ResourceResponse.FIELD_CONTENT_ID);
+        List<QueryFilter<JsonPointer>> terms = new ArrayList<>();
+        if (partition > 0) {
+            terms.add(QueryFilter.greaterThanOrEqualTo(id, bounds.get(partition - 1)));
+        }
+        for (int i = partition; i < bounds.size(); i++) {
+            terms.add(QueryFilter.lessThan(id, bounds.get(i)));
+        }
+        return terms.isEmpty() ? QueryFilter.<JsonPointer>alwaysTrue() : QueryFilter.and(terms);
+    }
+
+    /**
+     * Stores the partitions and notifies the other nodes if this node coordinates the reconciliation, or reads
+     * them otherwise, and claims a first partition. The coordinating node bounds the id ranges of the partitions
+     * first, if partitioning by id range.
+     *
+     * @param pageSize the page size of the source query if paging
+     * @throws SynchronizationException if the partitions could not be stored, read or claimed
+     */
+    private void startPartitions(int pageSize) throws SynchronizationException {
+        try {
+            if (isCoordinator()) {
+                if (partitionByIdRange && isRestrictable(sourceQuery)) {
+                    bounds = sampleBounds(pageSize);
+                } else if (partitionByIdRange) {
+                    logger.info("The source query of reconciliation {} can not be restricted to id ranges, "
+                            + "partitioning it by id hash", partitionsId());
+                }
+                partitions = ReconPartitions.create(reconContext.getService().getConnectionFactory(),
+                        reconContext.getService().getContext(), reconContext.getReconId(), reconContext.getMapping(),
+                        getInstanceId(), partitionCount, bounds);
+                reconContext.getService().startPartitions(reconContext);
+            } else {
+                partitions = ReconPartitions.read(reconContext.getService().getConnectionFactory(),
+                        reconContext.getService().getContext(), coordinatorReconId);
+                if (partitions == null) {
+                    throw new SynchronizationException("Reconciliation " + coordinatorReconId
+                            + " is no longer running");
+                }
+                partitionCount = partitions.getCount();
+                bounds = partitions.getBounds();
+            }
+            partition = partitions.claim(getInstanceId());
+            claimedProgress = getNodeProgress();
+            logger.info("Reconciling partition {} of {} of reconciliation {}", partition, partitionCount,
+                    partitionsId());
+        } catch (ResourceException e) {
+            throw new SynchronizationException("Failed to start the partitions of reconciliation "
+                    + partitionsId(), e);
+        }
+    }
+
+    /**
+     * Queries the ids of the source, collecting all of them if running the target phase, and returns the ids
+     * bounding the id ranges of the partitions, as sampled from them.
+     *
+     * @param pageSize the page size if paging
+     * @return the ids bounding the id ranges, empty if the source is empty
+     * @throws SynchronizationException if querying the source failed
+     */
+    private List<String> sampleBounds(int pageSize) throws SynchronizationException {
+        final IdSample sample = new IdSample(SAMPLE_SIZE_PER_PARTITION * partitionCount);
+        Collection<String> ids = new AbstractCollection<String>() {
+            @Override
+            public boolean add(String id) {
+                sample.add(id);
+                if (allSourceIds != null) {
+                    allSourceIds.add(id);
+                }
+                return true;
+            }
+
+            @Override
+            public Iterator<String> iterator() {
+                return Collections.<String>emptyIterator();
+            }
+
+            @Override
+            public int size() {
+                return 0;
+            }
+        };
+        JsonValue idQuery = hasQueryFilter(sourceQuery)
+                ? sourceQuery.copy()
+                : restrict(sourceQuery, QueryFilter.<JsonPointer>alwaysTrue());
+        idQuery.put(PARAM_FIELDS, ResourceResponse.FIELD_CONTENT_ID);
+        String pagingCookie = null;
+        do {
+            pagingCookie = query(idQuery.get("resourceName").asString(), idQuery, reconContext, ids, true,
+                    QuerySide.SOURCE, pageSize, pagingCookie, false).getPagingCookie();
+        } while (pageSize > 0 && pagingCookie != null);
+        boundedSourceIds = sample.seen();
+        List<String> sampled = sample.bounds(partitionCount);
+        logger.info("Sampled {} of {} source ids of reconciliation {} to bound its partitions by",
+                sample.size(), sample.seen(), partitionsId());
+        return sampled;
+    }
+
+    /**
+     * A uniform random sample of a fixed number of ids, taken in a single pass over the ids.
+     */
+    static class IdSample {
+
+        private final int size;
+        private final List<String> ids;
+        private final Random random = new Random();
+        private long seen;
+
+        /**
+         * Creates an empty sample.
+         *
+         * @param size the number of ids to sample
+         */
+        IdSample(int size) {
+            this.size = size;
+            this.ids = new ArrayList<>(size);
+        }
+
+        /**
+         * Adds an id to the sample, replacing a sampled id at random once the sample is full.
+         *
+         * @param id the id
+         */
+        void add(String id) {
+            seen++;
+            if (ids.size() < size) {
+                ids.add(id);
+            } else {
+                long i = (long) (random.nextDouble() * seen);
+                if (i < size) {
+                    ids.set((int) i, id);
+                }
+            }
+        }
+
+        /**
+         * Returns the ids splitting the sampled ids into ranges of about the same size.
+         *
+         * @param count the number of ranges
+         * @return the count - 1 sorted ids bounding the ranges, or none if no id was sampled
+         */
+        List<String> bounds(int count) {
+            List<String> sorted = new ArrayList<>(ids);
+            Collections.sort(sorted);
+            List<String> bounds = new ArrayList<>();
+            if (!sorted.isEmpty()) {
+                for (int i = 1; i < count; i++) {
+                    bounds.add(sorted.get(i * sorted.size() / count));
+                }
+            }
+            return bounds;
+        }
+
+        int size() {
+            return ids.size();
+        }
+
+        long seen() {
+            return seen;
+        }
+    }
+
+    /**
+     * Shares the cancellation of this node with the other nodes, and cancels this node if another node canceled.
+     *
+     * @throws SynchronizationException if the reconciliation was canceled
+     */
+    private void checkPartitionsCanceled() throws SynchronizationException {
+        try {
+            if (reconContext.isCanceled()) {
+                partitions.cancel();
+            } else if (!partitions.refresh() || partitions.isCanceled()) {
+                logger.info("Reconciliation {} was canceled or ended on another node", partitionsId());
+                reconContext.cancel();
+            }
+        } catch (ResourceException e) {
+            throw new SynchronizationException("Failed to check the partitions of reconciliation "
+                    + partitionsId(), e);
+        }
+        reconContext.checkCanceled();
+    }
+
+    /**
+     * @return the cumulative progress of this node, as shared with the coordinating node
+     */
+    private Map<String, Object> getNodeProgress() {
+        ReconciliationStatistic stats = reconContext.getStatistics();
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("reconId", reconContext.getReconId());
+        progress.put("sourceProcessed", stats.getSourceProcessed());
+        progress.put("targetCreated", stats.getTargetCreated());
+        progress.put("linkProcessed", stats.getLinkProcessed());
+        progress.put("linkCreated", stats.getLinkCreated());
+        progress.put("situationSummary", stats.getSituationSummary());
+        progress.put("statusSummary", stats.getStatusSummary());
+        return progress;
+    }
+
+    /**
+     * @return the progress of this node since it claimed the current partition
+     */
+    private Map<String, Object> getPartitionProgress() {
+        return progressSince(getNodeProgress(), claimedProgress);
+    }
+
+    /**
+     * Subtracts the progress made up to a point from the current progress, the counts of which may be nested in
+     * maps.
+     *
+     * @param current the current progress
+     * @param start the progress up to the point, or null to count from the start
+     * @return the progress made since the point
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> progressSince(Map<String, ?> current, Map<String, ?> start) {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        for (Map.Entry<String, ?> entry : current.entrySet()) {
+            Object before = start == null ? null : start.get(entry.getKey());
+            if (entry.getValue() instanceof Number) {
+                int count = before instanceof Number ? ((Number) before).intValue() : 0;
+                progress.put(entry.getKey(), ((Number) entry.getValue()).intValue() - count);
+            } else if (entry.getValue() instanceof Map) {
+                progress.put(entry.getKey(), progressSince((Map<String, ?>) entry.getValue(),
+                        before instanceof Map ? (Map<String, ?>) before : null));
+            } else {
+                progress.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return progress;
+    }
+
+    private String getInstanceId() {
+        return reconContext.getService().getInstanceId();
+    }
+
+    private String partitionsId() {
+        return isCoordinator() ? reconContext.getReconId() : coordinatorReconId;
+    }
+
+    private static void addCount(JsonValue summary, String pointer, JsonValue count) {
+        if (count.isNumber()) {
+            JsonValue current = summary.get(new JsonPointer(pointer));
+            int total = (current == null || !current.isNumber() ? 0 : current.asInteger()) + count.asInteger();
+            summary.put(new JsonPointer(pointer), total);
+        }
+    }
+}
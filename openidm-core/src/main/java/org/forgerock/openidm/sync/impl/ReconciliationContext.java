@@ -12,11 +12,11 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2011-2015 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.sync.impl;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -55,6 +55,7 @@ public class ReconciliationContext {
     private ReconTypeHandler reconTypeHandler;
     private final ReconciliationStatistic reconStat;
     private ExecutorService executor;
+    private AdaptiveConcurrency adaptiveConcurrency;
 
     // If set, the list of all queried source Ids
     private Set<String> sourceIds;
@@ -63,6 +64,9 @@ public class ReconciliationContext {
     private Map<String, JsonValue> targets;
     // Whether the targets map contains preloaded values
     private boolean hasTargetsValues;
+
+    // Linked target values read in bulk ahead of the source tasks, consumed by the tasks as they run
+    private final Map<String, JsonValue> prefetchedTargets = new ConcurrentHashMap<String, JsonValue>();
     
     private Integer totalSourceEntries;
     private Integer totalTargetEntries;
@@ -99,7 +103,10 @@ public class ReconciliationContext {
 
         // Initialize the executor for this recon, or null if no executor should be used
         int noOfThreads = mapping.getTaskThreads();
-        if (noOfThreads > 0) {
+        if (mapping.getAdaptiveTaskThreads() != null) {
+            adaptiveConcurrency = new AdaptiveConcurrency(mapping.getAdaptiveTaskThreads(), noOfThreads);
+            executor = adaptiveConcurrency.getExecutor();
+        } else if (noOfThreads > 0) {
             executor = Executors.newFixedThreadPool(noOfThreads);
         } else {
             executor = null;
@@ -114,9 +121,13 @@ public class ReconciliationContext {
     private ReconTypeHandler createReconTypeHandler(ReconciliationService.ReconAction reconAction) throws BadRequestException {
         switch (reconAction) {
         case recon :
-            return new ReconTypeByQuery(this);
+            return ReconTypePartitioned.isPartitioned(this)
+                    ? new ReconTypePartitioned(this)
+                    : new ReconTypeByQuery(this);
         case reconById :
             return new ReconTypeById(this);
+        case reconIncremental :
+            return new ReconTypeIncremental(this);
         default:
             throw new BadRequestException("Unknown action " + reconAction.toString());
         }
@@ -266,6 +277,23 @@ public class ReconciliationContext {
         return executor;
     }
 
+    /**
+     * @return the adaptive concurrency of the executor, or null if the executor has a fixed number of threads
+     */
+    AdaptiveConcurrency getAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    /**
+     * @return the number of threads currently processing tasks; 0 if tasks are processed on the calling thread
+     */
+    public int getTaskThreads() {
+        if (adaptiveConcurrency != null) {
+            return adaptiveConcurrency.getLimit();
+        }
+        return executor == null ? 0 : mapping.getTaskThreads();
+    }
+
     /**
      * Query (and cache if necessary) sources to reconcile
      * @return the source ids to reconcile in this recon scope
@@ -273,7 +301,12 @@ public class ReconciliationContext {
      */
     ReconQueryResult querySourceIter(int pageSize, String pagingCookie) throws SynchronizationException {
         ReconQueryResult result = getReconHandler().querySource(pageSize, pagingCookie);
-        setSourceIds(result.getAllIds());
+        if (getReconHandler().isFullScope()) {
+            setSourceIds(result.getAllIds());
+        } else {
+            // Only a sub-set of the sources was queried, existence checks read the source instead
+            this.totalSourceEntries = Integer.valueOf(result.getAllIds().size());
+        }
         return result;
     }
     
@@ -284,17 +317,32 @@ public class ReconciliationContext {
      */
     ResultIterable queryTarget() throws SynchronizationException {
         ResultIterable result = getReconHandler().queryTarget();
-        setTargets(result);
+        if (getReconHandler().isFullScope()) {
+            setTargets(result);
+        } else {
+            // Only a sub-set of the targets was queried, existence checks read the target instead
+            this.totalTargetEntries = Integer.valueOf(result.getAllIds().size());
+        }
         return result;
     }
 
+    /**
+     * Query targets to reconcile into a spool, without keeping the target ids or values in memory.
+     * As no targets are cached, existence checks against the target fall back to reading the object.
+     * @param spool the spool to append the target ids to
+     * @throws SynchronizationException if getting the entries to reconcile failed
+     */
+    void spoolTarget(SortedIdSpool spool) throws SynchronizationException {
+        getReconHandler().spoolTarget(spool);
+        this.totalTargetEntries = Integer.valueOf(spool.merge());
+    }
+
     /**
      * @param sourceIds the list of all source object ids in the reconciliation scope
      */
     void setSourceIds(Collection<String> sourceIds) {
-        // Choose a hash based collection as we need fast "contains" handling
-        this.sourceIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
-        this.sourceIds.addAll(sourceIds);
+        // Choose a hash based collection as we need fast "contains" handling, unless it is one already
+        this.sourceIds = sourceIds instanceof ReconIdSet ? (ReconIdSet) sourceIds : new ReconIdSet(sourceIds);
         this.totalSourceEntries = Integer.valueOf(sourceIds.size());
     }
     
@@ -321,7 +369,7 @@ public class ReconciliationContext {
      * Set all pre-fetched links
      * Since pre-fetching all links is optional, links may be gotten individually rather than
      * this getting set.
-     * @param allLinks the list of all links for a given mapping
+     * @param totalLinks the number of pre-fetched links
      */
     void setTotalLinkEntries(Integer totalLinks) {
         if (totalLinks > 0) {
@@ -355,6 +403,23 @@ public class ReconciliationContext {
         return hasTargetsValues;
     }
 
+    /**
+     * @param targetValues linked target values read in bulk for a batch of source entries,
+     * keyed by the target id as held in the link
+     */
+    void addPrefetchedTargets(Map<String, JsonValue> targetValues) {
+        prefetchedTargets.putAll(targetValues);
+    }
+
+    /**
+     * Removes and returns a linked target value read in bulk ahead of the task processing it.
+     * @param targetId the target id as held in the link
+     * @return the prefetched target value, or null if it was not prefetched
+     */
+    JsonValue takePrefetchedTarget(String targetId) {
+        return prefetchedTargets.remove(targetId);
+    }
+
     /**
      * @param newStage Sets the current state and stage in the reconciliation process
      */
@@ -377,6 +442,7 @@ public class ReconciliationContext {
             this.stage = newStage;
         }
         if (newStage.isComplete()) {
+            reconTypeHandler.reconEnded(this.stage);
             cleanupState();
         } else {
             reconStat.startStage(newStage);
@@ -390,6 +456,7 @@ public class ReconciliationContext {
     private synchronized void cleanupState() {
         sourceIds = null;
         targets = null;
+        prefetchedTargets.clear();
         if (executor != null) {
             executor.shutdown();
             executor = null;
@@ -407,6 +474,7 @@ public class ReconciliationContext {
         reconSummary.put("stage", getStage().toString());
         reconSummary.put("stageDescription", getStage().getDescription());
         reconSummary.put("progress", getProgress());
+        reconSummary.put("taskThreads", getTaskThreads());
         reconSummary.put("situationSummary", getStatistics().getSituationSummary());
         reconSummary.put("statusSummary", getStatistics().getStatusSummary());
         reconSummary.put("durationSummary", getStatistics().getDurationSummary());
@@ -414,6 +482,7 @@ public class ReconciliationContext {
         reconSummary.put("started", getStatistics().getStarted());
         reconSummary.put("ended", getStatistics().getEnded());
         reconSummary.put("duration", getStatistics().getDuration());
+        reconTypeHandler.completeSummary(reconSummary);
         return reconSummary;
     }
 
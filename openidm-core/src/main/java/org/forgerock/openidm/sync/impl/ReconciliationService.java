@@ -16,6 +16,9 @@
  */
 package org.forgerock.openidm.sync.impl;
 
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
 import static org.forgerock.json.resource.Responses.newActionResponse;
 import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.forgerock.openidm.util.ResourceUtil.notSupported;
@@ -38,6 +41,10 @@ import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
 import org.forgerock.json.JsonValueException;
+import org.forgerock.openidm.cluster.ClusterEvent;
+import org.forgerock.openidm.cluster.ClusterEventListener;
+import org.forgerock.openidm.cluster.ClusterEventType;
+import org.forgerock.openidm.cluster.ClusterManagementService;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.router.IDMConnectionFactory;
 import org.forgerock.openidm.sync.ReconContext;
@@ -65,6 +72,7 @@ import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.core.IdentityServer;
+import org.forgerock.openidm.util.ContextUtil;
 import org.forgerock.util.promise.Promise;
 import org.osgi.framework.Constants;
 import org.osgi.service.component.ComponentContext;
@@ -92,16 +100,17 @@ import org.slf4j.LoggerFactory;
 @ServiceVendor(ServerConstants.SERVER_VENDOR_NAME)
 @ServiceDescription("Reconciliation Service")
 public class ReconciliationService
-        implements RequestHandler, Reconcile, ReconciliationServiceMBean {
+        implements RequestHandler, Reconcile, ReconciliationServiceMBean, ClusterEventListener {
     final static Logger logger = LoggerFactory.getLogger(ReconciliationService.class);
 
     public static final String PID = "org.forgerock.openidm.recon";
     private static final String MBEAN_NAME = "org.forgerock.openidm.recon:type=Reconciliation";
     private static final String AUDIT_RECON = "audit/recon";
     private static final String SUMMARY = "summary";
+    private static final String LISTENER_ID = "reconciliation";
 
     public enum ReconAction {
-        recon, reconByQuery, reconById;
+        recon, reconByQuery, reconById, reconIncremental;
 
         /**
          * Convenience helper that checks if a given string
@@ -139,6 +148,26 @@ public class ReconciliationService
     )
     volatile Mappings mappings;
 
+    /**
+     * The cluster management service, used to process partitioned reconciliations across the cluster.
+     */
+    private volatile ClusterManagementService clusterManager;
+
+    @Reference(
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unbindClusterManager"
+    )
+    void bindClusterManager(ClusterManagementService clusterManager) {
+        this.clusterManager = clusterManager;
+        clusterManager.register(LISTENER_ID, this);
+    }
+
+    void unbindClusterManager(ClusterManagementService clusterManager) {
+        clusterManager.unregister(LISTENER_ID);
+        this.clusterManager = null;
+    }
+
     /**
      * The thread pool for executing full reconciliation runs.
      */
@@ -492,6 +521,81 @@ public class ReconciliationService
         return ObjectSetContext.get();
     }
 
+    /**
+     * @return whether this node is part of an enabled cluster
+     */
+    boolean isClustered() {
+        ClusterManagementService cluster = clusterManager;
+        return cluster != null && cluster.isEnabled();
+    }
+
+    /**
+     * @return the instance id of this node, or null if not clustered
+     */
+    String getInstanceId() {
+        ClusterManagementService cluster = clusterManager;
+        return cluster == null ? null : cluster.getInstanceId();
+    }
+
+    /**
+     * Notifies the other nodes of the cluster to process the partitions of a reconciliation.
+     *
+     * @param reconContext the coordinating reconciliation
+     */
+    void startPartitions(ReconciliationContext reconContext) {
+        ClusterManagementService cluster = clusterManager;
+        if (cluster == null) {
+            return;
+        }
+        JsonValue details = json(object(
+                field("reconId", reconContext.getReconId()),
+                field("mapping", reconContext.getMapping()),
+                field("config", reconContext.getOverridingConfig() == null
+                        ? null
+                        : reconContext.getOverridingConfig().getObject())));
+        cluster.sendEvent(new ClusterEvent(ClusterEventType.CUSTOM, cluster.getInstanceId(), LISTENER_ID, details));
+    }
+
+    /**
+     * Starts processing the partitions of a reconciliation coordinated by another node, or releases the
+     * partitions claimed by a failed node.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean handleEvent(ClusterEvent event) {
+        switch (event.getType()) {
+        case CUSTOM:
+            JsonValue details = event.getDetails();
+            String reconId = details.get("reconId").asString();
+            logger.info("Processing partitions of reconciliation {} started by instance {}",
+                    reconId, event.getInstanceId());
+            ObjectSetContext.push(ContextUtil.createInternalContext());
+            try {
+                JsonValue reconParams = json(object(
+                        field("mapping", details.get("mapping").asString()),
+                        field(ReconTypePartitioned.PARTITION_OF, reconId)));
+                reconcile(ReconAction.recon, details.get("mapping"), false, reconParams, details.get("config"));
+            } catch (ResourceException e) {
+                logger.warn("Failed to process partitions of reconciliation {}", reconId, e);
+            } finally {
+                ObjectSetContext.pop();
+            }
+            return true;
+        case RECOVERY_INITIATED:
+            try {
+                ReconPartitions.releaseInstance(connectionFactory, ContextUtil.createInternalContext(),
+                        event.getInstanceId());
+                return true;
+            } catch (ResourceException e) {
+                logger.warn("Failed to release reconciliation partitions of instance {}", event.getInstanceId(), e);
+                return false;
+            }
+        default:
+            return true;
+        }
+    }
+
     private void registerMBean() {
         try {
             MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
@@ -60,10 +60,12 @@ public class ReconciliationStatistic {
         propertyMappingScript,
         resultScript,
         sourceLinkQuery,
+        sourceObjectBatchQuery,
         sourceObjectQuery,
         sourcePhase,
         sourceQuery,
         targetLinkQuery,
+        targetObjectBatchQuery,
         targetObjectQuery,
         targetPhase,
         targetQuery,
@@ -226,6 +228,22 @@ public class ReconciliationStatistic {
         statusProcessed.get(status).incrementAndGet();
     }
 
+    /**
+     * @param status the status to count
+     * @return The number of entries processed with the given status
+     */
+    public int getStatusProcessed(Status status) {
+        return statusProcessed.get(status).get();
+    }
+
+    /**
+     * @return The number of threads currently processing entries,
+     * which varies over the run if the mapping uses adaptive task threads
+     */
+    public int getTaskThreads() {
+        return reconContext.getTaskThreads();
+    }
+
     /**
      * @return The number of existing source objects processed
      */
@@ -310,6 +328,7 @@ public class ReconciliationStatistic {
         results.put("duration", getDuration());
         results.put("reconId", reconContext.getReconId());
         results.put("mappingName", reconContext.getMapping());
+        results.put("taskThreads", getTaskThreads());
 
         return results;
     }
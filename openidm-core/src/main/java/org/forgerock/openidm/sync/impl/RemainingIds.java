@@ -0,0 +1,34 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+/**
+ * The (normalized) target identifiers a reconciliation has not matched yet. The source phase removes the targets
+ * it matches, and the target phase reconciles those remaining.
+ * <p>
+ * Only removal and iteration are supported, so that the remaining targets can be held in memory by a
+ * {@link ReconIdSet}, or spooled to disk by a {@link SortedIdSpool}, which cannot look identifiers up.
+ */
+interface RemainingIds extends Iterable<String> {
+
+    /**
+     * Removes a matched target identifier.
+     *
+     * @param id the (normalized) target identifier
+     * @return true if the identifier was known to remain, false if not, or if it cannot be told
+     */
+    boolean remove(String id);
+}
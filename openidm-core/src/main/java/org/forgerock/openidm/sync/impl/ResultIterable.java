@@ -49,6 +49,13 @@ public class ResultIterable implements Iterable<ResultEntry> {
         return allIds;
     }
     
+    /**
+     * @return whether full values are available alongside the identifiers
+     */
+    public boolean hasValues() {
+        return values != null;
+    }
+
     /**
      * Remove any entries that are not in the supplied ids
      * @param ids of entries to keep
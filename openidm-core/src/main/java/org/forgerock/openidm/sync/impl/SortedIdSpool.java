@@ -0,0 +1,416 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only spool of object identifiers with a bounded memory footprint.
+ * <p>
+ * Identifiers are buffered in memory up to the configured run size, then sorted and spilled to a
+ * temporary file. Iterating the spool merges all runs into a single sorted stream without duplicates,
+ * which allows two spools to be compared with a merge rather than with hash lookups. Once all identifiers
+ * are appended, {@link #merge()} merges the runs into one, reporting and dropping the duplicates.
+ * <p>
+ * Used by the streaming target phase of reconciliation, where the target identifiers and the
+ * identifiers of targets matched during the source phase are both spooled, and the remaining
+ * targets are the sorted difference of the two.
+ */
+class SortedIdSpool extends AbstractCollection<String> implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SortedIdSpool.class);
+
+    /** The default number of identifiers held in memory before a run is spilled to disk */
+    static final int DEFAULT_RUN_SIZE = 100000;
+
+    private final int runSize;
+    private final List<String> buffer;
+    private final List<File> runs = new ArrayList<>();
+    private final List<Integer> runCounts = new ArrayList<>();
+    private int appended = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates an empty spool.
+     *
+     * @param runSize the number of identifiers to hold in memory before spilling a sorted run
+     */
+    SortedIdSpool(int runSize) {
+        this.runSize = runSize > 0 ? runSize : DEFAULT_RUN_SIZE;
+        this.buffer = new ArrayList<>(Math.min(this.runSize, 1024));
+    }
+
+    /**
+     * Appends an identifier to the spool. Duplicates are accepted, and only reported and removed when the runs
+     * are merged.
+     *
+     * @param id the identifier to append
+     * @return always {@code true}
+     * @throws UncheckedIOException if a run could not be spilled to disk
+     */
+    @Override
+    public synchronized boolean add(String id) {
+        if (closed) {
+            throw new IllegalStateException("Spool is closed");
+        }
+        buffer.add(id);
+        appended++;
+        if (buffer.size() >= runSize) {
+            spillRun();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of identifiers appended to the spool, including the duplicates not removed by
+     * {@link #merge()} yet.
+     *
+     * @return the number of appended identifiers
+     */
+    @Override
+    public synchronized int size() {
+        return appended;
+    }
+
+    /**
+     * Returns the number of runs spilled to disk so far.
+     *
+     * @return the number of spilled runs
+     */
+    synchronized int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * Returns an iterator over the distinct spooled identifiers in ascending order.
+     * Identifiers appended after the iterator was created are not visible to it.
+     *
+     * @return a sorted iterator without duplicates
+     * @throws UncheckedIOException if the runs could not be read
+     */
+    @Override
+    public synchronized Iterator<String> iterator() {
+        if (runs.isEmpty()) {
+            Collections.sort(buffer);
+            return new DistinctIterator(new ArrayList<>(buffer).iterator());
+        }
+        if (!buffer.isEmpty()) {
+            spillRun();
+        }
+        return new DistinctIterator(new MergeIterator(new ArrayList<>(runs), new ArrayList<>(runCounts)));
+    }
+
+    /**
+     * Merges the runs spilled so far and the identifiers held in memory into a single sorted run without
+     * duplicates, logging each duplicate dropped. Later iterations read the merged run only.
+     *
+     * @return the number of distinct identifiers in the spool
+     * @throws UncheckedIOException if the runs could not be merged
+     */
+    synchronized int merge() {
+        if (runs.isEmpty()) {
+            Collections.sort(buffer);
+            List<String> distinct = new ArrayList<>(buffer.size());
+            for (String id : buffer) {
+                if (!distinct.isEmpty() && id.equals(distinct.get(distinct.size() - 1))) {
+                    logDuplicate(id);
+                } else {
+                    distinct.add(id);
+                }
+            }
+            buffer.clear();
+            buffer.addAll(distinct);
+        } else {
+            if (!buffer.isEmpty()) {
+                spillRun();
+            }
+            if (runs.size() > 1) {
+                List<File> merged = new ArrayList<>(runs);
+                writeRun(new DistinctIterator(new MergeIterator(merged, new ArrayList<>(runCounts)), true));
+                for (File run : merged) {
+                    if (!run.delete()) {
+                        LOGGER.debug("Failed to delete spooled id run {}", run);
+                    }
+                }
+                runs.subList(0, merged.size()).clear();
+                runCounts.subList(0, merged.size()).clear();
+            }
+        }
+        appended = runs.isEmpty() ? buffer.size() : runCounts.get(0);
+        return appended;
+    }
+
+    /**
+     * Returns a live view of the identifiers in this spool that are not in the excluded spool.
+     * Removing an identifier from the view appends it to the excluded spool, so the view can be handed
+     * to the reconciliation phases, which remove the targets they match from the remaining targets.
+     *
+     * @param excluded the spool recording the identifiers to exclude
+     * @return the sorted difference of this spool and the excluded spool
+     */
+    RemainingIds without(final SortedIdSpool excluded) {
+        return new RemainingIds() {
+            @Override
+            public Iterator<String> iterator() {
+                return new DifferenceIterator(SortedIdSpool.this.iterator(), excluded.iterator());
+            }
+
+            @Override
+            public boolean remove(String id) {
+                // whether the identifier remained is not known without a lookup
+                excluded.add(id);
+                return false;
+            }
+
+            @Override
+            public String toString() {
+                return "[" + SortedIdSpool.this.size() + " spooled, " + excluded.size() + " excluded]";
+            }
+        };
+    }
+
+    /**
+     * Deletes all spilled runs and releases the in-memory buffer.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        buffer.clear();
+        for (File run : runs) {
+            if (!run.delete()) {
+                LOGGER.debug("Failed to delete spooled id run {}", run);
+            }
+        }
+        runs.clear();
+        runCounts.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "[" + size() + " spooled]";
+    }
+
+    private void spillRun() {
+        Collections.sort(buffer);
+        writeRun(new DistinctIterator(buffer.iterator(), true));
+        buffer.clear();
+    }
+
+    /**
+     * Writes a sorted run of distinct identifiers to a temporary file, and appends it to the runs.
+     *
+     * @param ids the sorted, distinct identifiers to write
+     */
+    private void writeRun(Iterator<String> ids) {
+        File run = null;
+        try {
+            run = File.createTempFile("openidm-recon-", ".ids");
+            run.deleteOnExit();
+            int count = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)))) {
+                while (ids.hasNext()) {
+                    out.writeUTF(ids.next());
+                    count++;
+                }
+            }
+            runs.add(run);
+            runCounts.add(count);
+            LOGGER.debug("Spilled {} ids to {}", count, run);
+        } catch (IOException e) {
+            if (run != null) {
+                run.delete();
+            }
+            throw new UncheckedIOException("Failed to spill recon ids to disk", e);
+        }
+    }
+
+    private static void logDuplicate(String id) {
+        LOGGER.warn("Detected duplicate entry id {} in query result; skipping entry", id);
+    }
+
+    /**
+     * A single spilled run being read back in sorted order.
+     */
+    private static final class RunReader implements Comparable<RunReader> {
+        private final DataInputStream in;
+        private int remaining;
+        private String current;
+
+        RunReader(File run, int count) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run)));
+            this.remaining = count;
+        }
+
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                in.close();
+                current = null;
+                return false;
+            }
+            current = in.readUTF();
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public int compareTo(RunReader other) {
+            return current.compareTo(other.current);
+        }
+    }
+
+    /**
+     * K-way merge over the spilled runs.
+     */
+    private static final class MergeIterator implements Iterator<String> {
+        private final PriorityQueue<RunReader> queue = new PriorityQueue<>();
+
+        MergeIterator(List<File> runs, List<Integer> counts) {
+            try {
+                for (int i = 0; i < runs.size(); i++) {
+                    RunReader reader = new RunReader(runs.get(i), counts.get(i));
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read spooled recon ids", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public String next() {
+            RunReader reader = queue.poll();
+            if (reader == null) {
+                throw new NoSuchElementException();
+            }
+            String next = reader.current;
+            try {
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read spooled recon ids", e);
+            }
+            return next;
+        }
+    }
+
+    /**
+     * Skips consecutive duplicates of a sorted iterator, optionally logging them.
+     */
+    private static final class DistinctIterator implements Iterator<String> {
+        private final Iterator<String> sorted;
+        private final boolean logDuplicates;
+        private String next;
+        private String previous;
+
+        DistinctIterator(Iterator<String> sorted) {
+            this(sorted, false);
+        }
+
+        DistinctIterator(Iterator<String> sorted, boolean logDuplicates) {
+            this.sorted = sorted;
+            this.logDuplicates = logDuplicates;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && sorted.hasNext()) {
+                String candidate = sorted.next();
+                if (!candidate.equals(previous)) {
+                    next = candidate;
+                } else if (logDuplicates) {
+                    logDuplicate(candidate);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            previous = next;
+            next = null;
+            return previous;
+        }
+    }
+
+    /**
+     * Merges two sorted, distinct iterators, returning the elements of the first that are not in the second.
+     */
+    private static final class DifferenceIterator implements Iterator<String> {
+        private final Iterator<String> ids;
+        private final Iterator<String> excluded;
+        private String next;
+        private String excludedHead;
+
+        DifferenceIterator(Iterator<String> ids, Iterator<String> excluded) {
+            this.ids = ids;
+            this.excluded = excluded;
+            this.excludedHead = excluded.hasNext() ? excluded.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && ids.hasNext()) {
+                String candidate = ids.next();
+                while (excludedHead != null && excludedHead.compareTo(candidate) < 0) {
+                    excludedHead = excluded.hasNext() ? excluded.next() : null;
+                }
+                if (!candidate.equals(excludedHead)) {
+                    next = candidate;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String result = next;
+            next = null;
+            return result;
+        }
+    }
+}
@@ -12,12 +12,16 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.audit.util.Status;
@@ -38,13 +42,92 @@ class SourceRecon implements Recon {
         this.objectMapping = Reject.checkNotNull(objectMapping);
     }
 
+    /**
+     * {@inheritDoc}
+     * Reads the source objects that were not pre-queried, and the targets linked to the sources
+     * if the links were pre-queried, with one query each.
+     */
+    @Override
+    public List<ResultEntry> prefetch(List<ResultEntry> entries, ReconciliationContext reconContext,
+            LinkIndex linkIndex) throws SynchronizationException {
+        final ReconciliationStatistic stats = reconContext.getStatistics();
+        List<String> unloadedIds = new ArrayList<>(entries.size());
+        for (ResultEntry entry : entries) {
+            if (entry.getValue() == null) {
+                unloadedIds.add(entry.getId());
+            }
+        }
+
+        List<ResultEntry> prefetched = entries;
+        if (!unloadedIds.isEmpty()) {
+            final long sourceBatchQueryStart = ObjectMapping.startNanoTime(reconContext);
+            Map<String, JsonValue> sources = objectMapping.readSourceObjects(unloadedIds);
+            stats.addDuration(ReconciliationStatistic.DurationMetric.sourceObjectBatchQuery, sourceBatchQueryStart);
+            prefetched = new ArrayList<>(entries.size());
+            for (ResultEntry entry : entries) {
+                // Sources missing from the result are left to be read on demand
+                JsonValue source = sources.get(objectMapping.getLinkType().normalizeSourceId(entry.getId()));
+                prefetched.add(entry.getValue() == null && source != null
+                        ? new ResultEntry(entry.getId(), source)
+                        : entry);
+            }
+        }
+
+        if (linkIndex != null && !reconContext.hasTargetsValues()) {
+            Set<String> linkedTargetIds = new LinkedHashSet<>();
+            for (ResultEntry entry : entries) {
+                String normalizedSourceId = objectMapping.getLinkType().normalizeSourceId(entry.getId());
+                for (String linkQualifier : linkIndex.getLinkQualifiers()) {
+                    Link link = linkIndex.getLink(linkQualifier, normalizedSourceId);
+                    if (link != null && link.targetId != null) {
+                        linkedTargetIds.add(link.targetId);
+                    }
+                }
+            }
+            if (!linkedTargetIds.isEmpty()) {
+                final long targetBatchQueryStart = ObjectMapping.startNanoTime(reconContext);
+                reconContext.addPrefetchedTargets(objectMapping.readTargetObjects(linkedTargetIds));
+                stats.addDuration(ReconciliationStatistic.DurationMetric.targetObjectBatchQuery,
+                        targetBatchQueryStart);
+            }
+        }
+        return prefetched;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void recon(String id, JsonValue objectEntry, ReconciliationContext reconContext, Context context,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds)
+            LinkIndex linkIndex, RemainingIds remainingIds)
             throws SynchronizationException {
+        try {
+            reconSource(id, objectEntry, reconContext, context, linkIndex, remainingIds);
+        } finally {
+            releasePrefetchedTargets(id, reconContext, linkIndex);
+        }
+    }
+
+    /**
+     * Frees the targets prefetched for a source once it was reconciled. Its sync operations take the targets they
+     * read, so the targets left are those of link qualifiers not applicable to the source, or of a source that
+     * failed before reading its target.
+     */
+    private void releasePrefetchedTargets(String id, ReconciliationContext reconContext, LinkIndex linkIndex) {
+        if (linkIndex == null || reconContext.hasTargetsValues()) {
+            return;
+        }
+        String normalizedSourceId = objectMapping.getLinkType().normalizeSourceId(id);
+        for (String linkQualifier : linkIndex.getLinkQualifiers()) {
+            Link link = linkIndex.getLink(linkQualifier, normalizedSourceId);
+            if (link != null && link.targetId != null) {
+                reconContext.takePrefetchedTarget(link.targetId);
+            }
+        }
+    }
+
+    private void reconSource(String id, JsonValue objectEntry, ReconciliationContext reconContext, Context context,
+            LinkIndex linkIndex, RemainingIds remainingIds) throws SynchronizationException {
         reconContext.checkCanceled();
         LazyObjectAccessor sourceObjectAccessor = objectEntry == null
                 ? new LazyObjectAccessor(objectMapping.getConnectionFactory(), objectMapping.getSourceObjectSet(), id) // Load source detail on demand
@@ -66,9 +149,14 @@ class SourceRecon implements Recon {
             ReconAuditEventLogger auditEvent = new ReconAuditEventLogger(op, objectMapping.getName(), context);
             auditEvent.setLinkQualifier(op.getLinkQualifier());
             op.sourceObjectAccessor = sourceObjectAccessor;
-            if (allLinks != null) {
+            if (linkIndex != null) {
+                // A source missing from an incomplete index may still be linked, its link is read on demand
+                boolean complete = linkIndex.isComplete(linkQualifier);
                 String normalizedSourceId = objectMapping.getLinkType().normalizeSourceId(id);
-                op.initializeLink(allLinks.get(linkQualifier).get(normalizedSourceId));
+                Link link = linkIndex.getLink(linkQualifier, normalizedSourceId);
+                if (link != null || complete) {
+                    op.initializeLink(link);
+                }
             }
             auditEvent.setSourceObjectId(LazyObjectAccessor.qualifiedId(objectMapping.getSourceObjectSet(), id));
             op.reconId = reconContext.getReconId();
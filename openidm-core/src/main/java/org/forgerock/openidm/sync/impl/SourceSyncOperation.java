@@ -172,6 +172,10 @@ class SourceSyncOperation extends SyncOperation {
                 if (reconContext.hasTargetsValues()) {
                     preloaded = reconContext.getTargets().get(linkObject.targetId);
                 }
+                // Otherwise use the value if it was read in bulk for the batch of this source
+                if (preloaded == null) {
+                    preloaded = reconContext.takePrefetchedTarget(linkObject.targetId);
+                }
             }
             if (preloaded != null) {
                 targetObjectAccessor = new LazyObjectAccessor(
@@ -29,8 +29,17 @@ import static org.forgerock.openidm.util.ResourceUtil.notSupported;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.forgerock.audit.events.AuditEvent;
 import com.google.common.base.Function;
@@ -39,6 +48,7 @@ import com.google.common.collect.FluentIterable;
 import org.forgerock.json.resource.Connection;
 import org.forgerock.json.resource.QueryResourceHandler;
 import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.router.IDMConnectionFactory;
 import org.forgerock.openidm.sync.SynchronizationException;
@@ -113,6 +123,11 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
     /** The resource name action parameter. */
     public static final String ACTION_PARAM_RESOURCE_NAME = "resourceName";
 
+    /** Property setting the number of threads to synchronize the mappings of a changed source object with */
+    static final String PROPERTY_FAN_OUT_THREADS = "openidm.sync.fanout.threads";
+    /** Property setting the {@link FailurePolicy} of implicit synchronization */
+    static final String PROPERTY_FAILURE_POLICY = "openidm.sync.failurepolicy";
+
     /** The Connection Factory */
     @Reference(policy = ReferencePolicy.STATIC)
     protected IDMConnectionFactory connectionFactory;
@@ -136,12 +151,57 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
     @Reference(policy = ReferencePolicy.DYNAMIC)
     private volatile EnhancedConfig enhancedConfig;
 
+    /** The executor to synchronize the mappings of a source object concurrently with, or null to sync them in turn */
+    private volatile ExecutorService fanOutExecutor;
+
+    /** What to do with the remaining mappings once one failed */
+    private volatile FailurePolicy failurePolicy = FailurePolicy.SKIP;
+
     @Activate
     protected void activate(ComponentContext context) {
+        // Until we have a sync service config, allow overrides via properties
+        configureFanOut(
+                Integer.parseInt(IdentityServer.getInstance().getProperty(PROPERTY_FAN_OUT_THREADS, "0")),
+                "continue".equalsIgnoreCase(IdentityServer.getInstance().getProperty(PROPERTY_FAILURE_POLICY))
+                        ? FailurePolicy.CONTINUE
+                        : FailurePolicy.SKIP);
+    }
+
+    /**
+     * Configures how the mappings of a changed source object are synchronized.
+     *
+     * @param fanOutThreads the number of threads to synchronize mappings concurrently with, or 0 for none
+     * @param failurePolicy what to do with the remaining mappings once one failed
+     */
+    void configureFanOut(int fanOutThreads, FailurePolicy failurePolicy) {
+        this.failurePolicy = failurePolicy;
+        if (fanOutThreads > 0) {
+            // run on the calling thread when all threads are busy, rather than queue behind other requests
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(fanOutThreads, fanOutThreads,
+                    60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "sync-fan-out-" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            fanOutExecutor = executor;
+            logger.info("Synchronizing mappings with up to {} threads, {} mappings after a failure",
+                    fanOutThreads, failurePolicy == FailurePolicy.SKIP ? "skipping" : "continuing with");
+        }
     }
 
     @Deactivate
     protected void deactivate(ComponentContext context) {
+        ExecutorService executor = fanOutExecutor;
+        fanOutExecutor = null;
+        if (executor != null) {
+            executor.shutdown();
+        }
     }
 
     @Modified
@@ -155,6 +215,24 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
         SUCCESSFUL, SKIPPED, FAILED
     }
 
+    /**
+     * What to do with the remaining mappings once synchronizing a source object to one mapping failed.
+     */
+    enum FailurePolicy {
+        /** Skip the mappings not started yet */
+        SKIP,
+        /** Synchronize all the mappings, and report the first failure */
+        CONTINUE
+    }
+
+    /**
+     * The details and failure of synchronizing a source object to one mapping.
+     */
+    private static final class MappingSyncResults {
+        final List<JsonValue> details = new ArrayList<>();
+        SynchronizationException exception;
+    }
+
     /**
      * Local interface to encapsulate the notifyCreate/notifyUpdate/notifyDelete ObjectMapping synchronization
      * across all mappings.
@@ -174,10 +252,9 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
      * @returns a JsonValue list of ObjectMappings' sync results
      * @throws SynchronizationException on failure to sync one of the mappings
      */
-    private JsonValue syncAllMappings(Context context, SyncAction action, final String resourceContainer, final String resourceId)
-            throws SynchronizationException {
+    private JsonValue syncAllMappings(final Context context, final SyncAction action, final String resourceContainer,
+            final String resourceId) throws SynchronizationException {
         final JsonValue syncDetails = new JsonValue(new ArrayList<Object>());
-        SynchronizationException exceptionPending = null;
 
         // cannot sync anything with empty resourceId
         if (resourceId.isEmpty()) {
@@ -192,36 +269,27 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
                         && objectMapping.isSourceObject(resourceContainer, resourceId);
             }
         };
+        final List<ObjectMapping> syncMappings = FluentIterable.from(mappings).filter(thatMatchSource).toList();
+
+        final MappingSyncResults[] results = new MappingSyncResults[syncMappings.size()];
+        final ExecutorService executor = fanOutExecutor;
+        if (executor == null || syncMappings.size() < 2) {
+            for (int i = 0; i < syncMappings.size(); i++) {
+                results[i] = syncMapping(context, action, syncMappings.get(i),
+                        failurePolicy == FailurePolicy.SKIP && failed(results));
+            }
+        } else {
+            syncMappingsConcurrently(context, action, syncMappings, results, executor);
+        }
 
-        for (final ObjectMapping mapping : FluentIterable.from(mappings).filter(thatMatchSource)) {
-            JsonValue mappingResults = json(array());
-            MappingSyncResult result = MappingSyncResult.SUCCESSFUL;
-            try {
-                if (exceptionPending == null) {
-                    // No failures yet, perform sync
-                    // This operation returns a list which will contain more than one result if 
-                    // there are multiple targets to sync the source to
-                    mappingResults = action.sync(context, mapping);
-                } else {
-                    // we've already failed, skip the sync attempt
-                    result = MappingSyncResult.SKIPPED;
-                }
-            } catch (SynchronizationException e) {
-                // failed to sync; store the exception and mark as failed
-                exceptionPending = new SynchronizationException(e.getMessage(), e.getCause());
-                // the exception detail contains the mapping result
-                JsonValue failedResult = e.getDetail();
-                failedResult.put("cause", exceptionPending.toJsonValue().getObject());
-                mappingResults.add(failedResult);
-                result = MappingSyncResult.FAILED;
-            } finally {
-                // Loop over each result, setting result fields and adding to syncDetails list
-                for (JsonValue mappingResult : mappingResults) {
-                    mappingResult.put("result", result.name());
-                    mappingResult.put("mapping", mapping.getName());
-                    mappingResult.put("targetObjectSet", mapping.getTargetObjectSet());
-                    syncDetails.add(mappingResult);
-                }
+        // Merge the results in the order of the mappings, keeping the first failure
+        SynchronizationException exceptionPending = null;
+        for (MappingSyncResults result : results) {
+            for (JsonValue mappingResult : result.details) {
+                syncDetails.add(mappingResult);
+            }
+            if (exceptionPending == null) {
+                exceptionPending = result.exception;
             }
         }
 
@@ -235,6 +303,121 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
         return syncDetails;
     }
 
+    /**
+     * Synchronize the mappings concurrently. Mappings with the same target object set are synchronized one after the
+     * other, in the order of the mappings, while mappings with different targets are synchronized at the same time.
+     * Mappings that are not started yet when the failure policy is {@link FailurePolicy#SKIP} and a mapping failed
+     * are skipped.
+     *
+     * @param context the request context
+     * @param action the {@code SyncAction} to perform
+     * @param syncMappings the mappings to synchronize
+     * @param results the array to store the results of each mapping in
+     * @param executor the executor to synchronize the mappings with
+     */
+    private void syncMappingsConcurrently(final Context context, final SyncAction action,
+            final List<ObjectMapping> syncMappings, final MappingSyncResults[] results, ExecutorService executor) {
+        final Map<String, List<Integer>> byTarget = new LinkedHashMap<>();
+        for (int i = 0; i < syncMappings.size(); i++) {
+            String target = syncMappings.get(i).getTargetObjectSet();
+            if (!byTarget.containsKey(target)) {
+                byTarget.put(target, new ArrayList<Integer>());
+            }
+            byTarget.get(target).add(i);
+        }
+
+        final AtomicBoolean failed = new AtomicBoolean(false);
+        final Context threadContext = ObjectSetContext.get();
+        final List<Future<?>> futures = new ArrayList<>();
+        for (final List<Integer> indexes : byTarget.values()) {
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    if (threadContext != null) {
+                        ObjectSetContext.push(threadContext);
+                    }
+                    try {
+                        for (int i : indexes) {
+                            results[i] = syncMapping(context, action, syncMappings.get(i),
+                                    failurePolicy == FailurePolicy.SKIP && failed.get());
+                            if (results[i].exception != null) {
+                                failed.set(true);
+                            }
+                        }
+                    } finally {
+                        if (threadContext != null) {
+                            ObjectSetContext.pop();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while synchronizing mappings", e);
+            } catch (java.util.concurrent.ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Synchronize one mapping.
+     *
+     * @param context the request context
+     * @param action the {@code SyncAction} to perform
+     * @param mapping the mapping to synchronize
+     * @param skip whether to skip the mapping because another one failed
+     * @return the results of the mapping
+     */
+    private MappingSyncResults syncMapping(Context context, SyncAction action, ObjectMapping mapping, boolean skip) {
+        MappingSyncResults results = new MappingSyncResults();
+        JsonValue mappingResults = json(array());
+        MappingSyncResult result = MappingSyncResult.SUCCESSFUL;
+        try {
+            if (!skip) {
+                // This operation returns a list which will contain more than one result if
+                // there are multiple targets to sync the source to
+                mappingResults = action.sync(context, mapping);
+            } else {
+                // we've already failed, skip the sync attempt
+                result = MappingSyncResult.SKIPPED;
+            }
+        } catch (SynchronizationException e) {
+            // failed to sync; store the exception and mark as failed
+            results.exception = new SynchronizationException(e.getMessage(), e.getCause());
+            // the exception detail contains the mapping result
+            JsonValue failedResult = e.getDetail();
+            failedResult.put("cause", results.exception.toJsonValue().getObject());
+            mappingResults.add(failedResult);
+            result = MappingSyncResult.FAILED;
+        } finally {
+            // Loop over each result, setting result fields and adding to the mapping's details
+            for (JsonValue mappingResult : mappingResults) {
+                mappingResult.put("result", result.name());
+                mappingResult.put("mapping", mapping.getName());
+                mappingResult.put("targetObjectSet", mapping.getTargetObjectSet());
+                results.details.add(mappingResult);
+            }
+        }
+        return results;
+    }
+
+    private static boolean failed(MappingSyncResults[] results) {
+        for (MappingSyncResults result : results) {
+            if (result != null && result.exception != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private JsonValue notifyCreate(Context context, final String resourceContainer, final String resourceId, final JsonValue object)
             throws SynchronizationException {
         // Handle pending link action if present
@@ -12,11 +12,13 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.forgerock.json.JsonValue;
@@ -38,12 +40,44 @@ class TargetRecon implements Recon {
         this.objectMapping = Reject.checkNotNull(objectMapping);
     }
 
+    /**
+     * {@inheritDoc}
+     * Reads the target objects that were not pre-queried with one query.
+     */
+    @Override
+    public List<ResultEntry> prefetch(List<ResultEntry> entries, ReconciliationContext reconContext,
+            LinkIndex linkIndex) throws SynchronizationException {
+        List<String> unloadedIds = new ArrayList<>(entries.size());
+        for (ResultEntry entry : entries) {
+            if (entry.getValue() == null) {
+                unloadedIds.add(entry.getId());
+            }
+        }
+        if (unloadedIds.isEmpty()) {
+            return entries;
+        }
+
+        final long targetBatchQueryStart = ObjectMapping.startNanoTime(reconContext);
+        Map<String, JsonValue> targets = objectMapping.readTargetObjects(unloadedIds);
+        reconContext.getStatistics().addDuration(ReconciliationStatistic.DurationMetric.targetObjectBatchQuery,
+                targetBatchQueryStart);
+        List<ResultEntry> prefetched = new ArrayList<>(entries.size());
+        for (ResultEntry entry : entries) {
+            // Targets missing from the result are left to be read on demand
+            JsonValue target = targets.get(objectMapping.getLinkType().normalizeTargetId(entry.getId()));
+            prefetched.add(entry.getValue() == null && target != null
+                    ? new ResultEntry(entry.getId(), target)
+                    : entry);
+        }
+        return prefetched;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void recon(String id, JsonValue objectEntry, ReconciliationContext reconContext, Context context,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds)  throws SynchronizationException {
+            LinkIndex linkIndex, RemainingIds remainingIds)  throws SynchronizationException {
         reconContext.checkCanceled();
         for (String linkQualifier : objectMapping.getAllLinkQualifiers(context, reconContext)) {
             TargetSyncOperation op = new TargetSyncOperation(objectMapping, context);
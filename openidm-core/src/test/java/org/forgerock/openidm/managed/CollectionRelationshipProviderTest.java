@@ -16,21 +16,34 @@
 package org.forgerock.openidm.managed;
 
 import static org.forgerock.json.JsonValue.*;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
 import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.forgerock.util.promise.Promises.newResultPromise;
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.BadRequestException;
 import org.forgerock.json.resource.Connection;
 import org.forgerock.json.resource.ConnectionFactory;
 import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.openidm.audit.util.ActivityLogger;
 import org.forgerock.openidm.util.RelationshipUtil;
 import org.forgerock.services.context.Context;
 import org.forgerock.services.context.RootContext;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
@@ -147,6 +160,79 @@ public class CollectionRelationshipProviderTest {
         }
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetRelationshipValuesForResourcesQueriesOnce() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(Collection.class)))
+                .thenAnswer(new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) {
+                        Collection<ResourceResponse> results = (Collection<ResourceResponse>) invocation.getArguments()[2];
+                        results.add(relationship("r1", "managed/user/mgr1", "reports", "managed/user/test1", "manager"));
+                        results.add(relationship("r2", "managed/user/mgr1", "reports", "managed/user/test2", "manager"));
+                        results.add(relationship("r3", "managed/user/test1", "manager", "managed/user/mgr2", "reports"));
+                        return newQueryResponse();
+                    }
+                });
+        ConnectionFactory factory = mock(ConnectionFactory.class);
+        when(factory.getConnection()).thenReturn(connection);
+        CollectionRelationshipProvider provider = new CollectionRelationshipProvider(factory,
+                ResourcePath.resourcePath("managed/user"), reportsField(), activityLogger, managedObjectSyncService);
+
+        Map<String, JsonValue> values = provider.getRelationshipValuesForResources(new RootContext(),
+                Arrays.asList("mgr1", "mgr2", "mgr3"));
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(connection, times(1)).query(any(Context.class), captor.capture(), any(Collection.class));
+        assertEquals(captor.getValue().getQueryId(), "find-relationships-for-resources");
+        assertEquals(captor.getValue().getAdditionalParameter("fullResourceIds"),
+                "managed/user/mgr1,managed/user/mgr2,managed/user/mgr3");
+        assertEquals(values.get("mgr1").size(), 2);
+        assertEquals(values.get("mgr1").get(0).get(SchemaField.FIELD_REFERENCE).asString(), "managed/user/test1");
+        assertEquals(values.get("mgr2").size(), 1);
+        assertEquals(values.get("mgr2").get(0).get(SchemaField.FIELD_REFERENCE).asString(), "managed/user/test1");
+        assertEquals(values.get("mgr3").size(), 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetRelationshipValuesForResourcesFallsBackWithoutQuery() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(Collection.class)))
+                .thenThrow(new BadRequestException("Unknown query id"));
+        ConnectionFactory factory = mock(ConnectionFactory.class);
+        when(factory.getConnection()).thenReturn(connection);
+        CollectionRelationshipProvider provider = spy(new CollectionRelationshipProvider(factory,
+                ResourcePath.resourcePath("managed/user"), reportsField(), activityLogger, managedObjectSyncService));
+        doReturn(newResultPromise(json(array()))).when(provider)
+                .getRelationshipValueForResource(any(Context.class), any(String.class));
+
+        Map<String, JsonValue> values = provider.getRelationshipValuesForResources(new RootContext(),
+                Arrays.asList("mgr1", "mgr2"));
+
+        verify(provider, times(2)).getRelationshipValueForResource(any(Context.class), any(String.class));
+        assertEquals(values.size(), 2);
+    }
+
+    private static SchemaField reportsField() {
+        SchemaField schemaField = mock(SchemaField.class);
+        when(schemaField.getName()).thenReturn("reports");
+        when(schemaField.isReverseRelationship()).thenReturn(true);
+        when(schemaField.getReversePropertyName()).thenReturn("manager");
+        return schemaField;
+    }
+
+    private static ResourceResponse relationship(String id, String firstId, String firstPropertyName,
+            String secondId, String secondPropertyName) {
+        return newResourceResponse(id, "1", json(object(
+                field("firstId", firstId),
+                field("firstPropertyName", firstPropertyName),
+                field("secondId", secondId),
+                field("secondPropertyName", secondPropertyName),
+                field("properties", object()))));
+    }
+
     private static class IsRouteMatcher extends ArgumentMatcher<ReadRequest> {
         private final String route;
 
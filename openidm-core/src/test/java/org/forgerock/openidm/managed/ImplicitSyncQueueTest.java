@@ -0,0 +1,435 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.CountPolicy;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.sync.impl.SynchronizationService.SyncServiceAction;
+import org.forgerock.services.context.Context;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ImplicitSyncQueueTest {
+
+    private Connection connection;
+    private ManagedObjectSet objectSet;
+    private ImplicitSyncQueue queue;
+
+    /** The count queries the repository configurations define for generic objects */
+    private static final List<String> COUNT_QUERIES = Arrays.asList("query-all-ids-count", "query-all-count");
+
+    /** The entries the queue queries return, by whether the query is a count, a poll or a release */
+    private final List<ResourceResponse> queued = new ArrayList<>();
+    private final List<ResourceResponse> pending = new ArrayList<>();
+    private final List<ResourceResponse> claimed = new ArrayList<>();
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        queued.clear();
+        pending.clear();
+        claimed.clear();
+        connection = mock(Connection.class);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        when(connection.query(any(Context.class), any(QueryRequest.class),
+                Matchers.<Collection<ResourceResponse>>any())).thenAnswer(new Answer<QueryResponse>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public QueryResponse answer(InvocationOnMock invocation) {
+                        QueryRequest request = (QueryRequest) invocation.getArguments()[1];
+                        Collection<ResourceResponse> results =
+                                (Collection<ResourceResponse>) invocation.getArguments()[2];
+                        if (request.getQueryId() != null) {
+                            results.addAll(queued.subList(0, Math.min(request.getPageSize(), queued.size())));
+                            // as the repositories do, counts with the -count query of the query id
+                            return COUNT_QUERIES.contains(request.getQueryId() + "-count")
+                                    && request.getTotalPagedResultsPolicy() == CountPolicy.EXACT
+                                    ? newQueryResponse(null, CountPolicy.EXACT, queued.size())
+                                    : newQueryResponse();
+                        }
+                        String filter = request.getQueryFilter().toString();
+                        if (filter.contains(ImplicitSyncQueue.INSTANCE_ID)) {
+                            results.addAll(claimed);
+                        } else if (filter.contains(ImplicitSyncQueue.STATE)) {
+                            results.addAll(pending);
+                        } else {
+                            results.addAll(queued.subList(0, Math.min(1, queued.size())));
+                        }
+                        // the repositories do not count the results of query filters
+                        return newQueryResponse();
+                    }
+                });
+        // an update returns the entry with the next revision
+        when(connection.update(any(Context.class), any(UpdateRequest.class))).thenAnswer(
+                new Answer<ResourceResponse>() {
+                    @Override
+                    public ResourceResponse answer(InvocationOnMock invocation) {
+                        UpdateRequest request = (UpdateRequest) invocation.getArguments()[1];
+                        return newResourceResponse(request.getResourcePathObject().leaf(),
+                                String.valueOf(Integer.parseInt(request.getRevision()) + 1), request.getContent());
+                    }
+                });
+
+        objectSet = mock(ManagedObjectSet.class);
+        ImplicitSyncQueue.ObjectSets objectSets = mock(ImplicitSyncQueue.ObjectSets.class);
+        when(objectSets.get("managed/user")).thenReturn(objectSet);
+        queue = new ImplicitSyncQueue(connectionFactory, objectSets, "node1",
+                json(object(field("pollInterval", 3600000), field("maxRetries", 3), field("retryInterval", 1000))));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        queue.stop();
+    }
+
+    @Test
+    public void testCoalesceUpdates() {
+        JsonValue merged = ImplicitSyncQueue.coalesce(
+                change(SyncServiceAction.notifyUpdate, "v1", "v2", 1L),
+                change(SyncServiceAction.notifyUpdate, "v2", "v3", 2L), false);
+
+        assertThat(merged.get(ImplicitSyncQueue.ACTION).asString()).isEqualTo("notifyUpdate");
+        assertThat(merged.get(ImplicitSyncQueue.OLD_VALUE).asString()).isEqualTo("v1");
+        assertThat(merged.get(ImplicitSyncQueue.NEW_VALUE).asString()).isEqualTo("v3");
+        assertThat(merged.get(ImplicitSyncQueue.QUEUED).asLong()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testCoalesceCreateAndUpdate() {
+        JsonValue merged = ImplicitSyncQueue.coalesce(
+                change(SyncServiceAction.notifyCreate, null, "v1", 1L),
+                change(SyncServiceAction.notifyUpdate, "v1", "v2", 2L), false);
+
+        assertThat(merged.get(ImplicitSyncQueue.ACTION).asString()).isEqualTo("notifyCreate");
+        assertThat(merged.get(ImplicitSyncQueue.OLD_VALUE).isNull()).isTrue();
+        assertThat(merged.get(ImplicitSyncQueue.NEW_VALUE).asString()).isEqualTo("v2");
+    }
+
+    @Test
+    public void testCoalesceCreateAndDelete() {
+        JsonValue create = change(SyncServiceAction.notifyCreate, null, "v1", 1L);
+        JsonValue delete = change(SyncServiceAction.notifyDelete, "v1", null, 2L);
+
+        // Cancel out, unless the create may have been synchronized already
+        assertThat(ImplicitSyncQueue.coalesce(create, delete, false)).isNull();
+        JsonValue merged = ImplicitSyncQueue.coalesce(create, delete, true);
+        assertThat(merged.get(ImplicitSyncQueue.ACTION).asString()).isEqualTo("notifyDelete");
+        assertThat(merged.get(ImplicitSyncQueue.OLD_VALUE).asString()).isEqualTo("v1");
+    }
+
+    @Test
+    public void testCoalesceDeleteAndCreate() {
+        JsonValue merged = ImplicitSyncQueue.coalesce(
+                change(SyncServiceAction.notifyDelete, "v1", null, 1L),
+                change(SyncServiceAction.notifyCreate, null, "v2", 2L), false);
+
+        assertThat(merged.get(ImplicitSyncQueue.ACTION).asString()).isEqualTo("notifyUpdate");
+        assertThat(merged.get(ImplicitSyncQueue.OLD_VALUE).asString()).isEqualTo("v1");
+        assertThat(merged.get(ImplicitSyncQueue.NEW_VALUE).asString()).isEqualTo("v2");
+    }
+
+    @Test
+    public void testEnqueueCreatesEntry() throws Exception {
+        when(connection.read(any(Context.class), any(ReadRequest.class)))
+                .thenThrow(new NotFoundException());
+
+        queue.enqueue(mock(Context.class), "managed/user", "bjensen", SyncServiceAction.notifyUpdate,
+                json("v1"), json("v2"));
+
+        ArgumentCaptor<CreateRequest> captor = ArgumentCaptor.forClass(CreateRequest.class);
+        verify(connection).create(any(Context.class), captor.capture());
+        assertThat(captor.getValue().getNewResourceId())
+                .isEqualTo(ImplicitSyncQueue.entryId("managed/user", "bjensen"));
+        JsonValue content = captor.getValue().getContent();
+        assertThat(content.get(ImplicitSyncQueue.STATE).asString()).isEqualTo(ImplicitSyncQueue.STATE_PENDING);
+        assertThat(content.get(ImplicitSyncQueue.RESOURCE_ID).asString()).isEqualTo("bjensen");
+        assertThat(content.get(ImplicitSyncQueue.NEW_VALUE).asString()).isEqualTo("v2");
+    }
+
+    @Test
+    public void testEnqueueMergesIntoPendingEntry() throws Exception {
+        JsonValue pending = entry(ImplicitSyncQueue.STATE_PENDING,
+                change(SyncServiceAction.notifyUpdate, "v1", "v2", 1L));
+        when(connection.read(any(Context.class), any(ReadRequest.class)))
+                .thenReturn(newResourceResponse("id", "1", pending));
+
+        queue.enqueue(mock(Context.class), "managed/user", "bjensen", SyncServiceAction.notifyUpdate,
+                json("v2"), json("v3"));
+
+        ArgumentCaptor<UpdateRequest> captor = ArgumentCaptor.forClass(UpdateRequest.class);
+        verify(connection).update(any(Context.class), captor.capture());
+        assertThat(captor.getValue().getRevision()).isEqualTo("1");
+        JsonValue content = captor.getValue().getContent();
+        assertThat(content.get(ImplicitSyncQueue.OLD_VALUE).asString()).isEqualTo("v1");
+        assertThat(content.get(ImplicitSyncQueue.NEW_VALUE).asString()).isEqualTo("v3");
+        assertThat(content.get(ImplicitSyncQueue.NEXT).isNull()).isTrue();
+        assertThat(queue.getCoalesced()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testEnqueueHoldsChangeWhileEntryActive() throws Exception {
+        JsonValue active = entry(ImplicitSyncQueue.STATE_ACTIVE,
+                change(SyncServiceAction.notifyUpdate, "v1", "v2", 1L));
+        when(connection.read(any(Context.class), any(ReadRequest.class)))
+                .thenReturn(newResourceResponse("id", "1", active));
+
+        queue.enqueue(mock(Context.class), "managed/user", "bjensen", SyncServiceAction.notifyUpdate,
+                json("v2"), json("v3"));
+
+        ArgumentCaptor<UpdateRequest> captor = ArgumentCaptor.forClass(UpdateRequest.class);
+        verify(connection).update(any(Context.class), captor.capture());
+        JsonValue content = captor.getValue().getContent();
+        // The change being synchronized is untouched
+        assertThat(content.get(ImplicitSyncQueue.NEW_VALUE).asString()).isEqualTo("v2");
+        assertThat(content.get(ImplicitSyncQueue.NEXT).get(ImplicitSyncQueue.NEW_VALUE).asString())
+                .isEqualTo("v3");
+    }
+
+    @Test
+    public void testEnqueueDeleteOfUnsyncedCreateRemovesEntry() throws Exception {
+        JsonValue pending = entry(ImplicitSyncQueue.STATE_PENDING,
+                change(SyncServiceAction.notifyCreate, null, "v1", 1L));
+        when(connection.read(any(Context.class), any(ReadRequest.class)))
+                .thenReturn(newResourceResponse("id", "1", pending));
+
+        queue.enqueue(mock(Context.class), "managed/user", "bjensen", SyncServiceAction.notifyDelete,
+                json("v1"), json(null));
+
+        verify(connection).delete(any(Context.class), any(DeleteRequest.class));
+        verify(connection, never()).update(any(Context.class), any(UpdateRequest.class));
+    }
+
+    @Test
+    public void testPollClaimsAndCompletesEntry() throws Exception {
+        pending.add(newResourceResponse("id", "1", entry(ImplicitSyncQueue.STATE_PENDING,
+                change(SyncServiceAction.notifyUpdate, "v1", "v2", 1L))));
+        when(objectSet.syncQueued(any(Context.class), eq("bjensen"), eq(SyncServiceAction.notifyUpdate),
+                any(JsonValue.class), any(JsonValue.class), anyBoolean())).thenReturn(true);
+        queue.start();
+
+        queue.poll();
+
+        // Claimed by this node on the revision read, then removed on the revision of the claim
+        ArgumentCaptor<UpdateRequest> update = ArgumentCaptor.forClass(UpdateRequest.class);
+        verify(connection).update(any(Context.class), update.capture());
+        assertThat(update.getValue().getRevision()).isEqualTo("1");
+        assertThat(update.getValue().getContent().get(ImplicitSyncQueue.STATE).asString())
+                .isEqualTo(ImplicitSyncQueue.STATE_ACTIVE);
+        assertThat(update.getValue().getContent().get(ImplicitSyncQueue.INSTANCE_ID).asString()).isEqualTo("node1");
+        ArgumentCaptor<DeleteRequest> delete = ArgumentCaptor.forClass(DeleteRequest.class);
+        verify(connection).delete(any(Context.class), delete.capture());
+        assertThat(delete.getValue().getRevision()).isEqualTo("2");
+        assertThat(queue.getSynced()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testPollSkipsEntryClaimedConcurrently() throws Exception {
+        pending.add(newResourceResponse("id", "1", entry(ImplicitSyncQueue.STATE_PENDING,
+                change(SyncServiceAction.notifyUpdate, "v1", "v2", 1L))));
+        when(connection.update(any(Context.class), any(UpdateRequest.class)))
+                .thenThrow(new PreconditionFailedException());
+        queue.start();
+
+        queue.poll();
+
+        verify(objectSet, never()).syncQueued(any(Context.class), anyString(), any(SyncServiceAction.class),
+                any(JsonValue.class), any(JsonValue.class), anyBoolean());
+        verify(connection, never()).delete(any(Context.class), any(DeleteRequest.class));
+    }
+
+    @Test
+    public void testPollSkipsEntryNotDueYet() throws Exception {
+        JsonValue entry = entry(ImplicitSyncQueue.STATE_PENDING,
+                change(SyncServiceAction.notifyUpdate, "v1", "v2", 1L));
+        entry.put(ImplicitSyncQueue.DUE, System.currentTimeMillis() + 3600000);
+        pending.add(newResourceResponse("id", "1", entry));
+        queue.start();
+
+        queue.poll();
+
+        verify(connection, never()).update(any(Context.class), any(UpdateRequest.class));
+    }
+
+    @Test
+    public void testFailedSyncIsReleasedForRetry() throws Exception {
+        pending.add(newResourceResponse("id", "1", entry(ImplicitSyncQueue.STATE_PENDING,
+                change(SyncServiceAction.notifyUpdate, "v1", "v2", 1L))));
+        when(objectSet.syncQueued(any(Context.class), anyString(), any(SyncServiceAction.class),
+                any(JsonValue.class), any(JsonValue.class), eq(true))).thenReturn(false);
+        queue.start();
+
+        long before = System.currentTimeMillis();
+        queue.poll();
+
+        JsonValue released = lastUpdate(2);
+        assertThat(released.get(ImplicitSyncQueue.STATE).asString()).isEqualTo(ImplicitSyncQueue.STATE_PENDING);
+        assertThat(released.get(ImplicitSyncQueue.INSTANCE_ID).isNull()).isTrue();
+        assertThat(released.get(ImplicitSyncQueue.ATTEMPTS).asInteger()).isEqualTo(1);
+        assertThat(released.get(ImplicitSyncQueue.DUE).asLong()).isGreaterThanOrEqualTo(before + 1000);
+        verify(connection, never()).delete(any(Context.class), any(DeleteRequest.class));
+        assertThat(queue.getRetried()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testUnexpectedFailureReleasesEntryForRetry() throws Exception {
+        pending.add(newResourceResponse("id", "1", entry(ImplicitSyncQueue.STATE_PENDING,
+                change(SyncServiceAction.notifyUpdate, "v1", "v2", 1L))));
+        when(objectSet.syncQueued(any(Context.class), anyString(), any(SyncServiceAction.class),
+                any(JsonValue.class), any(JsonValue.class), anyBoolean()))
+                .thenThrow(new IllegalStateException("unexpected"));
+        queue.start();
+
+        queue.poll();
+
+        // The change is kept to be synchronized again, not dropped
+        JsonValue released = lastUpdate(2);
+        assertThat(released.get(ImplicitSyncQueue.STATE).asString()).isEqualTo(ImplicitSyncQueue.STATE_PENDING);
+        assertThat(released.get(ImplicitSyncQueue.NEW_VALUE).asString()).isEqualTo("v2");
+        assertThat(released.get(ImplicitSyncQueue.ATTEMPTS).asInteger()).isEqualTo(1);
+        verify(connection, never()).delete(any(Context.class), any(DeleteRequest.class));
+        assertThat(queue.getFailed()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testReleaseInstanceMergesHeldChange() throws Exception {
+        JsonValue active = entry(ImplicitSyncQueue.STATE_ACTIVE,
+                change(SyncServiceAction.notifyUpdate, "v1", "v2", 1L));
+        active.put(ImplicitSyncQueue.ATTEMPTS, 2);
+        active.put(ImplicitSyncQueue.NEXT, change(SyncServiceAction.notifyUpdate, "v2", "v3", 2L).getObject());
+        claimed.add(newResourceResponse("id", "1", active));
+
+        queue.releaseInstance("node2");
+
+        JsonValue released = lastUpdate(1);
+        assertThat(released.get(ImplicitSyncQueue.STATE).asString()).isEqualTo(ImplicitSyncQueue.STATE_PENDING);
+        assertThat(released.get(ImplicitSyncQueue.INSTANCE_ID).isNull()).isTrue();
+        assertThat(released.get(ImplicitSyncQueue.ATTEMPTS).asInteger()).isEqualTo(2);
+        assertThat(released.get(ImplicitSyncQueue.OLD_VALUE).asString()).isEqualTo("v1");
+        assertThat(released.get(ImplicitSyncQueue.NEW_VALUE).asString()).isEqualTo("v3");
+        assertThat(released.get(ImplicitSyncQueue.NEXT).isNull()).isTrue();
+    }
+
+    @Test
+    public void testReleaseInstanceLeavesEntryClaimedByOtherNode() throws Exception {
+        JsonValue active = entry(ImplicitSyncQueue.STATE_ACTIVE,
+                change(SyncServiceAction.notifyUpdate, "v1", "v2", 1L));
+        active.put(ImplicitSyncQueue.INSTANCE_ID, "node3");
+        claimed.add(newResourceResponse("id", "1", active));
+
+        queue.releaseInstance("node2");
+
+        verify(connection, never()).update(any(Context.class), any(UpdateRequest.class));
+    }
+
+    @Test
+    public void testPollCountsQueue() throws Exception {
+        long queuedAt = System.currentTimeMillis() - 60000;
+        queued.add(newResourceResponse("id", "1", change(SyncServiceAction.notifyUpdate, "v1", "v2", queuedAt)));
+        queued.add(newResourceResponse("id2", "1", change(SyncServiceAction.notifyUpdate, "v1", "v2",
+                queuedAt + 1000)));
+        queue.start();
+
+        queue.poll();
+
+        assertThat(queue.getDepth()).isEqualTo(2L);
+        assertThat(queue.getLag()).isGreaterThanOrEqualTo(60000L);
+        ArgumentCaptor<QueryRequest> query = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(connection, times(4)).query(any(Context.class), query.capture(),
+                Matchers.<Collection<ResourceResponse>>any());
+        // The count reads one id, and the lag the oldest entry only
+        QueryRequest count = query.getAllValues().get(1);
+        assertThat(count.getQueryId()).isEqualTo("query-all-ids");
+        assertThat(count.getPageSize()).isEqualTo(1);
+        assertThat(count.getTotalPagedResultsPolicy()).isEqualTo(CountPolicy.EXACT);
+        QueryRequest oldest = query.getAllValues().get(2);
+        assertThat(oldest.getPageSize()).isEqualTo(1);
+        assertThat(oldest.getSortKeys().get(0).getField().toString()).isEqualTo("/" + ImplicitSyncQueue.QUEUED);
+    }
+
+    @Test
+    public void testPollCountsEmptyQueue() throws Exception {
+        queue.start();
+
+        queue.poll();
+
+        assertThat(queue.getDepth()).isEqualTo(0L);
+        assertThat(queue.getLag()).isEqualTo(0L);
+    }
+
+    private JsonValue lastUpdate(int updates) throws Exception {
+        ArgumentCaptor<UpdateRequest> captor = ArgumentCaptor.forClass(UpdateRequest.class);
+        verify(connection, times(updates)).update(any(Context.class), captor.capture());
+        return captor.getValue().getContent();
+    }
+
+    private static JsonValue change(SyncServiceAction action, Object oldValue, Object newValue, long queued) {
+        return json(object(
+                field(ImplicitSyncQueue.ACTION, action.name()),
+                field(ImplicitSyncQueue.OLD_VALUE, oldValue),
+                field(ImplicitSyncQueue.NEW_VALUE, newValue),
+                field(ImplicitSyncQueue.QUEUED, queued)));
+    }
+
+    private static JsonValue entry(String state, JsonValue change) {
+        JsonValue entry = change.copy();
+        entry.put(ImplicitSyncQueue.RESOURCE_CONTAINER, "managed/user");
+        entry.put(ImplicitSyncQueue.RESOURCE_ID, "bjensen");
+        entry.put(ImplicitSyncQueue.DUE, change.get(ImplicitSyncQueue.QUEUED).asLong());
+        entry.put(ImplicitSyncQueue.STATE, state);
+        entry.put(ImplicitSyncQueue.INSTANCE_ID, ImplicitSyncQueue.STATE_ACTIVE.equals(state) ? "node2" : null);
+        entry.put(ImplicitSyncQueue.ATTEMPTS, 0);
+        entry.put(ImplicitSyncQueue.NEXT, null);
+        return entry;
+    }
+}
@@ -40,6 +40,7 @@ import java.security.KeyStore;
 import java.security.KeyStore.PasswordProtection;
 import java.security.KeyStore.SecretKeyEntry;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -106,6 +107,7 @@ public class ManagedObjectSetTest {
     private static final String CONF_MANAGED_USER_USING_NO_ENCRYPTION = "/conf/managed-user-no-encryption.json";
     private static final String CONF_MANAGED_USER_WITH_ACTION = "/conf/managed-user-action.json";
     private static final String CONF_MANAGED_USER_WITH_ON_QUERY_RESULT = "/conf/managed-user-on-query-result.json";
+    private static final String CONF_MANAGED_USER_WITH_ON_READ = "/conf/managed-user-on-read.json";
     private static final String RESOURCE_ID = "user1";
     private static final String KEYSTORE_PASSWORD = "Password1";
     private static final int NUMBER_OF_USERS = 5;
@@ -614,6 +616,41 @@ public class ManagedObjectSetTest {
         assertThat(results).hasSize(3);
     }
 
+    /**
+     * Tests that the managed objects read in a batch to expand relationships go through the same hooks as those
+     * read one by one, rather than through the {@code onQueryResult} hook.
+     */
+    @Test
+    public void testReferencedResourcesRunHooksOfRead() throws Exception {
+        // given
+        final CryptoService cryptoService = createCryptoService();
+        final ConnectionObjects connectionObjects = createConnectionObjects();
+        final ManagedObjectSet managedObjectSet =
+                createManagedObjectSetWithScriptRegistry(CONF_MANAGED_USER_WITH_ON_READ, cryptoService,
+                        connectionObjects.getConnectionFactory());
+        addRoutesToRouter(connectionObjects.getRouter(), managedObjectSet, new MemoryBackend());
+        createUser("user0", createUserObject("user0", true), managedObjectSet);
+        createUser("user1", createUserObject("user1", true), managedObjectSet);
+
+        // when: the users are read in a batch, and one by one
+        final ReferencedResources referenced = ReferencedResources.read(
+                connectionObjects.getConnectionFactory().getConnection(), new RootContext(),
+                Arrays.asList("managed/user/user0", "managed/user/user1"), Collections.<JsonPointer>emptyList());
+        final JsonValue read = managedObjectSet.readInstance(new RootContext(), "user0",
+                newReadRequest(MANAGED_USER_RESOURCE_PATH, "user0")).getOrThrowUninterruptibly().getContent();
+
+        // then: the onRetrieve and onRead hooks ran on both, and the onQueryResult hook on neither
+        assertThat(read.get("retrieved").asBoolean()).isTrue();
+        assertThat(read.get("read").asBoolean()).isTrue();
+        assertThat(read.isDefined("queried")).isFalse();
+        for (String reference : Arrays.asList("managed/user/user0", "managed/user/user1")) {
+            assertThat(referenced.getFailure(reference)).isNull();
+            assertThat(referenced.get(reference).get("retrieved").asBoolean()).isTrue();
+            assertThat(referenced.get(reference).get("read").asBoolean()).isTrue();
+            assertThat(referenced.get(reference).isDefined("queried")).isFalse();
+        }
+    }
+
     private static class ConnectionObjects {
         private IDMConnectionFactory connectionFactory;
         private Router router;
@@ -0,0 +1,173 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.managed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ForbiddenException;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.services.context.Context;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+public class ReferencedResourcesTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testQueriesEachCollectionOnce() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(Collection.class)))
+                .thenAnswer(new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) {
+                        QueryRequest request = (QueryRequest) invocation.getArguments()[1];
+                        Collection<ResourceResponse> results = (Collection<ResourceResponse>) invocation.getArguments()[2];
+                        if (request.getResourcePath().equals("managed/user")) {
+                            results.add(resource("bjensen"));
+                            results.add(resource("scarter"));
+                        } else {
+                            results.add(resource("admin"));
+                            results.add(resource("auditor"));
+                        }
+                        return newQueryResponse();
+                    }
+                });
+        when(connection.read(any(Context.class), any(ReadRequest.class))).thenThrow(new NotFoundException());
+
+        List<String> references = new ArrayList<>();
+        for (String id : Arrays.asList("bjensen", "scarter", "deleted")) {
+            references.add("managed/user/" + id);
+        }
+        references.add("managed/role/admin");
+        references.add("managed/role/auditor");
+        ReferencedResources referenced = ReferencedResources.read(connection, mock(Context.class), references,
+                Collections.singletonList(new JsonPointer("name")));
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(connection, times(2)).query(any(Context.class), captor.capture(), any(Collection.class));
+        assertThat(captor.getAllValues().get(0).getFields()).containsExactly(new JsonPointer("name"));
+        // Only the resource the query did not return is read
+        ArgumentCaptor<ReadRequest> read = ArgumentCaptor.forClass(ReadRequest.class);
+        verify(connection).read(any(Context.class), read.capture());
+        assertThat(read.getValue().getResourcePath()).isEqualTo("managed/user/deleted");
+
+        assertThat(referenced.get("managed/user/bjensen").get("name").asString()).isEqualTo("bjensen");
+        assertThat(referenced.get("managed/role/auditor").get("name").asString()).isEqualTo("auditor");
+        assertThat(referenced.get("managed/user/deleted")).isNull();
+        assertThat(referenced.getFailure("managed/user/deleted")).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadsOneByOneWhenQueryFails() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(Collection.class)))
+                .thenThrow(new ForbiddenException());
+        when(connection.read(any(Context.class), any(ReadRequest.class))).thenAnswer(new Answer<ResourceResponse>() {
+            @Override
+            public ResourceResponse answer(InvocationOnMock invocation) {
+                ReadRequest request = (ReadRequest) invocation.getArguments()[1];
+                return resource(request.getResourcePathObject().leaf());
+            }
+        });
+
+        ReferencedResources referenced = ReferencedResources.read(connection, mock(Context.class),
+                Arrays.asList("managed/user/bjensen", "managed/user/scarter"), Collections.<JsonPointer>emptyList());
+
+        verify(connection, times(2)).read(any(Context.class), any(ReadRequest.class));
+        assertThat(referenced.get("managed/user/bjensen").get("name").asString()).isEqualTo("bjensen");
+        assertThat(referenced.get("managed/user/scarter").get("name").asString()).isEqualTo("scarter");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadsResourcesReturnedUnderOtherId() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(Collection.class)))
+                .thenAnswer(new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) {
+                        Collection<ResourceResponse> results = (Collection<ResourceResponse>) invocation.getArguments()[2];
+                        // A case insensitive repository matches the reference, and returns the id as stored
+                        results.add(resource("BJensen"));
+                        results.add(resource("scarter"));
+                        return newQueryResponse();
+                    }
+                });
+        when(connection.read(any(Context.class), any(ReadRequest.class))).thenAnswer(new Answer<ResourceResponse>() {
+            @Override
+            public ResourceResponse answer(InvocationOnMock invocation) {
+                return resource("BJensen");
+            }
+        });
+
+        ReferencedResources referenced = ReferencedResources.read(connection, mock(Context.class),
+                Arrays.asList("managed/user/bjensen", "managed/user/scarter"), Collections.<JsonPointer>emptyList());
+
+        verify(connection, times(1)).read(any(Context.class), any(ReadRequest.class));
+        assertThat(referenced.get("managed/user/bjensen").get("name").asString()).isEqualTo("BJensen");
+        assertThat(referenced.getFailure("managed/user/bjensen")).isNull();
+        assertThat(referenced.get("managed/user/scarter").get("name").asString()).isEqualTo("scarter");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMarksQueriesOfManagedObjectsAsReads() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(Collection.class)))
+                .thenReturn(newQueryResponse());
+        when(connection.read(any(Context.class), any(ReadRequest.class))).thenThrow(new NotFoundException());
+
+        ReferencedResources.read(connection, mock(Context.class), Arrays.asList("managed/user/bjensen",
+                "managed/user/scarter", "system/ldap/account/bjensen", "system/ldap/account/scarter"),
+                Collections.<JsonPointer>emptyList());
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(connection, times(2)).query(any(Context.class), captor.capture(), any(Collection.class));
+        // The managed objects go through the hooks of a read, other resources are queried as they are
+        assertThat(captor.getAllValues().get(0).getAdditionalParameter(ManagedObjectSet.EXECUTE_ON_READ))
+                .isEqualTo("true");
+        assertThat(captor.getAllValues().get(1).getAdditionalParameters()).isEmpty();
+    }
+
+    private static ResourceResponse resource(String id) {
+        return newResourceResponse(id, "1", json(object(field("_id", id), field("name", id))));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.testng.annotations.Test;
+
+public class AdaptiveConcurrencyTest {
+
+    private static final long LATENCY = 1000000L;
+
+    @Test
+    public void testAdditiveIncreaseUpToMax() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(1, 5, 3, 10, 0.05, 0.5);
+        try {
+            completeWindow(concurrency, LATENCY, 0);
+            assertThat(concurrency.getLimit()).isEqualTo(4);
+            completeWindow(concurrency, LATENCY, 0);
+            completeWindow(concurrency, LATENCY, 0);
+            assertThat(concurrency.getLimit()).isEqualTo(5);
+            assertThat(((ThreadPoolExecutor) concurrency.getExecutor()).getCorePoolSize()).isEqualTo(5);
+        } finally {
+            concurrency.getExecutor().shutdown();
+        }
+    }
+
+    @Test
+    public void testMultiplicativeDecreaseOnFailures() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(2, 50, 20, 10, 0.05, 0.5);
+        try {
+            completeWindow(concurrency, LATENCY, 0);
+            assertThat(concurrency.getLimit()).isEqualTo(21);
+            // 5 failures in a window of 10 tasks
+            completeWindow(concurrency, LATENCY, 5);
+            assertThat(concurrency.getLimit()).isEqualTo(10);
+            // Same total failure count, so the next window has no new failures
+            completeWindow(concurrency, LATENCY, 5);
+            assertThat(concurrency.getLimit()).isEqualTo(11);
+            assertThat(((ThreadPoolExecutor) concurrency.getExecutor()).getMaximumPoolSize()).isEqualTo(11);
+        } finally {
+            concurrency.getExecutor().shutdown();
+        }
+    }
+
+    @Test
+    public void testMultiplicativeDecreaseOnLatencyDownToMin() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(4, 50, 10, 10, 0.05, 0.5);
+        try {
+            completeWindow(concurrency, LATENCY, 0);
+            assertThat(concurrency.getLimit()).isEqualTo(11);
+            completeWindow(concurrency, LATENCY * 3, 0);
+            assertThat(concurrency.getLimit()).isEqualTo(5);
+            completeWindow(concurrency, LATENCY * 5, 0);
+            assertThat(concurrency.getLimit()).isEqualTo(4);
+        } finally {
+            concurrency.getExecutor().shutdown();
+        }
+    }
+
+    private void completeWindow(AdaptiveConcurrency concurrency, long latency, int totalFailures) {
+        for (int i = 0; i < 10; i++) {
+            concurrency.taskCompleted(latency, totalFailures);
+        }
+    }
+}
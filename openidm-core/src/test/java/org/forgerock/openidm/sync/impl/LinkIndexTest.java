@@ -0,0 +1,291 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LinkIndexTest {
+
+    private ObjectMapping mapping;
+    private ReconciliationContext reconContext;
+    private List<JsonValue> links;
+    private List<QueryRequest> requests;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        links = new ArrayList<>();
+        requests = new ArrayList<>();
+
+        LinkType linkType = mock(LinkType.class);
+        when(linkType.getName()).thenReturn("systemLdapAccounts_managedUser");
+        when(linkType.useReverse()).thenReturn(false);
+        when(linkType.normalizeSourceId(anyString())).thenAnswer(returnFirstArgument());
+        when(linkType.normalizeTargetId(anyString())).thenAnswer(returnFirstArgument());
+
+        Connection connection = mock(Connection.class);
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenAnswer(new Answer<QueryResponse>() {
+                    @Override
+                    public QueryResponse answer(InvocationOnMock invocation) throws Throwable {
+                        QueryRequest request = (QueryRequest) invocation.getArguments()[1];
+                        QueryResourceHandler handler = (QueryResourceHandler) invocation.getArguments()[2];
+                        requests.add(request);
+                        int offset = request.getPagedResultsCookie() == null
+                                ? 0
+                                : Integer.parseInt(request.getPagedResultsCookie());
+                        int end = request.getPageSize() > 0
+                                ? Math.min(links.size(), offset + request.getPageSize())
+                                : links.size();
+                        for (JsonValue link : links.subList(offset, end)) {
+                            handler.handleResource(newResourceResponse(link.get("_id").asString(),
+                                    link.get("_rev").asString(), link));
+                        }
+                        return newQueryResponse(end < links.size() ? String.valueOf(end) : null);
+                    }
+                });
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+
+        mapping = mock(ObjectMapping.class);
+        when(mapping.getLinkType()).thenReturn(linkType);
+        when(mapping.getConnectionFactory()).thenReturn(connectionFactory);
+
+        reconContext = mock(ReconciliationContext.class);
+        when(reconContext.getStatistics()).thenReturn(mock(ReconciliationStatistic.class));
+    }
+
+    @Test
+    public void testLoadsLinksInPages() throws Exception {
+        addLink("link1", "1", "source1", "target1");
+        addLink("link2", null, "source2", "target2");
+        addLink("link3", "3", "source3", "target3");
+
+        LinkIndex linkIndex = new LinkIndex(mapping, 2, 0);
+        linkIndex.load(new RootContext(), Collections.singleton("default"), reconContext);
+
+        assertThat(requests).hasSize(2);
+        assertThat(linkIndex.isComplete("default")).isTrue();
+        assertThat(linkIndex.isComplete("other")).isFalse();
+        assertThat(linkIndex.getLinkQualifiers()).containsOnly("default");
+
+        Link link = linkIndex.getLink("default", "source1");
+        assertThat(link._id).isEqualTo("link1");
+        assertThat(link._rev).isEqualTo("1");
+        assertThat(link.sourceId).isEqualTo("source1");
+        assertThat(link.targetId).isEqualTo("target1");
+        assertThat(link.linkQualifier).isEqualTo("default");
+        assertThat(link.initialized).isTrue();
+
+        assertThat(linkIndex.getLink("default", "source2")._rev).isNull();
+        assertThat(linkIndex.getLink("default", "source3").targetId).isEqualTo("target3");
+        assertThat(linkIndex.getLink("default", "source4")).isNull();
+        assertThat(linkIndex.getLink("other", "source1")).isNull();
+    }
+
+    @Test
+    public void testPacksNonAsciiIds() throws Exception {
+        addLink("link1", "1", "sourcé/ü", "目标");
+
+        LinkIndex linkIndex = new LinkIndex(mapping, 0, 0);
+        linkIndex.load(new RootContext(), Collections.singleton("default"), reconContext);
+
+        assertThat(requests).hasSize(1);
+        assertThat(linkIndex.getLink("default", "sourcé/ü").targetId).isEqualTo("目标");
+    }
+
+    @Test
+    public void testStopsLoadingOverMemoryBudget() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            addLink("link" + i, "1", "source" + i, "target" + i);
+        }
+
+        LinkIndex linkIndex = new LinkIndex(mapping, 10, 2000);
+        linkIndex.load(new RootContext(),
+                new LinkedHashSet<>(Arrays.asList("default", "other")), reconContext);
+
+        // The links loaded remain usable, but missing sources are no longer known to be unlinked
+        assertThat(linkIndex.isComplete("default")).isFalse();
+        assertThat(linkIndex.getLink("default", "source0")._id).isEqualTo("link0");
+        assertThat(linkIndex.getLink("default", "source99")).isNull();
+        assertThat(linkIndex.getLinkQualifiers()).containsOnly("default");
+        assertThat(requests.size()).isLessThan(10);
+    }
+
+    @Test
+    public void testCloseReleasesLinks() throws Exception {
+        addLink("link1", "1", "source1", "target1");
+
+        LinkIndex linkIndex = new LinkIndex(mapping, 0, 0);
+        linkIndex.load(new RootContext(), Collections.singleton("default"), reconContext);
+        linkIndex.close();
+
+        assertThat(linkIndex.isComplete("default")).isFalse();
+        assertThat(linkIndex.getLink("default", "source1")).isNull();
+    }
+
+    @Test
+    public void testLoadsInBackgroundOnTaskThreadOfRecon() throws Exception {
+        addLink("link1", "1", "source1", "target1");
+        List<Runnable> submitted = recordSubmittedTasks();
+
+        LinkIndex linkIndex = new LinkIndex(mapping, 0, 0);
+        linkIndex.loadInBackground(new RootContext(), Collections.singleton("default"), reconContext);
+
+        assertThat(submitted).hasSize(1);
+        assertThat(linkIndex.isComplete("default")).isFalse();
+        submitted.get(0).run();
+        assertThat(linkIndex.isComplete("default")).isTrue();
+        assertThat(linkIndex.getLink("default", "source1")._id).isEqualTo("link1");
+
+        // Closing joins the completed load
+        linkIndex.close();
+        assertThat(linkIndex.getLink("default", "source1")).isNull();
+    }
+
+    @Test
+    public void testLoadsRightAwayWithoutTaskThreads() throws Exception {
+        addLink("link1", "1", "source1", "target1");
+        when(reconContext.getExcecutor()).thenReturn(null);
+
+        LinkIndex linkIndex = new LinkIndex(mapping, 0, 0);
+        linkIndex.loadInBackground(new RootContext(), Collections.singleton("default"), reconContext);
+
+        assertThat(linkIndex.isComplete("default")).isTrue();
+    }
+
+    @Test
+    public void testCloseKeepsBackgroundLoadFromStarting() throws Exception {
+        addLink("link1", "1", "source1", "target1");
+        List<Runnable> submitted = recordSubmittedTasks();
+
+        LinkIndex linkIndex = new LinkIndex(mapping, 0, 0);
+        linkIndex.loadInBackground(new RootContext(), Collections.singleton("default"), reconContext);
+        linkIndex.close();
+        submitted.get(0).run();
+
+        assertThat(requests).isEmpty();
+        assertThat(linkIndex.getLinkQualifiers()).isEmpty();
+    }
+
+    @Test
+    public void testCloseStopsAndWaitsForRunningBackgroundLoad() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            addLink("link" + i, "1", "source" + i, "target" + i);
+        }
+        final LinkIndex linkIndex = new LinkIndex(mapping, 10, 0);
+        final CountDownLatch firstPage = new CountDownLatch(1);
+        final CountDownLatch closing = new CountDownLatch(1);
+        when(reconContext.isCanceled()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                if (requests.size() == 2) {
+                    // The second page is loading while the index is closed
+                    firstPage.countDown();
+                    closing.await();
+                }
+                return false;
+            }
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            when(reconContext.getExcecutor()).thenReturn(executor);
+            linkIndex.loadInBackground(new RootContext(), Collections.singleton("default"), reconContext);
+            firstPage.await();
+
+            Thread closer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    linkIndex.close();
+                }
+            });
+            closer.start();
+            while (closer.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+            closing.countDown();
+            closer.join();
+
+            assertThat(requests).hasSize(2);
+            assertThat(linkIndex.isComplete("default")).isFalse();
+            assertThat(linkIndex.getLink("default", "source0")).isNull();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** Makes the task threads of the reconciliation record the tasks submitted to them, rather than run them */
+    private List<Runnable> recordSubmittedTasks() {
+        final List<Runnable> submitted = new ArrayList<>();
+        when(reconContext.getExcecutor()).thenReturn(new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                submitted.add(task);
+            }
+        });
+        return submitted;
+    }
+
+    private void addLink(String id, String rev, String sourceId, String targetId) {
+        links.add(json(object(
+                field("_id", id),
+                field("_rev", rev),
+                field("linkType", "systemLdapAccounts_managedUser"),
+                field("linkQualifier", "default"),
+                field("firstId", sourceId),
+                field("secondId", targetId))));
+    }
+
+    private static Answer<String> returnFirstArgument() {
+        return new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                return (String) invocation.getArguments()[0];
+            }
+        };
+    }
+}
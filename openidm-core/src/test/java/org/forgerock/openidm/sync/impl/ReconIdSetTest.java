@@ -0,0 +1,139 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.Test;
+
+public class ReconIdSetTest {
+
+    @Test
+    public void testAddContainsRemove() {
+        ReconIdSet ids = new ReconIdSet(Arrays.asList("a", "b", "c", "ä"));
+
+        assertThat(ids.add("a")).isFalse();
+        assertThat(ids).hasSize(4);
+        assertThat(ids.contains("ä")).isTrue();
+        assertThat(ids.contains("d")).isFalse();
+        assertThat(ids.contains(1)).isFalse();
+
+        assertThat(ids.remove("b")).isTrue();
+        assertThat(ids.remove("b")).isFalse();
+        assertThat(ids).containsOnly("a", "c", "ä");
+    }
+
+    @Test
+    public void testGrowAndShrink() {
+        ReconIdSet ids = new ReconIdSet(4);
+        for (int i = 0; i < 10000; i++) {
+            ids.add("id" + i);
+        }
+        assertThat(ids).hasSize(10000);
+        for (int i = 0; i < 10000; i++) {
+            if (i % 100 != 0) {
+                assertThat(ids.remove("id" + i)).isTrue();
+            }
+        }
+        assertThat(ids).hasSize(100);
+        for (int i = 0; i < 10000; i++) {
+            assertThat(ids.contains("id" + i)).isEqualTo(i % 100 == 0);
+        }
+    }
+
+    @Test
+    public void testTablesStayBetweenLoadFactors() {
+        int count = 100000;
+        int stripes = ReconIdSet.DEFAULT_CONCURRENCY_LEVEL;
+        ReconIdSet ids = new ReconIdSet();
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+
+        // Tables are grown at 3/4 full to twice the entries, so there are at most 4 slots per entry
+        int grown = ids.capacity();
+        assertThat(grown).isBetween(count * 4 / 3, count * 4 + stripes * 16);
+
+        int kept = 0;
+        for (Iterator<String> iter = ids.iterator(); iter.hasNext();) {
+            iter.next();
+            if (kept++ % 100 != 0) {
+                iter.remove();
+            }
+        }
+
+        // Tables are shrunk at 1/8 full, so removing entries frees their slots
+        assertThat(ids).hasSize(count / 100);
+        assertThat(ids.capacity()).isLessThanOrEqualTo(count / 100 * 8 + stripes * 16);
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        ReconIdSet ids = new ReconIdSet(Arrays.asList("a", "b", "c"));
+        for (Iterator<String> iter = ids.iterator(); iter.hasNext();) {
+            if (!iter.next().equals("b")) {
+                iter.remove();
+            }
+        }
+        assertThat(ids).containsOnly("b");
+    }
+
+    @Test
+    public void testConcurrentRemoval() throws Exception {
+        final int count = 20000;
+        final int threads = 4;
+        final ReconIdSet ids = new ReconIdSet();
+        for (int i = 0; i < count; i++) {
+            ids.add("id" + i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        int removed = 0;
+                        for (int i = 0; i < count; i++) {
+                            if (ids.remove("id" + i)) {
+                                removed++;
+                            }
+                        }
+                        return removed;
+                    }
+                }));
+            }
+            int removed = 0;
+            for (Future<Integer> result : results) {
+                removed += result.get();
+            }
+            assertThat(removed).isEqualTo(count);
+            assertThat(ids).isEmpty();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.services.context.Context;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReconPartitionsTest {
+
+    private static final String RECON_ID = "recon1";
+
+    /** The partitions stored in the repository, by reconciliation id */
+    private final Map<String, ResourceResponse> stored = new HashMap<>();
+
+    private ConnectionFactory connectionFactory;
+    private Context context;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        stored.clear();
+        context = mock(Context.class);
+        Connection connection = mock(Connection.class);
+        connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+
+        when(connection.create(any(Context.class), any(CreateRequest.class))).thenAnswer(
+                new Answer<ResourceResponse>() {
+                    @Override
+                    public ResourceResponse answer(InvocationOnMock invocation) throws Exception {
+                        CreateRequest request = (CreateRequest) invocation.getArguments()[1];
+                        if (stored.containsKey(request.getNewResourceId())) {
+                            throw new PreconditionFailedException("Already exists");
+                        }
+                        return store(request.getNewResourceId(), 0, request.getContent());
+                    }
+                });
+        when(connection.read(any(Context.class), any(ReadRequest.class))).thenAnswer(
+                new Answer<ResourceResponse>() {
+                    @Override
+                    public ResourceResponse answer(InvocationOnMock invocation) throws Exception {
+                        ReadRequest request = (ReadRequest) invocation.getArguments()[1];
+                        return stored(request.getResourcePathObject().leaf());
+                    }
+                });
+        when(connection.update(any(Context.class), any(UpdateRequest.class))).thenAnswer(
+                new Answer<ResourceResponse>() {
+                    @Override
+                    public ResourceResponse answer(InvocationOnMock invocation) throws Exception {
+                        UpdateRequest request = (UpdateRequest) invocation.getArguments()[1];
+                        ResourceResponse current = stored(request.getResourcePathObject().leaf());
+                        if (!current.getRevision().equals(request.getRevision())) {
+                            throw new PreconditionFailedException("Revision mismatch");
+                        }
+                        return store(current.getId(), Integer.parseInt(current.getRevision()) + 1,
+                                request.getContent());
+                    }
+                });
+        when(connection.delete(any(Context.class), any(DeleteRequest.class))).thenAnswer(
+                new Answer<ResourceResponse>() {
+                    @Override
+                    public ResourceResponse answer(InvocationOnMock invocation) throws Exception {
+                        DeleteRequest request = (DeleteRequest) invocation.getArguments()[1];
+                        ResourceResponse current = stored(request.getResourcePathObject().leaf());
+                        stored.remove(current.getId());
+                        return current;
+                    }
+                });
+        when(connection.query(any(Context.class), any(QueryRequest.class),
+                Matchers.<Collection<ResourceResponse>>any())).thenAnswer(new Answer<QueryResponse>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public QueryResponse answer(InvocationOnMock invocation) {
+                        ((Collection<ResourceResponse>) invocation.getArguments()[2]).addAll(stored.values());
+                        return newQueryResponse();
+                    }
+                });
+    }
+
+    @Test
+    public void testClaimsEachPartitionOnce() throws Exception {
+        ReconPartitions coordinator = ReconPartitions.create(connectionFactory, context, RECON_ID, "mapping",
+                "node1", 3, null);
+        ReconPartitions other = ReconPartitions.read(connectionFactory, context, RECON_ID);
+
+        // The other node claims on a stale revision, and claims the next partition once it re-read them
+        assertThat(coordinator.claim("node1")).isEqualTo(0);
+        assertThat(other.claim("node2")).isEqualTo(1);
+        assertThat(coordinator.claim("node1")).isEqualTo(2);
+        assertThat(other.claim("node2")).isNull();
+
+        other.refresh();
+        assertThat(other.count(ReconPartitions.STATE_ACTIVE)).isEqualTo(3);
+        assertThat(other.count(ReconPartitions.STATE_PENDING)).isEqualTo(0);
+    }
+
+    @Test
+    public void testClaimsNothingOnceCanceled() throws Exception {
+        ReconPartitions coordinator = ReconPartitions.create(connectionFactory, context, RECON_ID, "mapping",
+                "node1", 2, null);
+        ReconPartitions other = ReconPartitions.read(connectionFactory, context, RECON_ID);
+
+        other.cancel();
+
+        assertThat(coordinator.claim("node1")).isNull();
+        assertThat(coordinator.isCanceled()).isTrue();
+    }
+
+    @Test
+    public void testAddsUpProgressOfCompletedPartitionsByNode() throws Exception {
+        ReconPartitions partitions = ReconPartitions.create(connectionFactory, context, RECON_ID, "mapping",
+                "node1", 3, null);
+        int first = partitions.claim("node2");
+        int second = partitions.claim("node2");
+        int third = partitions.claim("node3");
+
+        assertThat(partitions.complete(first, "node2", true, progress(10, 2, "FOUND", 10), 0)).isTrue();
+        assertThat(partitions.complete(second, "node2", true, progress(5, 1, "ABSENT", 5), 0)).isTrue();
+        assertThat(partitions.complete(third, "node3", false, progress(3, 0, "FOUND", 3), 0)).isTrue();
+
+        assertThat(partitions.count(ReconPartitions.STATE_COMPLETED)).isEqualTo(2);
+        assertThat(partitions.getFailedInstances()).containsExactly("node3");
+        JsonValue nodes = new JsonValue(partitions.getNodes());
+        assertThat(nodes.get("node2").get("sourceProcessed").asInteger()).isEqualTo(15);
+        assertThat(nodes.get("node2").get("targetCreated").asInteger()).isEqualTo(3);
+        assertThat(nodes.get("node2").get("situationSummary").get("FOUND").asInteger()).isEqualTo(10);
+        assertThat(nodes.get("node2").get("situationSummary").get("ABSENT").asInteger()).isEqualTo(5);
+        assertThat(nodes.get("node3").get("sourceProcessed").asInteger()).isEqualTo(3);
+    }
+
+    @Test
+    public void testReleasedPartitionIsCountedOnceForNodeCompletingIt() throws Exception {
+        ReconPartitions coordinator = ReconPartitions.create(connectionFactory, context, RECON_ID, "mapping",
+                "node1", 1, null);
+        ReconPartitions failed = ReconPartitions.read(connectionFactory, context, RECON_ID);
+        assertThat(failed.claim("node2")).isEqualTo(0);
+
+        ReconPartitions.releaseInstance(connectionFactory, context, "node2");
+        coordinator.refresh();
+        assertThat(coordinator.count(ReconPartitions.STATE_PENDING)).isEqualTo(1);
+        assertThat(coordinator.claim("node1")).isEqualTo(0);
+
+        // The node taken for failed completes the partition after all, once it was reconciled again
+        assertThat(coordinator.complete(0, "node1", true, progress(10, 0, "FOUND", 10), 0)).isTrue();
+        assertThat(failed.complete(0, "node2", true, progress(10, 0, "FOUND", 10), 0)).isFalse();
+
+        coordinator.refresh();
+        assertThat(coordinator.getNodes().keySet()).containsOnly("node1");
+        assertThat(new JsonValue(coordinator.getNodes()).get("node1").get("sourceProcessed").asInteger())
+                .isEqualTo(10);
+    }
+
+    @Test
+    public void testReleaseInstanceLeavesPartitionsOfOtherNodes() throws Exception {
+        ReconPartitions partitions = ReconPartitions.create(connectionFactory, context, RECON_ID, "mapping",
+                "node1", 3, null);
+        partitions.claim("node1");
+        partitions.claim("node2");
+        int completed = partitions.claim("node2");
+        partitions.complete(completed, "node2", true, progress(1, 0, "FOUND", 1), 0);
+
+        ReconPartitions.releaseInstance(connectionFactory, context, "node2");
+
+        partitions.refresh();
+        assertThat(partitions.count(ReconPartitions.STATE_ACTIVE)).isEqualTo(1);
+        assertThat(partitions.count(ReconPartitions.STATE_PENDING)).isEqualTo(1);
+        assertThat(partitions.count(ReconPartitions.STATE_COMPLETED)).isEqualTo(1);
+    }
+
+    @Test
+    public void testReadAfterDeleteReturnsNull() throws Exception {
+        ReconPartitions partitions = ReconPartitions.create(connectionFactory, context, RECON_ID, "mapping",
+                "node1", 1, null);
+
+        partitions.delete();
+
+        assertThat(ReconPartitions.read(connectionFactory, context, RECON_ID)).isNull();
+        assertThat(partitions.refresh()).isFalse();
+    }
+
+    @Test
+    public void testStoresBoundsOfIdRanges() throws Exception {
+        ReconPartitions.create(connectionFactory, context, RECON_ID, "mapping", "node1", 3, Arrays.asList("g", "p"));
+
+        ReconPartitions partitions = ReconPartitions.read(connectionFactory, context, RECON_ID);
+
+        assertThat(partitions.getBounds()).containsExactly("g", "p");
+        assertThat(ReconPartitions.create(connectionFactory, context, "recon2", "mapping", "node1", 3, null)
+                .getBounds()).isNull();
+    }
+
+    @Test
+    public void testRemovesTargetsMatchedByCompletedPartitions() throws Exception {
+        ReconPartitions coordinator = ReconPartitions.create(connectionFactory, context, RECON_ID, "mapping",
+                "node1", 3, null);
+        ReconPartitions other = ReconPartitions.read(connectionFactory, context, RECON_ID);
+        int completed = other.claim("node2");
+        int active = other.claim("node2");
+        List<String> matched = new ArrayList<>();
+        for (int i = 0; i < ReconPartitions.MATCHED_TARGETS_PER_OBJECT + 1; i++) {
+            matched.add("target" + i);
+        }
+        int objects = other.storeMatchedTargets(completed, matched);
+        other.storeMatchedTargets(active, Arrays.asList("active"));
+        other.complete(completed, "node2", true, progress(1, 0, "FOUND", 1), objects);
+
+        ReconIdSet remaining = new ReconIdSet(Arrays.asList("target0", "target10000", "unmatched", "active"));
+        coordinator.refresh();
+        coordinator.removeMatchedTargets(remaining);
+
+        assertThat(objects).isEqualTo(2);
+        assertThat(remaining).containsOnly("unmatched", "active");
+    }
+
+    @Test
+    public void testReplacesTargetsMatchedByNodeHoldingPartitionBefore() throws Exception {
+        ReconPartitions partitions = ReconPartitions.create(connectionFactory, context, RECON_ID, "mapping",
+                "node1", 1, null);
+        partitions.claim("node2");
+        partitions.storeMatchedTargets(0, Arrays.asList("before"));
+        int objects = partitions.storeMatchedTargets(0, Arrays.asList("after"));
+        partitions.complete(0, "node2", true, progress(1, 0, "FOUND", 1), objects);
+
+        ReconIdSet remaining = new ReconIdSet(Arrays.asList("before", "after"));
+        partitions.removeMatchedTargets(remaining);
+
+        assertThat(remaining).containsOnly("before");
+    }
+
+    @Test
+    public void testDeleteRemovesMatchedTargets() throws Exception {
+        ReconPartitions partitions = ReconPartitions.create(connectionFactory, context, RECON_ID, "mapping",
+                "node1", 2, null);
+        partitions.storeMatchedTargets(0, Arrays.asList("a"));
+        partitions.storeMatchedTargets(1, Arrays.asList("b"));
+
+        partitions.delete();
+
+        assertThat(stored).isEmpty();
+    }
+
+    private static Map<String, Object> progress(int sourceProcessed, int targetCreated, String situation,
+            int situationCount) {
+        Map<String, Object> situationSummary = new LinkedHashMap<>();
+        situationSummary.put(situation, situationCount);
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("reconId", "partition");
+        progress.put("sourceProcessed", sourceProcessed);
+        progress.put("targetCreated", targetCreated);
+        progress.put("situationSummary", situationSummary);
+        return progress;
+    }
+
+    private ResourceResponse store(String id, int revision, JsonValue content) {
+        ResourceResponse resource = newResourceResponse(id, String.valueOf(revision), content.copy());
+        stored.put(id, resource);
+        return resource;
+    }
+
+    private ResourceResponse stored(String id) throws NotFoundException {
+        ResourceResponse resource = stored.get(id);
+        if (resource == null) {
+            throw new NotFoundException("Not found " + id);
+        }
+        return newResourceResponse(resource.getId(), resource.getRevision(), resource.getContent().copy());
+    }
+}
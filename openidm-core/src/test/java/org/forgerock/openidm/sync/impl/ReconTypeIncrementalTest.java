@@ -0,0 +1,119 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.time.Instant;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.JsonValueException;
+import org.forgerock.json.resource.QueryFilters;
+import org.testng.annotations.Test;
+
+public class ReconTypeIncrementalTest {
+
+    private static final Instant CHANGED_SINCE = Instant.parse("2026-03-01T10:15:30Z");
+
+    private static final ReconTypeIncremental.ChangeField ISO_CHANGE_FIELD =
+            new ReconTypeIncremental.ChangeField(json(object(field("changeField", "lastModified"))));
+
+    @Test
+    public void testChangeFieldFormatsIsoInstantByDefault() {
+        assertThat(ISO_CHANGE_FIELD.name).isEqualTo("lastModified");
+        assertThat(ISO_CHANGE_FIELD.format(CHANGED_SINCE)).isEqualTo("2026-03-01T10:15:30Z");
+    }
+
+    @Test
+    public void testChangeFieldFormatsTimestampFormatInUtc() {
+        // The generalized time of LDAP directories
+        ReconTypeIncremental.ChangeField changeField = new ReconTypeIncremental.ChangeField(json(object(
+                field("changeField", "modifyTimestamp"),
+                field("timestampFormat", "yyyyMMddHHmmss'Z'"))));
+
+        assertThat(changeField.format(CHANGED_SINCE)).isEqualTo("20260301101530Z");
+    }
+
+    @Test(expectedExceptions = JsonValueException.class)
+    public void testChangeFieldIsRequired() {
+        new ReconTypeIncremental.ChangeField(json(object(field("timestampFormat", "yyyyMMddHHmmss'Z'"))));
+    }
+
+    @Test
+    public void testChangedSinceReplacesQueryOfAllIds() {
+        JsonValue query = json(object(
+                field("resourceContainer", "system/ldap/account"),
+                field("_queryId", "query-all-ids")));
+
+        JsonValue changed = ReconTypeIncremental.changedSince(query, ISO_CHANGE_FIELD, CHANGED_SINCE);
+
+        assertThat(changed.isDefined("_queryId")).isFalse();
+        assertThat(filter(changed.get("_queryFilter"))).isEqualTo(filter("/lastModified gt \"2026-03-01T10:15:30Z\""));
+        assertThat(changed.get("_fields").asString()).isEqualTo("_id");
+        assertThat(changed.get("resourceContainer").asString()).isEqualTo("system/ldap/account");
+        // The effective query is left as it is
+        assertThat(query.get("_queryId").asString()).isEqualTo("query-all-ids");
+        assertThat(query.isDefined("_queryFilter")).isFalse();
+    }
+
+    @Test
+    public void testChangedSinceReplacesQueryOfAllIdsConfiguredWithoutUnderscore() {
+        JsonValue query = json(object(field("queryId", "query-all-ids")));
+
+        JsonValue changed = ReconTypeIncremental.changedSince(query, ISO_CHANGE_FIELD, CHANGED_SINCE);
+
+        assertThat(changed.isDefined("queryId")).isFalse();
+        assertThat(filter(changed.get("_queryFilter"))).isEqualTo(filter("/lastModified gt \"2026-03-01T10:15:30Z\""));
+    }
+
+    @Test
+    public void testChangedSinceRestrictsQueryFilter() {
+        JsonValue query = json(object(field("_queryFilter", "/sn eq \"smith\"")));
+
+        JsonValue changed = ReconTypeIncremental.changedSince(query, ISO_CHANGE_FIELD, CHANGED_SINCE);
+
+        assertThat(filter(changed.get("_queryFilter")))
+                .isEqualTo(filter("/sn eq \"smith\" and /lastModified gt \"2026-03-01T10:15:30Z\""));
+        assertThat(changed.isDefined("_fields")).isFalse();
+        assertThat(query.get("_queryFilter").asString()).isEqualTo("/sn eq \"smith\"");
+    }
+
+    @Test
+    public void testChangedSinceRestrictsQueryFilterConfiguredWithoutUnderscore() {
+        ReconTypeIncremental.ChangeField changeField = new ReconTypeIncremental.ChangeField(json(object(
+                field("changeField", "modifyTimestamp"),
+                field("timestampFormat", "yyyyMMddHHmmss'Z'"))));
+        JsonValue query = json(object(field("queryFilter", "true")));
+
+        JsonValue changed = ReconTypeIncremental.changedSince(query, changeField, CHANGED_SINCE);
+
+        assertThat(changed.isDefined("_queryFilter")).isFalse();
+        assertThat(filter(changed.get("queryFilter")))
+                .isEqualTo(filter("true and /modifyTimestamp gt \"20260301101530Z\""));
+    }
+
+    private static String filter(JsonValue queryFilter) {
+        return filter(queryFilter.asString());
+    }
+
+    /** Normalizes a query filter, so that filters are compared regardless of their spacing and parentheses */
+    private static String filter(String queryFilter) {
+        return QueryFilters.parse(queryFilter).toString();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.openidm.filter.JsonValueFilterVisitor;
+import org.forgerock.util.query.QueryFilter;
+import org.testng.annotations.Test;
+
+public class ReconTypePartitionedTest {
+
+    @Test
+    public void testPartitionOfIsInRange() {
+        // Ids with a negative hash code still map to a valid partition
+        assertThat("polygenelubricants".hashCode()).isNegative();
+        assertThat(ReconTypePartitioned.partitionOf("polygenelubricants", 7)).isBetween(0, 6);
+        assertThat(ReconTypePartitioned.partitionOf("", 7)).isEqualTo(0);
+    }
+
+    @Test
+    public void testPartitionOfIsStable() {
+        // String hash codes are specified, so all nodes agree on the partition of an id
+        assertThat(ReconTypePartitioned.partitionOf("bjensen", 16))
+                .isEqualTo(Math.floorMod("bjensen".hashCode(), 16))
+                .isEqualTo(ReconTypePartitioned.partitionOf(new String("bjensen"), 16));
+    }
+
+    @Test
+    public void testPartitionsAreBalanced() {
+        int partitionCount = 8;
+        int[] counts = new int[partitionCount];
+        for (int i = 0; i < 80000; i++) {
+            counts[ReconTypePartitioned.partitionOf(UUID.randomUUID().toString(), partitionCount)]++;
+        }
+        for (int count : counts) {
+            assertThat(count).isBetween(9000, 11000);
+        }
+    }
+
+    @Test
+    public void testProgressSinceClaim() {
+        Map<String, Object> atClaim = new LinkedHashMap<>();
+        atClaim.put("reconId", "recon1");
+        atClaim.put("sourceProcessed", 10);
+        atClaim.put("situationSummary", situations(4, 0));
+        Map<String, Object> current = new LinkedHashMap<>();
+        current.put("reconId", "recon1");
+        current.put("sourceProcessed", 25);
+        current.put("situationSummary", situations(12, 3));
+
+        JsonValue progress = new JsonValue(ReconTypePartitioned.progressSince(current, atClaim));
+
+        assertThat(progress.get("reconId").asString()).isEqualTo("recon1");
+        assertThat(progress.get("sourceProcessed").asInteger()).isEqualTo(15);
+        assertThat(progress.get("situationSummary").get("FOUND").asInteger()).isEqualTo(8);
+        assertThat(progress.get("situationSummary").get("ABSENT").asInteger()).isEqualTo(3);
+        // Without a starting point, all the progress is counted
+        assertThat(new JsonValue(ReconTypePartitioned.progressSince(current, null)).get("sourceProcessed")
+                .asInteger()).isEqualTo(25);
+    }
+
+    @Test
+    public void testRangesHoldEachIdOnce() {
+        List<String> bounds = Arrays.asList("c", "m", "t");
+        for (String id : Arrays.asList("a", "c", "d", "m", "s", "t", "z")) {
+            assertThat(partitionsOf(id, bounds)).hasSize(1);
+        }
+        assertThat(partitionsOf("a", bounds)).containsExactly(0);
+        assertThat(partitionsOf("c", bounds)).containsExactly(1);
+        assertThat(partitionsOf("s", bounds)).containsExactly(2);
+        assertThat(partitionsOf("z", bounds)).containsExactly(3);
+    }
+
+    @Test
+    public void testRangesHoldEachIdOnceRegardlessOfOrdering() {
+        // The bounds as sorted by a source ordering the ids differently, e.g. by number rather than by string
+        List<String> bounds = Arrays.asList("9", "10", "100");
+        for (int i = 0; i < 1000; i++) {
+            assertThat(partitionsOf(String.valueOf(i), bounds)).hasSize(1);
+        }
+    }
+
+    @Test
+    public void testSingleRangeHoldsAllIds() {
+        assertThat(ReconTypePartitioned.rangeOf(0, Collections.<String>emptyList()).toString())
+                .isEqualTo(QueryFilter.<JsonPointer>alwaysTrue().toString());
+    }
+
+    @Test
+    public void testBoundsSplitSampledIds() {
+        ReconTypePartitioned.IdSample sample = new ReconTypePartitioned.IdSample(100);
+        for (String id : Arrays.asList("h", "b", "g", "a", "f", "c", "e", "d")) {
+            sample.add(id);
+        }
+
+        assertThat(sample.bounds(4)).containsExactly("c", "e", "g");
+        assertThat(new ReconTypePartitioned.IdSample(100).bounds(4)).isEmpty();
+    }
+
+    @Test
+    public void testBoundsOfLargeSourceAreBalanced() {
+        ReconTypePartitioned.IdSample sample = new ReconTypePartitioned.IdSample(400);
+        for (int i = 0; i < 100000; i++) {
+            sample.add(String.format("%06d", i));
+        }
+
+        List<String> bounds = sample.bounds(4);
+
+        assertThat(sample.size()).isEqualTo(400);
+        assertThat(sample.seen()).isEqualTo(100000);
+        assertThat(bounds).hasSize(3);
+        for (int i = 0; i < bounds.size(); i++) {
+            assertThat(Integer.parseInt(bounds.get(i))).isBetween(25000 * (i + 1) - 7500, 25000 * (i + 1) + 7500);
+        }
+    }
+
+    /** Returns the partitions whose id range holds an id, as compared by string */
+    private static List<Integer> partitionsOf(String id, List<String> bounds) {
+        List<Integer> partitions = new ArrayList<>();
+        for (int partition = 0; partition <= bounds.size(); partition++) {
+            if (ReconTypePartitioned.rangeOf(partition, bounds)
+                    .accept(new JsonValueFilterVisitor(), json(object(field("_id", id))))) {
+                partitions.add(partition);
+            }
+        }
+        return partitions;
+    }
+
+    private static Map<String, Object> situations(int found, int absent) {
+        Map<String, Object> situations = new LinkedHashMap<>();
+        situations.put("FOUND", found);
+        situations.put("ABSENT", absent);
+        return situations;
+    }
+}
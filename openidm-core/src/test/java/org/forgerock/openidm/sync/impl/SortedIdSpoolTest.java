@@ -0,0 +1,125 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class SortedIdSpoolTest {
+
+    @Test
+    public void testInMemoryIteratesSortedAndDistinct() {
+        try (SortedIdSpool spool = new SortedIdSpool(100)) {
+            spool.add("c");
+            spool.add("a");
+            spool.add("b");
+            spool.add("a");
+
+            assertThat(spool.getRunCount()).isEqualTo(0);
+            assertThat(spool.size()).isEqualTo(4);
+            assertThat(toList(spool)).containsExactly("a", "b", "c");
+        }
+    }
+
+    @Test
+    public void testSpilledRunsAreMerged() {
+        try (SortedIdSpool spool = new SortedIdSpool(3)) {
+            for (String id : new String[] { "id5", "id1", "id3", "id4", "id2", "id1", "id6", "id5" }) {
+                spool.add(id);
+            }
+
+            assertThat(spool.getRunCount()).isEqualTo(2);
+            assertThat(toList(spool)).containsExactly("id1", "id2", "id3", "id4", "id5", "id6");
+            // Iterating again yields the same result
+            assertThat(toList(spool)).containsExactly("id1", "id2", "id3", "id4", "id5", "id6");
+        }
+    }
+
+    @Test
+    public void testMergeDropsDuplicatesOfInMemoryIds() {
+        try (SortedIdSpool spool = new SortedIdSpool(100)) {
+            for (String id : new String[] { "c", "a", "b", "a", "c" }) {
+                spool.add(id);
+            }
+
+            assertThat(spool.merge()).isEqualTo(3);
+            assertThat(spool.size()).isEqualTo(3);
+            assertThat(toList(spool)).containsExactly("a", "b", "c");
+        }
+    }
+
+    @Test
+    public void testMergeDropsDuplicatesAcrossRuns() {
+        try (SortedIdSpool spool = new SortedIdSpool(3)) {
+            for (String id : new String[] { "id5", "id1", "id3", "id4", "id2", "id1", "id6", "id5", "id5" }) {
+                spool.add(id);
+            }
+            assertThat(spool.getRunCount()).isEqualTo(3);
+
+            assertThat(spool.merge()).isEqualTo(6);
+            assertThat(spool.size()).isEqualTo(6);
+            assertThat(spool.getRunCount()).isEqualTo(1);
+            assertThat(toList(spool)).containsExactly("id1", "id2", "id3", "id4", "id5", "id6");
+
+            // Identifiers appended after merging are merged again
+            spool.add("id0");
+            spool.add("id6");
+            assertThat(spool.merge()).isEqualTo(7);
+            assertThat(toList(spool)).containsExactly("id0", "id1", "id2", "id3", "id4", "id5", "id6");
+        }
+    }
+
+    @Test
+    public void testWithoutExcludesRemovedIds() {
+        try (SortedIdSpool targets = new SortedIdSpool(2);
+                SortedIdSpool matched = new SortedIdSpool(2)) {
+            for (int i = 0; i < 10; i++) {
+                targets.add("target" + i);
+            }
+            RemainingIds remaining = targets.without(matched);
+            remaining.remove("target3");
+            remaining.remove("target0");
+            remaining.remove("target9");
+            remaining.remove("unknown");
+            remaining.remove("target3");
+
+            assertThat(toList(remaining)).containsExactly(
+                    "target1", "target2", "target4", "target5", "target6", "target7", "target8");
+        }
+    }
+
+    @Test
+    public void testWithoutEmptySpools() {
+        try (SortedIdSpool targets = new SortedIdSpool(2);
+                SortedIdSpool matched = new SortedIdSpool(2)) {
+            assertThat(toList(targets.without(matched))).isEmpty();
+            matched.add("target1");
+            assertThat(toList(targets.without(matched))).isEmpty();
+        }
+    }
+
+    private List<String> toList(Iterable<String> ids) {
+        List<String> list = new ArrayList<>();
+        for (String id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+}
@@ -18,6 +18,7 @@
 package org.forgerock.openidm.sync.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
 import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
@@ -27,11 +28,14 @@ import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.forgerock.openidm.sync.impl.SynchronizationService.ACTION_PARAM_RESOURCE_NAME;
 import static org.forgerock.json.test.assertj.AssertJJsonValueAssert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
 
 import org.forgerock.audit.events.AuditEvent;
@@ -47,6 +51,7 @@ import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.ServiceUnavailableException;
 import org.forgerock.openidm.config.enhanced.EnhancedConfig;
 import org.forgerock.openidm.router.IDMConnectionFactory;
+import org.forgerock.openidm.sync.SynchronizationException;
 import org.forgerock.openidm.util.Scripts;
 import org.forgerock.script.ScriptRegistry;
 import org.forgerock.services.context.Context;
@@ -164,4 +169,115 @@ public class SynchronizationServiceTest {
         assertThat(resource).stringAt("linkQualifier").isEqualTo("default");
         assertThat(resource).stringAt("linkType").isEqualTo("testMapping");
     }
+
+    @Test
+    public void testFanOutMergesResultsInMappingOrder() throws Exception {
+        final SynchronizationService synchronizationService = new SynchronizationService();
+        synchronizationService.bindMappings(mockMappings(
+                mockMapping("managedUser_ldap", "system/ldap/account", 50, false),
+                mockMapping("managedUser_ad", "system/ad/account", 0, false),
+                mockMapping("managedUser_db", "system/db/account", 20, false)));
+        synchronizationService.configureFanOut(3, SynchronizationService.FailurePolicy.SKIP);
+        try {
+            Promise<ActionResponse, ResourceException> promise =
+                    synchronizationService.actionInstance(mock(Context.class), notifyUpdateRequest());
+
+            AssertJPromiseAssert.assertThat(promise).succeeded();
+            JsonValue syncDetails = promise.get().getJsonContent();
+            assertThat(syncDetails.size()).isEqualTo(3);
+            assertThat(syncDetails.get(0).get("mapping").asString()).isEqualTo("managedUser_ldap");
+            assertThat(syncDetails.get(1).get("mapping").asString()).isEqualTo("managedUser_ad");
+            assertThat(syncDetails.get(2).get("mapping").asString()).isEqualTo("managedUser_db");
+            for (JsonValue mappingResult : syncDetails) {
+                assertThat(mappingResult.get("result").asString()).isEqualTo("SUCCESSFUL");
+            }
+        } finally {
+            synchronizationService.deactivate(mock(ComponentContext.class));
+        }
+    }
+
+    @Test
+    public void testSkipPolicySkipsMappingsAfterFailure() throws Exception {
+        final SynchronizationService synchronizationService = new SynchronizationService();
+        synchronizationService.bindMappings(mockMappings(
+                mockMapping("managedUser_ldap", "system/ldap/account", 0, true),
+                mockMapping("managedUser_ad", "system/ad/account", 0, false)));
+
+        Promise<ActionResponse, ResourceException> promise =
+                synchronizationService.actionInstance(mock(Context.class), notifyUpdateRequest());
+
+        AssertJPromiseAssert.assertThat(promise).failedWithException().isInstanceOf(SynchronizationException.class);
+        JsonValue syncDetails = getSyncDetails(promise);
+        assertThat(syncDetails.get(0).get("result").asString()).isEqualTo("FAILED");
+        assertThat(syncDetails.get(1).get("result").asString()).isEqualTo("SKIPPED");
+    }
+
+    @Test
+    public void testContinuePolicySyncsMappingsAfterFailure() throws Exception {
+        final SynchronizationService synchronizationService = new SynchronizationService();
+        synchronizationService.bindMappings(mockMappings(
+                mockMapping("managedUser_ldap", "system/ldap/account", 0, true),
+                mockMapping("managedUser_ad", "system/ad/account", 0, false)));
+        synchronizationService.configureFanOut(0, SynchronizationService.FailurePolicy.CONTINUE);
+
+        Promise<ActionResponse, ResourceException> promise =
+                synchronizationService.actionInstance(mock(Context.class), notifyUpdateRequest());
+
+        AssertJPromiseAssert.assertThat(promise).failedWithException().isInstanceOf(SynchronizationException.class);
+        JsonValue syncDetails = getSyncDetails(promise);
+        assertThat(syncDetails.get(0).get("result").asString()).isEqualTo("FAILED");
+        assertThat(syncDetails.get(1).get("result").asString()).isEqualTo("SUCCESSFUL");
+    }
+
+    private static ActionRequest notifyUpdateRequest() {
+        return newActionRequest("", "notifyUpdate")
+                .setAdditionalParameter(SynchronizationService.ACTION_PARAM_RESOURCE_CONTAINER, "managed/user")
+                .setAdditionalParameter(SynchronizationService.ACTION_PARAM_RESOURCE_ID, "bjensen")
+                .setContent(json(object(field("oldValue", null), field("newValue", object()))));
+    }
+
+    private static JsonValue getSyncDetails(Promise<ActionResponse, ResourceException> promise) {
+        try {
+            promise.getOrThrow();
+            throw new AssertionError("Expected the synchronization to fail");
+        } catch (ResourceException e) {
+            return e.getDetail();
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static SyncMappings mockMappings(final ObjectMapping... objectMappings) {
+        SyncMappings mappings = mock(SyncMappings.class);
+        when(mappings.iterator()).thenAnswer(new Answer<Iterator<ObjectMapping>>() {
+            @Override
+            public Iterator<ObjectMapping> answer(InvocationOnMock invocation) {
+                return Arrays.asList(objectMappings).iterator();
+            }
+        });
+        return mappings;
+    }
+
+    private static ObjectMapping mockMapping(String name, String target, final long delay, final boolean fail)
+            throws Exception {
+        ObjectMapping mapping = mock(ObjectMapping.class);
+        when(mapping.getName()).thenReturn(name);
+        when(mapping.getTargetObjectSet()).thenReturn(target);
+        when(mapping.isSyncEnabled()).thenReturn(true);
+        when(mapping.isSourceObject(anyString(), anyString())).thenReturn(true);
+        when(mapping.notifyUpdate(any(Context.class), anyString(), anyString(), any(JsonValue.class),
+                any(JsonValue.class))).thenAnswer(new Answer<JsonValue>() {
+                    @Override
+                    public JsonValue answer(InvocationOnMock invocation) throws Throwable {
+                        Thread.sleep(delay);
+                        if (fail) {
+                            SynchronizationException e = new SynchronizationException("Target unavailable");
+                            e.setDetail(json(object()));
+                            throw e;
+                        }
+                        return json(array(object(field("action", "UPDATE"))));
+                    }
+                });
+        return mapping;
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.info.health;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import org.forgerock.api.annotations.Handler;
+import org.forgerock.api.annotations.Operation;
+import org.forgerock.api.annotations.Read;
+import org.forgerock.api.annotations.Schema;
+import org.forgerock.api.annotations.SingletonProvider;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.info.health.api.SyncQueueInfoResource;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.promise.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Gets Implicit Sync Queue Health Info.
+ */
+@SingletonProvider(@Handler(
+        id = "syncQueueInfoResourceProvider:0",
+        title = "Health - Implicit synchronization queue statistics",
+        description = "Returns the depth and lag of the implicit synchronization queue.",
+        mvccSupported = false,
+        resourceSchema = @Schema(fromType = SyncQueueInfoResource.class)))
+public class SyncQueueInfoResourceProvider extends AbstractInfoResourceProvider {
+
+    private final static Logger logger = LoggerFactory.getLogger(SyncQueueInfoResourceProvider.class);
+
+    @Read(operationDescription = @Operation(description = "Read implicit sync queue statistics."))
+    @Override
+    public Promise<ResourceResponse, ResourceException> readInstance(Context context, ReadRequest request) {
+        try {
+            final ObjectName objectName = new ObjectName("org.forgerock.openidm.managed:type=ImplicitSyncQueue");
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (!mBeanServer.isRegistered(objectName)) {
+                return new NotFoundException("The implicit sync queue is not enabled").asPromise();
+            }
+
+            final JsonValue result = json(object(
+                    field("depth", mBeanServer.getAttribute(objectName, "Depth")),
+                    field("lag", mBeanServer.getAttribute(objectName, "Lag")),
+                    field("enqueued", mBeanServer.getAttribute(objectName, "Enqueued")),
+                    field("coalesced", mBeanServer.getAttribute(objectName, "Coalesced")),
+                    field("synced", mBeanServer.getAttribute(objectName, "Synced")),
+                    field("failed", mBeanServer.getAttribute(objectName, "Failed")),
+                    field("retried", mBeanServer.getAttribute(objectName, "Retried"))
+            ));
+            return newResourceResponse("", "", result).asPromise();
+        } catch (Exception e) {
+            logger.error("Unable to get implicit sync queue mbean");
+            return new InternalServerErrorException("Unable to get implicit sync queue mbean", e).asPromise();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.info.health.api;
+
+import org.forgerock.api.annotations.Description;
+import org.forgerock.api.annotations.ReadOnly;
+
+/**
+ * Api pojo for {@link org.forgerock.openidm.info.health.SyncQueueInfoResourceProvider}
+ */
+public class SyncQueueInfoResource {
+    private long depth;
+    private long lag;
+    private long enqueued;
+    private long coalesced;
+    private long synced;
+    private long failed;
+    private long retried;
+
+    /**
+     * Returns the number of managed objects with changes queued, across the cluster.
+     *
+     * @return number of managed objects with changes queued, or -1 if not counted yet.
+     */
+    @Description("Number of managed objects with changes queued, across the cluster, or -1 if not counted yet")
+    @ReadOnly
+    public long getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the age of the oldest queued change.
+     *
+     * @return age of the oldest queued change in milliseconds, or -1 if not counted yet.
+     */
+    @Description("Age of the oldest queued change in milliseconds, or -1 if not counted yet")
+    @ReadOnly
+    public long getLag() {
+        return lag;
+    }
+
+    /**
+     * Returns the number of changes queued by this node.
+     *
+     * @return number of changes queued by this node.
+     */
+    @Description("Number of changes queued by this node")
+    @ReadOnly
+    public long getEnqueued() {
+        return enqueued;
+    }
+
+    /**
+     * Returns the number of changes merged with a change already queued.
+     *
+     * @return number of changes merged with a change already queued.
+     */
+    @Description("Number of changes queued by this node that were merged with a change already queued")
+    @ReadOnly
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Returns the number of queued changes synchronized by this node.
+     *
+     * @return number of queued changes synchronized by this node.
+     */
+    @Description("Number of queued changes synchronized successfully by this node")
+    @ReadOnly
+    public long getSynced() {
+        return synced;
+    }
+
+    /**
+     * Returns the number of queued changes this node failed to synchronize.
+     *
+     * @return number of queued changes this node failed to synchronize.
+     */
+    @Description("Number of queued changes this node failed to synchronize, once out of retries")
+    @ReadOnly
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns the number of times this node put back a queued change to be retried.
+     *
+     * @return number of retries.
+     */
+    @Description("Number of times this node put back a queued change to be retried")
+    @ReadOnly
+    public long getRetried() {
+        return retried;
+    }
+}
@@ -44,6 +44,7 @@ import org.forgerock.openidm.info.health.DatabaseInfoResourceProvider;
 import org.forgerock.openidm.info.health.MemoryInfoResourceProvider;
 import org.forgerock.openidm.info.health.OsInfoResourceProvider;
 import org.forgerock.openidm.info.health.ReconInfoResourceProvider;
+import org.forgerock.openidm.info.health.SyncQueueInfoResourceProvider;
 import org.forgerock.openidm.osgi.ServiceTrackerListener;
 import org.forgerock.openidm.osgi.ServiceTrackerNotifier;
 import org.forgerock.services.context.Context;
@@ -287,7 +288,7 @@ public class HealthService
     };
 
     /**
-     * A router used to service requests for system health endpoints such as: os, memory, recon, jdbc.
+     * A router used to service requests for system health endpoints such as: os, memory, recon, syncqueue, jdbc.
      */
     private final Router router = new Router();
     
@@ -390,6 +391,7 @@ public class HealthService
         router.addRoute(uriTemplate("os"), new OsInfoResourceProvider());
         router.addRoute(uriTemplate("memory"), new MemoryInfoResourceProvider());
         router.addRoute(uriTemplate("recon"), new ReconInfoResourceProvider());
+        router.addRoute(uriTemplate("syncqueue"), new SyncQueueInfoResourceProvider());
         router.addRoute(uriTemplate("jdbc"), new DatabaseInfoResourceProvider());
 
         // Check if the framework has already started.  If so, schedule the start up
@@ -0,0 +1,174 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance
+ * with the License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for
+ * the specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file
+ * and include the License file at legal/CDDLv1.0.txt. If applicable, add the following
+ * below the CDDL Header, with the fields enclosed by brackets [] replaced by your
+ * own identifying information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.provisioner.openicf.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.identityconnectors.framework.common.objects.SyncDelta;
+import org.identityconnectors.framework.common.objects.SyncToken;
+
+/**
+ * Processes the deltas of one liveSync run on a number of worker threads.
+ * <p>
+ * Each delta is assigned to a worker by its UID, so the changes to one object are processed in the order the
+ * connector returned them, while changes to different objects are processed concurrently. The deltas still to be
+ * processed are bounded, blocking the connector while the workers catch up.
+ * <p>
+ * The sync token to resume from is the token of the last delta that was processed along with all the deltas
+ * before it. Once a delta stops the run, as when the sync failure handler asks for it to be retried, no more
+ * deltas are dispatched and the deltas after it not yet processed are skipped. Those after it that were already
+ * processed are processed again by the next run, just as after a crash.
+ */
+class LiveSyncDispatcher {
+
+    /**
+     * Processes a single delta.
+     */
+    interface DeltaHandler {
+
+        /**
+         * Processes a delta.
+         *
+         * @param syncDelta the delta
+         * @param sequence the sequence number of the delta, in the order the connector returned the deltas
+         * @return true if the delta was processed, false if the run should stop and the delta be retried
+         */
+        boolean handle(SyncDelta syncDelta, long sequence);
+    }
+
+    private final DeltaHandler handler;
+    private final ExecutorService[] workers;
+    private final Semaphore pending;
+
+    /** Tokens of processed deltas not yet covered by the resume token, by sequence number */
+    private final Map<Long, SyncToken> processed = new HashMap<>();
+    private long nextSequence = 0;
+    private long resumeSequence = 0;
+    private SyncToken resumeToken = null;
+
+    private volatile boolean stopped = false;
+    private volatile long stopSequence = Long.MAX_VALUE;
+    private volatile RuntimeException failure = null;
+
+    /**
+     * @param name the name of the worker threads
+     * @param threads the number of worker threads
+     * @param maxPendingDeltas the maximum number of deltas dispatched but not yet covered by the resume token
+     * @param handler the handler to process the deltas with
+     */
+    LiveSyncDispatcher(final String name, int threads, int maxPendingDeltas, DeltaHandler handler) {
+        this.handler = handler;
+        this.pending = new Semaphore(Math.max(maxPendingDeltas, threads));
+        this.workers = new ExecutorService[threads];
+        for (int i = 0; i < threads; i++) {
+            final String threadName = name + "-" + i;
+            workers[i] = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * Dispatches a delta to the worker for its object, waiting while too many deltas are pending.
+     *
+     * @param syncDelta the delta
+     * @return true to continue with more deltas, false once the run has stopped
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean dispatch(final SyncDelta syncDelta) throws InterruptedException {
+        if (stopped) {
+            return false;
+        }
+        pending.acquire();
+        if (stopped) {
+            return false;
+        }
+        final long sequence = nextSequence++;
+        workers[Math.floorMod(syncDelta.getUid().getUidValue().hashCode(), workers.length)].execute(new Runnable() {
+            @Override
+            public void run() {
+                if (sequence > stopSequence) {
+                    return;
+                }
+                try {
+                    if (handler.handle(syncDelta, sequence)) {
+                        processed(sequence, syncDelta.getToken());
+                    } else {
+                        stop(sequence);
+                    }
+                } catch (RuntimeException e) {
+                    failure = e;
+                    stop(sequence);
+                }
+            }
+        });
+        return !stopped;
+    }
+
+    /**
+     * Waits for the dispatched deltas to be processed, and stops the workers.
+     *
+     * @return the token of the last delta processed along with all the deltas before it, or null if none was
+     * @throws InterruptedException if interrupted while waiting
+     * @throws RuntimeException if processing a delta failed unexpectedly
+     */
+    SyncToken finish() throws InterruptedException {
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        for (ExecutorService worker : workers) {
+            while (!worker.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting, the deltas being processed are not abandoned
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        synchronized (processed) {
+            return resumeToken;
+        }
+    }
+
+    private synchronized void stop(long sequence) {
+        stopSequence = Math.min(stopSequence, sequence);
+        stopped = true;
+        // the resume token no longer advances past this delta, unblock the dispatch waiting for it
+        pending.release();
+    }
+
+    private void processed(long sequence, SyncToken token) {
+        synchronized (processed) {
+            processed.put(sequence, token);
+            while (processed.containsKey(resumeSequence)) {
+                resumeToken = processed.remove(resumeSequence);
+                resumeSequence++;
+                pending.release();
+            }
+        }
+    }
+}
@@ -131,6 +131,14 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
 
     private static final Logger logger = LoggerFactory.getLogger(OpenICFProvisionerService.class);
 
+    /** The number of threads to process liveSync deltas with; 1 processes them on the connector's thread */
+    private static final String CONFIG_LIVESYNC_THREADS = "liveSyncThreads";
+
+    /** The number of liveSync deltas dispatched to the threads ahead of the sync token */
+    private static final String CONFIG_LIVESYNC_MAX_PENDING_DELTAS = "liveSyncMaxPendingDeltas";
+
+    private static final int DEFAULT_LIVESYNC_MAX_PENDING_DELTAS = 1000;
+
     private SimpleSystemIdentifier systemIdentifier = null;
     private OperationHelperBuilder operationHelperBuilder = null;
     private Promise<ConnectorInfo, RuntimeException> connectorFacadeCallback = null;
@@ -138,6 +146,8 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
     private JsonValue jsonConfiguration = null;
     private ConnectorReference connectorReference = null;
     private SyncFailureHandler syncFailureHandler = null;
+    private int liveSyncThreads = 1;
+    private int liveSyncMaxPendingDeltas = DEFAULT_LIVESYNC_MAX_PENDING_DELTAS;
     private String factoryPid = null;
 
     /** use null-object activity logger until/unless ConnectionFactory binder updates it */
@@ -236,6 +246,9 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
             connectorReference = ConnectorUtil.getConnectorReference(jsonConfiguration);
 
             syncFailureHandler = syncFailureHandlerFactory.create(jsonConfiguration.get("syncFailureHandler"));
+            liveSyncThreads = Math.max(1, jsonConfiguration.get(CONFIG_LIVESYNC_THREADS).defaultTo(1).asInteger());
+            liveSyncMaxPendingDeltas = jsonConfiguration.get(CONFIG_LIVESYNC_MAX_PENDING_DELTAS)
+                    .defaultTo(DEFAULT_LIVESYNC_MAX_PENDING_DELTAS).asInteger();
 
             final OpenICFProvisionerService provisionerService = this;
             connectorInfoProvider.findConnectorInfoAsync(connectorReference).thenOnResult(
@@ -830,134 +843,77 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
                     logger.debug("New LatestSyncToken has been fetched. New token is: {}", token);
                 } else {
                     final SyncToken[] lastToken = new SyncToken[]{token};
-                    final String[] failedRecord = new String[1];
                     OperationOptionsBuilder operationOptionsBuilder =
                             helper.getOperationOptionsBuilder(SyncApiOp.class, null, previousStage);
+                    final LiveSyncDispatcher dispatcher = liveSyncThreads > 1
+                            ? new LiveSyncDispatcher("liveSync-" + systemIdentifier.getName() + "-" + objectType,
+                                    liveSyncThreads, liveSyncMaxPendingDeltas, new LiveSyncDispatcher.DeltaHandler() {
+                                        @Override
+                                        public boolean handle(SyncDelta syncDelta, long sequence) {
+                                            return handleSyncDelta(context, objectType, helper, stage, syncDelta,
+                                                    sequence, syncRetry);
+                                        }
+                                    })
+                            : null;
 
                     try {
                         logger.debug("Execute sync(ObjectClass:{}, SyncToken:{})",
                                 new Object[] { helper.getObjectClass().getObjectClassValue(), token });
-                        SyncToken syncToken = operation.sync(helper.getObjectClass(), token,
-                                new SyncResultsHandler() {
-                                    /**
-                                     * Called to handle a delta in the stream. The Connector framework will call
-                                     * this method multiple times, once for each result.
-                                     * Although this method is callback, the framework will invoke it synchronously.
-                                     * Thus, the framework guarantees that once an application's call to
-                                     * {@link org.identityconnectors.framework.api.operations.SyncApiOp#sync(org.identityconnectors.framework.common.objects.ObjectClass, org.identityconnectors.framework.common.objects.SyncToken, org.identityconnectors.framework.common.objects.SyncResultsHandler, org.identityconnectors.framework.common.objects.OperationOptions)} SyncApiOp#sync() returns,
-                                     * the framework will no longer call this method
-                                     * to handle results from that <code>sync()</code> operation.
-                                     *
-                                     * @param syncDelta The change
-                                     * @return True iff the application wants to continue processing more results.
-                                     * @throws RuntimeException If the application encounters an exception. This will
-                                     * stop iteration and the exception will propagate to the application.
-                                     */
-                                    @SuppressWarnings("fallthrough")
-                                    public boolean handle(SyncDelta syncDelta) {
-                                        try {
-                                            // Q: are we going to encode ids?
-                                            final String resourceId = syncDelta.getUid().getUidValue();
-                                            final String objectTypeName = getObjectTypeName(syncDelta.getObjectClass());
-                                            final String resourceContainer = getSource(objectTypeName == null ? objectType : objectTypeName);
-                                            final JsonValue content = new JsonValue(new LinkedHashMap<String, Object>(2));
-
-                                            //rebuild the OperationHelper if the helper is for the __ALL__ object class
-                                            final OperationHelper syncDeltaOperationHelper = helper.getObjectClass().equals(ObjectClass.ALL)
-                                                    ? operationHelperBuilder.build(objectTypeName, stage, cryptoService)
-                                                    : helper;
-
-                                            switch (syncDelta.getDeltaType()) {
-                                                case CREATE: {
-                                                    JsonValue deltaObject = syncDeltaOperationHelper.build(syncDelta.getObject());
-                                                    content.put("oldValue", null);
-                                                    content.put("newValue", deltaObject.getObject());
-                                                    // TODO import SynchronizationService.Action.notifyCreate and ACTION_PARAM_ constants
-                                                    ActionRequest onCreateRequest = Requests.newActionRequest("sync", "notifyCreate")
-                                                            .setAdditionalParameter("resourceContainer", resourceContainer)
-                                                            .setAdditionalParameter("resourceId", resourceId)
-                                                            .setContent(content);
-                                                    connectionFactory.getConnection().action(context, onCreateRequest);
-
-                                                    activityLogger.log(context, onCreateRequest,
-                                                                    "sync-create", onCreateRequest.getResourcePath(),
-                                                                    deltaObject, deltaObject, Status.SUCCESS);
-                                                    break;
+                        SyncToken syncToken;
+                        try {
+                            syncToken = operation.sync(helper.getObjectClass(), token,
+                                    new SyncResultsHandler() {
+                                        /**
+                                         * Called to handle a delta in the stream. The Connector framework will call
+                                         * this method multiple times, once for each result.
+                                         * Although this method is callback, the framework will invoke it synchronously.
+                                         * Thus, the framework guarantees that once an application's call to
+                                         * {@link org.identityconnectors.framework.api.operations.SyncApiOp#sync(org.identityconnectors.framework.common.objects.ObjectClass, org.identityconnectors.framework.common.objects.SyncToken, org.identityconnectors.framework.common.objects.SyncResultsHandler, org.identityconnectors.framework.common.objects.OperationOptions)} SyncApiOp#sync() returns,
+                                         * the framework will no longer call this method
+                                         * to handle results from that <code>sync()</code> operation.
+                                         *
+                                         * @param syncDelta The change
+                                         * @return True iff the application wants to continue processing more results.
+                                         * @throws RuntimeException If the application encounters an exception. This will
+                                         * stop iteration and the exception will propagate to the application.
+                                         */
+                                        @SuppressWarnings("fallthrough")
+                                        public boolean handle(SyncDelta syncDelta) {
+                                            if (dispatcher != null) {
+                                                try {
+                                                    return dispatcher.dispatch(syncDelta);
+                                                } catch (InterruptedException e) {
+                                                    Thread.currentThread().interrupt();
+                                                    throw new IllegalStateException("Interrupted dispatching " + syncDelta.getUid(), e);
                                                 }
-                                                case UPDATE:
-                                                case CREATE_OR_UPDATE: {
-                                                    JsonValue deltaObject = syncDeltaOperationHelper.build(syncDelta.getObject());
-                                                    content.put("oldValue", null);
-                                                    content.put("newValue", deltaObject.getObject());
-                                                    if (null != syncDelta.getPreviousUid()) {
-                                                        deltaObject.put("_previous-id", syncDelta.getPreviousUid().getUidValue());
-                                                    }
-                                                    // TODO import SynchronizationService.Action.notifyUpdate and ACTION_PARAM_ constants
-                                                    ActionRequest onUpdateRequest = Requests.newActionRequest("sync", "notifyUpdate")
-                                                            .setAdditionalParameter("resourceContainer", resourceContainer)
-                                                            .setAdditionalParameter("resourceId", resourceId)
-                                                            .setContent(content);
-                                                    connectionFactory.getConnection().action(context, onUpdateRequest);
-
-                                                    activityLogger.log(context, onUpdateRequest,
-                                                            "sync-update", onUpdateRequest.getResourcePath(),
-                                                            deltaObject, deltaObject, Status.SUCCESS);
-                                                    break;
-                                                }
-                                                case DELETE:
-                                                    // TODO Pass along the old deltaObject - do we have it?
-                                                    content.put("oldValue", null);
-                                                    // TODO import SynchronizationService.Action.notifyDelete and ACTION_PARAM_ constants
-                                                    ActionRequest onDeleteRequest = Requests.newActionRequest("sync", "notifyDelete")
-                                                            .setAdditionalParameter("resourceContainer", resourceContainer)
-                                                            .setAdditionalParameter("resourceId", resourceId)
-                                                            .setContent(content);
-                                                    connectionFactory.getConnection().action(context, onDeleteRequest);
-
-                                                    activityLogger.log(context, onDeleteRequest,
-                                                            "sync-delete", onDeleteRequest.getResourcePath(),
-                                                            null, null, Status.SUCCESS);
-                                                    break;
                                             }
-                                        } catch (Exception e) {
-                                            failedRecord[0] = SerializerUtil.serializeXmlObject(syncDelta, true);
-                                            logger.debug("Failed to synchronize {} object, handle failure using {}",
-                                                    syncDelta.getUid(), syncFailureHandler, e);
-                                            Map<String, Object> syncFailureMap = new HashMap<>(6);
-                                            syncFailureMap.put("token", syncDelta.getToken().getValue());
-                                            syncFailureMap.put("systemIdentifier", systemIdentifier.getName());
-                                            syncFailureMap.put("objectType", objectType);
-                                            syncFailureMap.put("uid", syncDelta.getUid().getUidValue());
-                                            syncFailureMap.put("failedRecord", failedRecord[0]);
-                                            try {
-                                                syncFailureHandler.invoke(context, syncFailureMap, e);
-                                            } catch (SyncHandlerException syncHandlerException) {
-                                                // Current contract of the failure handler is that throwing this exception indicates 
-                                                // that it should retry for this entry
-                                                syncRetry.setValue(true);
-                                                syncRetry.setThrowable(syncHandlerException);
-                                                logger.debug("Sync failure handler indicated to stop current change set processing until retry handling: {}", 
-                                                        syncHandlerException.getMessage(), syncHandlerException);
+                                            // the run stops at the first delta to retry, no other delta can fail before it
+                                            if (handleSyncDelta(context, objectType, helper, stage, syncDelta, 0, syncRetry)) {
+                                                // success (either by original sync or by failure handler)
+                                                // Continue the processing of the rest of the result set
+                                                lastToken[0] = syncDelta.getToken();
+                                                return true;
+                                            } else {
+                                                // Stop the processing of this result set. Next retry will start again after last token.
+                                                return false;
                                             }
                                         }
-
-                                        if (syncRetry.getValue()) {
-                                            // Stop the processing of this result set. Next retry will start again after last token.
-                                            return false; 
-                                        } else {
-                                            // success (either by original sync or by failure handler)
-                                            // Continue the processing of the rest of the result set
-                                            lastToken[0] = syncDelta.getToken();
-                                            return true;
-                                        }
-                                    }
-                        }, operationOptionsBuilder.build());
+                            }, operationOptionsBuilder.build());
+                        } finally {
+                            if (dispatcher != null) {
+                                // Wait for the deltas dispatched, the token only advances past those all processed
+                                SyncToken processedToken = dispatcher.finish();
+                                if (processedToken != null) {
+                                    lastToken[0] = processedToken;
+                                }
+                            }
+                        }
                         if (syncRetry.getValue()) {
                             Throwable throwable = syncRetry.getThrowable();
                             Map<String, Object> lastException = new LinkedHashMap<>(2);
                             lastException.put("throwable", throwable.getMessage());
-                            if (null != failedRecord[0]) {
-                                lastException.put("syncDelta", failedRecord[0]);
+                            if (null != syncRetry.getFailedRecord()) {
+                                lastException.put("syncDelta", syncRetry.getFailedRecord());
                             }
                             stage.put("lastException", lastException);
                             logger.debug("Live synchronization of {} failed on {}",
@@ -989,6 +945,110 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
         return stage;
     }
 
+    /**
+     * Sends a delta returned by the connector to the synchronization service, and handles a failure to do so
+     * using the {@link SyncFailureHandler}.
+     *
+     * @param context the request context associated with the invocation
+     * @param objectType the object type being synchronized
+     * @param helper the operation helper of the object type
+     * @param stage the stage of the synchronization
+     * @param syncDelta the delta
+     * @param sequence the sequence number of the delta, in the order the connector returned the deltas
+     * @param syncRetry the retry state of the synchronization, set if the failure handler asks to retry the delta
+     * @return true if the delta was handled, false if the synchronization should stop to retry it
+     */
+    private boolean handleSyncDelta(final Context context, final String objectType, final OperationHelper helper,
+            final JsonValue stage, final SyncDelta syncDelta, final long sequence, final SyncRetry syncRetry) {
+        try {
+            // Q: are we going to encode ids?
+            final String resourceId = syncDelta.getUid().getUidValue();
+            final String objectTypeName = getObjectTypeName(syncDelta.getObjectClass());
+            final String resourceContainer = getSource(objectTypeName == null ? objectType : objectTypeName);
+            final JsonValue content = new JsonValue(new LinkedHashMap<String, Object>(2));
+
+            //rebuild the OperationHelper if the helper is for the __ALL__ object class
+            final OperationHelper syncDeltaOperationHelper = helper.getObjectClass().equals(ObjectClass.ALL)
+                    ? operationHelperBuilder.build(objectTypeName, stage, cryptoService)
+                    : helper;
+
+            switch (syncDelta.getDeltaType()) {
+                case CREATE: {
+                    JsonValue deltaObject = syncDeltaOperationHelper.build(syncDelta.getObject());
+                    content.put("oldValue", null);
+                    content.put("newValue", deltaObject.getObject());
+                    // TODO import SynchronizationService.Action.notifyCreate and ACTION_PARAM_ constants
+                    ActionRequest onCreateRequest = Requests.newActionRequest("sync", "notifyCreate")
+                            .setAdditionalParameter("resourceContainer", resourceContainer)
+                            .setAdditionalParameter("resourceId", resourceId)
+                            .setContent(content);
+                    connectionFactory.getConnection().action(context, onCreateRequest);
+
+                    activityLogger.log(context, onCreateRequest,
+                                    "sync-create", onCreateRequest.getResourcePath(),
+                                    deltaObject, deltaObject, Status.SUCCESS);
+                    break;
+                }
+                case UPDATE:
+                case CREATE_OR_UPDATE: {
+                    JsonValue deltaObject = syncDeltaOperationHelper.build(syncDelta.getObject());
+                    content.put("oldValue", null);
+                    content.put("newValue", deltaObject.getObject());
+                    if (null != syncDelta.getPreviousUid()) {
+                        deltaObject.put("_previous-id", syncDelta.getPreviousUid().getUidValue());
+                    }
+                    // TODO import SynchronizationService.Action.notifyUpdate and ACTION_PARAM_ constants
+                    ActionRequest onUpdateRequest = Requests.newActionRequest("sync", "notifyUpdate")
+                            .setAdditionalParameter("resourceContainer", resourceContainer)
+                            .setAdditionalParameter("resourceId", resourceId)
+                            .setContent(content);
+                    connectionFactory.getConnection().action(context, onUpdateRequest);
+
+                    activityLogger.log(context, onUpdateRequest,
+                            "sync-update", onUpdateRequest.getResourcePath(),
+                            deltaObject, deltaObject, Status.SUCCESS);
+                    break;
+                }
+                case DELETE:
+                    // TODO Pass along the old deltaObject - do we have it?
+                    content.put("oldValue", null);
+                    // TODO import SynchronizationService.Action.notifyDelete and ACTION_PARAM_ constants
+                    ActionRequest onDeleteRequest = Requests.newActionRequest("sync", "notifyDelete")
+                            .setAdditionalParameter("resourceContainer", resourceContainer)
+                            .setAdditionalParameter("resourceId", resourceId)
+                            .setContent(content);
+                    connectionFactory.getConnection().action(context, onDeleteRequest);
+
+                    activityLogger.log(context, onDeleteRequest,
+                            "sync-delete", onDeleteRequest.getResourcePath(),
+                            null, null, Status.SUCCESS);
+                    break;
+            }
+        } catch (Exception e) {
+            final String failedRecord = SerializerUtil.serializeXmlObject(syncDelta, true);
+            logger.debug("Failed to synchronize {} object, handle failure using {}",
+                    syncDelta.getUid(), syncFailureHandler, e);
+            Map<String, Object> syncFailureMap = new HashMap<>(6);
+            syncFailureMap.put("token", syncDelta.getToken().getValue());
+            syncFailureMap.put("systemIdentifier", systemIdentifier.getName());
+            syncFailureMap.put("objectType", objectType);
+            syncFailureMap.put("uid", syncDelta.getUid().getUidValue());
+            syncFailureMap.put("failedRecord", failedRecord);
+            try {
+                syncFailureHandler.invoke(context, syncFailureMap, e);
+            } catch (SyncHandlerException syncHandlerException) {
+                // Current contract of the failure handler is that throwing this exception indicates 
+                // that it should retry for this entry
+                syncRetry.retry(sequence, syncHandlerException, failedRecord);
+                logger.debug("Sync failure handler indicated to stop current change set processing until retry handling: {}", 
+                        syncHandlerException.getMessage(), syncHandlerException);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Package level setter to allow unit tests to set the logger.
      * @param activityLogger the new activity logger
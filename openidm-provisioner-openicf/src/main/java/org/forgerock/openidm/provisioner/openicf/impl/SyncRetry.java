@@ -12,6 +12,7 @@
  * own identifying information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.provisioner.openicf.impl;
@@ -24,12 +25,22 @@ class SyncRetry {
     /**
      * The retry value, true if the sync should be retried, false otherwise.
      */
-    boolean value;
+    volatile boolean value;
 
     /**
      * The {@link Throwable} associated with the failure
      */
-    Throwable throwable;
+    volatile Throwable throwable;
+
+    /**
+     * The serialized delta that failed
+     */
+    volatile String failedRecord;
+
+    /**
+     * The sequence number of the delta that failed, in the order the connector returned the deltas
+     */
+    private long sequence = Long.MAX_VALUE;
 
     public SyncRetry() {
         value = false;
@@ -71,4 +82,39 @@ class SyncRetry {
     public void setThrowable(Throwable throwable) {
         this.throwable = throwable;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the serialized delta that failed.
+     *
+     * @return the serialized delta that failed, or null if not known
+     */
+    public String getFailedRecord() {
+        return failedRecord;
+    }
+
+    /**
+     * Sets the serialized delta that failed.
+     *
+     * @param failedRecord the serialized delta that failed
+     */
+    public void setFailedRecord(String failedRecord) {
+        this.failedRecord = failedRecord;
+    }
+
+    /**
+     * Records the failure of a delta to retry. When several deltas fail, the failure of the first of them in the
+     * order the connector returned them is kept, as the synchronization resumes from that delta.
+     *
+     * @param sequence the sequence number of the delta that failed
+     * @param throwable the {@link Throwable} associated with the failure
+     * @param failedRecord the serialized delta that failed
+     */
+    public synchronized void retry(long sequence, Throwable throwable, String failedRecord) {
+        if (sequence < this.sequence) {
+            this.sequence = sequence;
+            this.throwable = throwable;
+            this.failedRecord = failedRecord;
+            this.value = true;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance
+ * with the License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for
+ * the specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file
+ * and include the License file at legal/CDDLv1.0.txt. If applicable, add the following
+ * below the CDDL Header, with the fields enclosed by brackets [] replaced by your
+ * own identifying information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.provisioner.openicf.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.SyncDelta;
+import org.identityconnectors.framework.common.objects.SyncDeltaBuilder;
+import org.identityconnectors.framework.common.objects.SyncDeltaType;
+import org.identityconnectors.framework.common.objects.SyncToken;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.testng.annotations.Test;
+
+public class LiveSyncDispatcherTest {
+
+    @Test
+    public void testKeepsOrderPerObject() throws Exception {
+        final Map<String, List<Integer>> handled = new ConcurrentHashMap<>();
+        LiveSyncDispatcher dispatcher = new LiveSyncDispatcher("test", 4, 16, new LiveSyncDispatcher.DeltaHandler() {
+            @Override
+            public boolean handle(SyncDelta syncDelta, long sequence) {
+                List<Integer> tokens = handled.computeIfAbsent(syncDelta.getUid().getUidValue(),
+                        uid -> Collections.synchronizedList(new ArrayList<Integer>()));
+                tokens.add((Integer) syncDelta.getToken().getValue());
+                return true;
+            }
+        });
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(dispatcher.dispatch(delta("object" + (i % 10), i))).isTrue();
+        }
+        SyncToken token = dispatcher.finish();
+
+        assertThat(token.getValue()).isEqualTo(999);
+        assertThat(handled).hasSize(10);
+        for (List<Integer> tokens : handled.values()) {
+            assertThat(tokens).hasSize(100).isSorted();
+        }
+    }
+
+    @Test
+    public void testStopsAtDeltaToRetry() throws Exception {
+        LiveSyncDispatcher dispatcher = new LiveSyncDispatcher("test", 4, 16, new LiveSyncDispatcher.DeltaHandler() {
+            @Override
+            public boolean handle(SyncDelta syncDelta, long sequence) {
+                return !syncDelta.getToken().getValue().equals(50);
+            }
+        });
+
+        int dispatched = 0;
+        while (dispatched < 1000 && dispatcher.dispatch(delta("object" + dispatched, dispatched))) {
+            dispatched++;
+        }
+        SyncToken token = dispatcher.finish();
+
+        // The token only covers the deltas before the one to retry, however many were processed after it
+        assertThat(dispatched).isLessThan(1000);
+        assertThat(token.getValue()).isEqualTo(49);
+    }
+
+    @Test
+    public void testKeepsFailureOfFirstDeltaToRetry() throws Exception {
+        final SyncRetry syncRetry = new SyncRetry();
+        final CountDownLatch laterFailed = new CountDownLatch(1);
+        // object4 and object10 are handled by different workers, object10 fails first
+        LiveSyncDispatcher dispatcher = new LiveSyncDispatcher("test", 4, 16, new LiveSyncDispatcher.DeltaHandler() {
+            @Override
+            public boolean handle(SyncDelta syncDelta, long sequence) {
+                String uid = syncDelta.getUid().getUidValue();
+                try {
+                    if ("object4".equals(uid)) {
+                        laterFailed.await(10, TimeUnit.SECONDS);
+                    } else if (!"object10".equals(uid)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                syncRetry.retry(sequence, new Exception(uid), uid);
+                laterFailed.countDown();
+                return false;
+            }
+        });
+
+        int dispatched = 0;
+        while (dispatched < 20 && dispatcher.dispatch(delta("object" + dispatched, dispatched))) {
+            dispatched++;
+        }
+        SyncToken token = dispatcher.finish();
+
+        // The token and the failure to retry both are those of the first delta that failed
+        assertThat(token.getValue()).isEqualTo(3);
+        assertThat(syncRetry.getValue()).isTrue();
+        assertThat(syncRetry.getFailedRecord()).isEqualTo("object4");
+        assertThat(syncRetry.getThrowable()).hasMessage("object4");
+    }
+
+    @Test
+    public void testNoTokenWhenFirstDeltaFails() throws Exception {
+        LiveSyncDispatcher dispatcher = new LiveSyncDispatcher("test", 2, 4, new LiveSyncDispatcher.DeltaHandler() {
+            @Override
+            public boolean handle(SyncDelta syncDelta, long sequence) {
+                return false;
+            }
+        });
+
+        dispatcher.dispatch(delta("object", 0));
+
+        assertThat(dispatcher.finish()).isNull();
+    }
+
+    private static SyncDelta delta(String uid, int token) {
+        return new SyncDeltaBuilder()
+                .setDeltaType(SyncDeltaType.DELETE)
+                .setObjectClass(ObjectClass.ACCOUNT)
+                .setUid(new Uid(uid))
+                .setToken(new SyncToken(token))
+                .build();
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.quartz.impl;
 
@@ -20,15 +21,17 @@ import static org.forgerock.json.JsonValue.*;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
 import org.forgerock.json.resource.ConnectionFactory;
@@ -38,6 +41,7 @@ import org.forgerock.json.resource.NotFoundException;
 import org.forgerock.json.resource.PreconditionFailedException;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.cluster.ClusterEvent;
 import org.forgerock.openidm.cluster.ClusterEventListener;
@@ -45,6 +49,7 @@ import org.forgerock.openidm.cluster.ClusterManagementService;
 import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.repo.RepositoryService;
 import org.forgerock.services.context.Context;
+import org.forgerock.util.query.QueryFilter;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.ServiceReference;
@@ -134,6 +139,16 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      */
     private int writeRetries = -1;
 
+    /**
+     * The time, in milliseconds, after which the waiting trigger index is reloaded from the repo (defaults to 60s).
+     */
+    private long waitingTriggerReloadInterval = 60000;
+
+    /**
+     * The in-memory index of the waiting triggers, ordered by next fire time.
+     */
+    private final WaitingTriggerIndex waitingTriggerIndex = new WaitingTriggerIndex(new TriggerComparator());
+
     /**
      * A list of all "blocked" jobs.
      */
@@ -175,6 +190,9 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         this.loadHelper = loadHelper;
         // Set the number of retries for failed writes to the repository
         this.writeRetries = Integer.parseInt(IdentityServer.getInstance().getProperty("openidm.scheduler.repo.retry", "-1"));
+        // Set the interval between reloads of the waiting trigger index
+        this.waitingTriggerReloadInterval = Long.parseLong(IdentityServer.getInstance()
+                .getProperty("openidm.scheduler.waitingTriggers.reloadInterval", "60000"));
     }
 
     public boolean setClusterService() {
@@ -491,15 +509,8 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         synchronized (lock) {
             logger.debug("Attempting to acquire the next trigger");
             Trigger trigger = null;
-            WaitingTriggers waitingTriggers = null;
             while (trigger == null && !shutdown) {
-                try {
-                    waitingTriggers = getWaitingTriggers();
-                    trigger = waitingTriggers.getTriggers().first();
-                } catch (NoSuchElementException e1) {
-                    logger.debug("No waiting triggers to acquire");
-                    return null;
-                }
+                trigger = synchronizeWaitingTriggerIndex().first();
 
                 if (trigger == null) {
                     logger.debug("No waiting triggers to acquire");
@@ -528,10 +539,28 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 }
 
                 TriggerWrapper tw = getTriggerWrapper(trigger.getGroup(), trigger.getName());
+                if (tw == null) {
+                    logger.debug("Waiting trigger {} no longer exists", trigger.getFullName());
+                    trigger = null;
+                    continue;
+                }
+
+                // Another node may have rescheduled the trigger since it was indexed
+                Trigger indexed = trigger;
+                trigger = tw.getTrigger();
+                if (!Objects.equals(indexed.getNextFireTime(), trigger.getNextFireTime())) {
+                    logger.debug("Waiting trigger {} was rescheduled, requeueing", trigger.getFullName());
+                    if (trigger.getNextFireTime() != null) {
+                        addWaitingTrigger(trigger);
+                    }
+                    trigger = null;
+                    continue;
+                }
 
                 if (hasTriggerMisfired(trigger)) {
                     logger.debug("Attempting to process misfired trigger");
                     processTriggerMisfired(tw);
+                    trigger = tw.getTrigger();
                     if (trigger.getNextFireTime() != null) {
                         addWaitingTrigger(trigger);
                     }
@@ -1597,6 +1626,7 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                         // update repo
                         addRepoListName(getTriggerId(trigger.getGroup(), trigger.getName()),
                                 WAITING_TRIGGERS_RESOURCE_PATH, "names");
+                        waitingTriggerIndex.put(getTriggerId(trigger.getGroup(), trigger.getName()), trigger);
                         break;
                     } catch (PreconditionFailedException e) {
                         logger.debug("Adding waiting trigger failed {}, retrying", e);
@@ -1625,6 +1655,7 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                     try {
                         result = removeRepoListName(getTriggerId(trigger.getGroup(), trigger.getName()),
                                 WAITING_TRIGGERS_RESOURCE_PATH, "names");
+                        waitingTriggerIndex.remove(getTriggerId(trigger.getGroup(), trigger.getName()));
                         break;
                     } catch (PreconditionFailedException e) {
                         logger.debug("Removing waiting trigger failed {}, retrying", e);
@@ -1805,6 +1836,75 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         }
     }
 
+    /**
+     * Synchronizes the in-memory index of waiting triggers with the repo, and returns it.
+     *
+     * Only the list of waiting trigger ids is read, along with the triggers that joined it since the last
+     * synchronization. The whole index is reloaded in a single query once the reload interval has elapsed, so
+     * that triggers rescheduled by other nodes are picked up.
+     *
+     * @return the waiting trigger index
+     * @throws JobPersistenceException
+     */
+    private WaitingTriggerIndex synchronizeWaitingTriggerIndex() throws JobPersistenceException {
+        synchronized (lock) {
+            try {
+                JsonValue map = getOrCreateRepo(WAITING_TRIGGERS_RESOURCE_PATH);
+                String revision = map.get("_rev").asString();
+                if (waitingTriggerIndex.isSynchronized(revision)
+                        && !waitingTriggerIndex.isReloadDue(System.currentTimeMillis(), waitingTriggerReloadInterval)) {
+                    return waitingTriggerIndex;
+                }
+                List<String> names = map.get("names").defaultTo(new ArrayList<>()).asList(String.class);
+                Map<String, TriggerWrapper> loaded = new HashMap<>();
+                if (waitingTriggerIndex.isReloadDue(System.currentTimeMillis(), waitingTriggerReloadInterval)) {
+                    logger.debug("Reloading the waiting trigger index");
+                    waitingTriggerIndex.reload(System.currentTimeMillis());
+                    loaded = queryTriggerWrappers();
+                }
+                for (String id : waitingTriggerIndex.retain(names)) {
+                    TriggerWrapper tw = loaded.containsKey(id)
+                            ? loaded.get(id)
+                            : getTriggerWrapper(getGroupFromId(id), getNameFromId(id));
+                    if (tw == null) {
+                        logger.warn("Could not add {} to list of waiting Triggers. Trigger not found in repo", id);
+                    } else {
+                        logger.debug("Found waiting trigger {} in group {}", tw.getName(), tw.getGroup());
+                        waitingTriggerIndex.put(id, tw.getTrigger());
+                    }
+                }
+                waitingTriggerIndex.synchronizedWith(revision);
+                return waitingTriggerIndex;
+            } catch (ResourceException e) {
+                logger.warn("Error synchronizing waiting triggers", e);
+                waitingTriggerIndex.invalidate();
+                throw new JobPersistenceException("Error synchronizing waiting triggers", e);
+            }
+        }
+    }
+
+    /**
+     * Reads all triggers from the repo in a single query, keyed by trigger id. If the repo cannot query the
+     * triggers, an empty map is returned and the triggers are read one at a time instead.
+     *
+     * @return the triggers keyed by trigger id
+     */
+    private Map<String, TriggerWrapper> queryTriggerWrappers() throws JobPersistenceException {
+        Map<String, TriggerWrapper> triggers = new HashMap<>();
+        try {
+            for (ResourceResponse response : getRepositoryService().query(
+                    Requests.newQueryRequest(TRIGGERS_RESOURCE_PATH)
+                            .setQueryFilter(QueryFilter.<JsonPointer>alwaysTrue()))) {
+                TriggerWrapper tw = new TriggerWrapper(response.getContent());
+                triggers.put(getTriggerId(tw.getGroup(), tw.getName()), tw);
+            }
+        } catch (ResourceException | JsonValueException e) {
+            logger.debug("Unable to query triggers, reading them one at a time", e);
+            triggers.clear();
+        }
+        return triggers;
+    }
+
     /**
      * Adds a Trigger group name to the list of Trigger group names
      *
@@ -2070,6 +2170,7 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         synchronized (lock) {
             try {
                 logger.trace("Cleaning up instance");
+                waitingTriggerIndex.invalidate();
                 
                 // Get the list of all stored triggers
                 List<Trigger> storedTriggers = new ArrayList<>();
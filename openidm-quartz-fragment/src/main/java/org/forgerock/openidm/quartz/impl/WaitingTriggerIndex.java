@@ -0,0 +1,166 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.quartz.Trigger;
+
+/**
+ * An in-memory index of the waiting triggers, ordered by their next fire time.
+ *
+ * The repository's list of waiting trigger ids remains the source of truth, and is updated with optimistic
+ * revisions across cluster nodes. The index mirrors the triggers of that list, so that finding the next trigger to
+ * acquire only reads the list, and the triggers that joined it since the last time, rather than every waiting
+ * trigger. The triggers are kept as copies, since changing the fire time of a trigger in the index would break its
+ * ordering.
+ */
+class WaitingTriggerIndex {
+
+    private final TreeSet<Trigger> triggers;
+    private final Map<String, Trigger> triggersById = new HashMap<>();
+
+    /** The revision of the repository list the index was last synchronized with. */
+    private String revision;
+
+    /** The time of the last full reload of the index. */
+    private long loadedAt;
+
+    WaitingTriggerIndex(final Comparator<Trigger> comparator) {
+        this.triggers = new TreeSet<>(comparator);
+    }
+
+    /**
+     * Returns the waiting trigger with the earliest next fire time.
+     *
+     * @return the first trigger, or null if there are none
+     */
+    Trigger first() {
+        return triggers.isEmpty() ? null : triggers.first();
+    }
+
+    /**
+     * Adds a trigger, or replaces it if it was already indexed.
+     *
+     * @param triggerId the trigger id
+     * @param trigger the trigger
+     */
+    void put(final String triggerId, final Trigger trigger) {
+        remove(triggerId);
+        final Trigger copy = (Trigger) trigger.clone();
+        triggersById.put(triggerId, copy);
+        triggers.add(copy);
+    }
+
+    /**
+     * Removes a trigger.
+     *
+     * @param triggerId the trigger id
+     */
+    void remove(final String triggerId) {
+        final Trigger trigger = triggersById.remove(triggerId);
+        if (trigger != null) {
+            triggers.remove(trigger);
+        }
+    }
+
+    /**
+     * Removes the triggers that are no longer waiting, and returns the ids of the waiting triggers that are not
+     * indexed yet.
+     *
+     * @param waitingTriggerIds the ids in the repository list of waiting triggers
+     * @return the ids of the triggers to add to the index
+     */
+    List<String> retain(final Collection<String> waitingTriggerIds) {
+        final Set<String> waiting = new HashSet<>(waitingTriggerIds);
+        for (String triggerId : new ArrayList<>(triggersById.keySet())) {
+            if (!waiting.contains(triggerId)) {
+                remove(triggerId);
+            }
+        }
+        final List<String> missing = new ArrayList<>();
+        for (String triggerId : waiting) {
+            if (!triggersById.containsKey(triggerId)) {
+                missing.add(triggerId);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Returns whether the index reflects the given revision of the repository list of waiting triggers.
+     *
+     * @param revision the revision of the list
+     * @return true if the index is in sync with the list
+     */
+    boolean isSynchronized(final String revision) {
+        return this.revision != null && this.revision.equals(revision);
+    }
+
+    /**
+     * Records that the index reflects the given revision of the repository list of waiting triggers.
+     *
+     * @param revision the revision of the list
+     */
+    void synchronizedWith(final String revision) {
+        this.revision = revision;
+    }
+
+    /**
+     * Returns whether the index should be reloaded entirely. The list of waiting trigger ids does not change when
+     * another node reschedules a trigger that stays in it, so the index is reloaded from time to time.
+     *
+     * @param now the current time
+     * @param maxAge the maximum time, in milliseconds, between two reloads
+     * @return true if the index is due for a reload
+     */
+    boolean isReloadDue(final long now, final long maxAge) {
+        return revision == null || now - loadedAt >= maxAge;
+    }
+
+    /**
+     * Empties the index ahead of a full reload.
+     *
+     * @param now the current time
+     */
+    void reload(final long now) {
+        triggers.clear();
+        triggersById.clear();
+        revision = null;
+        loadedAt = now;
+    }
+
+    /**
+     * Empties the index and forces a full reload on the next synchronization.
+     */
+    void invalidate() {
+        triggers.clear();
+        triggersById.clear();
+        revision = null;
+    }
+
+    int size() {
+        return triggersById.size();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link WaitingTriggerIndex}
+ */
+public class WaitingTriggerIndexTest {
+
+    private WaitingTriggerIndex index;
+    private long now;
+
+    @BeforeMethod
+    public void setUp() {
+        index = new WaitingTriggerIndex(new RepoJobStore().new TriggerComparator());
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    public void testOrdersByNextFireTime() {
+        index.put("group_$x$x$_late", trigger("late", now + 20000));
+        index.put("group_$x$x$_early", trigger("early", now + 10000));
+
+        assertThat(index.first().getName()).isEqualTo("early");
+        index.remove("group_$x$x$_early");
+        assertThat(index.first().getName()).isEqualTo("late");
+        index.remove("group_$x$x$_late");
+        assertThat(index.first()).isNull();
+    }
+
+    @Test
+    public void testPutReplacesAndCopiesTrigger() {
+        Trigger trigger = trigger("t1", now + 10000);
+        index.put("group_$x$x$_t1", trigger);
+        index.put("group_$x$x$_t2", trigger("t2", now + 20000));
+        index.put("group_$x$x$_t1", trigger("t1", now + 30000));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.first().getName()).isEqualTo("t2");
+
+        // changing a trigger after indexing it does not change the index
+        trigger.setNextFireTime(new Date(now));
+        assertThat(index.first().getName()).isEqualTo("t2");
+    }
+
+    @Test
+    public void testRetainReturnsTriggersToLoad() {
+        index.put("group_$x$x$_t1", trigger("t1", now + 10000));
+        index.put("group_$x$x$_t2", trigger("t2", now + 20000));
+
+        assertThat(index.retain(Arrays.asList("group_$x$x$_t2", "group_$x$x$_t3")))
+                .containsExactly("group_$x$x$_t3");
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.first().getName()).isEqualTo("t2");
+    }
+
+    @Test
+    public void testSynchronizationAndReload() {
+        assertThat(index.isSynchronized("1")).isFalse();
+        assertThat(index.isReloadDue(now, 60000)).isTrue();
+
+        index.reload(now);
+        index.synchronizedWith("1");
+        assertThat(index.isSynchronized("1")).isTrue();
+        assertThat(index.isSynchronized("2")).isFalse();
+        assertThat(index.isReloadDue(now + 1000, 60000)).isFalse();
+        assertThat(index.isReloadDue(now + 60000, 60000)).isTrue();
+
+        index.invalidate();
+        assertThat(index.isSynchronized("1")).isFalse();
+        assertThat(index.isReloadDue(now + 1000, 60000)).isTrue();
+    }
+
+    private static Trigger trigger(String name, long nextFireTime) {
+        SimpleTrigger trigger = new SimpleTrigger(name, "group", new Date(nextFireTime));
+        trigger.setNextFireTime(new Date(nextFireTime));
+        return trigger;
+    }
+}
@@ -22,11 +22,18 @@ abstract class AbstractDataSourceConfig implements DataSourceConfig {
 
     private String databaseName;
 
+    private int statementCacheSize = 0;
+
     @Override
     public String getDatabaseName() {
         return databaseName;
     }
 
+    @Override
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
     @Override
     public abstract <R, P> R accept(DataSourceConfigVisitor<R, P> visitor, P parameters);
 }
@@ -27,6 +27,13 @@ interface DataSourceConfig {
      */
     String getDatabaseName();
 
+    /**
+     * Return the maximum number of prepared statements the repository caches per connection.
+     *
+     * @return the statement cache size, or 0 to not cache prepared statements
+     */
+    int getStatementCacheSize();
+
     /**
      * Accepts the passed visitor.
      *
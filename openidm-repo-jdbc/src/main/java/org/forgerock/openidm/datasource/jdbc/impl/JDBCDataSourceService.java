@@ -172,6 +172,11 @@ public class JDBCDataSourceService implements DataSourceService {
                 return dataSource;
             }
 
+            @Override
+            public int getStatementCacheSize() {
+                return dataSourceConfig.getStatementCacheSize();
+            }
+
             @Override
             public void shutdown() {
                 dataSourceFactory.shutdown(dataSource);
@@ -0,0 +1,34 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc;
+
+import java.util.Map;
+
+/**
+ * Receives the objects read by a query, one row at a time.
+ *
+ * @see TableHandler#query(String, Map, java.sql.Connection, int, ObjectHandler)
+ */
+public interface ObjectHandler {
+
+    /**
+     * Handles the object mapped from a row.
+     *
+     * @param object the mapped object
+     * @return true to continue with the next row, false to stop reading rows
+     */
+    boolean handleObject(Map<String, Object> object);
+}
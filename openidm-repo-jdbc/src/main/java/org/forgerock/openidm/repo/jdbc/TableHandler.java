@@ -20,6 +20,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+* Portions Copyrighted 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.repo.jdbc;
 
@@ -85,6 +86,41 @@ public interface TableHandler {
             Map<String, Object> obj, Connection connection)
             throws SQLException, IOException, ResourceException;
 
+    /**
+     * Prepares the creation of objects of a type within a transaction spanning several objects. Anything the
+     * handler has to commit before creating such objects, for instance registering the type, is committed here
+     * rather than part way through the transaction.
+     *
+     * @param type the qualifier of the objects to create
+     * @param connection
+     * @throws java.sql.SQLException
+     * @throws ResourceException if the preparation failed
+     */
+    public default void prepareCreate(String type, Connection connection) throws SQLException, ResourceException {
+        // Nothing to prepare by default
+    }
+
+    /**
+     * Creates several new objects of the same type in the object set, within the transaction of the connection.
+     * <p>
+     * Handlers may batch the statements of all the objects together. By default the objects are created one at
+     * a time. As for a single create, the {@code _id} and {@code _rev} properties of each object are set.
+     *
+     * @param type the qualifier of the objects to create
+     * @param objects the contents of the objects to create, keyed by their identifier without the qualifier
+     * @param connection
+     * @throws PreconditionFailedException if an object with the same ID already exists.
+     * @throws InternalServerErrorException if the operation failed because of a (possibly transient) failure
+     * @throws java.io.IOException
+     * @throws java.sql.SQLException
+     */
+    public default void create(String type, Map<String, Map<String, Object>> objects, Connection connection)
+            throws SQLException, IOException, ResourceException {
+        for (Map.Entry<String, Map<String, Object>> object : objects.entrySet()) {
+            create(type + "/" + object.getKey(), type, object.getKey(), object.getValue(), connection);
+        }
+    }
+
     /**
      * Updates the specified object in the object set. 
      * <p>
@@ -157,6 +193,32 @@ public interface TableHandler {
     public List<Map<String, Object>> query(String type, Map<String, Object> params, Connection connection)
                 throws SQLException, ResourceException;
 
+    /**
+     * Performs the query on the specified object like {@link #query(String, Map, Connection)}, but hands each
+     * result record over as soon as it is read from the database instead of returning them all at once.
+     * Stops reading as soon as the handler declines a record.
+     * <p>
+     * Handlers unable to stream fall back to reading all records before handing them over.
+     *
+     * @param type identifies the object to query.
+     * @param params the parameters of the query to perform.
+     * @param connection the connection, for exclusive use by the query until it returns
+     * @param fetchSize the number of rows to fetch from the database at a time, as understood by the JDBC driver
+     * @param handler receives the result records in JSON object structure format
+     * @throws BadRequestException if the specified params contain invalid arguments, e.g. a query id that is not
+     * configured, a query expression that is invalid, or missing query substitution tokens.
+     * @throws InternalServerErrorException if the operation failed because of a (possibly transient) failure
+     * @throws java.sql.SQLException
+     */
+    public default void query(String type, Map<String, Object> params, Connection connection, int fetchSize,
+            ObjectHandler handler) throws SQLException, ResourceException {
+        for (Map<String, Object> object : query(type, params, connection)) {
+            if (!handler.handleObject(object)) {
+                break;
+            }
+        }
+    }
+
     /**
      * Performs the command on the specified target and returns the number of affected objects
      * <p>
@@ -177,6 +239,19 @@ public interface TableHandler {
     public Integer command(String type, Map<String, Object> params, Connection connection)
             throws SQLException, ResourceException;
 
+    /**
+     * Estimates the number of objects of a type from the statistics the database keeps for query planning,
+     * without counting them. The estimate is only as recent as the statistics.
+     *
+     * @param type the type of the objects to count
+     * @param connection
+     * @return the estimated number of objects, or null if the database keeps no usable statistics
+     * @throws java.sql.SQLException
+     */
+    public default Integer estimateCount(String type, Connection connection) throws SQLException {
+        return null;
+    }
+
     /**
      * Check if a given queryId exists in our set of known queries
      *
@@ -195,6 +270,16 @@ public interface TableHandler {
      * @return the raw query String
      */
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params);
+
+    /**
+     * Whether query filters rendered by this handler order by object id after the sort keys, and can resume after
+     * the sort key values and object id of the last row of the previous page instead of at an offset.
+     *
+     * @return true if paged query filters can resume from a keyset
+     */
+    public default boolean isKeysetPagingSupported() {
+        return false;
+    }
     
     /**
      * Query if a given exception signifies a well known error type
@@ -12,12 +12,12 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
 import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
 import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
-import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 import static org.forgerock.openidm.repo.util.Clauses.where;
 
 import java.sql.Connection;
@@ -30,7 +30,6 @@ import java.util.Map;
 import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.NotFoundException;
-import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
 import org.forgerock.openidm.repo.util.Clause;
 import org.forgerock.util.query.QueryFilter;
@@ -130,14 +129,8 @@ public class DB2TableHandler extends GenericTableHandler {
         // other half of OPENIDM-2773 fix
         replacementTokens.put("otype", params.get("_resource"));
 
-        // JsonValue-cheat to avoid an unchecked cast
-        final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
         // Check for sort keys and build up order-by syntax
-        if (sortKeys != null && sortKeys.size() > 0) {
-            prepareSortKeyStatements(builder, sortKeys, replacementTokens);
-        } else {
-            builder.orderBy("obj.id", false);
-        }
+        prepareOrderByAndKeyset(builder, params, replacementTokens);
 
         return builder.toSQL();
     }
@@ -188,4 +181,12 @@ public class DB2TableHandler extends GenericTableHandler {
             CleanupHelper.loggedClose(readForUpdateStatement);
         }
     }
+
+    /**
+     * DB2 orders nulls after any value in ascending order.
+     */
+    @Override
+    protected boolean nullsSortHigh() {
+        return true;
+    }
 }
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
@@ -31,6 +32,7 @@ import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.openidm.crypto.CryptoService;
+import org.forgerock.openidm.repo.jdbc.ObjectHandler;
 import org.forgerock.openidm.util.Accessor;
 import org.forgerock.openidm.util.JsonUtil;
 import org.slf4j.Logger;
@@ -182,13 +184,24 @@ class ExplicitResultSetMapper implements ResultSetMapper {
      */
     @Override
     public List<Map<String, Object>> mapToObject(ResultSet rs, String queryId, String type, Map<String, Object> params) throws SQLException, InternalServerErrorException {
-        List<Map<String, Object>> result = new ArrayList<>();
+        final List<Map<String, Object>> result = new ArrayList<>();
+        mapToObject(rs, queryId, type, params, new ObjectHandler() {
+            @Override
+            public boolean handleObject(Map<String, Object> object) {
+                return result.add(object);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void mapToObject(ResultSet rs, String queryId, String type, Map<String, Object> params,
+            ObjectHandler handler) throws SQLException, InternalServerErrorException {
         Set<String> names = ExplicitResultSetMapper.getColumnNames(rs);
-        while (rs.next()) {
-            JsonValue obj = mapToJsonValue(rs, names);
-            result.add(obj.asMap());
+        boolean proceed = true;
+        while (proceed && rs.next()) {
+            proceed = handler.handleObject(mapToJsonValue(rs, names).asMap());
         }
-        return result;
     }
 
     /**
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
@@ -19,6 +20,7 @@ import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
 import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
 import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
+import static org.forgerock.openidm.repo.jdbc.impl.KeysetCookie.PAGED_RESULTS_KEYSET;
 import static org.forgerock.openidm.repo.util.Clauses.where;
 
 import java.io.IOException;
@@ -26,9 +28,12 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,9 +49,13 @@ import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.repo.jdbc.Constants;
 import org.forgerock.openidm.repo.jdbc.ErrorType;
+import org.forgerock.openidm.repo.jdbc.ObjectHandler;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.openidm.repo.jdbc.impl.query.StatementCache;
 import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
+import org.forgerock.openidm.repo.util.AbstractSQLQueryFilterVisitor;
+import org.forgerock.openidm.repo.util.Clause;
 import org.forgerock.util.query.QueryFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,6 +76,9 @@ public class GenericTableHandler implements TableHandler {
      */
     protected static final int DEFAULT_SEARCHABLE_LENGTH = 2000;
 
+    /** The maximum number of identifiers to look up in one query; Oracle allows at most 1000 in a list */
+    private static final int MAX_IN_LIST_SIZE = 500;
+
     SQLExceptionHandler sqlExceptionHandler;
 
     GenericTableConfig cfg;
@@ -99,6 +111,9 @@ public class GenericTableHandler implements TableHandler {
         DELETEQUERYSTR,
         PROPCREATEQUERYSTR,
         PROPDELETEQUERYSTR,
+        PROPREADQUERYSTR,
+        PROPUPDATEQUERYSTR,
+        PROPDELETEKEYQUERYSTR,
         QUERYALLIDS
     }
 
@@ -107,6 +122,15 @@ public class GenericTableHandler implements TableHandler {
         return queries.queryIdExists(queryId);
     }
 
+    /**
+     * Sets the cache to get prepared statements from.
+     *
+     * @param statementCache the cache of prepared statements, or null to prepare statements on every use
+     */
+    void setStatementCache(StatementCache statementCache) {
+        queries.setStatementCache(statementCache);
+    }
+
     /**
      * Create a generic table handler using a QueryFilterVisitor that uses generic object property tables to process
      * query filters.
@@ -142,7 +166,7 @@ public class GenericTableHandler implements TableHandler {
             this.sqlExceptionHandler = sqlExceptionHandler;
         }
 
-        queries = new TableQueries(this, mainTableName, propTableName, dbSchemaName, getSearchableLength(), genericResultMapper);
+        queries = new TableQueries(this, mainTableName, propTableName, dbSchemaName, getQueryValueLength(), genericResultMapper);
         queryMap = Collections.unmodifiableMap(initializeQueryMap());
         queries.setConfiguredQueries(queriesConfig, commandsConfig, queryMap);
 
@@ -167,6 +191,14 @@ public class GenericTableHandler implements TableHandler {
         return DEFAULT_SEARCHABLE_LENGTH;
     }
 
+    /**
+     * Get the length query parameters are trimmed to, which is the searchable length unless queries compare against
+     * something else than the properties table.
+     */
+    int getQueryValueLength() {
+        return getSearchableLength();
+    }
+
     protected Map<QueryDefinition, String> initializeQueryMap() {
         Map<QueryDefinition, String> result = new EnumMap<>(QueryDefinition.class);
 
@@ -192,6 +224,9 @@ public class GenericTableHandler implements TableHandler {
         // Object properties table
         result.put(QueryDefinition.PROPCREATEQUERYSTR, "INSERT INTO " + propertyTable + " ( " + mainTableName + "_id, propkey, proptype, propvalue) VALUES (?,?,?,?)");
         result.put(QueryDefinition.PROPDELETEQUERYSTR, "DELETE prop FROM " + propertyTable + " prop INNER JOIN " + mainTable + " obj ON prop." + mainTableName + "_id = obj.id INNER JOIN " + typeTable + " objtype ON obj.objecttypes_id = objtype.id WHERE objtype.objecttype = ? AND obj.objectid = ?");
+        result.put(QueryDefinition.PROPREADQUERYSTR, "SELECT propkey, proptype, propvalue FROM " + propertyTable + " WHERE " + mainTableName + "_id = ?");
+        result.put(QueryDefinition.PROPUPDATEQUERYSTR, "UPDATE " + propertyTable + " SET proptype = ?, propvalue = ? WHERE " + mainTableName + "_id = ? AND propkey = ?");
+        result.put(QueryDefinition.PROPDELETEKEYQUERYSTR, "DELETE FROM " + propertyTable + " WHERE " + mainTableName + "_id = ? AND propkey = ?");
         // Default object queries
         String tableVariable =  dbSchemaName == null ? "${_mainTable}" : "${_dbSchema}.${_mainTable}";
         result.put(QueryDefinition.QUERYALLIDS, "SELECT obj.objectid FROM " + tableVariable + " obj INNER JOIN " + typeTable + " objtype ON obj.objecttypes_id = objtype.id WHERE objtype.objecttype = ${_resource}");
@@ -241,38 +276,187 @@ public class GenericTableHandler implements TableHandler {
 
         PreparedStatement createStatement = null;
         try {
-            createStatement = queries.getPreparedStatement(connection, queryMap.get(QueryDefinition.CREATEQUERYSTR), true);
+            createStatement = prepareCreateStatement(connection);
+            long dbId = insertObject(createStatement, fullId, typeId, localId, obj);
+            JsonValue jv = new JsonValue(obj);
+            writeValueProperties(fullId, dbId, localId, jv, connection);
+        } finally {
+            CleanupHelper.loggedClose(createStatement);
+        }
+    }
 
-            logger.debug("Create with fullid {}", fullId);
-            String rev = "0";
-            obj.put(Constants.OBJECT_ID, localId); // Save the id in the object
-            obj.put("_rev", rev); // Save the rev in the object, and return the changed rev from the create.
-            String objString = mapper.writeValueAsString(obj);
+    @Override
+    public void prepareCreate(String type, Connection connection) throws SQLException, InternalServerErrorException {
+        getTypeId(type, connection);
+    }
+
+    /**
+     * Creates several objects, inserting the main table rows of all of them in the same batches, then reading the
+     * identifiers generated for them a batch at a time, and inserting their properties in the same batches.
+     *
+     * @see org.forgerock.openidm.repo.jdbc.TableHandler#create(java.lang.String, java.util.Map, java.sql.Connection)
+     */
+    @Override
+    public void create(String type, Map<String, Map<String, Object>> objects, Connection connection)
+            throws SQLException, IOException, InternalServerErrorException {
+
+        long typeId = getTypeId(type, connection); // Registered by prepareCreate when within a bulk transaction
+
+        BatchedStatement creates = new BatchedStatement(connection, QueryDefinition.CREATEQUERYSTR);
+        BatchedStatement inserts = new BatchedStatement(connection, QueryDefinition.PROPCREATEQUERYSTR);
+        try {
+            for (Map.Entry<String, Map<String, Object>> object : objects.entrySet()) {
+                String localId = object.getKey();
+                setCreateParameters(creates.prepare(), type + "/" + localId, typeId, localId, object.getValue());
+                creates.add();
+            }
+            creates.flush();
+
+            if (cfg.hasPossibleSearchableProperties()) {
+                Map<String, Long> dbIds = readDbIds(type, typeId, objects.keySet(), connection);
+                for (Map.Entry<String, Map<String, Object>> object : objects.entrySet()) {
+                    long dbId = dbIds.get(object.getKey());
+                    Map<String, List<String>> properties = new LinkedHashMap<>();
+                    collectValueProperties(new JsonValue(object.getValue()), properties);
+                    for (Map.Entry<String, List<String>> property : properties.entrySet()) {
+                        PreparedStatement statement = inserts.prepare();
+                        statement.setLong(1, dbId);
+                        statement.setString(2, property.getKey());
+                        statement.setString(3, property.getValue().get(0));
+                        statement.setString(4, property.getValue().get(1));
+                        inserts.add();
+                    }
+                }
+                inserts.flush();
+            }
+        } finally {
+            creates.close();
+            inserts.close();
+        }
+    }
+
+    /**
+     * Reads the identifiers of the main table records of objects, a batch of objects at a time. Not all drivers
+     * return the keys generated by a batch of inserts.
+     *
+     * @param type the type of the objects
+     * @param typeId the identifier of the object type
+     * @param localIds the local identifiers of the objects
+     * @param connection the DB connection
+     * @return the identifiers of the records by the local identifier of their object
+     * @throws SQLException if the query failed
+     * @throws InternalServerErrorException if an object has no record
+     */
+    private Map<String, Long> readDbIds(String type, long typeId, Collection<String> localIds, Connection connection)
+            throws SQLException, InternalServerErrorException {
+        String mainTable = dbSchemaName == null ? mainTableName : dbSchemaName + "." + mainTableName;
+        Map<String, Long> dbIds = new HashMap<>(localIds.size() * 2);
+        List<String> ids = new ArrayList<>(localIds);
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(ids.size(), from + MAX_IN_LIST_SIZE));
+            StringBuilder sql = new StringBuilder("SELECT obj.id, obj.objectid FROM ").append(mainTable)
+                    .append(" obj WHERE obj.objecttypes_id = ? AND obj.objectid IN (");
+            for (int i = 0; i < batch.size(); i++) {
+                sql.append(i == 0 ? "?" : ",?");
+            }
+            sql.append(")");
+            PreparedStatement statement = null;
+            ResultSet rs = null;
+            try {
+                statement = connection.prepareStatement(sql.toString());
+                statement.setLong(1, typeId);
+                for (int i = 0; i < batch.size(); i++) {
+                    statement.setString(i + 2, batch.get(i));
+                }
+                rs = statement.executeQuery();
+                while (rs.next()) {
+                    dbIds.put(rs.getString(2), rs.getLong(1));
+                }
+            } finally {
+                CleanupHelper.loggedClose(rs);
+                CleanupHelper.loggedClose(statement);
+            }
+        }
+        for (String localId : localIds) {
+            if (!dbIds.containsKey(localId)) {
+                throw new InternalServerErrorException("Object creation for " + type + "/" + localId
+                        + " failed to retrieve an assigned ID from the DB.");
+            }
+        }
+        return dbIds;
+    }
+
+    /**
+     * Prepares the statement inserting an object into the main table, returning the generated key.
+     *
+     * @param connection the DB connection
+     * @return the prepared statement
+     * @throws SQLException if preparing the statement failed
+     */
+    PreparedStatement prepareCreateStatement(Connection connection) throws SQLException {
+        return queries.getPreparedStatement(connection, queryMap.get(QueryDefinition.CREATEQUERYSTR), true);
+    }
 
-            logger.trace("Populating statement {} with params {}, {}, {}, {}",
-                    queryMap.get(QueryDefinition.CREATEQUERYSTR), typeId, localId, rev, objString);
-            createStatement.setLong(1, typeId);
-            createStatement.setString(2, localId);
-            createStatement.setString(3, rev);
-            createStatement.setString(4, objString);
-            logger.debug("Executing: {}", createStatement);
-            int val = createStatement.executeUpdate();
+    /**
+     * Inserts an object into the main table, setting its {@code _id} and initial {@code _rev}.
+     *
+     * @param createStatement the statement prepared by {@link #prepareCreateStatement(Connection)}
+     * @param fullId the full URI of the object
+     * @param typeId the identifier of the object type
+     * @param localId the local identifier of the object
+     * @param obj the object to insert
+     * @return the generated identifier of the main table record
+     * @throws SQLException if the insert failed
+     * @throws IOException if the object could not be serialized
+     * @throws InternalServerErrorException if no identifier was generated
+     */
+    long insertObject(PreparedStatement createStatement, String fullId, long typeId, String localId,
+            Map<String, Object> obj) throws SQLException, IOException, InternalServerErrorException {
+        setCreateParameters(createStatement, fullId, typeId, localId, obj);
+        logger.debug("Executing: {}", createStatement);
+        createStatement.executeUpdate();
 
-            ResultSet keys = createStatement.getGeneratedKeys();
+        ResultSet keys = createStatement.getGeneratedKeys();
+        try {
             boolean validKeyEntry = keys.next();
             if (!validKeyEntry) {
                 throw new InternalServerErrorException("Object creation for " + fullId + " failed to retrieve an assigned ID from the DB.");
             }
-            long dbId = keys.getLong(1);
-
-            logger.debug("Created object for id {} with rev {}", fullId, rev);
-            JsonValue jv = new JsonValue(obj);
-            writeValueProperties(fullId, dbId, localId, jv, connection);
+            logger.debug("Created object for id {} with rev {}", fullId, obj.get("_rev"));
+            return keys.getLong(1);
         } finally {
-            CleanupHelper.loggedClose(createStatement);
+            CleanupHelper.loggedClose(keys);
         }
     }
 
+    /**
+     * Sets the parameters of the statement inserting an object into the main table, setting the {@code _id} and
+     * initial {@code _rev} of the object.
+     *
+     * @param createStatement the statement inserting into the main table
+     * @param fullId the full URI of the object
+     * @param typeId the identifier of the object type
+     * @param localId the local identifier of the object
+     * @param obj the object to insert
+     * @throws SQLException if setting the parameters failed
+     * @throws IOException if the object could not be serialized
+     */
+    private void setCreateParameters(PreparedStatement createStatement, String fullId, long typeId, String localId,
+            Map<String, Object> obj) throws SQLException, IOException {
+        logger.debug("Create with fullid {}", fullId);
+        String rev = "0";
+        obj.put(Constants.OBJECT_ID, localId); // Save the id in the object
+        obj.put("_rev", rev); // Save the rev in the object, and return the changed rev from the create.
+        String objString = mapper.writeValueAsString(obj);
+
+        logger.trace("Populating statement {} with params {}, {}, {}, {}",
+                queryMap.get(QueryDefinition.CREATEQUERYSTR), typeId, localId, rev, objString);
+        createStatement.setLong(1, typeId);
+        createStatement.setString(2, localId);
+        createStatement.setString(3, rev);
+        createStatement.setString(4, objString);
+    }
+
     /**
      * Writes all properties of a given resource to the properties table and links them to the main table record.
      *
@@ -330,15 +514,8 @@ public class GenericTableHandler implements TableHandler {
                 if (entry.isMap() || entry.isList()) {
                     batchingCount = writeValueProperties(fullId, dbId, localId, entry, connection, propCreateStatement, batchingCount);
                 } else {
-                    String propvalue = null;
-                    Object val = entry.getObject();
-                    if (val != null) {
-                        propvalue = StringUtils.left(val.toString(), getSearchableLength());
-                    }
-                    String proptype = null;
-                    if (propvalue != null) {
-                        proptype = entry.getObject().getClass().getName(); // TODO: proper type info
-                    }
+                    String propvalue = getPropValue(entry);
+                    String proptype = getPropType(entry);
                     if (logger.isTraceEnabled()) {
                         logger.trace("Populating statement {} with params {}, {}, {}, {}, {}",
                                 queryMap.get(QueryDefinition.PROPCREATEQUERYSTR), dbId, localId, propkey, proptype, propvalue);
@@ -372,6 +549,199 @@ public class GenericTableHandler implements TableHandler {
         return batchingCount;
     }
 
+    /**
+     * Brings the properties table in line with the searchable properties of an updated resource. Rather than
+     * deleting and re-inserting all properties, the stored properties are compared with the new ones, and only
+     * the properties that were removed, added or changed are deleted, inserted or updated.
+     *
+     * @param fullId the full URI of the resource the belongs to
+     * @param dbId the generated identifier to link the properties table with the main table (foreign key)
+     * @param localId the local identifier of the resource these properties belong to
+     * @param value the JSON value with the properties to write
+     * @param connection the DB connection
+     * @throws SQLException if reading or writing the properties failed
+     */
+    void updateValueProperties(String fullId, long dbId, String localId, JsonValue value, Connection connection)
+            throws SQLException {
+        Map<String, List<String>> existing = readValueProperties(dbId, connection);
+        Map<String, List<String>> updated = new LinkedHashMap<>();
+        if (cfg.hasPossibleSearchableProperties()) {
+            collectValueProperties(value, updated);
+        }
+
+        BatchedStatement deletes = new BatchedStatement(connection, QueryDefinition.PROPDELETEKEYQUERYSTR);
+        BatchedStatement inserts = new BatchedStatement(connection, QueryDefinition.PROPCREATEQUERYSTR);
+        BatchedStatement updates = new BatchedStatement(connection, QueryDefinition.PROPUPDATEQUERYSTR);
+        try {
+            for (Map.Entry<String, List<String>> property : existing.entrySet()) {
+                String propkey = property.getKey();
+                if (property.getValue() == null || !updated.containsKey(propkey)) {
+                    PreparedStatement statement = deletes.prepare();
+                    statement.setLong(1, dbId);
+                    statement.setString(2, propkey);
+                    deletes.add();
+                }
+            }
+            // Properties stored more than once are re-inserted, so their deletes have to be executed first
+            deletes.flush();
+            for (Map.Entry<String, List<String>> property : updated.entrySet()) {
+                String propkey = property.getKey();
+                String proptype = property.getValue().get(0);
+                String propvalue = property.getValue().get(1);
+                List<String> existingProperty = existing.get(propkey);
+                if (existingProperty == null) {
+                    // Either a new property, or one stored more than once and deleted above
+                    PreparedStatement statement = inserts.prepare();
+                    statement.setLong(1, dbId);
+                    statement.setString(2, propkey);
+                    statement.setString(3, proptype);
+                    statement.setString(4, propvalue);
+                    inserts.add();
+                } else if (!existingProperty.equals(property.getValue())) {
+                    PreparedStatement statement = updates.prepare();
+                    statement.setString(1, proptype);
+                    statement.setString(2, propvalue);
+                    statement.setLong(3, dbId);
+                    statement.setString(4, propkey);
+                    updates.add();
+                }
+            }
+            inserts.flush();
+            updates.flush();
+            logger.trace("Properties of {}: {} deleted, {} inserted, {} updated, {} unchanged", fullId,
+                    deletes.count, inserts.count, updates.count,
+                    updated.size() - inserts.count - updates.count);
+        } finally {
+            deletes.close();
+            inserts.close();
+            updates.close();
+        }
+    }
+
+    /**
+     * Reads the stored properties of a resource.
+     *
+     * @param dbId the generated identifier of the main table record
+     * @param connection the DB connection
+     * @return the proptype and propvalue of each property keyed by propkey, with a null value for a propkey stored
+     * more than once
+     * @throws SQLException if the read failed
+     */
+    private Map<String, List<String>> readValueProperties(long dbId, Connection connection) throws SQLException {
+        Map<String, List<String>> properties = new LinkedHashMap<>();
+        PreparedStatement readPropStatement = null;
+        ResultSet rs = null;
+        try {
+            readPropStatement = getPreparedStatement(connection, QueryDefinition.PROPREADQUERYSTR);
+            readPropStatement.setLong(1, dbId);
+            logger.debug("Executing: {}", readPropStatement);
+            rs = readPropStatement.executeQuery();
+            while (rs.next()) {
+                List<String> property = Arrays.asList(rs.getString("proptype"), rs.getString("propvalue"));
+                String propkey = rs.getString("propkey");
+                properties.put(propkey, properties.containsKey(propkey) ? null : property);
+            }
+            return properties;
+        } finally {
+            CleanupHelper.loggedClose(rs);
+            CleanupHelper.loggedClose(readPropStatement);
+        }
+    }
+
+    /**
+     * Internal recursive function to collect the searchable properties of a value, as they are written to the
+     * properties table.
+     *
+     * @param value the JSON value with the properties
+     * @param properties the proptype and propvalue of each property, keyed by propkey
+     */
+    private void collectValueProperties(JsonValue value, Map<String, List<String>> properties) {
+        for (JsonValue entry : value) {
+            JsonPointer propPointer = entry.getPointer();
+            if (cfg.isSearchable(propPointer)) {
+                if (entry.isMap() || entry.isList()) {
+                    collectValueProperties(entry, properties);
+                } else {
+                    properties.put(propPointer.toString(), Arrays.asList(getPropType(entry), getPropValue(entry)));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param entry a searchable property
+     * @return the value written to the properties table, trimmed to the searchable length
+     */
+    private String getPropValue(JsonValue entry) {
+        Object val = entry.getObject();
+        return val != null ? StringUtils.left(val.toString(), getSearchableLength()) : null;
+    }
+
+    /**
+     * @param entry a searchable property
+     * @return the type written to the properties table
+     */
+    private String getPropType(JsonValue entry) {
+        Object val = entry.getObject();
+        return val != null ? val.getClass().getName() : null; // TODO: proper type info
+    }
+
+    /**
+     * A statement writing a row of the main or properties table, prepared on first use and batched if batching is
+     * enabled.
+     */
+    private class BatchedStatement {
+        private final Connection connection;
+        private final QueryDefinition queryDefinition;
+        /** Whether each execution writes a row; deleting the properties of a key may find none left */
+        private final boolean rowsExpected;
+        private PreparedStatement statement;
+        private int batchingCount = 0;
+        private int count = 0;
+
+        BatchedStatement(Connection connection, QueryDefinition queryDefinition) {
+            this.connection = connection;
+            this.queryDefinition = queryDefinition;
+            this.rowsExpected = queryDefinition != QueryDefinition.PROPDELETEKEYQUERYSTR;
+        }
+
+        PreparedStatement prepare() throws SQLException {
+            if (statement == null) {
+                statement = getPreparedStatement(connection, queryDefinition);
+            }
+            return statement;
+        }
+
+        void add() throws SQLException {
+            logger.debug("Executing: {}", statement);
+            count++;
+            if (enableBatching) {
+                statement.addBatch();
+                if (++batchingCount >= maxBatchSize) {
+                    flush();
+                }
+            } else {
+                TableQueries.checkUpdateCounts(new int[] { statement.executeUpdate() }, rowsExpected);
+            }
+        }
+
+        void flush() throws SQLException {
+            if (enableBatching && batchingCount > 0) {
+                int[] numUpdates = statement.executeBatch();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Batch of {}, updated: {}", queryDefinition, Arrays.toString(numUpdates));
+                }
+                TableQueries.checkUpdateCounts(numUpdates, rowsExpected);
+                statement.clearBatch();
+                batchingCount = 0;
+            }
+        }
+
+        void close() {
+            CleanupHelper.loggedClose(statement);
+        }
+    }
+
     /**
      * @inheritDoc
      */
@@ -518,7 +888,6 @@ public class GenericTableHandler implements TableHandler {
         obj.put("_rev", newRev); // Save the rev in the object, and return the changed rev from the create.
 
         PreparedStatement updateStatement = null;
-        PreparedStatement deletePropStatement = null;
         try {
             JsonValue result = new JsonValue(readForUpdate(fullId, type, localId, connection));
             String existingRev = result.get(Constants.RAW_OBJECT_REV).asString();
@@ -530,7 +899,6 @@ public class GenericTableHandler implements TableHandler {
                 throw new PreconditionFailedException("Update rejected as current Object revision " + existingRev + " is different than expected by caller (" + rev + "), the object has changed since retrieval.");
             }
             updateStatement = getPreparedStatement(connection, QueryDefinition.UPDATEQUERYSTR);
-            deletePropStatement = getPreparedStatement(connection, QueryDefinition.PROPDELETEQUERYSTR);
 
             // Support changing object identifier
             String newLocalId = (String) obj.get(Constants.OBJECT_ID);
@@ -555,17 +923,9 @@ public class GenericTableHandler implements TableHandler {
             }
 
             JsonValue jv = new JsonValue(obj);
-            // TODO: only update what changed?
-            logger.trace("Populating prepared statement {} for {} {} {}", deletePropStatement, fullId, type, localId);
-            deletePropStatement.setString(1, type);
-            deletePropStatement.setString(2, localId);
-            logger.debug("Update properties del statement: {}", deletePropStatement);
-            int deleteCount = deletePropStatement.executeUpdate();
-            logger.trace("Deleted child rows: {} for: {}", deleteCount, fullId);
-            writeValueProperties(fullId, dbId, localId, jv, connection);
+            updateValueProperties(fullId, dbId, localId, jv, connection);
         } finally {
             CleanupHelper.loggedClose(updateStatement);
-            CleanupHelper.loggedClose(deletePropStatement);
         }
     }
 
@@ -623,6 +983,12 @@ public class GenericTableHandler implements TableHandler {
         return queries.query(type, params, connection);
     }
 
+    @Override
+    public void query(String type, Map<String, Object> params, Connection connection, int fetchSize,
+            ObjectHandler handler) throws ResourceException {
+        queries.query(type, params, connection, fetchSize, handler);
+    }
+
     @Override
     public Integer command(String type, Map<String, Object> params, Connection connection) throws SQLException, ResourceException {
         return queries.command(type, params, connection);
@@ -637,6 +1003,11 @@ public class GenericTableHandler implements TableHandler {
         return queries.getPreparedStatement(connection, queryMap.get(queryDefinition));
     }
 
+    @Override
+    public boolean isKeysetPagingSupported() {
+        return true;
+    }
+
     /**
      * Render and SQL SELECT statement with placeholders for the given query filter.
      *
@@ -673,29 +1044,70 @@ public class GenericTableHandler implements TableHandler {
                         .and("objecttypes.objecttype = ${otype}"))
 
                 // construct where clause by visiting filter
-                .where(filter.accept(new GenericSQLQueryFilterVisitor(DEFAULT_SEARCHABLE_LENGTH, builder), replacementTokens));
+                .where(filter.accept(newQueryFilterVisitor(builder), replacementTokens));
 
         // other half of OPENIDM-2773 fix
         replacementTokens.put("otype", params.get("_resource"));
 
-        // JsonValue-cheat to avoid an unchecked cast
-        final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
         // Check for sort keys and build up order-by syntax
-        prepareSortKeyStatements(builder, sortKeys, replacementTokens);
+        prepareOrderByAndKeyset(builder, params, replacementTokens);
 
         return builder.toSQL();
     }
 
+    /**
+     * Creates the visitor rendering a query filter to the where clause of a query.
+     *
+     * @param builder the SQL builder of the query, to which the visitor may add joins
+     * @return the query filter visitor
+     */
+    protected AbstractSQLQueryFilterVisitor<Clause, Map<String, Object>> newQueryFilterVisitor(SQLBuilder builder) {
+        return new GenericSQLQueryFilterVisitor(DEFAULT_SEARCHABLE_LENGTH, builder);
+    }
+
+    /**
+     * Orders the query by its sort keys and then by object id, so that pages follow each other in a stable order.
+     * When resuming after the last row of the previous page, only the rows sorting after that row are selected.
+     *
+     * @param builder the SQL builder, with the where clause of the query filter
+     * @param params a map containing query parameters
+     * @param replacementTokens a {@link java.util.Map} containing replacement tokens for the {@link java.sql.PreparedStatement}
+     */
+    protected void prepareOrderByAndKeyset(SQLBuilder builder, Map<String, Object> params, Map<String, Object> replacementTokens) {
+        // JsonValue-cheat to avoid an unchecked cast
+        final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).defaultTo(Collections.emptyList()).asList(SortKey.class);
+        final List<String> sortColumns = prepareSortKeyStatements(builder, sortKeys, replacementTokens);
+        builder.orderBy("obj.objectid", true);
+
+        final KeysetCookie keyset = (KeysetCookie) params.get(PAGED_RESULTS_KEYSET);
+        if (keyset != null) {
+            builder.andWhere(keyset.toClause(sortColumns, sortKeys, "obj.objectid", nullsSortHigh(), "",
+                    replacementTokens));
+        }
+    }
+
+    /**
+     * Whether the database orders nulls after any value in ascending order, as PostgreSQL, Oracle and DB2 do, rather
+     * than before any value, as MySQL and SQL Server do. An object without a sort key value sorts as null.
+     *
+     * @return true if nulls sort high
+     */
+    protected boolean nullsSortHigh() {
+        return false;
+    }
+
     /**
      * Loops through sort keys constructing the inner join and key statements.
      *
      * @param builder the SQL builder
      * @param sortKeys a {@link java.util.List} of sort keys
      * @param replacementTokens a {@link java.util.Map} containing replacement tokens for the {@link java.sql.PreparedStatement}
+     * @return the columns ordered by, one for each sort key
      */
-    protected void prepareSortKeyStatements(SQLBuilder builder, List<SortKey> sortKeys, Map<String, Object> replacementTokens) {
+    protected List<String> prepareSortKeyStatements(SQLBuilder builder, List<SortKey> sortKeys, Map<String, Object> replacementTokens) {
+        final List<String> sortColumns = new ArrayList<>();
         if (sortKeys == null) {
-            return;
+            return sortColumns;
         }
         for (int i = 0; i < sortKeys.size(); i++) {
             final SortKey sortKey = sortKeys.get(i);
@@ -706,6 +1118,8 @@ public class GenericTableHandler implements TableHandler {
                     .orderBy(tableAlias + ".propvalue", sortKey.isAscendingOrder());
 
             replacementTokens.put(tokenName, sortKey.getField().toString());
+            sortColumns.add(tableAlias + ".propvalue");
         }
+        return sortColumns;
     }
 }
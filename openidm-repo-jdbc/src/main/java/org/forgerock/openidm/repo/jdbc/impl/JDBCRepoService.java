@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyrighted 2024 3A Systems LLC.
+ * Portions Copyrighted 2024-2026 3A Systems LLC.
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
@@ -39,9 +39,13 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -66,6 +70,7 @@ import org.forgerock.json.resource.QueryRequest;
 import org.forgerock.json.resource.QueryResourceHandler;
 import org.forgerock.json.resource.QueryResponse;
 import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.Request;
 import org.forgerock.json.resource.RequestHandler;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceResponse;
@@ -79,8 +84,11 @@ import org.forgerock.openidm.repo.RepoBootService;
 import org.forgerock.openidm.repo.RepositoryService;
 import org.forgerock.openidm.repo.jdbc.DatabaseType;
 import org.forgerock.openidm.repo.jdbc.ErrorType;
+import org.forgerock.openidm.repo.jdbc.ObjectHandler;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.openidm.repo.jdbc.impl.query.StatementCache;
 import org.forgerock.openidm.util.Accessor;
+import org.forgerock.openidm.util.TransactionContext;
 import org.forgerock.util.promise.Promise;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
@@ -98,6 +106,8 @@ import org.osgi.service.component.propertytypes.ServiceVendor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.primitives.Ints;
+
 /**
  * Repository service implementation using JDBC.
  */
@@ -118,12 +128,27 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
 
     public static final String PID = "org.forgerock.openidm.repo.jdbc";
     private static final String ACTION_COMMAND = "command";
+    private static final String ACTION_BULK = "bulk";
 
     // Keys in the JSON configuration
     public static final String CONFIG_USE_DATASOURCE = "useDataSource";
     public static final String CONFIG_DB_TYPE = "dbType";
     public static final String CONFIG_MAX_TX_RETRY = "maxTxRetry";
     public static final String CONFIG_MAX_BATCH_SIZE = "maxBatchSize";
+    public static final String CONFIG_MAX_BULK_TRANSACTION_SIZE = "maxBulkTransactionSize";
+    public static final String CONFIG_QUERY_FETCH_SIZE = "queryFetchSize";
+    public static final String CONFIG_COUNT_CACHE_TTL = "countCacheTtl";
+    public static final String CONFIG_REQUEST_TRANSACTIONS = "requestTransactions";
+    public static final String CONFIG_JSON_QUERIES = "jsonQueries";
+
+    /** The number of rows fetched at a time when streaming query results, unless configured otherwise */
+    private static final int DEFAULT_QUERY_FETCH_SIZE = 1000;
+
+    /** The time to live of cached counts in seconds, unless configured otherwise */
+    private static final int DEFAULT_COUNT_CACHE_TTL = 5;
+
+    /** The query of all objects, whose count may be estimated like the one of all object ids */
+    private static final String QUERY_ALL = "query-all";
 
     Map<String, TableHandler> tableHandlers;
     TableHandler defaultTableHandler;
@@ -132,6 +157,23 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
 
     private JsonValue config;
     private int maxTxRetry = 5;
+    private int maxBulkTransactionSize = 100;
+    int queryFetchSize = DEFAULT_QUERY_FETCH_SIZE;
+
+    /**
+     * Whether requests within a {@link TransactionContext} share the transaction of its unit of work. Operations
+     * within a shared transaction are not retried on deadlocks or timeouts, so this is off by default.
+     */
+    boolean requestTransactions = false;
+
+    /** Whether generic tables are queried through the JSON functions of the database rather than their properties */
+    private boolean jsonQueries = false;
+
+    /** The cache of the results of count queries, or null if not enabled */
+    volatile QueryCountCache countCache;
+
+    /** The cache of prepared statements shared by the table handlers, or null if not enabled for the data source */
+    private StatementCache statementCache;
 
     /** CryptoService for detecting whether a value is encrypted */
     @Reference
@@ -213,6 +255,7 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     @Deactivate
     void deactivate(ComponentContext compContext) {
         logger.debug("Deactivating Service {}", compContext);
+        closeStatementCache();
         logger.info("Repository stopped.");
     }
 
@@ -244,7 +287,8 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     @Override
     public Promise<ResourceResponse, ResourceException> handleRead(Context context, ReadRequest request) {
         try {
-            return read(request).asPromise();
+            final RequestTransaction transaction = getRequestTransaction(context);
+            return (transaction != null ? read(transaction, request) : read(request)).asPromise();
         } catch (final ResourceException e) {
             return e.asPromise();
         } catch (Exception e) {
@@ -293,7 +337,8 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     @Override
     public Promise<ResourceResponse, ResourceException> handleCreate(Context context, CreateRequest request) {
         try {
-            return create(request).asPromise();
+            final RequestTransaction transaction = getRequestTransaction(context);
+            return (transaction != null ? create(transaction, request) : create(request)).asPromise();
         } catch (final ResourceException e) {
             return e.asPromise();
         } catch (Exception e) {
@@ -335,6 +380,7 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
 
                 connection.commit();
                 logger.debug("Committed created object for id: {}", fullId);
+                invalidateCounts(type);
 
             } catch (SQLException ex) {
                 if (logger.isDebugEnabled()) {
@@ -385,7 +431,8 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     @Override
     public Promise<ResourceResponse, ResourceException> handleUpdate(Context context, UpdateRequest request) {
         try {
-            return update(request).asPromise();
+            final RequestTransaction transaction = getRequestTransaction(context);
+            return (transaction != null ? update(transaction, request) : update(request)).asPromise();
         } catch (final ResourceException e) {
             return e.asPromise();
         } catch (Exception e) {
@@ -430,6 +477,7 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
 
                 connection.commit();
                 logger.debug("Commited updated object for id: {}", request.getResourcePath());
+                invalidateCounts(type);
             } catch (SQLException ex) {
                 if (logger.isDebugEnabled()) {
                     logger.debug("SQL Exception in update of {} with error code {}, sql state {}",
@@ -480,7 +528,8 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     @Override
     public Promise<ResourceResponse, ResourceException> handleDelete(Context context, DeleteRequest request) {
         try {
-            return delete(request).asPromise();
+            final RequestTransaction transaction = getRequestTransaction(context);
+            return (transaction != null ? delete(transaction, request) : delete(request)).asPromise();
         } catch (final ResourceException e) {
             return e.asPromise();
         } catch (Exception e) {
@@ -527,6 +576,7 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
 
                 connection.commit();
                 logger.debug("Commited deleted object for id: {}", request.getResourcePath());
+                invalidateCounts(type);
             } catch (ResourceException ex) {
                 logger.debug("ResourceException in delete of {}", request.getResourcePath(), ex);
                 rollback(connection);
@@ -565,6 +615,225 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         return result;
     }
 
+    /**
+     * Gets the repository transaction of a request, enlisting one in its transaction context first if it has none.
+     *
+     * @param context the context of the request
+     * @return the transaction, or null if the request is not within an active transaction context, or request
+     *         transactions are disabled
+     * @throws ResourceException if the transaction could not be started
+     */
+    private RequestTransaction getRequestTransaction(Context context) throws ResourceException {
+        if (!requestTransactions || !context.containsContext(TransactionContext.class)) {
+            return null;
+        }
+        final TransactionContext transactionContext = context.asContext(TransactionContext.class);
+        if (!transactionContext.isActive()) {
+            return null;
+        }
+        final TransactionContext.Resource enlisted = transactionContext.getResource(this);
+        if (enlisted != null) {
+            return (RequestTransaction) enlisted;
+        }
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            final RequestTransaction transaction = new RequestTransaction(this, connection);
+            connection = null; // Released by the transaction from now on
+            try {
+                transactionContext.enlist(this, transaction);
+                return transaction;
+            } catch (IllegalStateException ex) {
+                // The unit of work completed, or a concurrent request within it enlisted a transaction first
+                transaction.rollback();
+                return (RequestTransaction) transactionContext.getResource(this);
+            }
+        } catch (SQLException ex) {
+            throw new InternalServerErrorException("Starting the repository transaction of the request failed: "
+                    + ex.getMessage(), ex);
+        } finally {
+            CleanupHelper.loggedClose(connection);
+        }
+    }
+
+    /**
+     * Reads an object within the repository transaction of the request.
+     */
+    private ResourceResponse read(RequestTransaction transaction, final ReadRequest request)
+            throws ResourceException {
+        if (request.getResourcePathObject().size() < 2) {
+            throw new BadRequestException(
+                    "The repository requires clients to supply an identifier for the object to read.");
+        }
+        final String type = request.getResourcePathObject().parent().toString();
+        final String localId = request.getResourcePathObject().leaf();
+        final TableHandler handler = getTableHandler(type);
+        if (handler == null) {
+            throw newResourceException(ResourceException.INTERNAL_ERROR,
+                    "No handler configured for resource type " + type);
+        }
+        try {
+            return transaction.execute(null, new RequestTransaction.Operation<ResourceResponse>() {
+                @Override
+                public ResourceResponse execute(Connection connection)
+                        throws SQLException, IOException, ResourceException {
+                    return handler.read(request.getResourcePath(), type, localId, connection);
+                }
+            });
+        } catch (SQLException ex) {
+            throw transactionFailure(transaction, handler, "Reading object", request.getResourcePath(), ex);
+        } catch (IOException ex) {
+            logger.debug("IO Exception in read of {}", request.getResourcePath(), ex);
+            throw new InternalServerErrorException("Conversion of read object failed", ex);
+        }
+    }
+
+    /**
+     * Creates an object within the repository transaction of the request. The object is created as a batch of one,
+     * as single creates of some handlers commit to register the type of the object.
+     */
+    private ResourceResponse create(RequestTransaction transaction, CreateRequest request) throws ResourceException {
+        if (request.getResourcePathObject().isEmpty()) {
+            throw new BadRequestException(
+                    "The repository requires clients to supply a type for the object to create.");
+        }
+        final String type = request.getResourcePath();
+        final String localId = (request.getNewResourceId() == null || request.getNewResourceId().isEmpty())
+                ? UUID.randomUUID().toString() // Generate ID server side.
+                : request.getNewResourceId();
+        final String fullId = type + "/" + localId;
+        final JsonValue obj = request.getContent();
+        final TableHandler handler = getTableHandler(type);
+        if (handler == null) {
+            throw newResourceException(ResourceException.INTERNAL_ERROR,
+                    "No handler configured for resource type " + type);
+        }
+        try {
+            transaction.prepareCreate(handler, type);
+            transaction.execute(type, new RequestTransaction.Operation<Void>() {
+                @Override
+                public Void execute(Connection connection) throws SQLException, IOException, ResourceException {
+                    handler.create(type, Collections.singletonMap(localId, obj.asMap()), connection);
+                    return null;
+                }
+            });
+        } catch (SQLException ex) {
+            if (handler.isErrorType(ex, ErrorType.DUPLICATE_KEY)) {
+                throw new PreconditionFailedException(
+                        "Create rejected as Object with same ID already exists and was detected. "
+                                + "(" + ex.getErrorCode() + "-" + ex.getSQLState() + ")"
+                                + ex.getMessage(), ex);
+            }
+            throw transactionFailure(transaction, handler, "Creating object", fullId, ex);
+        } catch (IOException ex) {
+            logger.debug("IO Exception in create of {}", fullId, ex);
+            throw new InternalServerErrorException("Conversion of object to create failed", ex);
+        }
+        return newResourceResponse(obj.get(FIELD_CONTENT_ID).asString(), obj.get(FIELD_CONTENT_REVISION).asString(), obj);
+    }
+
+    /**
+     * Updates an object within the repository transaction of the request.
+     */
+    private ResourceResponse update(RequestTransaction transaction, final UpdateRequest request)
+            throws ResourceException {
+        if (request.getResourcePathObject().size() < 2) {
+            throw new BadRequestException(
+                    "The repository requires clients to supply an identifier for the object to update.");
+        }
+        final String type = request.getResourcePathObject().parent().toString();
+        final String localId = request.getResourcePathObject().leaf();
+        final Map<String, Object> obj = request.getContent().asMap();
+        final String rev = request.getRevision() != null && !"".equals(request.getRevision())
+                ? request.getRevision()
+                : read(transaction, Requests.newReadRequest(request.getResourcePath())).getRevision();
+        final TableHandler handler = getTableHandler(type);
+        if (handler == null) {
+            throw newResourceException(ResourceException.INTERNAL_ERROR,
+                    "No handler configured for resource type " + type);
+        }
+        try {
+            transaction.execute(type, new RequestTransaction.Operation<Void>() {
+                @Override
+                public Void execute(Connection connection) throws SQLException, IOException, ResourceException {
+                    handler.update(request.getResourcePath(), type, localId, rev, obj, connection);
+                    return null;
+                }
+            });
+        } catch (SQLException ex) {
+            throw transactionFailure(transaction, handler, "Updating object", request.getResourcePath(), ex);
+        } catch (IOException ex) {
+            logger.debug("IO Exception in update of {}", request.getResourcePath(), ex);
+            throw new InternalServerErrorException("Conversion of object to update failed", ex);
+        }
+        return read(transaction, Requests.newReadRequest(request.getResourcePath()));
+    }
+
+    /**
+     * Deletes an object within the repository transaction of the request.
+     */
+    private ResourceResponse delete(RequestTransaction transaction, final DeleteRequest request)
+            throws ResourceException {
+        if (request.getResourcePathObject().size() < 2) {
+            throw new BadRequestException(
+                    "The repository requires clients to supply an identifier for the object to update.");
+        }
+        if (request.getRevision() == null) {
+            throw new ConflictException(
+                    "Object passed into delete does not have revision it expects set.");
+        }
+        final String type = request.getResourcePathObject().parent().toString();
+        final String localId = request.getResourcePathObject().leaf();
+        final TableHandler handler = getTableHandler(type);
+        if (handler == null) {
+            throw newResourceException(ResourceException.INTERNAL_ERROR,
+                    "No handler configured for resource type " + type);
+        }
+        try {
+            return transaction.execute(type, new RequestTransaction.Operation<ResourceResponse>() {
+                @Override
+                public ResourceResponse execute(Connection connection)
+                        throws SQLException, IOException, ResourceException {
+                    // Read in the resource before deleting
+                    final ResourceResponse result = handler.read(request.getResourcePath(), type, localId, connection);
+                    handler.delete(request.getResourcePath(), type, localId, request.getRevision(), connection);
+                    return result;
+                }
+            });
+        } catch (SQLException ex) {
+            throw transactionFailure(transaction, handler, "Deleting object", request.getResourcePath(), ex);
+        } catch (IOException ex) {
+            logger.debug("IO Exception in delete of {}", request.getResourcePath(), ex);
+            throw new InternalServerErrorException("Deleting object failed " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Translates the failure of an operation within the repository transaction of a request. Operations are not
+     * retried within the transaction: once the database reports a deadlock or a lost connection, the transaction
+     * may have been rolled back as a whole, so it is marked to be rolled back, and the request may be retried.
+     *
+     * @param transaction the repository transaction of the request
+     * @param handler the table handler of the operation
+     * @param failedOperation the description of the operation
+     * @param id the identifier of the object operated on
+     * @param ex the failure
+     * @return the exception to throw
+     */
+    private ResourceException transactionFailure(RequestTransaction transaction, TableHandler handler,
+            String failedOperation, String id, SQLException ex) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("SQL Exception in request transaction on {} with error code {}, sql state {}",
+                    id, ex.getErrorCode(), ex.getSQLState(), ex);
+        }
+        if (handler.isErrorType(ex, ErrorType.DEADLOCK_OR_TIMEOUT)
+                || handler.isErrorType(ex, ErrorType.CONNECTION_FAILURE)) {
+            transaction.setRollbackOnly();
+        }
+        return new InternalServerErrorException(failedOperation + " failed ("
+                + ex.getErrorCode() + "-" + ex.getSQLState() + "): " + ex.getMessage(), ex);
+    }
+
     @Override
     public Promise<ResourceResponse, ResourceException> handlePatch(Context context, PatchRequest request) {
         return new NotSupportedException("Patch operations are not supported").asPromise();
@@ -583,14 +852,28 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
 
             final boolean pagedResultsRequested = requestPageSize > 0;
 
-            // index of first record (used for SKIP/OFFSET)
+            final TableHandler tableHandler = getTableHandler(trimStartingSlash(request.getResourcePath()));
+
+            // Query filters resume after the last row of the previous page rather than at an offset,
+            // so that deep pages cost the same as the first one
+            final boolean keysetPaging = pagedResultsRequested && request.getQueryFilter() != null
+                    && tableHandler != null && tableHandler.isKeysetPagingSupported();
+
+            // index of first record (used for SKIP/OFFSET, or to count the results so far when paging by keyset)
             final int firstResultIndex;
 
+            // the keyset of the last row of the previous page, if paging by keyset
+            KeysetCookie keyset = null;
+
             if (pagedResultsRequested) {
                 if (!isNullOrEmpty(pagedResultsCookie)) {
-                    try {
-                        firstResultIndex = Integer.parseInt(pagedResultsCookie);
-                    } catch (final NumberFormatException e) {
+                    final Integer cookieOffset = Ints.tryParse(pagedResultsCookie);
+                    if (cookieOffset != null) {
+                        firstResultIndex = cookieOffset;
+                    } else if (keysetPaging) {
+                        keyset = KeysetCookie.decode(pagedResultsCookie, request.getSortKeys().size());
+                        firstResultIndex = keyset.getOffset();
+                    } else {
                         throw new BadRequestException("Invalid paged results cookie");
                     }
                 } else {
@@ -601,12 +884,9 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
             }
 
             // Once cookie is processed Queries.query() can rely on the offset.
-            request.setPagedResultsOffset(firstResultIndex);
+            request.setPagedResultsOffset(keyset != null ? 0 : firstResultIndex);
 
-            List<ResourceResponse> results = query(request);
-            for (ResourceResponse result : results) {
-                handler.handleResource(result);
-            }
+            final StreamedResults results = streamQuery(getRequestTransaction(context), request, keyset, handler);
 
             /*
              * Execute additional -count query if we are paging
@@ -614,38 +894,26 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
             final String nextCookie;
 
             // The number of results (if known)
-            final int resultCount;
+            int resultCount;
+            CountPolicy countPolicy = CountPolicy.EXACT;
 
             if (pagedResultsRequested) {
-                TableHandler tableHandler = getTableHandler(trimStartingSlash(request.getResourcePath()));
 
                 // count if requested
                 switch (request.getTotalPagedResultsPolicy()) {
                     case ESTIMATE:
-                    case EXACT:
-                        // Get total if -count query is available
-                        final String countQueryId = request.getQueryId() + "-count";
-                        if (tableHandler.queryIdExists(countQueryId)) {
-                            QueryRequest countRequest = Requests.copyOfQueryRequest(request);
-                            countRequest.setQueryId(countQueryId);
-
-                            // Strip pagination parameters
-                            countRequest.setPageSize(0);
-                            countRequest.setPagedResultsOffset(0);
-                            countRequest.setPagedResultsCookie(null);
-
-                            List<ResourceResponse> countResult = query(countRequest);
-
-                            if (countResult != null && !countResult.isEmpty()) {
-                                resultCount = countResult.get(0).getContent().get("total").asInteger();
-                            } else {
-                                logger.debug("Count query {} failed", countQueryId);
-                                resultCount = NO_COUNT;
-                            }
-                        } else {
-                            logger.debug("Count query with id {} not found", countQueryId);
-                            resultCount = NO_COUNT;
+                        // The statistics of the database only tell how many objects of a type there are in all
+                        final Integer estimate = selectsAllObjects(request)
+                                ? estimateCount(trimStartingSlash(request.getResourcePath()), tableHandler)
+                                : null;
+                        if (estimate != null) {
+                            resultCount = estimate;
+                            countPolicy = CountPolicy.ESTIMATE;
+                            break;
                         }
+                        // otherwise count exactly
+                    case EXACT:
+                        resultCount = count(request, tableHandler);
                         break;
                     case NONE:
                     default:
@@ -659,6 +927,13 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                     final int remainingResults = resultCount - (firstResultIndex + results.size());
                     if (remainingResults == 0) {
                         nextCookie = null;
+                    } else if (keysetPaging) {
+                        // continue by offset if the last row has no usable keyset
+                        final KeysetCookie nextKeyset = KeysetCookie.after(results.last(),
+                                request.getSortKeys(), firstResultIndex + results.size());
+                        nextCookie = nextKeyset != null
+                                ? nextKeyset.encode()
+                                : String.valueOf(firstResultIndex + results.size());
                     } else {
                         nextCookie = String.valueOf(firstResultIndex + requestPageSize);
                     }
@@ -671,7 +946,7 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
             if (resultCount == NO_COUNT) {
                 return newQueryResponse(nextCookie).asPromise();
             } else {
-                return newQueryResponse(nextCookie, CountPolicy.EXACT, resultCount).asPromise();
+                return newQueryResponse(nextCookie, countPolicy, resultCount).asPromise();
             }
         } catch (final ResourceException e) {
             return e.asPromise();
@@ -680,19 +955,111 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         }
     }
 
+    /**
+     * Whether a query returns all the objects of its type.
+     *
+     * @param request the query request
+     * @return true for the query filter {@code true} and the queries of all objects
+     */
+    private static boolean selectsAllObjects(QueryRequest request) {
+        if (request.getQueryFilter() != null) {
+            return "true".equals(request.getQueryFilter().toString());
+        }
+        return ServerConstants.QUERY_ALL_IDS.equals(request.getQueryId()) || QUERY_ALL.equals(request.getQueryId());
+    }
+
+    /**
+     * Estimates the number of objects of a type from the statistics of the database.
+     *
+     * @param type the type of the objects to count
+     * @param tableHandler the table handler of the type
+     * @return the estimated number of objects, or null if the database has no usable statistics
+     */
+    private Integer estimateCount(String type, TableHandler tableHandler) {
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            connection.setAutoCommit(true);
+            return tableHandler.estimateCount(type, connection);
+        } catch (SQLException ex) {
+            logger.debug("Failed to estimate the number of {} objects from the database statistics", type, ex);
+            return null;
+        } finally {
+            CleanupHelper.loggedClose(connection);
+        }
+    }
+
+    /**
+     * Counts the results of a query with its {@code -count} query, if there is one. Counts are cached until objects
+     * of the type are written, or their time to live elapses.
+     *
+     * @param request the query request
+     * @param tableHandler the table handler of the type queried
+     * @return the number of results, or {@link QueryResponse#NO_COUNT} if they cannot be counted
+     * @throws ResourceException on failure to execute the count query
+     */
+    private int count(QueryRequest request, TableHandler tableHandler) throws ResourceException {
+        if (request.getQueryId() == null) {
+            // queries by filter or expression have no -count query
+            return NO_COUNT;
+        }
+        // Get total if -count query is available
+        final String countQueryId = request.getQueryId() + "-count";
+        if (!tableHandler.queryIdExists(countQueryId)) {
+            logger.debug("Count query with id {} not found", countQueryId);
+            return NO_COUNT;
+        }
+
+        // Take the key before counting, so that a write while counting invalidates the count
+        final QueryCountCache cache = countCache;
+        final List<Object> key = cache != null
+                ? cache.key(trimStartingSlash(request.getResourcePath()), countQueryId,
+                        request.getAdditionalParameters())
+                : null;
+        final Integer cachedCount = key != null ? cache.get(key) : null;
+        if (cachedCount != null) {
+            return cachedCount;
+        }
+
+        QueryRequest countRequest = Requests.copyOfQueryRequest(request);
+        countRequest.setQueryId(countQueryId);
+
+        // Strip pagination parameters
+        countRequest.setPageSize(0);
+        countRequest.setPagedResultsOffset(0);
+        countRequest.setPagedResultsCookie(null);
+
+        List<ResourceResponse> countResult = query(countRequest);
+
+        if (countResult == null || countResult.isEmpty()) {
+            logger.debug("Count query {} failed", countQueryId);
+            return NO_COUNT;
+        }
+        final int count = countResult.get(0).getContent().get("total").asInteger();
+        if (key != null) {
+            cache.put(key, count);
+        }
+        return count;
+    }
+
+    /**
+     * Invalidates the cached counts of a type, once objects of the type were written.
+     *
+     * @param type the type of the objects written
+     */
+    void invalidateCounts(String type) {
+        final QueryCountCache cache = countCache;
+        if (cache != null) {
+            cache.invalidate(trimStartingSlash(type));
+        }
+    }
+
     @Override
     public List<ResourceResponse> query(QueryRequest request) throws ResourceException {
         String fullId = request.getResourcePath();
         String type = trimStartingSlash(fullId);
         logger.trace("Full id: {} Extracted type: {}", fullId, type);
-        Map<String, Object> params = new HashMap<>();
-        params.putAll(request.getAdditionalParameters());
-        params.put(QUERY_ID, request.getQueryId());
-        params.put(QUERY_EXPRESSION, request.getQueryExpression());
-        params.put(QUERY_FILTER, request.getQueryFilter());
-        params.put(PAGE_SIZE, request.getPageSize());
-        params.put(PAGED_RESULTS_OFFSET, request.getPagedResultsOffset());
-        params.put(SORT_KEYS, request.getSortKeys());  
+        Map<String, Object> params = getQueryParams(request, null);
 
         Connection connection = null;
         try {
@@ -729,11 +1096,255 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         }
     }
     
+    /**
+     * Gets the parameters of a query request for the table handlers.
+     *
+     * @param request the query request
+     * @param keyset the keyset of the last row of the previous page, or null
+     * @return the query parameters
+     */
+    private Map<String, Object> getQueryParams(QueryRequest request, KeysetCookie keyset) {
+        Map<String, Object> params = new HashMap<>();
+        params.putAll(request.getAdditionalParameters());
+        params.put(QUERY_ID, request.getQueryId());
+        params.put(QUERY_EXPRESSION, request.getQueryExpression());
+        params.put(QUERY_FILTER, request.getQueryFilter());
+        params.put(PAGE_SIZE, request.getPageSize());
+        params.put(PAGED_RESULTS_OFFSET, request.getPagedResultsOffset());
+        params.put(SORT_KEYS, request.getSortKeys());
+        if (keyset != null) {
+            params.put(KeysetCookie.PAGED_RESULTS_KEYSET, keyset);
+        }
+        return params;
+    }
+
+    /**
+     * Performs the query, handing the results to the handler a batch at a time rather than collecting them all
+     * first. Reading stops as soon as the handler returns false.
+     *
+     * <p>
+     * Query filters of handlers supporting keyset paging are read a fetch size at a time, each batch resuming after
+     * the last row of the previous one. Each batch is read on a connection which is released before its results are
+     * handed over, so that no connection is held while the handler, which may issue further requests to the
+     * repository, runs. Other queries cannot resume where they stopped, and are handed over row by row as they are
+     * read from the database a fetch size at a time, holding their connection until the handler declines a result
+     * or all are read.
+     *
+     * <p>
+     * Within a request transaction, the query runs on the connection of the transaction, so that it sees the
+     * changes of the request, and is read at once.
+     *
+     * @param transaction the repository transaction of the request, or null
+     * @param request the query request
+     * @param keyset the keyset of the last row of the previous page, or null
+     * @param handler the handler of the query results
+     * @return the number of results handled, and the last of them
+     * @throws ResourceException on failure to execute the query
+     */
+    private StreamedResults streamQuery(RequestTransaction transaction, QueryRequest request, KeysetCookie keyset,
+            QueryResourceHandler handler) throws ResourceException {
+        final String fullId = request.getResourcePath();
+        final String type = trimStartingSlash(fullId);
+        final StreamedResults results = new StreamedResults(handler);
+
+        final TableHandler tableHandler = getTableHandler(type);
+        if (tableHandler == null) {
+            throw newResourceException(ResourceException.INTERNAL_ERROR,
+                    "No handler configured for resource type " + type);
+        }
+        if (transaction != null) {
+            final Map<String, Object> params = getQueryParams(request, keyset);
+            try {
+                results.handleAll(transaction.execute(null,
+                        new RequestTransaction.Operation<List<Map<String, Object>>>() {
+                            @Override
+                            public List<Map<String, Object>> execute(Connection connection)
+                                    throws SQLException, IOException, ResourceException {
+                                return tableHandler.query(type, params, connection);
+                            }
+                        }));
+                return results;
+            } catch (SQLException ex) {
+                throw transactionFailure(transaction, tableHandler, "Querying", fullId, ex);
+            } catch (IOException ex) {
+                logger.debug("IO Exception in query of {}", fullId, ex);
+                throw new InternalServerErrorException("Querying failed: " + ex.getMessage(), ex);
+            }
+        }
+        if (request.getQueryFilter() == null || !tableHandler.isKeysetPagingSupported()) {
+            streamAll(type, getQueryParams(request, keyset), tableHandler, results);
+            return results;
+        }
+
+        // MySQL streams rows one at a time with a fetch size of Integer.MIN_VALUE, which is no batch size
+        final int fetchSize = queryFetchSize > 0 ? queryFetchSize : DEFAULT_QUERY_FETCH_SIZE;
+        final int pageSize = request.getPageSize();
+        KeysetCookie batchKeyset = keyset;
+        int batchOffset = request.getPagedResultsOffset();
+        while (true) {
+            final int batchSize = pageSize > 0 ? Math.min(fetchSize, pageSize - results.size()) : fetchSize;
+            final QueryRequest batchRequest = Requests.copyOfQueryRequest(request);
+            batchRequest.setPageSize(batchSize);
+            batchRequest.setPagedResultsOffset(batchOffset);
+            final List<Map<String, Object>> batch =
+                    readBatch(type, getQueryParams(batchRequest, batchKeyset), tableHandler, batchSize);
+            if (!results.handleAll(batch) || batch.size() < batchSize
+                    || (pageSize > 0 && results.size() >= pageSize)) {
+                return results;
+            }
+            // resume after the last row, or by offset from the previous keyset if the row has no usable keyset
+            final KeysetCookie nextKeyset = KeysetCookie.after(results.last(), request.getSortKeys(), 0);
+            if (nextKeyset != null) {
+                batchKeyset = nextKeyset;
+                batchOffset = 0;
+            } else {
+                batchOffset += batch.size();
+            }
+        }
+    }
+
+    /**
+     * Reads a batch of query results on a connection of its own, which is released before the results are handed
+     * over.
+     *
+     * @param type the type queried
+     * @param params the query parameters
+     * @param tableHandler the table handler of the type
+     * @param fetchSize the number of rows to fetch from the database at a time
+     * @return the objects read
+     * @throws ResourceException on failure to execute the query
+     */
+    private List<Map<String, Object>> readBatch(String type, Map<String, Object> params, TableHandler tableHandler,
+            int fetchSize) throws ResourceException {
+        final List<Map<String, Object>> batch = new ArrayList<>();
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            // Some drivers, PostgreSQL's among them, only fetch rows a fetch size at a time within a transaction
+            connection.setAutoCommit(false);
+
+            tableHandler.query(type, params, connection, fetchSize, new ObjectHandler() {
+                @Override
+                public boolean handleObject(Map<String, Object> object) {
+                    batch.add(object);
+                    return true;
+                }
+            });
+            connection.commit();
+            return batch;
+        } catch (SQLException ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("SQL Exception in query of {} with error code {}, sql state {}",
+                        type, ex.getErrorCode(), ex.getSQLState(), ex);
+            }
+            rollback(connection);
+            throw new InternalServerErrorException("Querying failed: " + ex.getMessage(), ex);
+        } catch (ResourceException ex) {
+            logger.debug("ResourceException in query of {}", type, ex);
+            rollback(connection);
+            throw ex;
+        } finally {
+            CleanupHelper.loggedClose(connection);
+        }
+    }
+
+    /**
+     * Reads all the results of a query on a connection of its own, handing each over as soon as it is read.
+     *
+     * @param type the type queried
+     * @param params the query parameters
+     * @param tableHandler the table handler of the type
+     * @param results the results to hand the objects read over to
+     * @throws ResourceException on failure to execute the query
+     */
+    private void streamAll(String type, Map<String, Object> params, TableHandler tableHandler,
+            final StreamedResults results) throws ResourceException {
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            // Some drivers, PostgreSQL's among them, only fetch rows a fetch size at a time within a transaction
+            connection.setAutoCommit(false);
+
+            tableHandler.query(type, params, connection, queryFetchSize, new ObjectHandler() {
+                @Override
+                public boolean handleObject(Map<String, Object> object) {
+                    return results.handle(object);
+                }
+            });
+            connection.commit();
+        } catch (SQLException ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("SQL Exception in query of {} with error code {}, sql state {}",
+                        type, ex.getErrorCode(), ex.getSQLState(), ex);
+            }
+            rollback(connection);
+            throw new InternalServerErrorException("Querying failed: " + ex.getMessage(), ex);
+        } catch (ResourceException ex) {
+            logger.debug("ResourceException in query of {}", type, ex);
+            rollback(connection);
+            throw ex;
+        } finally {
+            CleanupHelper.loggedClose(connection);
+        }
+    }
+
+    /**
+     * Hands the objects read by a query over to the query handler as resources, keeping track of the number of
+     * results and the last of them.
+     */
+    private static final class StreamedResults {
+        private final QueryResourceHandler handler;
+        private int size = 0;
+        private ResourceResponse last;
+
+        StreamedResults(QueryResourceHandler handler) {
+            this.handler = handler;
+        }
+
+        /**
+         * Hands objects over to the query handler, until it declines one.
+         *
+         * @param objects the objects read
+         * @return false if the query handler declined an object
+         */
+        boolean handleAll(List<Map<String, Object>> objects) {
+            for (Map<String, Object> object : objects) {
+                if (!handle(object)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Hands an object over to the query handler.
+         *
+         * @param object the object read
+         * @return false if the query handler declined the object
+         */
+        boolean handle(Map<String, Object> object) {
+            last = newResourceResponse((String) object.get("_id"), (String) object.get("_rev"),
+                    new JsonValue(object));
+            size++;
+            return handler.handleResource(last);
+        }
+
+        int size() {
+            return size;
+        }
+
+        ResourceResponse last() {
+            return last;
+        }
+    }
+
     @Override
     public Promise<ActionResponse, ResourceException> handleAction(Context context, ActionRequest request) {
         try {
             if (ACTION_COMMAND.equalsIgnoreCase(request.getAction())) {
                 return command(request).asPromise();
+            } else if (ACTION_BULK.equalsIgnoreCase(request.getAction())) {
+                return bulk(request).asPromise();
             } else {
                 throw new NotSupportedException("Action operations are not supported");
             }
@@ -774,6 +1385,11 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                 result = new JsonValue(handler.command(type, new HashMap<String, Object>(request.getAdditionalParameters()), connection));
 
                 connection.commit();
+                // commands may write to any table
+                final QueryCountCache cache = countCache;
+                if (cache != null) {
+                    cache.invalidateAll();
+                }
             } catch (SQLException ex) {
                 if (logger.isDebugEnabled()) {
                     logger.debug("SQL Exception in command on {} with error code {}, sql state {}",
@@ -806,6 +1422,227 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         return newActionResponse(result);
     }
 
+    /**
+     * Performs the creates, updates and deletes listed in the content of the {@code request}, on resources of the
+     * type the action is requested on.
+     *
+     * @param request the request listing the operations, each with its {@code operation}, {@code _id}, and
+     *                {@code _rev} and {@code content} where needed
+     * @return the {@code _id} and {@code _rev} of each resulting resource, or the error of each failed operation
+     * @throws ResourceException if the operations are malformed
+     */
+    private ActionResponse bulk(ActionRequest request) throws ResourceException {
+        final String type = trimStartingSlash(request.getResourcePath());
+        List<Request> requests = new ArrayList<>();
+        for (JsonValue operation : request.getContent().get("requests").required().expect(List.class)) {
+            String id = operation.get(FIELD_CONTENT_ID).asString();
+            String rev = operation.get(FIELD_CONTENT_REVISION).asString();
+            switch (operation.get("operation").required().asString()) {
+            case "create":
+                requests.add(Requests.newCreateRequest(type, id, operation.get("content").required()));
+                break;
+            case "update":
+                requests.add(Requests.newUpdateRequest(type, operation.get(FIELD_CONTENT_ID).required().asString(),
+                        operation.get("content").required()).setRevision(rev));
+                break;
+            case "delete":
+                requests.add(Requests.newDeleteRequest(type, operation.get(FIELD_CONTENT_ID).required().asString())
+                        .setRevision(rev));
+                break;
+            default:
+                throw new BadRequestException("Unsupported bulk operation " + operation.get("operation").asString());
+            }
+        }
+
+        List<Object> results = new ArrayList<>(requests.size());
+        for (Promise<ResourceResponse, ResourceException> result : bulk(requests)) {
+            try {
+                ResourceResponse resource = result.getOrThrowUninterruptibly();
+                results.add(object(
+                        field(FIELD_CONTENT_ID, resource.getId()),
+                        field(FIELD_CONTENT_REVISION, resource.getRevision())));
+            } catch (ResourceException e) {
+                results.add(e.toJsonValue().getObject());
+            }
+        }
+        return newActionResponse(json(object(field("results", results))));
+    }
+
+    /**
+     * Performs the requests in transactions of up to {@code maxBulkTransactionSize} requests each, batching the
+     * creates of consecutive requests on the same type. If a transaction fails, it is rolled back and its requests
+     * are performed one at a time instead, so that each one reports its own outcome.
+     */
+    @Override
+    public List<Promise<ResourceResponse, ResourceException>> bulk(List<? extends Request> requests) {
+        List<Promise<ResourceResponse, ResourceException>> results = new ArrayList<>(requests.size());
+        for (int start = 0; start < requests.size(); start += maxBulkTransactionSize) {
+            List<? extends Request> transaction =
+                    requests.subList(start, Math.min(requests.size(), start + maxBulkTransactionSize));
+            try {
+                for (ResourceResponse resource : bulkTransaction(transaction)) {
+                    results.add(resource.asPromise());
+                }
+            } catch (ResourceException | SQLException | IOException | RuntimeException ex) {
+                logger.debug("Bulk transaction of {} requests failed, performing them one at a time",
+                        transaction.size(), ex);
+                results.addAll(RepositoryService.super.bulk(transaction));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Performs the requests within a single transaction, which is committed only if all of them succeed.
+     *
+     * @param requests the create, update and delete requests
+     * @return the resulting resources
+     * @throws ResourceException if a request was invalid or failed
+     * @throws SQLException if the transaction failed
+     * @throws IOException if an object failed to convert
+     */
+    private List<ResourceResponse> bulkTransaction(List<? extends Request> requests)
+            throws ResourceException, SQLException, IOException {
+        Connection connection = null;
+        Integer previousIsolationLevel = null;
+        try {
+            prepareBulkCreates(requests);
+
+            connection = getConnection();
+            previousIsolationLevel = connection.getTransactionIsolation();
+            connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            connection.setAutoCommit(false);
+
+            List<ResourceResponse> results = new ArrayList<>(requests.size());
+            String createType = null;
+            Map<String, Map<String, Object>> creates = new LinkedHashMap<>();
+            for (Request request : requests) {
+                if (request instanceof CreateRequest) {
+                    CreateRequest createRequest = (CreateRequest) request;
+                    if (createRequest.getResourcePathObject().isEmpty()) {
+                        throw new BadRequestException(
+                                "The repository requires clients to supply a type for the object to create.");
+                    }
+                    String type = createRequest.getResourcePath();
+                    String localId = isNullOrEmpty(createRequest.getNewResourceId())
+                            ? UUID.randomUUID().toString() // Generate ID server side.
+                            : createRequest.getNewResourceId();
+                    if (!type.equals(createType) || creates.containsKey(localId)) {
+                        bulkCreate(createType, creates, connection, results);
+                        createType = type;
+                    }
+                    creates.put(localId, createRequest.getContent().asMap());
+                    continue;
+                }
+                bulkCreate(createType, creates, connection, results);
+                createType = null;
+
+                if (request.getResourcePathObject().size() < 2) {
+                    throw new BadRequestException(
+                            "The repository requires clients to supply an identifier for the object to "
+                                    + request.getRequestType().toString().toLowerCase() + ".");
+                }
+                final String type = request.getResourcePathObject().parent().toString();
+                final String localId = request.getResourcePathObject().leaf();
+                TableHandler handler = getBulkTableHandler(type);
+                if (request instanceof UpdateRequest) {
+                    UpdateRequest updateRequest = (UpdateRequest) request;
+                    Map<String, Object> obj = updateRequest.getContent().asMap();
+                    String rev = !isNullOrEmpty(updateRequest.getRevision())
+                            ? updateRequest.getRevision()
+                            : handler.read(request.getResourcePath(), type, localId, connection).getRevision();
+                    handler.update(request.getResourcePath(), type, localId, rev, obj, connection);
+                    results.add(newResourceResponse((String) obj.get(FIELD_CONTENT_ID),
+                            (String) obj.get(FIELD_CONTENT_REVISION), new JsonValue(obj)));
+                } else if (request instanceof DeleteRequest) {
+                    DeleteRequest deleteRequest = (DeleteRequest) request;
+                    if (deleteRequest.getRevision() == null) {
+                        throw new ConflictException(
+                                "Object passed into delete does not have revision it expects set.");
+                    }
+                    ResourceResponse deleted = handler.read(request.getResourcePath(), type, localId, connection);
+                    handler.delete(request.getResourcePath(), type, localId, deleteRequest.getRevision(), connection);
+                    results.add(deleted);
+                } else {
+                    throw new BadRequestException("Bulk " + request.getRequestType() + " requests are not supported");
+                }
+            }
+            bulkCreate(createType, creates, connection, results);
+
+            connection.commit();
+            logger.debug("Committed bulk transaction of {} requests", requests.size());
+            for (Request request : requests) {
+                invalidateCounts(request instanceof CreateRequest
+                        ? request.getResourcePath()
+                        : request.getResourcePathObject().parent().toString());
+            }
+            return results;
+        } catch (ResourceException | SQLException | IOException | RuntimeException ex) {
+            rollback(connection);
+            throw ex;
+        } finally {
+            if (connection != null) {
+                try {
+                    if (previousIsolationLevel != null) {
+                        connection.setTransactionIsolation(previousIsolationLevel);
+                    }
+                } catch (SQLException ex) {
+                    logger.warn("Failure in resetting connection isolation level ", ex);
+                }
+                CleanupHelper.loggedClose(connection);
+            }
+        }
+    }
+
+    /**
+     * Prepares the creates of a bulk transaction on a connection of its own, so that anything the handlers commit
+     * to create objects, such as registering a new type, is neither committed with nor rolled back with the
+     * transaction.
+     */
+    private void prepareBulkCreates(List<? extends Request> requests) throws ResourceException, SQLException {
+        Set<String> types = new HashSet<>();
+        Connection preparation = null;
+        try {
+            for (Request request : requests) {
+                String type = request.getResourcePath();
+                if (request instanceof CreateRequest && types.add(type)) {
+                    if (preparation == null) {
+                        preparation = getConnection();
+                        preparation.setAutoCommit(true);
+                    }
+                    getBulkTableHandler(type).prepareCreate(type, preparation);
+                }
+            }
+        } finally {
+            CleanupHelper.loggedClose(preparation);
+        }
+    }
+
+    /**
+     * Creates the pending objects of a bulk transaction, and clears them.
+     */
+    private void bulkCreate(String type, Map<String, Map<String, Object>> creates, Connection connection,
+            List<ResourceResponse> results) throws ResourceException, SQLException, IOException {
+        if (creates.isEmpty()) {
+            return;
+        }
+        getBulkTableHandler(type).create(type, creates, connection);
+        for (Map<String, Object> obj : creates.values()) {
+            results.add(newResourceResponse((String) obj.get(FIELD_CONTENT_ID),
+                    (String) obj.get(FIELD_CONTENT_REVISION), new JsonValue(obj)));
+        }
+        creates.clear();
+    }
+
+    private TableHandler getBulkTableHandler(String type) throws ResourceException {
+        TableHandler handler = getTableHandler(type);
+        if (handler == null) {
+            throw newResourceException(ResourceException.INTERNAL_ERROR,
+                    "No handler configured for resource type " + type);
+        }
+        return handler;
+    }
+
     // Utility method to cleanly roll back including logging
     private void rollback(Connection connection) {
         if (connection != null) {
@@ -834,6 +1671,13 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         }
     }
 
+    private void closeStatementCache() {
+        if (statementCache != null) {
+            statementCache.clear();
+            statementCache = null;
+        }
+    }
+
     TableHandler getTableHandler(String type) {
         TableHandler handler = tableHandlers.get(type);
         if (handler != null) {
@@ -892,8 +1736,26 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                     .defaultTo(DatabaseType.ANSI_SQL99.name())
                     .as(enumConstant(DatabaseType.class));
             maxTxRetry = config.get(CONFIG_MAX_TX_RETRY).defaultTo(5).asInteger();
+            maxBulkTransactionSize = Math.max(1, config.get(CONFIG_MAX_BULK_TRANSACTION_SIZE).defaultTo(100).asInteger());
+            // MySQL Connector/J only streams rows one at a time with a fetch size of Integer.MIN_VALUE,
+            // unless cursor fetch is enabled on the connection
+            queryFetchSize = config.get(CONFIG_QUERY_FETCH_SIZE)
+                    .defaultTo(databaseType == DatabaseType.MYSQL ? Integer.MIN_VALUE : DEFAULT_QUERY_FETCH_SIZE)
+                    .asInteger();
+            int countCacheTtl = config.get(CONFIG_COUNT_CACHE_TTL).defaultTo(DEFAULT_COUNT_CACHE_TTL).asInteger();
+            countCache = countCacheTtl > 0 ? new QueryCountCache(countCacheTtl) : null;
+            requestTransactions = config.get(CONFIG_REQUEST_TRANSACTIONS).defaultTo(false).asBoolean();
+            jsonQueries = config.get(CONFIG_JSON_QUERIES).defaultTo(false).asBoolean();
             int maxBatchSize = config.get(CONFIG_MAX_BATCH_SIZE).defaultTo(100).asInteger();
 
+            closeStatementCache();
+            int statementCacheSize = dataSourceService.getStatementCacheSize();
+            if (statementCacheSize > 0) {
+                statementCache = new StatementCache(statementCacheSize);
+                logger.info("Prepared statement caching enabled, maximum {} statements per connection",
+                        statementCacheSize);
+            }
+
             JsonValue defaultMapping = config.get("resourceMapping").get("default");
             if (!defaultMapping.isNull()) {
                 defaultTableHandler =
@@ -989,33 +1851,48 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     GenericTableHandler getGenericTableHandler(DatabaseType databaseType, JsonValue tableConfig,
             String dbSchemaName, JsonValue queries, JsonValue commands, int maxBatchSize) {
 
+        final GenericTableHandler handler;
         // TODO: make pluggable
         switch (databaseType) {
         case DB2:
-            return
+            handler =
                     new DB2TableHandler(tableConfig, dbSchemaName, queries, commands, maxBatchSize,
                             new DB2SQLExceptionHandler());
+            break;
         case ORACLE:
-            return
-                    new OracleTableHandler(tableConfig, dbSchemaName, queries, commands, maxBatchSize,
+            handler = jsonQueries
+                    ? new OracleJsonTableHandler(tableConfig, dbSchemaName, queries, commands, maxBatchSize,
+                            new DefaultSQLExceptionHandler())
+                    : new OracleTableHandler(tableConfig, dbSchemaName, queries, commands, maxBatchSize,
                             new DefaultSQLExceptionHandler());
+            break;
         case POSTGRESQL:
-            return
+            handler =
                     new PostgreSQLTableHandler(tableConfig, dbSchemaName, queries, commands, maxBatchSize,
                             new DefaultSQLExceptionHandler());
+            break;
         case MYSQL:
-            return
-                    new MySQLTableHandler(tableConfig, dbSchemaName, queries, commands, maxBatchSize,
+            handler = jsonQueries
+                    ? new MySQLJsonTableHandler(tableConfig, dbSchemaName, queries, commands, maxBatchSize,
+                            new MySQLExceptionHandler())
+                    : new MySQLTableHandler(tableConfig, dbSchemaName, queries, commands, maxBatchSize,
                             new MySQLExceptionHandler());
+            break;
         case SQLSERVER:
-            return
-                    new MSSQLTableHandler(tableConfig, dbSchemaName, queries, commands, maxBatchSize,
+            handler = jsonQueries
+                    ? new MSSQLJsonTableHandler(tableConfig, dbSchemaName, queries, commands, maxBatchSize,
+                            new MSSQLExceptionHandler())
+                    : new MSSQLTableHandler(tableConfig, dbSchemaName, queries, commands, maxBatchSize,
                             new MSSQLExceptionHandler());
+            break;
         default:
-            return
+            handler =
                     new GenericTableHandler(tableConfig, dbSchemaName, queries, commands, maxBatchSize,
                             new DefaultSQLExceptionHandler());
+            break;
         }
+        handler.setStatementCache(statementCache);
+        return handler;
     }
 
     MappedTableHandler getMappedTableHandler(DatabaseType databaseType, JsonValue tableConfig,
@@ -1029,34 +1906,43 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
             }
         };
 
+        final MappedTableHandler handler;
         // TODO: make pluggable
         switch (databaseType) {
         case DB2:
-            return
+            handler =
                     // DB2 uses Oracle(!) MappedTableHandler implementation - not a mistake!
                     new OracleMappedTableHandler(table, objectToColumn, dbSchemaName, explicitQueries, explicitCommands,
                             new DB2SQLExceptionHandler(), cryptoServiceAccessor);
+            break;
         case ORACLE:
-            return
+            handler =
                     new OracleMappedTableHandler(table, objectToColumn, dbSchemaName, explicitQueries, explicitCommands,
                             new DefaultSQLExceptionHandler(), cryptoServiceAccessor);
+            break;
         case POSTGRESQL:
-            return
+            handler =
                     new PostgreSQLMappedTableHandler(table, objectToColumn, dbSchemaName, explicitQueries, explicitCommands,
                             new DefaultSQLExceptionHandler(), cryptoServiceAccessor);
+            break;
         case MYSQL:
-            return
-                    new MappedTableHandler(table, objectToColumn, dbSchemaName, explicitQueries, explicitCommands,
+            handler =
+                    new MySQLMappedTableHandler(table, objectToColumn, dbSchemaName, explicitQueries, explicitCommands,
                             new MySQLExceptionHandler(), cryptoServiceAccessor);
+            break;
         case SQLSERVER:
-            return
+            handler =
                     new MSSQLMappedTableHandler(table, objectToColumn, dbSchemaName,
                             explicitQueries, explicitCommands, new MSSQLExceptionHandler(),
                             cryptoServiceAccessor);
+            break;
         default:
-            return
+            handler =
                     new MappedTableHandler(table, objectToColumn, dbSchemaName, explicitQueries, explicitCommands,
                             new DefaultSQLExceptionHandler(), cryptoServiceAccessor);
+            break;
         }
+        handler.setStatementCache(statementCache);
+        return handler;
     }
 }
@@ -0,0 +1,224 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.forgerock.openidm.repo.util.Clauses.and;
+import static org.forgerock.openidm.repo.util.Clauses.not;
+import static org.forgerock.openidm.repo.util.Clauses.or;
+import static org.forgerock.openidm.repo.util.Clauses.where;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.google.common.base.Function;
+import com.google.common.collect.FluentIterable;
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.resource.SortKey;
+import org.forgerock.openidm.repo.util.AbstractSQLQueryFilterVisitor;
+import org.forgerock.openidm.repo.util.Clause;
+import org.forgerock.openidm.util.ResourceUtil;
+import org.forgerock.util.query.QueryFilter;
+
+/**
+ * QueryFilterVisitor for generating WHERE clause SQL queries which read the properties of the generic table
+ * objects from their {@code fullobject} column with the JSON functions of the database, rather than joining the
+ * properties table.
+ * <p>
+ * The path of each property is rendered as a literal SQL/JSON path, such as {@code '$.name.familyName'}, so that
+ * the database can match the expression against an index on the same expression, which it cannot for a bound path.
+ * Only path elements which cannot break out of the literal are accepted.
+ */
+abstract class JsonSQLQueryFilterVisitor extends AbstractSQLQueryFilterVisitor<Clause, Map<String, Object>> {
+
+    /** Path elements which can be used as is in a SQL/JSON path */
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    /** Path elements which index an array */
+    private static final Pattern INDEX = Pattern.compile("[0-9]+");
+
+    /** Characters which cannot be rendered within a quoted path element or a SQL literal */
+    private static final Pattern UNSAFE = Pattern.compile("[\"'\\\\\\p{Cntrl}]");
+
+    // value number for each value placeholder
+    int objectNumber = 0;
+
+    /**
+     * Renders the SQL/JSON path of a field, as a SQL string literal.
+     *
+     * @param field the field
+     * @return the path, for instance {@code '$.name.familyName'} for {@code /name/familyName}
+     * @throws IllegalArgumentException if the field cannot be rendered as a path
+     */
+    static String toJsonPath(JsonPointer field) {
+        final StringBuilder path = new StringBuilder("'$");
+        for (String element : field.toArray()) {
+            if (IDENTIFIER.matcher(element).matches()) {
+                path.append('.').append(element);
+            } else if (INDEX.matcher(element).matches()) {
+                path.append('[').append(element).append(']');
+            } else if (!element.isEmpty() && !UNSAFE.matcher(element).find()) {
+                path.append(".\"").append(element).append('"');
+            } else {
+                throw new IllegalArgumentException("Unsupported query field: " + field.toString());
+            }
+        }
+        return path.append('\'').toString();
+    }
+
+    /**
+     * Generate the SQL expression reading the scalar value of a property as text. Strings are unquoted, and
+     * the value is null if the property is missing.
+     *
+     * @param jsonPath the SQL/JSON path of the property, as a SQL string literal
+     * @return the SQL expression
+     */
+    abstract String jsonValue(String jsonPath);
+
+    /**
+     * Generate the WHERE clause for a numeric value assertion.
+     *
+     * @param jsonPath the SQL/JSON path of the property, as a SQL string literal
+     * @param operand the comparison operand
+     * @param placeholder the value placeholder
+     * @return SQL WHERE clause
+     */
+    abstract Clause buildNumericValueClause(String jsonPath, String operand, String placeholder);
+
+    /**
+     * Generate the WHERE clause for a string or boolean value assertion, which compares the text of the value.
+     *
+     * @param jsonPath the SQL/JSON path of the property, as a SQL string literal
+     * @param operand the comparison operand
+     * @param placeholder the value placeholder
+     * @return SQL WHERE clause
+     */
+    Clause buildStringValueClause(String jsonPath, String operand, String placeholder) {
+        return where(jsonValue(jsonPath) + " " + operand + " ${" + placeholder + "}");
+    }
+
+    /**
+     * Generate the WHERE clause for a present filter, which matches properties with a value other than null.
+     *
+     * @param jsonPath the SQL/JSON path of the property, as a SQL string literal
+     * @return SQL WHERE clause
+     */
+    Clause buildPresentClause(String jsonPath) {
+        return where(jsonValue(jsonPath) + " IS NOT NULL");
+    }
+
+    /**
+     * Orders a query by the values of its sort keys, read the same way as the values of the filter.
+     *
+     * @param builder the SQL builder
+     * @param sortKeys a {@link java.util.List} of sort keys
+     * @return the columns ordered by, one for each sort key
+     */
+    List<String> orderBy(SQLBuilder builder, List<SortKey> sortKeys) {
+        final List<String> sortColumns = new ArrayList<>();
+        if (sortKeys == null) {
+            return sortColumns;
+        }
+        for (SortKey sortKey : sortKeys) {
+            final String sortColumn = jsonValue(toJsonPath(sortKey.getField()));
+            builder.orderBy(sortColumn, sortKey.isAscendingOrder());
+            sortColumns.add(sortColumn);
+        }
+        return sortColumns;
+    }
+
+    private boolean isNumeric(final Object valueAssertion) {
+        return valueAssertion instanceof Integer || valueAssertion instanceof Long
+                || valueAssertion instanceof Float || valueAssertion instanceof Double;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Clause visitValueAssertion(Map<String, Object> objects, String operand, JsonPointer field, Object valueAssertion) {
+        ++objectNumber;
+        String value = "v" + objectNumber;
+        objects.put(value, valueAssertion);
+
+        if (ResourceUtil.RESOURCE_FIELD_CONTENT_ID_POINTER.equals(field)) {
+            return where("obj.objectid " + operand + " ${" + value + "}");
+        } else if (isNumeric(valueAssertion)) {
+            return buildNumericValueClause(toJsonPath(field), operand, value);
+        } else {
+            // booleans are compared by their text, as they are rendered by the JSON functions
+            return buildStringValueClause(toJsonPath(field), operand, value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Clause visitPresentFilter(Map<String, Object> objects, JsonPointer field) {
+        if (ResourceUtil.RESOURCE_FIELD_CONTENT_ID_POINTER.equals(field)) {
+            // NOT NULL is enforced by the schema
+            return where("(obj.objectid IS NOT NULL)");
+        } else {
+            return buildPresentClause(toJsonPath(field));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Clause visitAndFilter(final Map<String, Object> parameters, List<QueryFilter<JsonPointer>> subfilters) {
+        return and(FluentIterable.from(subfilters).transform(
+                new Function<QueryFilter<JsonPointer>, Clause>() {
+                    @Override
+                    public Clause apply(QueryFilter<JsonPointer> filter) {
+                        return filter.accept(JsonSQLQueryFilterVisitor.this, parameters);
+                    }
+                }));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Clause visitOrFilter(final Map<String, Object> parameters, List<QueryFilter<JsonPointer>> subfilters) {
+        return or(FluentIterable.from(subfilters).transform(
+                new Function<QueryFilter<JsonPointer>, Clause>() {
+                    @Override
+                    public Clause apply(QueryFilter<JsonPointer> filter) {
+                        return filter.accept(JsonSQLQueryFilterVisitor.this, parameters);
+                    }
+                }));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Clause visitBooleanLiteralFilter(Map<String, Object> parameters, boolean value) {
+        return where(value ? "1 = 1" : "1 <> 1");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Clause visitNotFilter(Map<String, Object> parameters, QueryFilter<JsonPointer> subFilter) {
+        return not(subFilter.accept(this, parameters));
+    }
+}
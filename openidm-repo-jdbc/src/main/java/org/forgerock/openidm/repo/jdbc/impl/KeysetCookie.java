@@ -0,0 +1,189 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.forgerock.openidm.repo.util.Clauses.and;
+import static org.forgerock.openidm.repo.util.Clauses.or;
+import static org.forgerock.openidm.repo.util.Clauses.where;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.SortKey;
+import org.forgerock.openidm.repo.util.Clause;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A paged results cookie which resumes a query filter after the last row of the previous page, rather than at an
+ * offset. Query filters are ordered by their sort keys and then by object id, so the sort key values and object id
+ * of the last row of a page tell where the next page starts, and the database can seek to it through an index
+ * instead of reading and discarding every row before an offset.
+ * <p>
+ * The cookie is opaque to clients: the base64url encoding of a JSON object holding the sort key values and object
+ * id of the last row, and the number of rows returned so far. Integer cookies remain offsets.
+ */
+final class KeysetCookie {
+
+    /** Query parameter holding the keyset to resume after, when paging by keyset. */
+    static final String PAGED_RESULTS_KEYSET = "_pagedResultsKeyset";
+
+    private static final String VALUES = "values";
+    private static final String ID = "id";
+    private static final String OFFSET = "offset";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<String> values;
+    private final String id;
+    private final int offset;
+
+    private KeysetCookie(List<String> values, String id, int offset) {
+        this.values = values;
+        this.id = id;
+        this.offset = offset;
+    }
+
+    /**
+     * Creates the keyset resuming after the given row.
+     *
+     * @param last the last row of a page
+     * @param sortKeys the sort keys of the query
+     * @param offset the number of rows returned so far
+     * @return the keyset, or null if the row has no id, or a sort key value which is missing or not a string,
+     *         number or boolean, in which case the query continues by offset
+     */
+    static KeysetCookie after(ResourceResponse last, List<SortKey> sortKeys, int offset) {
+        if (last.getId() == null) {
+            return null;
+        }
+        final List<String> values = new ArrayList<>(sortKeys.size());
+        for (SortKey sortKey : sortKeys) {
+            final JsonValue value = last.getContent().get(sortKey.getField());
+            if (value == null || !(value.isString() || value.isNumber() || value.isBoolean())) {
+                return null;
+            }
+            values.add(value.getObject().toString());
+        }
+        return new KeysetCookie(values, last.getId(), offset);
+    }
+
+    /**
+     * Decodes a keyset cookie.
+     *
+     * @param cookie the paged results cookie
+     * @param sortKeyCount the number of sort keys of the query
+     * @return the keyset
+     * @throws BadRequestException if the cookie is not a keyset cookie for a query with this many sort keys
+     */
+    static KeysetCookie decode(String cookie, int sortKeyCount) throws BadRequestException {
+        final JsonValue keyset;
+        try {
+            keyset = new JsonValue(MAPPER.readValue(Base64.getUrlDecoder().decode(cookie), Map.class));
+        } catch (IllegalArgumentException | IOException e) {
+            throw new BadRequestException("Invalid paged results cookie");
+        }
+        final JsonValue values = keyset.get(VALUES);
+        if (!values.isList() || values.size() != sortKeyCount
+                || !keyset.get(ID).isString() || !keyset.get(OFFSET).isNumber()) {
+            throw new BadRequestException("Invalid paged results cookie");
+        }
+        for (JsonValue value : values) {
+            if (!value.isString()) {
+                throw new BadRequestException("Invalid paged results cookie");
+            }
+        }
+        return new KeysetCookie(values.asList(String.class), keyset.get(ID).asString(), keyset.get(OFFSET).asInteger());
+    }
+
+    /**
+     * Encodes this keyset as a paged results cookie.
+     *
+     * @return the paged results cookie
+     */
+    String encode() {
+        final Map<String, Object> keyset = new LinkedHashMap<>();
+        keyset.put(VALUES, values);
+        keyset.put(ID, id);
+        keyset.put(OFFSET, offset);
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(keyset));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode paged results cookie", e);
+        }
+    }
+
+    /**
+     * Gets the number of rows returned before this keyset.
+     *
+     * @return the number of rows returned so far
+     */
+    int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Renders the predicate selecting the rows which sort after this keyset. This is the expanded form of the row
+     * value comparison {@code (sortkey, id) > (?, ?)}, which also holds for descending sort keys and for databases
+     * without row value comparisons.
+     * <p>
+     * A row without a sort key value has a null sort column, which no comparison matches. As the keyset always holds
+     * a value for each sort key, such rows sort after the keyset when the database orders nulls after the values in
+     * the direction of the sort key, and are then selected explicitly.
+     *
+     * @param sortColumns the SQL expressions the sort keys order by
+     * @param sortKeys the sort keys of the query
+     * @param idColumn the SQL expression of the object id, which orders ascending after the sort keys
+     * @param nullsSortHigh whether the database orders nulls after any value in ascending order, and before any
+     *        value in descending order
+     * @param tokenPrefix the prefix of the replacement tokens of the keyset values, such as {@code "untyped:"}, or an
+     *        empty string
+     * @param replacementTokens a map to store the replacement tokens of the keyset values
+     * @return the predicate
+     */
+    Clause toClause(List<String> sortColumns, List<SortKey> sortKeys, String idColumn, boolean nullsSortHigh,
+            String tokenPrefix, Map<String, Object> replacementTokens) {
+        final List<String> columns = new ArrayList<>(sortColumns);
+        columns.add(idColumn);
+        final List<Clause> alternatives = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            final String tokenName = "seek" + i;
+            replacementTokens.put(tokenName, i < values.size() ? values.get(i) : id);
+
+            final boolean ascending = i >= sortKeys.size() || sortKeys.get(i).isAscendingOrder();
+            final List<Clause> terms = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                terms.add(where(columns.get(j) + " = ${" + tokenPrefix + "seek" + j + "}"));
+            }
+            final Clause seek = where(columns.get(i) + (ascending ? " > " : " < ") + "${" + tokenPrefix + tokenName + "}");
+            if (i < sortColumns.size() && ascending == nullsSortHigh) {
+                // the rows without a value follow the keyset
+                terms.add(seek.or(columns.get(i) + " IS NULL"));
+            } else {
+                terms.add(seek);
+            }
+            alternatives.add(terms.size() == 1 ? terms.get(0) : and(terms));
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : or(alternatives);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.forgerock.openidm.repo.util.Clauses.where;
+
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.SortKey;
+import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
+import org.forgerock.openidm.repo.util.Clause;
+
+/**
+ * MSSQL generic table handler which queries the {@code fullobject} column, of type {@code NVARCHAR(MAX)}, with
+ * {@code JSON_VALUE} rather than joining the properties table. Properties queried often are best indexed through an
+ * indexed computed column defined with the same expression, such as {@code JSON_VALUE(fullobject, '$.userName')},
+ * which the optimizer then uses in place of the expression.
+ */
+public class MSSQLJsonTableHandler extends MSSQLTableHandler {
+
+    /**
+     * Construct a table handler for MSSQL using MSSQL-specific json-handling
+     *
+     * {@inheritDoc}
+     */
+    public MSSQLJsonTableHandler(JsonValue tableConfig, String dbSchemaName, JsonValue queriesConfig,
+            JsonValue commandsConfig, int maxBatchSize, SQLExceptionHandler sqlExceptionHandler) {
+        super(tableConfig, dbSchemaName, queriesConfig, commandsConfig, maxBatchSize, sqlExceptionHandler);
+    }
+
+    /**
+     * Values are compared in full, rather than trimmed to the searchable length of the properties table.
+     */
+    @Override
+    int getQueryValueLength() {
+        return 0;
+    }
+
+    @Override
+    protected JsonSQLQueryFilterVisitor newQueryFilterVisitor(SQLBuilder builder) {
+        return new JsonSQLQueryFilterVisitor() {
+            @Override
+            String jsonValue(String jsonPath) {
+                return "JSON_VALUE(obj.fullobject, " + jsonPath + ")";
+            }
+
+            @Override
+            Clause buildNumericValueClause(String jsonPath, String operand, String placeholder) {
+                return where("TRY_CAST(" + jsonValue(jsonPath) + " AS FLOAT) " + operand
+                        + " CAST(${" + placeholder + "} AS FLOAT)");
+            }
+
+            // JSON_VALUE only reads scalars, JSON_QUERY only objects and arrays
+            @Override
+            Clause buildPresentClause(String jsonPath) {
+                return where(jsonValue(jsonPath) + " IS NOT NULL")
+                        .or("JSON_QUERY(obj.fullobject, " + jsonPath + ") IS NOT NULL");
+            }
+        };
+    }
+
+    @Override
+    protected List<String> prepareSortKeyStatements(SQLBuilder builder, List<SortKey> sortKeys,
+            Map<String, Object> replacementTokens) {
+        return newQueryFilterVisitor(builder).orderBy(builder, sortKeys);
+    }
+}
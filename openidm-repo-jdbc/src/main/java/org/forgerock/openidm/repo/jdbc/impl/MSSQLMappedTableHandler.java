@@ -20,21 +20,20 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+* Portions Copyrighted 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
 import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
 import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
-import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 
-import java.util.List;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.Map;
 
-import org.apache.commons.lang3.StringUtils;
 import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.InternalServerErrorException;
-import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
 import org.forgerock.openidm.util.Accessor;
@@ -58,18 +57,9 @@ public class MSSQLMappedTableHandler extends MappedTableHandler {
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params) {
         final int offsetParam = Integer.parseInt((String)params.get(PAGED_RESULTS_OFFSET));
         final int pageSizeParam = Integer.parseInt((String)params.get(PAGE_SIZE));
-        String filterString = getFilterString(filter, replacementTokens);
-        String keysClause = "";
-        
-        // JsonValue-cheat to avoid an unchecked cast
-        final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
-        // Check for sort keys and build up order-by syntax
-        if (sortKeys != null && sortKeys.size() > 0) {
-            keysClause = StringUtils.join(prepareSortKeyStatements(sortKeys), ", ");
-        } else {
-            keysClause = "objectid DESC";
-        }
-        
+        String filterString = getFilterString(filter, replacementTokens, params);
+        final String keysClause = getKeysClause(params);
+
         return "WITH results AS ( SELECT rowNo = ROW_NUMBER() OVER( ORDER BY " 
                 + keysClause
                 + " ), ${_dbSchema}.${_mainTable}.* FROM ${_dbSchema}.${_mainTable} "
@@ -77,6 +67,18 @@ public class MSSQLMappedTableHandler extends MappedTableHandler {
                 + ") SELECT * FROM results WHERE rowNo BETWEEN " 
                 + (offsetParam+1)
                 + " AND " 
-                + (offsetParam + pageSizeParam);
+                + (offsetParam + pageSizeParam)
+                + " ORDER BY rowNo";
+    }
+
+    /**
+     * Estimates the number of objects from the row count SQL Server keeps for the heap or clustered index of the
+     * table.
+     */
+    @Override
+    public Integer estimateCount(String type, Connection connection) throws SQLException {
+        final String mainTable = dbSchemaName == null ? tableName : dbSchemaName + "." + tableName;
+        return queries.estimateCount(connection, "SELECT SUM(p.rows) AS estimate FROM sys.partitions p"
+                + " WHERE p.object_id = OBJECT_ID(?) AND p.index_id IN (0, 1)", "estimate", mainTable);
     }
 }
@@ -12,27 +12,26 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.repo.jdbc.impl;
 
 import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
 import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
-import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 import static org.forgerock.openidm.repo.util.Clauses.where;
 
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.List;
 import java.util.Map;
 
 import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
-import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.repo.jdbc.Constants;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
+import org.forgerock.openidm.repo.util.AbstractSQLQueryFilterVisitor;
 import org.forgerock.openidm.repo.util.Clause;
 import org.forgerock.util.query.QueryFilter;
 
@@ -94,7 +93,6 @@ public class MSSQLTableHandler extends GenericTableHandler {
         obj.put(Constants.OBJECT_REV, newRev); // Save the rev in the object, and return the changed rev from the create.
 
         PreparedStatement updateStatement = null;
-        PreparedStatement deletePropStatement = null;
         try {
             JsonValue result = new JsonValue(readForUpdate(fullId, type, localId, connection));
             String existingRev = result.get(Constants.RAW_OBJECT_REV).asString();
@@ -110,7 +108,6 @@ public class MSSQLTableHandler extends GenericTableHandler {
                         + "the object has changed since retrieval.");
             }
             updateStatement = getPreparedStatement(connection, QueryDefinition.UPDATEQUERYSTR);
-            deletePropStatement = getPreparedStatement(connection, QueryDefinition.PROPDELETEQUERYSTR);
             // Support changing object identifier
             String newLocalId = (String) obj.get(Constants.OBJECT_ID);
             if (newLocalId != null && !localId.equals(newLocalId)) {
@@ -138,17 +135,9 @@ public class MSSQLTableHandler extends GenericTableHandler {
             }
 
             JsonValue jv = new JsonValue(obj);
-            // TODO: only update what changed?
-            logger.trace("Populating prepared statement {} for {} {} {}", deletePropStatement, fullId, type, localId);
-            deletePropStatement.setString(1, type);
-            deletePropStatement.setString(2, localId);
-            logger.debug("Update properties del statement: {}", deletePropStatement);
-            int deleteCount = deletePropStatement.executeUpdate();
-            logger.trace("Deleted child rows: {} for: {}", deleteCount, fullId);
-            writeValueProperties(fullId, dbId, localId, jv, connection);
+            updateValueProperties(fullId, dbId, localId, jv, connection);
         } finally {
             CleanupHelper.loggedClose(updateStatement);
-            CleanupHelper.loggedClose(deletePropStatement);
         }
     }
 
@@ -175,7 +164,8 @@ public class MSSQLTableHandler extends GenericTableHandler {
                                 + ") SELECT * FROM results WHERE rowNo BETWEEN "
                                 + (offsetParam + 1)
                                 + " AND "
-                                + (offsetParam + pageSizeParam);
+                                + (offsetParam + pageSizeParam)
+                                + " ORDER BY rowNo";
                     }
                 };
 
@@ -187,30 +177,27 @@ public class MSSQLTableHandler extends GenericTableHandler {
                 .on(where("obj.objecttypes_id = objecttypes.id")
                         .and("objecttypes.objecttype = ${otype}"))
 
-                .where(filter.accept(
-                        // override numeric value clause generation to cast propvalue to a number
-                        new GenericSQLQueryFilterVisitor(MSSQL_SEARCHABLE_LENGTH, builder) {
-                            @Override
-                            Clause buildNumericValueClause(String propTable, String operand, String placeholder) {
-                                return where(propTable + ".proptype = 'java.lang.Integer'")
-                                        .or(propTable + ".proptype = 'java.lang.Double'")
-                                        .and("(CASE ISNUMERIC(propvalue) WHEN 1 THEN CAST(propvalue AS FLOAT) ELSE null END) " + operand + " ${" + placeholder + "}");
-                            }
-                        },
-                        replacementTokens));
+                .where(filter.accept(newQueryFilterVisitor(builder), replacementTokens));
 
         // other half of OPENIDM-2773 fix
         replacementTokens.put("otype", params.get("_resource"));
 
-        // JsonValue-cheat to avoid an unchecked cast
-        final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
         // Check for sort keys and build up order-by syntax
-        if (sortKeys != null && sortKeys.size() > 0) {
-            prepareSortKeyStatements(builder, sortKeys, replacementTokens);
-        } else {
-            builder.orderBy("obj.id", false);
-        }
+        prepareOrderByAndKeyset(builder, params, replacementTokens);
 
         return builder.toSQL();
-    }   
+    }
+
+    @Override
+    protected AbstractSQLQueryFilterVisitor<Clause, Map<String, Object>> newQueryFilterVisitor(SQLBuilder builder) {
+        // override numeric value clause generation to cast propvalue to a number
+        return new GenericSQLQueryFilterVisitor(MSSQL_SEARCHABLE_LENGTH, builder) {
+            @Override
+            Clause buildNumericValueClause(String propTable, String operand, String placeholder) {
+                return where(propTable + ".proptype = 'java.lang.Integer'")
+                        .or(propTable + ".proptype = 'java.lang.Double'")
+                        .and("(CASE ISNUMERIC(propvalue) WHEN 1 THEN CAST(propvalue AS FLOAT) ELSE null END) " + operand + " ${" + placeholder + "}");
+            }
+        };
+    }
 }
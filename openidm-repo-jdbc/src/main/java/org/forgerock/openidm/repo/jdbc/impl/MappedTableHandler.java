@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.repo.jdbc.impl;
@@ -20,6 +21,7 @@ import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
 import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
 import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
+import static org.forgerock.openidm.repo.jdbc.impl.KeysetCookie.PAGED_RESULTS_KEYSET;
 
 import java.io.IOException;
 import java.sql.Connection;
@@ -27,6 +29,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,8 +49,10 @@ import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.openidm.repo.jdbc.Constants;
 import org.forgerock.openidm.repo.jdbc.ErrorType;
+import org.forgerock.openidm.repo.jdbc.ObjectHandler;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.openidm.repo.jdbc.impl.query.StatementCache;
 import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
 import org.forgerock.openidm.repo.util.StringSQLQueryFilterVisitor;
 import org.forgerock.openidm.repo.util.StringSQLRenderer;
@@ -137,6 +142,15 @@ public class MappedTableHandler implements TableHandler {
         initializeQueries();
     }
 
+    /**
+     * Sets the cache to get prepared statements from.
+     *
+     * @param statementCache the cache of prepared statements, or null to prepare statements on every use
+     */
+    void setStatementCache(StatementCache statementCache) {
+        queries.setStatementCache(statementCache);
+    }
+
     protected void initializeQueries() {
         final String mainTable = dbSchemaName == null ? tableName : dbSchemaName + "." + tableName;
         final StringBuffer colNames = new StringBuffer();
@@ -264,6 +278,29 @@ public class MappedTableHandler implements TableHandler {
         }
     }
 
+    /**
+     * Creates several objects with a single batch of insert statements.
+     *
+     * @see org.forgerock.openidm.repo.jdbc.TableHandler#create(java.lang.String, java.util.Map,
+     *      java.sql.Connection)
+     */
+    @Override
+    public void create(String type, Map<String, Map<String, Object>> objects, Connection connection)
+            throws SQLException, IOException, ResourceException {
+        PreparedStatement createStatement =
+                queries.getPreparedStatement(connection, createQueryStr);
+        try {
+            for (Map.Entry<String, Map<String, Object>> object : objects.entrySet()) {
+                create(type + "/" + object.getKey(), type, object.getKey(), object.getValue(), connection,
+                        createStatement, true);
+            }
+            logger.debug("Executing batch: {}", createStatement);
+            TableQueries.checkUpdateCounts(createStatement.executeBatch(), true);
+        } finally {
+            CleanupHelper.loggedClose(createStatement);
+        }
+    }
+
     /**
      * Adds the option to batch more than one create statement
      *
@@ -474,6 +511,12 @@ public class MappedTableHandler implements TableHandler {
         return queries.query(type, params, connection);
     }
 
+    @Override
+    public void query(String type, Map<String, Object> params, Connection connection, int fetchSize,
+            ObjectHandler handler) throws ResourceException {
+        queries.query(type, params, connection, fetchSize, handler);
+    }
+
     @Override
     public Integer command(String type, Map<String, Object> params, Connection connection) throws SQLException, ResourceException {
         return queries.command(type, params, connection);
@@ -505,22 +548,20 @@ public class MappedTableHandler implements TableHandler {
         return "Generic handler mapped to " + tableName + " and mapping " + rawMappingConfig;
     }
 
+    @Override
+    public boolean isKeysetPagingSupported() {
+        return true;
+    }
+
     @Override
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params) {
         final String offsetParam = (String) params.get(PAGED_RESULTS_OFFSET);
         final String pageSizeParam = (String) params.get(PAGE_SIZE);
-        String pageClause = " LIMIT " + pageSizeParam + " OFFSET " + offsetParam;
-
-        // JsonValue-cheat to avoid an unchecked cast
-        final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
-        // Check for sort keys and build up order-by syntax
-        if (sortKeys != null && sortKeys.size() > 0) {
-            pageClause = " ORDER BY " + StringUtils.join(prepareSortKeyStatements(sortKeys), ", ") + pageClause;
-        }
 
         return "SELECT obj.* FROM ${_dbSchema}.${_mainTable} obj"
-                + getFilterString(filter, replacementTokens)
-                + pageClause;
+                + getFilterString(filter, replacementTokens, params)
+                + " ORDER BY " + getKeysClause(params)
+                + " LIMIT " + pageSizeParam + " OFFSET " + offsetParam;
     }
 
     /**
@@ -538,6 +579,18 @@ public class MappedTableHandler implements TableHandler {
         return keys;
     }
 
+    /**
+     * Returns the ORDER BY keys of a query: its sort keys, then the object id for a stable order across pages.
+     *
+     * @param params a map containing query parameters
+     * @return the comma-separated ORDER BY keys
+     */
+    protected String getKeysClause(Map<String, Object> params) {
+        final List<String> keys = prepareSortKeyStatements(getSortKeys(params));
+        keys.add("objectid ASC");
+        return StringUtils.join(keys, ", ");
+    }
+
     /**
      * Returns a query string representing the supplied filter.
      *
@@ -548,4 +601,54 @@ public class MappedTableHandler implements TableHandler {
     protected String getFilterString(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens) {
         return " WHERE " + filter.accept(queryFilterVisitor, replacementTokens).toSQL();
     }
+
+    /**
+     * Returns a query string representing the supplied filter, narrowed to the rows after the last row of the
+     * previous page when resuming from its keyset.
+     *
+     * @param filter the {@link QueryFilter} object
+     * @param replacementTokens replacement tokens for the query string
+     * @param params a map containing query parameters
+     * @return a query string
+     */
+    protected String getFilterString(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens,
+            Map<String, Object> params) {
+        final KeysetCookie keyset = (KeysetCookie) params.get(PAGED_RESULTS_KEYSET);
+        if (keyset == null) {
+            return getFilterString(filter, replacementTokens);
+        }
+        final List<SortKey> sortKeys = getSortKeys(params);
+        final List<String> sortColumns = new ArrayList<String>();
+        for (SortKey sortKey : sortKeys) {
+            sortColumns.add(explicitMapping.getDbColumnName(sortKey.getField()));
+        }
+        return " WHERE (" + filter.accept(queryFilterVisitor, replacementTokens).toSQL() + ") AND "
+                + keyset.toClause(sortColumns, sortKeys, "objectid", nullsSortHigh(), getSeekTokenPrefix(),
+                        replacementTokens).toSQL();
+    }
+
+    /**
+     * Whether the database orders nulls after any value in ascending order, as PostgreSQL, Oracle and DB2 do, rather
+     * than before any value, as MySQL and SQL Server do.
+     *
+     * @return true if nulls sort high
+     */
+    protected boolean nullsSortHigh() {
+        return false;
+    }
+
+    /**
+     * Returns the prefix of the replacement tokens of the keyset values of a query. Keyset values are strings, which
+     * the database compares with the sort columns whatever their type.
+     *
+     * @return the token prefix, an empty string by default
+     */
+    protected String getSeekTokenPrefix() {
+        return "";
+    }
+
+    private List<SortKey> getSortKeys(Map<String, Object> params) {
+        // JsonValue-cheat to avoid an unchecked cast
+        return new JsonValue(params).get(SORT_KEYS).defaultTo(Collections.emptyList()).asList(SortKey.class);
+    }
 }
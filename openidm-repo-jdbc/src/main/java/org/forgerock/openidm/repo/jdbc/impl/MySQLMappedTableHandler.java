@@ -0,0 +1,51 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.openidm.crypto.CryptoService;
+import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
+import org.forgerock.openidm.util.Accessor;
+
+/**
+ * Mapped table handler for MySQL, which estimates counts from the table statistics of {@code information_schema}.
+ */
+public class MySQLMappedTableHandler extends MappedTableHandler {
+
+    public MySQLMappedTableHandler(String tableName, Map<String, Object> mapping, String dbSchemaName,
+            JsonValue queriesConfig, JsonValue commandsConfig, SQLExceptionHandler sqlExceptionHandler,
+            Accessor<CryptoService> cryptoServiceAccessor) throws InternalServerErrorException {
+        super(tableName, mapping, dbSchemaName, queriesConfig, commandsConfig, sqlExceptionHandler,
+                cryptoServiceAccessor);
+    }
+
+    /**
+     * Estimates the number of objects from the row count of the table, which InnoDB samples rather than counts.
+     */
+    @Override
+    public Integer estimateCount(String type, Connection connection) throws SQLException {
+        if (dbSchemaName == null) {
+            return null;
+        }
+        return queries.estimateCount(connection, "SELECT TABLE_ROWS AS estimate FROM information_schema.TABLES"
+                + " WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?", "estimate", dbSchemaName, tableName);
+    }
+}
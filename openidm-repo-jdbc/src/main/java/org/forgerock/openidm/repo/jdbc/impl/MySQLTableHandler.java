@@ -20,10 +20,13 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+* Portions Copyrighted 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.repo.jdbc.impl;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.Map;
 
 import org.forgerock.json.JsonValue;
@@ -48,5 +51,21 @@ public class MySQLTableHandler extends GenericTableHandler {
         
         result.put(QueryDefinition.READFORUPDATEQUERYSTR, "SELECT obj.* FROM " + mainTable + " obj INNER JOIN " + typeTable + " objtype ON obj.objecttypes_id = objtype.id AND objtype.objecttype = ? WHERE obj.objectid  = ? LOCK IN SHARE MODE");
         return result;
-    }    
+    }
+
+    /**
+     * Estimates the number of objects of the type from the number of rows the optimizer expects to read from the
+     * index on the object type, which InnoDB estimates from a dive into the index rather than by counting.
+     * The table statistics of {@code information_schema} only count the rows of all types together.
+     */
+    @Override
+    public Integer estimateCount(String type, Connection connection) throws SQLException {
+        final long typeId = readTypeId(type, connection);
+        if (typeId < 0) {
+            return 0;
+        }
+        final String mainTable = dbSchemaName == null ? mainTableName : dbSchemaName + "." + mainTableName;
+        return queries.estimatePlannedCount(connection,
+                "EXPLAIN SELECT obj.id FROM " + mainTable + " obj WHERE obj.objecttypes_id = ?", "rows", "key", typeId);
+    }
 }
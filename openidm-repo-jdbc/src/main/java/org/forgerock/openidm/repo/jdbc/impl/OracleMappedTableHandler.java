@@ -20,21 +20,18 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+* Portions Copyrighted 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
 import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
 import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
-import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 
-import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.lang3.StringUtils;
 import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.InternalServerErrorException;
-import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
 import org.forgerock.openidm.util.Accessor;
@@ -52,18 +49,9 @@ public class OracleMappedTableHandler extends MappedTableHandler {
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params) {
         final int offsetParam = Integer.parseInt((String)params.get(PAGED_RESULTS_OFFSET));
         final int pageSizeParam = Integer.parseInt((String)params.get(PAGE_SIZE));
-        String filterString = getFilterString(filter, replacementTokens);
-        final String keysClause;
+        String filterString = getFilterString(filter, replacementTokens, params);
+        final String keysClause = getKeysClause(params);
 
-        // JsonValue-cheat to avoid an unchecked cast
-        final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
-        // Check for sort keys and build up order-by syntax
-        if (sortKeys != null && sortKeys.size() > 0) {
-            keysClause = StringUtils.join(prepareSortKeyStatements(sortKeys), ", ");
-        } else {
-            keysClause = "objectid DESC";
-        }
-        
         return "SELECT * FROM ( SELECT ${_dbSchema}.${_mainTable}.*, row_number() OVER ( ORDER BY "
                 + keysClause
                 + " ) AS rn FROM ${_dbSchema}.${_mainTable} "
@@ -75,4 +63,11 @@ public class OracleMappedTableHandler extends MappedTableHandler {
                 + " ORDER BY rn";
     }
 
+    /**
+     * Oracle and DB2, which both use this handler, order nulls after any value in ascending order.
+     */
+    @Override
+    protected boolean nullsSortHigh() {
+        return true;
+    }
 }
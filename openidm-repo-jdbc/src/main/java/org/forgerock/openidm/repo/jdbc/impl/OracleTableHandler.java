@@ -20,13 +20,13 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+* Portions Copyrighted 2026 3A Systems LLC.
  * $Id$
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
 import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
 import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
-import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 import static org.forgerock.openidm.repo.util.Clauses.where;
 
 import java.io.IOException;
@@ -34,14 +34,13 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
 import java.util.Map;
 
 import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.InternalServerErrorException;
-import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
+import org.forgerock.openidm.repo.util.AbstractSQLQueryFilterVisitor;
 import org.forgerock.openidm.repo.util.Clause;
 import org.forgerock.util.query.QueryFilter;
 import org.slf4j.Logger;
@@ -105,6 +104,13 @@ public class OracleTableHandler extends GenericTableHandler {
         }
     }
 
+    @Override
+    PreparedStatement prepareCreateStatement(Connection connection) throws SQLException {
+        // Return the value of the "id-column" rather than the rowid, as for a single create
+        String generatedColumns[] = {"id"};
+        return queries.getPreparedStatement(connection, queryMap.get(QueryDefinition.CREATEQUERYSTR), generatedColumns);
+    }
+
     @Override
     protected Map<QueryDefinition, String> initializeQueryMap() {
         Map<QueryDefinition, String> result = super.initializeQueryMap();
@@ -158,30 +164,35 @@ public class OracleTableHandler extends GenericTableHandler {
                 .on(where("obj.objecttypes_id = objecttypes.id")
                         .and("objecttypes.objecttype = ${otype}"))
 
-                .where(filter.accept(
-                        new GenericSQLQueryFilterVisitor(DEFAULT_SEARCHABLE_LENGTH, builder) {
-                            // override numeric value clause generation to cast propvalue to a number
-                            @Override
-                            Clause buildNumericValueClause(String propTable, String operand, String placeholder) {
-                                return where(propTable + ".proptype = 'java.lang.Integer'")
-                                        .or(propTable + ".proptype = 'java.lang.Double'")
-                                        .and("TO_NUMBER(" + propTable + ".propvalue) " + operand + " ${" + placeholder + "}");
-                            }
-                        },
-                        replacementTokens));
+                .where(filter.accept(newQueryFilterVisitor(builder), replacementTokens));
 
         // other half of OPENIDM-2773 fix
         replacementTokens.put("otype", params.get("_resource"));
 
-        // JsonValue-cheat to avoid an unchecked cast
-        final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
         // Check for sort keys and build up order-by syntax
-        if (sortKeys != null && sortKeys.size() > 0) {
-            prepareSortKeyStatements(builder, sortKeys, replacementTokens);
-        } else {
-            builder.orderBy("obj.id", false);
-        }
+        prepareOrderByAndKeyset(builder, params, replacementTokens);
 
         return builder.toSQL();
     }
+
+    @Override
+    protected AbstractSQLQueryFilterVisitor<Clause, Map<String, Object>> newQueryFilterVisitor(SQLBuilder builder) {
+        return new GenericSQLQueryFilterVisitor(DEFAULT_SEARCHABLE_LENGTH, builder) {
+            // override numeric value clause generation to cast propvalue to a number
+            @Override
+            Clause buildNumericValueClause(String propTable, String operand, String placeholder) {
+                return where(propTable + ".proptype = 'java.lang.Integer'")
+                        .or(propTable + ".proptype = 'java.lang.Double'")
+                        .and("TO_NUMBER(" + propTable + ".propvalue) " + operand + " ${" + placeholder + "}");
+            }
+        };
+    }
+
+    /**
+     * Oracle orders nulls after any value in ascending order.
+     */
+    @Override
+    protected boolean nullsSortHigh() {
+        return true;
+    }
 }
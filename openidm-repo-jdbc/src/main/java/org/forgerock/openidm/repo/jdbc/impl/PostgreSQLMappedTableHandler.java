@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
@@ -19,8 +20,11 @@ import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
+import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
 import org.forgerock.openidm.util.Accessor;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.Map;
 
 /**
@@ -75,4 +79,38 @@ public class PostgreSQLMappedTableHandler extends MappedTableHandler {
         logger.debug("Unprepared query strings {} {} {} {} {}",
                 readQueryStr, createQueryStr, updateQueryStr, deleteQueryStr);
     }
+
+    /**
+     * Estimates the number of objects from the row count of the table, as of its last {@code VACUUM} or
+     * {@code ANALYZE}. Before PostgreSQL 14, a table never vacuumed nor analyzed has a row count of 0 rather
+     * than -1, so the objects are counted then.
+     */
+    @Override
+    public Integer estimateCount(String type, Connection connection) throws SQLException {
+        if (dbSchemaName == null) {
+            return null;
+        }
+        final Integer estimate = queries.estimateCount(connection, "SELECT c.reltuples AS estimate"
+                + " FROM pg_catalog.pg_class c"
+                + " INNER JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace"
+                + " WHERE n.nspname = ? AND c.relname = ?", "estimate", dbSchemaName, tableName);
+        return estimate == null || estimate == 0 ? null : estimate;
+    }
+
+    /**
+     * PostgreSQL orders nulls after any value in ascending order.
+     */
+    @Override
+    protected boolean nullsSortHigh() {
+        return true;
+    }
+
+    /**
+     * Binds the keyset values with an unspecified type, so that PostgreSQL converts them to the type of the
+     * column they are compared with rather than failing to compare a character varying value with it.
+     */
+    @Override
+    protected String getSeekTokenPrefix() {
+        return TableQueries.PREFIX_UNTYPED + ":";
+    }
 }
@@ -20,6 +20,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+* Portions Copyrighted 2026 3A Systems LLC.
  * $Id$
  */
 package org.forgerock.openidm.repo.jdbc.impl;
@@ -27,9 +28,13 @@ package org.forgerock.openidm.repo.jdbc.impl;
 import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
 import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
 import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
+import static org.forgerock.openidm.repo.jdbc.impl.KeysetCookie.PAGED_RESULTS_KEYSET;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -50,6 +55,18 @@ import org.forgerock.util.query.QueryFilter;
  */
 public class PostgreSQLTableHandler extends GenericTableHandler {
 
+    /**
+     * Reads the estimated row count of a table, times the frequency of an object type among its rows. Types too
+     * rare to be among the most common values of the statistics have no estimate.
+     */
+    private static final String ESTIMATE_COUNT_QUERY = "SELECT c.reltuples"
+            + " * s.most_common_freqs[array_position(s.most_common_vals::text::bigint[], ?)] AS estimate"
+            + " FROM pg_catalog.pg_class c"
+            + " INNER JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace"
+            + " INNER JOIN pg_catalog.pg_stats s ON s.schemaname = n.nspname AND s.tablename = c.relname"
+            + " AND s.attname = 'objecttypes_id'"
+            + " WHERE n.nspname = ? AND c.relname = ?";
+
     private class JsonExtractPathQueryFilterVisitor extends StringSQLQueryFilterVisitor<Map<String, Object>> {
         // value number for each value placeholder
         int objectNumber = 0;
@@ -147,20 +164,28 @@ public class PostgreSQLTableHandler extends GenericTableHandler {
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params) {
         final String offsetParam = (String) params.get(PAGED_RESULTS_OFFSET);
         final String pageSizeParam = (String) params.get(PAGE_SIZE);
-        String pageClause = " LIMIT " + pageSizeParam + " OFFSET " + offsetParam;
-        
+        final String pageClause = " LIMIT " + pageSizeParam + " OFFSET " + offsetParam;
+
         // JsonValue-cheat to avoid an unchecked cast
-        final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
-        // Check for sort keys and build up order-by syntax
-        if (sortKeys != null && sortKeys.size() > 0) {
-            List<String> keys = new ArrayList<String>();
-            for (int i = 0; i < sortKeys.size(); i++) {
-                final SortKey sortKey = sortKeys.get(i);
-                final String tokenName = "sortKey" + i;
-                keys.add("json_extract_path_text(fullobject, ${" + tokenName + (sortKey.isAscendingOrder() ? "}) ASC" : "}) DESC"));
-                replacementTokens.put(tokenName, sortKey.getField().toString().substring(1));
-            }
-            pageClause = " ORDER BY " + StringUtils.join(keys, ", ") + pageClause;
+        final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).defaultTo(Collections.emptyList()).asList(SortKey.class);
+        // Check for sort keys and build up order-by syntax, ordering by object id last for a stable order
+        final List<String> sortColumns = new ArrayList<String>();
+        final List<String> keys = new ArrayList<String>();
+        for (int i = 0; i < sortKeys.size(); i++) {
+            final SortKey sortKey = sortKeys.get(i);
+            final String tokenName = "sortKey" + i;
+            final String sortColumn = "json_extract_path_text(fullobject, ${" + tokenName + "})";
+            sortColumns.add(sortColumn);
+            keys.add(sortColumn + (sortKey.isAscendingOrder() ? " ASC" : " DESC"));
+            replacementTokens.put(tokenName, sortKey.getField().toString().substring(1));
+        }
+        keys.add("obj.objectid ASC");
+
+        String whereClause = filter.accept(new JsonExtractPathQueryFilterVisitor(), replacementTokens).toSQL();
+        final KeysetCookie keyset = (KeysetCookie) params.get(PAGED_RESULTS_KEYSET);
+        if (keyset != null) {
+            whereClause = "(" + whereClause + ") AND "
+                    + keyset.toClause(sortColumns, sortKeys, "obj.objectid", nullsSortHigh(), "", replacementTokens).toSQL();
         }
 
         replacementTokens.put("otype", params.get("_resource"));
@@ -168,6 +193,35 @@ public class PostgreSQLTableHandler extends GenericTableHandler {
                 + " FROM ${_dbSchema}.${_mainTable} obj"
                 + " INNER JOIN ${_dbSchema}.objecttypes objtype ON objtype.id = obj.objecttypes_id AND objtype.objecttype = ${otype}"
                 + " WHERE "
-                + filter.accept(new JsonExtractPathQueryFilterVisitor(), replacementTokens).toSQL() + pageClause;
+                + whereClause
+                + " ORDER BY " + StringUtils.join(keys, ", ")
+                + pageClause;
+    }
+
+    /**
+     * Estimates the number of objects of the type from the row count of the main table and the share of the type
+     * among its rows, as sampled by {@code ANALYZE}. The objects are counted if the table was never analyzed, as
+     * its row count is then 0 before PostgreSQL 14, or if the type is too rare to be among the sampled values.
+     */
+    @Override
+    public Integer estimateCount(String type, Connection connection) throws SQLException {
+        if (dbSchemaName == null) {
+            return null;
+        }
+        final long typeId = readTypeId(type, connection);
+        if (typeId < 0) {
+            return 0;
+        }
+        final Integer estimate = queries.estimateCount(connection, ESTIMATE_COUNT_QUERY, "estimate", typeId,
+                dbSchemaName, mainTableName);
+        return estimate == null || estimate == 0 ? null : estimate;
+    }
+
+    /**
+     * PostgreSQL orders nulls after any value in ascending order.
+     */
+    @Override
+    protected boolean nullsSortHigh() {
+        return true;
     }
 }
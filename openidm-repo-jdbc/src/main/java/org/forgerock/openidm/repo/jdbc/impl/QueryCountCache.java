@@ -0,0 +1,122 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Caches the results of count queries, so that paging through a large result set does not count all of it again
+ * for every page.
+ * <p>
+ * Counts are cached per object type, count query and query parameters, for a short time to live. Writing objects of
+ * a type invalidates the counts of that type: each type has a generation, which is part of the cache key and is
+ * incremented by every write, so that counts cached before the write, or taken while it was in progress, are no
+ * longer found. Writes of other repository instances sharing the database are only seen once the counts expire.
+ */
+final class QueryCountCache {
+
+    /** The maximum number of counts cached */
+    private static final long MAX_ENTRIES = 1000;
+
+    private final Cache<List<Object>, Integer> counts;
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a count cache.
+     *
+     * @param ttl the time to live of the cached counts, in seconds
+     */
+    QueryCountCache(long ttl) {
+        this.counts = CacheBuilder.newBuilder()
+                .maximumSize(MAX_ENTRIES)
+                .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Gets the key of a count, for the current generation of the object type. The key is to be obtained before
+     * counting, so that a count which races a write is cached under the generation preceding the write.
+     *
+     * @param type the object type counted
+     * @param queryId the count query
+     * @param params the parameters of the count query
+     * @return the key of the count
+     */
+    List<Object> key(String type, String queryId, Map<String, String> params) {
+        return Arrays.<Object>asList(type, generation(type).get(), queryId, new HashMap<>(params));
+    }
+
+    /**
+     * Gets a cached count.
+     *
+     * @param key the key of the count
+     * @return the count, or null if it is not cached
+     */
+    Integer get(List<Object> key) {
+        return counts.getIfPresent(key);
+    }
+
+    /**
+     * Caches a count.
+     *
+     * @param key the key of the count, obtained before counting
+     * @param count the count
+     */
+    void put(List<Object> key, int count) {
+        counts.put(key, count);
+    }
+
+    /**
+     * Invalidates the cached counts of an object type, after objects of the type were written.
+     *
+     * @param type the object type written
+     */
+    void invalidate(String type) {
+        generation(type).incrementAndGet();
+    }
+
+    /**
+     * Invalidates all the cached counts, after writes to objects of unknown types.
+     */
+    void invalidateAll() {
+        for (AtomicLong generation : generations.values()) {
+            generation.incrementAndGet();
+        }
+        counts.invalidateAll();
+    }
+
+    private AtomicLong generation(String type) {
+        AtomicLong generation = generations.get(type);
+        if (generation == null) {
+            final AtomicLong created = new AtomicLong();
+            generation = generations.putIfAbsent(type, created);
+            if (generation == null) {
+                generation = created;
+            }
+        }
+        return generation;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.openidm.util.TransactionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The database transaction of the repository operations of a request, enlisted in its {@link TransactionContext}.
+ * The operations share one connection, and their changes are committed together.
+ * <p>
+ * Each write runs from a savepoint, released once it succeeded, so that a failed write, for instance a create
+ * rejected as the object already exists, leaves the changes of the previous operations in place. Reads run without
+ * a savepoint; as some databases abort the transaction on any failed statement, a read failing in the database
+ * leaves the transaction to be rolled back. Operations are not retried: once the database reports a retryable
+ * failure, such as a deadlock, it may have rolled back the whole transaction, and the transaction can then only be
+ * rolled back.
+ */
+class RequestTransaction implements TransactionContext.Resource {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestTransaction.class);
+
+    /**
+     * An operation on the connection of the transaction.
+     *
+     * @param <T> the type of the result of the operation
+     */
+    interface Operation<T> {
+        T execute(Connection connection) throws SQLException, IOException, ResourceException;
+    }
+
+    private final JDBCRepoService repo;
+    private final Connection connection;
+    private final int previousIsolationLevel;
+
+    /** The types of the objects written, whose cached counts are invalidated once committed */
+    private final Set<String> writtenTypes = new LinkedHashSet<>();
+
+    /** Whether a write was attempted, after which registering a type must not commit on this connection */
+    private boolean written = false;
+    /** Whether the driver supports releasing savepoints, which is only known once tried */
+    private boolean releaseSavepoints = true;
+    private boolean rollbackOnly = false;
+    private boolean completed = false;
+
+    /**
+     * Starts a transaction on the connection.
+     *
+     * @param repo the repository, whose cached counts of the types written are invalidated on commit
+     * @param connection the connection, which is closed once the transaction completes
+     * @throws SQLException if the transaction could not be started
+     */
+    RequestTransaction(JDBCRepoService repo, Connection connection) throws SQLException {
+        this.repo = repo;
+        this.connection = connection;
+        this.previousIsolationLevel = connection.getTransactionIsolation();
+        connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        connection.setAutoCommit(false);
+    }
+
+    /**
+     * Prepares the creation of objects of a type. Handlers may commit when preparing, for instance to register a
+     * new type, so once something was written the creation is prepared on a connection of its own.
+     *
+     * @param handler the table handler of the type
+     * @param type the type of the objects to create
+     * @throws SQLException if the preparation failed
+     * @throws ResourceException if the preparation failed
+     */
+    synchronized void prepareCreate(TableHandler handler, String type) throws SQLException, ResourceException {
+        checkActive();
+        if (!written) {
+            handler.prepareCreate(type, connection);
+            connection.setAutoCommit(false);
+            return;
+        }
+        Connection preparation = null;
+        try {
+            preparation = repo.getConnection();
+            preparation.setAutoCommit(true);
+            handler.prepareCreate(type, preparation);
+        } finally {
+            CleanupHelper.loggedClose(preparation);
+        }
+    }
+
+    /**
+     * Executes an operation within the transaction. If a write fails, its changes are rolled back, and those of the
+     * previous operations are kept. If a read fails in the database, the transaction can only be rolled back.
+     *
+     * @param writtenType the type of the objects the operation writes, or null if it only reads
+     * @param operation the operation
+     * @param <T> the type of the result of the operation
+     * @return the result of the operation
+     * @throws SQLException if the operation failed
+     * @throws IOException if the operation failed
+     * @throws ResourceException if the operation failed, or the transaction is no longer active
+     */
+    synchronized <T> T execute(String writtenType, Operation<T> operation)
+            throws SQLException, IOException, ResourceException {
+        checkActive();
+        if (writtenType == null) {
+            try {
+                return operation.execute(connection);
+            } catch (SQLException ex) {
+                rollbackOnly = true;
+                throw ex;
+            }
+        }
+        written = true;
+        final Savepoint savepoint = connection.setSavepoint();
+        final T result;
+        try {
+            result = operation.execute(connection);
+        } catch (SQLException | IOException | ResourceException | RuntimeException ex) {
+            try {
+                connection.rollback(savepoint);
+            } catch (SQLException rollbackEx) {
+                logger.warn("Rolling back to savepoint reported failure ", rollbackEx);
+                rollbackOnly = true;
+            }
+            throw ex;
+        }
+        writtenTypes.add(writtenType);
+        releaseSavepoint(savepoint);
+        return result;
+    }
+
+    private void releaseSavepoint(Savepoint savepoint) {
+        if (!releaseSavepoints) {
+            return;
+        }
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLFeatureNotSupportedException ex) {
+            // Oracle keeps savepoints until the transaction completes
+            logger.debug("Releasing savepoints is not supported by the driver", ex);
+            releaseSavepoints = false;
+        } catch (SQLException ex) {
+            logger.warn("Releasing savepoint reported failure ", ex);
+        }
+    }
+
+    /**
+     * Marks the transaction as failed, once the database reported a failure that may have rolled it back.
+     */
+    synchronized void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    private void checkActive() throws ResourceException {
+        if (completed) {
+            throw new InternalServerErrorException("The repository transaction of the request has completed");
+        }
+        if (rollbackOnly) {
+            throw new InternalServerErrorException("The repository transaction of the request failed");
+        }
+    }
+
+    @Override
+    public synchronized void commit() throws ResourceException {
+        if (completed) {
+            return;
+        }
+        completed = true;
+        try {
+            if (rollbackOnly) {
+                connection.rollback();
+                throw new InternalServerErrorException(
+                        "The repository transaction of the request failed and was rolled back");
+            }
+            connection.commit();
+            logger.debug("Committed the repository transaction of the request");
+            for (String type : writtenTypes) {
+                repo.invalidateCounts(type);
+            }
+        } catch (SQLException ex) {
+            logger.debug("SQL Exception in commit with error code {}, sql state {}",
+                    ex.getErrorCode(), ex.getSQLState(), ex);
+            rollbackConnection();
+            throw new InternalServerErrorException("Committing the repository transaction of the request failed: "
+                    + ex.getMessage(), ex);
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    public synchronized void rollback() {
+        if (completed) {
+            return;
+        }
+        completed = true;
+        try {
+            rollbackConnection();
+        } finally {
+            release();
+        }
+    }
+
+    private void rollbackConnection() {
+        try {
+            logger.debug("Rolling back the repository transaction of the request");
+            connection.rollback();
+        } catch (SQLException ex) {
+            logger.warn("Rolling back transaction reported failure ", ex);
+        }
+    }
+
+    private void release() {
+        try {
+            connection.setTransactionIsolation(previousIsolationLevel);
+        } catch (SQLException ex) {
+            logger.warn("Failure in resetting connection isolation level ", ex);
+        }
+        CleanupHelper.loggedClose(connection);
+    }
+}
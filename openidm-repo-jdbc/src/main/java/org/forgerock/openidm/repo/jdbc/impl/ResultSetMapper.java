@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
@@ -22,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.openidm.repo.jdbc.ObjectHandler;
 
 /**
  * Handles the conversion of ResultSets into Object set results
@@ -32,6 +34,19 @@ public interface ResultSetMapper {
     List<Map<String, Object>> mapToObject(ResultSet rs, String queryId, String type, Map<String, Object> params)
             throws SQLException, IOException, InternalServerErrorException;
 
+    /**
+     * Maps the rows of the ResultSet to objects, handing each object over as soon as its row is read, so that the
+     * rows are never all held at once. Stops at the first object the handler declines.
+     *
+     * @param rs the result set, positioned before its first row
+     * @param queryId the query id, if any
+     * @param type the resource type queried
+     * @param params the query parameters
+     * @param handler receives the mapped objects
+     */
+    void mapToObject(ResultSet rs, String queryId, String type, Map<String, Object> params, ObjectHandler handler)
+            throws SQLException, IOException, InternalServerErrorException;
+
     List<Map<String, Object>> mapToRawObject(ResultSet rs) throws SQLException,
             IOException, InternalServerErrorException;
 }
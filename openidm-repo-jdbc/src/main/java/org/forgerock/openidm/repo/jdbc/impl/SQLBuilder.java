@@ -20,6 +20,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+* Portions Copyrighted 2026 3A Systems LLC.
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
@@ -187,7 +188,7 @@ abstract class SQLBuilder implements SQLRenderer<String> {
     private final List<SQLRenderer<String>> tables = new ArrayList<SQLRenderer<String>>();
     private final List<SQLRenderer<String>> joins = new ArrayList<SQLRenderer<String>>();
     // the where clause is not final because it is not set at build time
-    private SQLRenderer<String> whereClause = null;
+    private Clause whereClause = null;
     private final List<SQLRenderer<String>> orderBys = new ArrayList<SQLRenderer<String>>();
 
     /**
@@ -314,6 +315,17 @@ abstract class SQLBuilder implements SQLRenderer<String> {
         return this;
     }
 
+    /**
+     * Narrow the where clause with an additional condition.
+     *
+     * @param clause the condition the selected rows must also meet
+     * @return the builder
+     */
+    SQLBuilder andWhere(Clause clause) {
+        this.whereClause = whereClause != null ? whereClause.and(clause) : clause;
+        return this;
+    }
+
     /**
      * Add an order-by clause.
      *
@@ -0,0 +1,294 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl.query;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.openidm.repo.jdbc.impl.CleanupHelper;
+import org.forgerock.openidm.smartevent.EventEntry;
+import org.forgerock.openidm.smartevent.Name;
+import org.forgerock.openidm.smartevent.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A least recently used cache of prepared statements per physical database connection.
+ * <p>
+ * Statements are prepared on the physical connection underneath the connection handed out by a pool, so that they
+ * outlive the connection being returned to the pool and are reused the next time the physical connection is
+ * borrowed. The statements handed out are closed as usual once used; closing them clears their parameters and
+ * returns them to the cache instead. A statement that is still in use when its SQL is prepared again on the same
+ * connection, as happens for nested queries, is not shared: an uncached statement is prepared instead.
+ * <p>
+ * The statements of a physical connection are released once it is found closed, which is checked whenever a
+ * connection not seen before is used.
+ */
+public class StatementCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+    /** Monitoring event name for a statement found in the cache */
+    static final Name EVENT_HIT = Name.get("openidm/internal/repo/jdbc/statementCache/hit");
+
+    /** Monitoring event name for a statement prepared because it was not cached, measuring the prepare */
+    static final Name EVENT_MISS = Name.get("openidm/internal/repo/jdbc/statementCache/miss");
+
+    private final int maxStatements;
+
+    private final Map<Connection, ConnectionStatements> connections = new IdentityHashMap<>();
+
+    /**
+     * Constructs a statement cache.
+     *
+     * @param maxStatements the maximum number of statements to cache per connection
+     */
+    public StatementCache(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    /**
+     * Gets a prepared statement for the given connection and SQL, from the cache if possible.
+     *
+     * @param connection the db connection to get a prepared statement for
+     * @param sql the prepared statement SQL
+     * @param autoGeneratedKeys whether to return auto-generated keys by the DB
+     * @param columns the auto incremented columns to return, or null
+     * @return the prepared statement, to be closed by the caller once used
+     * @throws SQLException if preparing the statement failed
+     */
+    PreparedStatement getPreparedStatement(Connection connection, String sql, boolean autoGeneratedKeys,
+            String[] columns) throws SQLException {
+        Connection physicalConnection = getPhysicalConnection(connection);
+        String key = columns != null
+                ? String.join(",", columns) + ":" + sql
+                : (autoGeneratedKeys ? "keys:" : ":") + sql;
+        ConnectionStatements statements = getConnectionStatements(physicalConnection);
+        synchronized (statements) {
+            CachedStatement cached = statements.get(key);
+            if (cached != null && !cached.inUse) {
+                Publisher.start(EVENT_HIT, null, null).end();
+                return cached.lease();
+            }
+        }
+
+        PreparedStatement statement;
+        EventEntry measure = Publisher.start(EVENT_MISS, null, null);
+        try {
+            if (columns != null) {
+                statement = physicalConnection.prepareStatement(sql, columns);
+            } else if (autoGeneratedKeys) {
+                statement = physicalConnection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            } else {
+                statement = physicalConnection.prepareStatement(sql);
+            }
+        } finally {
+            measure.end();
+        }
+
+        synchronized (statements) {
+            if (statements.closed || statements.containsKey(key)) {
+                // the connection was found closed, or the cached statement is in use: leave this one uncached
+                return statement;
+            }
+            CachedStatement cached = new CachedStatement(statements, statement);
+            statements.put(key, cached);
+            return cached.lease();
+        }
+    }
+
+    /**
+     * Closes all the cached statements that are not in use, and those in use once they are returned.
+     */
+    public void clear() {
+        List<ConnectionStatements> all;
+        synchronized (connections) {
+            all = new ArrayList<>(connections.values());
+            connections.clear();
+        }
+        for (ConnectionStatements statements : all) {
+            statements.closeAll();
+        }
+    }
+
+    private ConnectionStatements getConnectionStatements(Connection physicalConnection) {
+        synchronized (connections) {
+            ConnectionStatements statements = connections.get(physicalConnection);
+            if (statements == null) {
+                releaseClosedConnections();
+                statements = new ConnectionStatements();
+                connections.put(physicalConnection, statements);
+            }
+            return statements;
+        }
+    }
+
+    private void releaseClosedConnections() {
+        Iterator<Map.Entry<Connection, ConnectionStatements>> entries = connections.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Connection, ConnectionStatements> entry = entries.next();
+            boolean closed;
+            try {
+                closed = entry.getKey().isClosed();
+            } catch (SQLException e) {
+                closed = true;
+            }
+            if (closed) {
+                entries.remove();
+                entry.getValue().closeAll();
+            }
+        }
+    }
+
+    private static Connection getPhysicalConnection(Connection connection) {
+        try {
+            if (connection.isWrapperFor(Connection.class)) {
+                Connection physicalConnection = connection.unwrap(Connection.class);
+                if (physicalConnection != null) {
+                    return physicalConnection;
+                }
+            }
+        } catch (SQLException e) {
+            logger.debug("Failed to unwrap connection {}, caching its statements with the connection itself",
+                    connection, e);
+        }
+        return connection;
+    }
+
+    /**
+     * The cached statements of one connection, evicting the least recently used beyond the maximum.
+     */
+    private class ConnectionStatements extends LinkedHashMap<String, CachedStatement> {
+
+        private static final long serialVersionUID = 1L;
+
+        private boolean closed = false;
+
+        ConnectionStatements() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+            if (size() > maxStatements) {
+                eldest.getValue().evict();
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void closeAll() {
+            closed = true;
+            for (CachedStatement cached : values()) {
+                cached.evict();
+            }
+            clear();
+        }
+    }
+
+    /**
+     * A cached statement, handed out as a proxy that returns the statement to the cache when closed.
+     */
+    private static class CachedStatement {
+
+        private final ConnectionStatements owner;
+        private final PreparedStatement statement;
+        private boolean inUse = false;
+        private boolean evicted = false;
+
+        CachedStatement(ConnectionStatements owner, PreparedStatement statement) {
+            this.owner = owner;
+            this.statement = statement;
+        }
+
+        /**
+         * Hands out the statement until the proxy returned is closed. Called with the owner locked.
+         *
+         * @return the proxy to use the statement through
+         */
+        PreparedStatement lease() {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, new InvocationHandler() {
+                        private boolean released = false;
+
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            if ("close".equals(method.getName()) && method.getParameterTypes().length == 0) {
+                                if (!released) {
+                                    released = true;
+                                    release();
+                                }
+                                return null;
+                            }
+                            if ("isClosed".equals(method.getName()) && released) {
+                                return true;
+                            }
+                            try {
+                                return method.invoke(statement, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    });
+        }
+
+        /**
+         * Removes the statement from use, closing it now if it is not in use, or else once it is returned.
+         * Called with the owner locked.
+         */
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                CleanupHelper.loggedClose(statement);
+            }
+        }
+
+        private void release() {
+            boolean reusable;
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                reusable = true;
+            } catch (SQLException e) {
+                logger.debug("Failed to reset cached statement, closing it", e);
+                reusable = false;
+            }
+            synchronized (owner) {
+                inUse = false;
+                if (!reusable && !evicted) {
+                    owner.values().remove(this);
+                    evicted = true;
+                }
+                if (evicted || owner.closed) {
+                    CleanupHelper.loggedClose(statement);
+                }
+            }
+        }
+    }
+}
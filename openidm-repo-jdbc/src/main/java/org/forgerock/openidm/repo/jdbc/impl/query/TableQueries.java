@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.repo.jdbc.impl.query;
@@ -30,6 +31,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -43,6 +45,7 @@ import org.forgerock.json.resource.BadRequestException;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.openidm.core.ServerConstants;
+import org.forgerock.openidm.repo.jdbc.ObjectHandler;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.CleanupHelper;
 import org.forgerock.openidm.repo.jdbc.impl.GenericTableHandler.QueryDefinition;
@@ -69,6 +72,9 @@ public class TableQueries {
     public static final String PREFIX_INT = "int";
     
     public static final String PREFIX_LIST = "list";
+
+    /** Prefix of tokens bound as strings of unspecified SQL type, which the database converts as needed. */
+    public static final String PREFIX_UNTYPED = "untyped";
     
     // Monitoring event name prefix
     static final String EVENT_RAW_QUERY_PREFIX = "openidm/internal/repo/jdbc/raw/query/";
@@ -165,6 +171,9 @@ public class TableQueries {
     /** The Table Handler */
     private final TableHandler tableHandler;
 
+    /** The cache of prepared statements, or null if statements are not cached */
+    private volatile StatementCache statementCache;
+
     /**
      * Constructor.
      *
@@ -185,6 +194,15 @@ public class TableQueries {
         this.resultMapper = resultMapper;
     }
 
+    /**
+     * Sets the cache to get prepared statements from.
+     *
+     * @param statementCache the cache of prepared statements, or null to prepare statements on every use
+     */
+    public void setStatementCache(StatementCache statementCache) {
+        this.statementCache = statementCache;
+    }
+
     /**
      * Get a prepared statement for the given connection and SQL. May come from
      * a cache (either local or the host container)
@@ -218,12 +236,12 @@ public class TableQueries {
      */
     public PreparedStatement getPreparedStatement(Connection connection, String sql,
             boolean autoGeneratedKeys) throws SQLException {
-        // This is where local prepared statement caching could be added for
-        // stand-alone operation.
-
-        // In the context of a (JavaEE) container rely on its built-in prepared
-        // statement caching
-        // rather than doing it explicitly here.
+        // Cache locally if configured for the data source, otherwise rely on the
+        // prepared statement caching of the driver or the connection pool.
+        final StatementCache cache = statementCache;
+        if (cache != null) {
+            return cache.getPreparedStatement(connection, sql, autoGeneratedKeys, null);
+        }
         if (autoGeneratedKeys) {
             return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
         } else {
@@ -253,9 +271,106 @@ public class TableQueries {
      */
     public PreparedStatement getPreparedStatement(Connection connection, String sql, String[] columns)
             throws SQLException {
+        final StatementCache cache = statementCache;
+        if (cache != null) {
+            return cache.getPreparedStatement(connection, sql, false, columns);
+        }
         return connection.prepareStatement(sql, columns);
     }
 
+    /**
+     * Checks the update counts of a batch. Some drivers carry on with the statements of a batch after one of them
+     * failed, reporting the failure in the update counts rather than throwing a
+     * {@link java.sql.BatchUpdateException}.
+     *
+     * @param updateCounts
+     *            the update counts of the statements of the batch
+     * @param rowsExpected
+     *            whether each statement of the batch writes at least one row
+     * @throws SQLException
+     *             if a statement of the batch failed, or wrote no row
+     */
+    public static void checkUpdateCounts(int[] updateCounts, boolean rowsExpected) throws SQLException {
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == Statement.EXECUTE_FAILED || (rowsExpected && updateCounts[i] == 0)) {
+                throw new SQLException("Statement " + (i + 1) + " of a batch of " + updateCounts.length
+                        + " failed with update count " + updateCounts[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a row count estimate from the statistics of the database.
+     *
+     * @param connection
+     *            db connection to read the statistics with
+     * @param sql
+     *            the statement reading the statistics, with placeholders for
+     *            the parameters
+     * @param column
+     *            the label of the column holding the estimate
+     * @param params
+     *            the parameters of the statement
+     * @return the estimate, or null if the statistics hold none
+     * @throws SQLException
+     *             if reading the statistics failed
+     */
+    public Integer estimateCount(Connection connection, String sql, String column, Object... params)
+            throws SQLException {
+        return readEstimate(connection, sql, column, null, params);
+    }
+
+    /**
+     * Reads a row count estimate from the plan the optimizer chose for a statement, such as the output of
+     * {@code EXPLAIN}. The plan only estimates the rows the statement matches if it reads them from an index:
+     * on a full scan, it estimates the rows of the whole table.
+     *
+     * @param connection
+     *            db connection to explain the statement with
+     * @param sql
+     *            the statement explaining the plan, with placeholders for
+     *            the parameters
+     * @param rowsColumn
+     *            the label of the column holding the estimate
+     * @param keyColumn
+     *            the label of the column holding the index the plan reads,
+     *            null on a full scan
+     * @param params
+     *            the parameters of the statement
+     * @return the estimate, or null if the plan reads no index
+     * @throws SQLException
+     *             if explaining the statement failed
+     */
+    public Integer estimatePlannedCount(Connection connection, String sql, String rowsColumn, String keyColumn,
+            Object... params) throws SQLException {
+        return readEstimate(connection, sql, rowsColumn, keyColumn, params);
+    }
+
+    private Integer readEstimate(Connection connection, String sql, String column, String keyColumn,
+            Object... params) throws SQLException {
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            statement = getPreparedStatement(connection, sql);
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            rs = statement.executeQuery();
+            if (!rs.next() || (keyColumn != null && rs.getObject(keyColumn) == null)) {
+                return null;
+            }
+            final Object estimate = rs.getObject(column);
+            // statistics which were never gathered are null or negative
+            if (!(estimate instanceof Number) || ((Number) estimate).doubleValue() < 0) {
+                return null;
+            }
+            return (int) Math.min(Math.round(((Number) estimate).doubleValue()), Integer.MAX_VALUE);
+        } finally {
+            CleanupHelper.loggedClose(rs);
+            CleanupHelper.loggedClose(statement);
+        }
+    }
+
     /**
      * Execute a query, either a pre-configured query by using the query ID, or
      * a query expression passed as part of the params.
@@ -285,6 +400,117 @@ public class TableQueries {
             throws ResourceException {
 
         List<Map<String, Object>> result = null;
+        final PreparedStatement foundQuery = prepareQuery(type, params, con);
+        final String queryId = (String) params.get(QUERY_ID);
+
+        Name eventName = getEventName(queryId);
+        EventEntry measure = Publisher.start(eventName, foundQuery, null);
+        ResultSet rs = null;
+        try {
+            rs = foundQuery.executeQuery();
+            result = resultMapper.mapToObject(rs, queryId, type, params);
+            measure.setResult(result);
+        } catch (SQLException ex) {
+            logger.debug("DB reported failure executing query " +
+                            "{} with params: {} error code: {} sqlstate: {} message: {}",
+                    foundQuery.toString(), params, ex.getErrorCode(), ex.getSQLState(), ex.getMessage(), ex);
+            throw new InternalServerErrorException("DB reported failure executing query.");
+        } catch (IOException ex) {
+            throw new InternalServerErrorException("Failed to convert result objects for query "
+                    + foundQuery.toString() + " with params: " + params + " message: "
+                    + ex.getMessage(), ex);
+        } finally {
+            CleanupHelper.loggedClose(rs);
+            CleanupHelper.loggedClose(foundQuery);
+            measure.end();
+        }
+        return result;
+    }
+
+    /**
+     * Execute a query like {@link #query(String, Map, Connection)}, but hand each result over as soon as its row is
+     * read rather than collecting the results, so that a large result set is never held in memory at once.
+     * The rows are read from a forward-only result set, the given number of rows at a time, and reading stops
+     * as soon as the handler declines a result.
+     *
+     * @param type
+     *            the resource component name targeted by the URI
+     * @param params
+     *            the parameters which include the query id, or the query
+     *            expression, as well as the token key/value pairs to replace in
+     *            the query
+     * @param con
+     *            a handle to a database connection for exclusive use by the
+     *            query method whilst it is executing.
+     * @param fetchSize
+     *            the number of rows to fetch from the database at a time, as
+     *            understood by the JDBC driver
+     * @param handler
+     *            receives the results
+     * @throws BadRequestException
+     *             if the passed request parameters are invalid, e.g. missing
+     *             query id or query expression or tokens.
+     * @throws InternalServerErrorException
+     *             if the preparing or executing the query fails because of
+     *             configuration or DB issues
+     */
+    public void query(final String type, Map<String, Object> params, Connection con, int fetchSize,
+            ObjectHandler handler) throws ResourceException {
+
+        final PreparedStatement foundQuery = prepareQuery(type, params, con);
+        final String queryId = (String) params.get(QUERY_ID);
+
+        Name eventName = getEventName(queryId);
+        EventEntry measure = Publisher.start(eventName, foundQuery, null);
+        ResultSet rs = null;
+        try {
+            foundQuery.setFetchSize(fetchSize);
+            rs = foundQuery.executeQuery();
+            resultMapper.mapToObject(rs, queryId, type, params, handler);
+        } catch (SQLException ex) {
+            logger.debug("DB reported failure executing query " +
+                            "{} with params: {} error code: {} sqlstate: {} message: {}",
+                    foundQuery.toString(), params, ex.getErrorCode(), ex.getSQLState(), ex.getMessage(), ex);
+            throw new InternalServerErrorException("DB reported failure executing query.");
+        } catch (IOException ex) {
+            throw new InternalServerErrorException("Failed to convert result objects for query "
+                    + foundQuery.toString() + " with params: " + params + " message: "
+                    + ex.getMessage(), ex);
+        } finally {
+            CleanupHelper.loggedClose(rs);
+            resetFetchSize(foundQuery);
+            CleanupHelper.loggedClose(foundQuery);
+            measure.end();
+        }
+    }
+
+    /**
+     * Restores the default fetch size of a statement, which may be cached and reused by queries that read all
+     * their rows at once.
+     */
+    private void resetFetchSize(PreparedStatement statement) {
+        try {
+            statement.setFetchSize(0);
+        } catch (SQLException ex) {
+            logger.debug("Failed to reset the fetch size of statement {}", statement, ex);
+        }
+    }
+
+    /**
+     * Prepares the statement of a query filter, query expression or query id, with its parameters set.
+     *
+     * @param type
+     *            the resource component name targeted by the URI
+     * @param params
+     *            the query parameters
+     * @param con
+     *            the database connection
+     * @return the statement, to be closed by the caller
+     * @throws ResourceException
+     *             if the query is invalid or could not be prepared
+     */
+    private PreparedStatement prepareQuery(final String type, Map<String, Object> params, Connection con)
+            throws ResourceException {
         params.put(ServerConstants.RESOURCE_NAME, type);
 
         // If paged results are requested then decode the cookie in order to determine
@@ -339,28 +565,7 @@ public class TableQueries {
             throw new InternalServerErrorException("DB reported failure preparing query.");
         }
 
-        Name eventName = getEventName(queryId);
-        EventEntry measure = Publisher.start(eventName, foundQuery, null);
-        ResultSet rs = null;
-        try {
-            rs = foundQuery.executeQuery();
-            result = resultMapper.mapToObject(rs, queryId, type, params);
-            measure.setResult(result);
-        } catch (SQLException ex) {
-            logger.debug("DB reported failure executing query " +
-                            "{} with params: {} error code: {} sqlstate: {} message: {}",
-                    foundQuery.toString(), params, ex.getErrorCode(), ex.getSQLState(), ex.getMessage(), ex);
-            throw new InternalServerErrorException("DB reported failure executing query.");
-        } catch (IOException ex) {
-            throw new InternalServerErrorException("Failed to convert result objects for query "
-                    + foundQuery.toString() + " with params: " + params + " message: "
-                    + ex.getMessage(), ex);
-        } finally {
-            CleanupHelper.loggedClose(rs);
-            CleanupHelper.loggedClose(foundQuery);
-            measure.end();
-        }
-        return result;
+        return foundQuery;
     }
 
     public Integer command(final String type, Map<String, Object> params, Connection con)
@@ -538,6 +743,10 @@ public class TableQueries {
                     Integer int_value = Integer.parseInt(objValue.toString());
                     statement.setInt(count, int_value);
                     count++;
+                } else if (PREFIX_UNTYPED.equals(tokenParts[0])) {
+                    // handle single value compared with a column of any type
+                    statement.setObject(count, trimValue(objValue), Types.OTHER);
+                    count++;
                 } else if (PREFIX_LIST.equals(tokenParts[0])) {
                     // handle list of values - presently assumes Strings, TODO support integer lists
                     for (String list_value : objValue.toString().split(",")) {
@@ -0,0 +1,384 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.Request;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
+import org.forgerock.openidm.util.Accessor;
+import org.forgerock.util.promise.Promise;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the bulk create, update and delete of {@link JDBCRepoService}.
+ */
+public class BulkTest {
+
+    private static final String TYPE = "managed/user";
+
+    private JDBCRepoService repo;
+    private TableHandler handler;
+
+    /** The connections borrowed, in order */
+    private List<Connection> connections;
+
+    /** The identifiers of each batch of objects created */
+    private List<List<String>> created;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        connections = new ArrayList<>();
+        created = new ArrayList<>();
+        handler = mock(TableHandler.class);
+        when(handler.read(anyString(), eq(TYPE), anyString(), any(Connection.class))).thenAnswer(
+                new Answer<ResourceResponse>() {
+                    @Override
+                    public ResourceResponse answer(InvocationOnMock invocation) {
+                        String localId = (String) invocation.getArguments()[2];
+                        return newResourceResponse(localId, "1", json(object(field("_id", localId))));
+                    }
+                });
+        // As the handlers do, sets the _id and _rev of the objects created and updated
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                @SuppressWarnings("unchecked")
+                Map<String, Map<String, Object>> objects =
+                        (Map<String, Map<String, Object>>) invocation.getArguments()[1];
+                created.add(new ArrayList<>(objects.keySet()));
+                for (Map.Entry<String, Map<String, Object>> object : objects.entrySet()) {
+                    object.getValue().put("_id", object.getKey());
+                    object.getValue().put("_rev", "0");
+                }
+                return null;
+            }
+        }).when(handler).create(eq(TYPE), Matchers.<Map<String, Map<String, Object>>>any(), any(Connection.class));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> obj = (Map<String, Object>) invocation.getArguments()[4];
+                obj.put("_id", invocation.getArguments()[2]);
+                obj.put("_rev", String.valueOf(Integer.parseInt((String) invocation.getArguments()[3]) + 1));
+                return null;
+            }
+        }).when(handler).update(anyString(), eq(TYPE), anyString(), anyString(), anyMapOf(String.class, Object.class),
+                any(Connection.class));
+
+        repo = spy(new JDBCRepoService());
+        doAnswer(new Answer<Connection>() {
+            @Override
+            public Connection answer(InvocationOnMock invocation) {
+                Connection connection = mock(Connection.class);
+                connections.add(connection);
+                return connection;
+            }
+        }).when(repo).getConnection();
+        repo.tableHandlers = new HashMap<>();
+        repo.tableHandlers.put(TYPE, handler);
+    }
+
+    @Test
+    public void testPerformsRequestsInOneTransaction() throws Exception {
+        List<ResourceResponse> results = bulk(
+                Requests.newCreateRequest(TYPE, "a", json(object())),
+                Requests.newCreateRequest(TYPE, "b", json(object())),
+                Requests.newUpdateRequest(TYPE + "/c", json(object())).setRevision("1"),
+                Requests.newDeleteRequest(TYPE + "/d").setRevision("1"),
+                Requests.newCreateRequest(TYPE, "e", json(object())));
+
+        assertThat(ids(results)).containsExactly("a", "b", "c", "d", "e");
+        assertThat(results.get(2).getRevision()).isEqualTo("2");
+
+        // The creates of consecutive requests are batched together
+        Connection transaction = connections.get(1);
+        verify(handler, times(2)).create(eq(TYPE), Matchers.<Map<String, Map<String, Object>>>any(), eq(transaction));
+        assertThat(created).containsExactly(Arrays.asList("a", "b"), Arrays.asList("e"));
+        verify(handler).update(eq(TYPE + "/c"), eq(TYPE), eq("c"), eq("1"), anyMapOf(String.class, Object.class),
+                eq(transaction));
+        verify(handler).delete(TYPE + "/d", TYPE, "d", "1", transaction);
+
+        verify(transaction).setAutoCommit(false);
+        verify(transaction).commit();
+        verify(transaction, never()).rollback();
+        verify(transaction).close();
+    }
+
+    @Test
+    public void testPreparesCreatesOnConnectionOfTheirOwn() throws Exception {
+        bulk(Requests.newCreateRequest(TYPE, "a", json(object())),
+                Requests.newCreateRequest(TYPE, "b", json(object())));
+
+        // The type is registered once, and committed apart from the transaction
+        assertThat(connections).hasSize(2);
+        Connection preparation = connections.get(0);
+        verify(handler, times(1)).prepareCreate(eq(TYPE), any(Connection.class));
+        verify(handler).prepareCreate(TYPE, preparation);
+        verify(preparation).setAutoCommit(true);
+        verify(preparation).close();
+        verify(connections.get(1), never()).setAutoCommit(true);
+    }
+
+    @Test
+    public void testPreparesNothingWithoutCreates() throws Exception {
+        bulk(Requests.newDeleteRequest(TYPE + "/d").setRevision("1"));
+
+        assertThat(connections).hasSize(1);
+        verify(handler, never()).prepareCreate(anyString(), any(Connection.class));
+    }
+
+    @Test
+    public void testFailedTransactionIsPerformedOneRequestAtATime() throws Exception {
+        doThrow(new SQLException("revision mismatch")).when(handler).delete(eq(TYPE + "/d"), eq(TYPE), eq("d"),
+                eq("1"), any(Connection.class));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> obj = (Map<String, Object>) invocation.getArguments()[3];
+                obj.put("_id", invocation.getArguments()[2]);
+                obj.put("_rev", "0");
+                return null;
+            }
+        }).when(handler).create(anyString(), eq(TYPE), anyString(), anyMapOf(String.class, Object.class),
+                any(Connection.class));
+
+        List<Promise<ResourceResponse, ResourceException>> results = repo.bulk(Arrays.<Request>asList(
+                Requests.newCreateRequest(TYPE, "a", json(object())),
+                Requests.newDeleteRequest(TYPE + "/d").setRevision("1")));
+
+        // The transaction is rolled back, and each request reports its own outcome
+        verify(connections.get(1)).rollback();
+        verify(connections.get(1), never()).commit();
+        assertThat(results.get(0).getOrThrow().getId()).isEqualTo("a");
+        try {
+            results.get(1).getOrThrow();
+            failBecauseExceptionWasNotThrown(InternalServerErrorException.class);
+        } catch (InternalServerErrorException e) {
+            assertThat(e.getMessage()).contains("revision mismatch");
+        }
+        verify(handler).create(eq(TYPE + "/a"), eq(TYPE), eq("a"), anyMapOf(String.class, Object.class),
+                any(Connection.class));
+    }
+
+    @Test
+    public void testRequestsAreSplitIntoTransactions() throws Exception {
+        List<Request> requests = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            requests.add(Requests.newUpdateRequest(TYPE + "/" + i, json(object())).setRevision("1"));
+        }
+
+        List<Promise<ResourceResponse, ResourceException>> results = repo.bulk(requests);
+
+        assertThat(results).hasSize(250);
+        assertThat(connections).hasSize(3);
+        for (Connection connection : connections) {
+            verify(connection).commit();
+        }
+    }
+
+    @Test
+    public void testFailedStatementOfBatchFailsCreate() throws Exception {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeBatch()).thenReturn(new int[] { 1, Statement.EXECUTE_FAILED });
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        @SuppressWarnings("unchecked")
+        MappedTableHandler mapped = new MappedTableHandler("auditrecon",
+                Collections.<String, Object>singletonMap("_id", "objectid"), "openidm", json(object()),
+                json(object()), null, mock(Accessor.class));
+        Map<String, Map<String, Object>> objects = new LinkedHashMap<>();
+        objects.put("a", new HashMap<String, Object>());
+        objects.put("b", new HashMap<String, Object>());
+
+        try {
+            mapped.create("audit/recon", objects, connection);
+            failBecauseExceptionWasNotThrown(SQLException.class);
+        } catch (SQLException e) {
+            assertThat(e.getMessage()).contains("Statement 2 of a batch of 2");
+        }
+        verify(statement, times(2)).addBatch();
+    }
+
+    @Test
+    public void testGenericCreateBatchesRowsAndReadsTheirIdsAtOnce() throws Exception {
+        PreparedStatement creates = batchedStatement();
+        PreparedStatement inserts = batchedStatement();
+        PreparedStatement ids = mock(PreparedStatement.class);
+        ResultSet rows = rows(Arrays.asList("a", "b"), Arrays.asList(11L, 12L));
+        when(ids.executeQuery()).thenReturn(rows);
+        Connection connection = genericConnection(creates, inserts, ids);
+
+        generic().create(TYPE, objects("a", "b"), connection);
+
+        verify(creates, times(2)).addBatch();
+        verify(creates).executeBatch();
+        verify(creates, never()).executeUpdate();
+        verify(creates, never()).getGeneratedKeys();
+        // the records of all the objects are read with one query
+        verify(connection, times(1)).prepareStatement(Matchers.startsWith("SELECT obj.id, obj.objectid"));
+        verify(ids).setLong(1, 7L);
+        verify(ids).setString(2, "a");
+        verify(ids).setString(3, "b");
+        verify(inserts).setLong(1, 11L);
+        verify(inserts).setLong(1, 12L);
+        verify(inserts).executeBatch();
+    }
+
+    @Test
+    public void testGenericCreateFailsWithoutRecordOfObject() throws Exception {
+        PreparedStatement ids = mock(PreparedStatement.class);
+        ResultSet rows = rows(Arrays.asList("a"), Arrays.asList(11L));
+        when(ids.executeQuery()).thenReturn(rows);
+        Connection connection = genericConnection(batchedStatement(), batchedStatement(), ids);
+
+        try {
+            generic().create(TYPE, objects("a", "b"), connection);
+            failBecauseExceptionWasNotThrown(InternalServerErrorException.class);
+        } catch (InternalServerErrorException e) {
+            assertThat(e.getMessage()).contains(TYPE + "/b");
+        }
+    }
+
+    @Test
+    public void testBatchWithoutUpdateCountsSucceeds() throws Exception {
+        // Some drivers do not tell how many rows each statement of a batch wrote
+        TableQueries.checkUpdateCounts(new int[] { Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO }, true);
+        TableQueries.checkUpdateCounts(new int[] { 0 }, false);
+    }
+
+    private static GenericTableHandler generic() {
+        return new GenericTableHandler(json(object(
+                field("mainTable", "managedobjects"),
+                field("propertiesTable", "managedobjectproperties"),
+                field("searchableDefault", true))), "openidm", json(object()), json(object()), 100, null);
+    }
+
+    /** A connection of which the type of the objects is registered with id 7 */
+    private static Connection genericConnection(PreparedStatement creates, PreparedStatement inserts,
+            PreparedStatement ids) throws SQLException {
+        ResultSet typeId = mock(ResultSet.class);
+        when(typeId.next()).thenReturn(true);
+        when(typeId.getLong(anyString())).thenReturn(7L);
+        PreparedStatement types = mock(PreparedStatement.class);
+        when(types.executeQuery()).thenReturn(typeId);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(Matchers.startsWith("SELECT id FROM openidm.objecttypes"))).thenReturn(types);
+        when(connection.prepareStatement(Matchers.startsWith("INSERT INTO openidm.managedobjects (")))
+                .thenReturn(creates);
+        when(connection.prepareStatement(Matchers.startsWith("INSERT INTO openidm.managedobjectproperties")))
+                .thenReturn(inserts);
+        when(connection.prepareStatement(Matchers.startsWith("SELECT obj.id, obj.objectid"))).thenReturn(ids);
+        return connection;
+    }
+
+    private static PreparedStatement batchedStatement() throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeBatch()).thenReturn(new int[] { 1, 1 });
+        return statement;
+    }
+
+    /** The rows of the records read, with their objectid and id */
+    private static ResultSet rows(final List<String> objectIds, final List<Long> dbIds) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        final int[] row = { -1 };
+        when(rs.next()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return ++row[0] < objectIds.size();
+            }
+        });
+        when(rs.getString(2)).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                return objectIds.get(row[0]);
+            }
+        });
+        when(rs.getLong(1)).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) {
+                return dbIds.get(row[0]);
+            }
+        });
+        return rs;
+    }
+
+    private static Map<String, Map<String, Object>> objects(String... localIds) {
+        Map<String, Map<String, Object>> objects = new LinkedHashMap<>();
+        for (String localId : localIds) {
+            Map<String, Object> object = new HashMap<>();
+            object.put("name", localId);
+            objects.put(localId, object);
+        }
+        return objects;
+    }
+
+    private List<ResourceResponse> bulk(Request... requests) throws ResourceException {
+        List<ResourceResponse> results = new ArrayList<>();
+        for (Promise<ResourceResponse, ResourceException> result : repo.bulk(Arrays.asList(requests))) {
+            results.add(result.getOrThrowUninterruptibly());
+        }
+        return results;
+    }
+
+    private static List<String> ids(List<ResourceResponse> resources) {
+        List<String> ids = new ArrayList<>();
+        for (ResourceResponse resource : resources) {
+            ids.add(resource.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collections;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.openidm.util.Accessor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests how the table handlers estimate the number of objects from the statistics of the database.
+ */
+public class EstimateCountTest {
+
+    private static final String TYPE = "managed/user";
+
+    private static final JsonValue TABLE_CONFIG =
+            json(object(field("mainTable", "managedobjects"), field("propertiesTable", "managedobjectproperties")));
+
+    private Connection connection;
+
+    /** The statement reading the estimate, and the row it returns */
+    private PreparedStatement estimateStatement;
+    private ResultSet estimate;
+
+    /** The row of the statement reading the id of the type */
+    private ResultSet typeId;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        typeId = mock(ResultSet.class);
+        when(typeId.next()).thenReturn(true);
+        when(typeId.getLong("id")).thenReturn(7L);
+        final PreparedStatement typeStatement = mock(PreparedStatement.class);
+        when(typeStatement.executeQuery()).thenReturn(typeId);
+
+        estimate = mock(ResultSet.class);
+        when(estimate.next()).thenReturn(true);
+        estimateStatement = mock(PreparedStatement.class);
+        when(estimateStatement.executeQuery()).thenReturn(estimate);
+
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(new Answer<PreparedStatement>() {
+            @Override
+            public PreparedStatement answer(InvocationOnMock invocation) {
+                String sql = (String) invocation.getArguments()[0];
+                return sql.contains("objtype.objecttype = ?") ? typeStatement : estimateStatement;
+            }
+        });
+    }
+
+    @Test
+    public void testPostgreSQLEstimatesShareOfType() throws Exception {
+        when(estimate.getObject("estimate")).thenReturn(1234.4f);
+
+        assertThat(postgreSQL().estimateCount(TYPE, connection)).isEqualTo(1234);
+        verify(estimateStatement).setObject(1, 7L);
+    }
+
+    @Test
+    public void testPostgreSQLCountsTableNeverAnalyzed() throws Exception {
+        // reltuples is 0 before the first VACUUM or ANALYZE up to PostgreSQL 13, and -1 from PostgreSQL 14 on
+        when(estimate.getObject("estimate")).thenReturn(0f);
+        assertThat(postgreSQL().estimateCount(TYPE, connection)).isNull();
+
+        when(estimate.getObject("estimate")).thenReturn(-1f);
+        assertThat(postgreSQL().estimateCount(TYPE, connection)).isNull();
+    }
+
+    @Test
+    public void testPostgreSQLCountsTypeMissingFromStatistics() throws Exception {
+        when(estimate.getObject("estimate")).thenReturn(null);
+
+        assertThat(postgreSQL().estimateCount(TYPE, connection)).isNull();
+    }
+
+    @Test
+    public void testNoObjectsOfUnknownType() throws Exception {
+        when(typeId.next()).thenReturn(false);
+
+        assertThat(postgreSQL().estimateCount(TYPE, connection)).isEqualTo(0);
+        assertThat(mySQL().estimateCount(TYPE, connection)).isEqualTo(0);
+        verify(estimateStatement, never()).executeQuery();
+    }
+
+    @Test
+    public void testPostgreSQLMappedEstimatesRowsOfTable() throws Exception {
+        when(estimate.getObject("estimate")).thenReturn(5000f);
+
+        assertThat(postgreSQLMapped().estimateCount(TYPE, connection)).isEqualTo(5000);
+        verify(estimateStatement).setObject(1, "openidm");
+        verify(estimateStatement).setObject(2, "auditrecon");
+    }
+
+    @Test
+    public void testPostgreSQLMappedCountsTableNeverAnalyzed() throws Exception {
+        when(estimate.getObject("estimate")).thenReturn(0f);
+
+        assertThat(postgreSQLMapped().estimateCount(TYPE, connection)).isNull();
+    }
+
+    @Test
+    public void testMySQLEstimatesRowsReadFromIndex() throws Exception {
+        when(estimate.getObject("key")).thenReturn("fk_genericobjects_objecttypes");
+        when(estimate.getObject("rows")).thenReturn(250L);
+
+        assertThat(mySQL().estimateCount(TYPE, connection)).isEqualTo(250);
+        verify(estimateStatement).setObject(1, 7L);
+    }
+
+    @Test
+    public void testMySQLCountsOnFullScan() throws Exception {
+        // without the index, the plan estimates the rows of all types together
+        when(estimate.getObject("key")).thenReturn(null);
+        when(estimate.getObject("rows")).thenReturn(100000L);
+
+        assertThat(mySQL().estimateCount(TYPE, connection)).isNull();
+        verify(estimate, never()).getObject("rows");
+    }
+
+    @Test
+    public void testNoEstimateWithoutStatistics() throws Exception {
+        when(estimate.next()).thenReturn(false);
+
+        assertThat(postgreSQLMapped().estimateCount(TYPE, connection)).isNull();
+        assertThat(mySQL().estimateCount(TYPE, connection)).isNull();
+        verify(estimate, never()).getObject(eq("estimate"));
+    }
+
+    private static PostgreSQLTableHandler postgreSQL() {
+        return new PostgreSQLTableHandler(TABLE_CONFIG, "openidm", json(object()), json(object()), 1, null);
+    }
+
+    private static MySQLTableHandler mySQL() {
+        return new MySQLTableHandler(TABLE_CONFIG, "openidm", json(object()), json(object()), 1, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PostgreSQLMappedTableHandler postgreSQLMapped() throws Exception {
+        return new PostgreSQLMappedTableHandler("auditrecon",
+                Collections.<String, Object>singletonMap("_id", "objectid"), "openidm", json(object()), json(object()),
+                null, mock(Accessor.class));
+    }
+}
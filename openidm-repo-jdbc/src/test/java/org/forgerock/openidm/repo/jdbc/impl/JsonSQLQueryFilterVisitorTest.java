@@ -0,0 +1,134 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
+import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
+import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.SortKey;
+import org.forgerock.util.query.QueryFilter;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link JsonSQLQueryFilterVisitor}
+ */
+public class JsonSQLQueryFilterVisitorTest {
+
+    private static final JsonValue TABLE_CONFIG =
+            json(object(field("mainTable", "managedobjects"), field("propertiesTable", "managedobjectproperties")));
+
+    private static final QueryFilter<JsonPointer> FILTER = QueryFilter.and(
+            QueryFilter.equalTo(new JsonPointer("/userName"), "bjensen"),
+            QueryFilter.greaterThan(new JsonPointer("/age"), 30),
+            QueryFilter.present(new JsonPointer("/mail")));
+
+    @Test
+    public void testJsonPath() {
+        assertThat(JsonSQLQueryFilterVisitor.toJsonPath(new JsonPointer("/name/familyName")))
+                .isEqualTo("'$.name.familyName'");
+        assertThat(JsonSQLQueryFilterVisitor.toJsonPath(new JsonPointer("/roles/0"))).isEqualTo("'$.roles[0]'");
+        assertThat(JsonSQLQueryFilterVisitor.toJsonPath(new JsonPointer("/first-name")))
+                .isEqualTo("'$.\"first-name\"'");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testJsonPathRejectsQuotes() {
+        JsonSQLQueryFilterVisitor.toJsonPath(new JsonPointer("/name') OR ('1"));
+    }
+
+    @Test
+    public void testMySQLFilterSkipsPropertiesTable() {
+        MySQLJsonTableHandler handler = new MySQLJsonTableHandler(TABLE_CONFIG, "openidm", json(object()),
+                json(object()), 1, null);
+        Map<String, Object> tokens = new LinkedHashMap<>();
+
+        String sql = handler.renderQueryFilter(FILTER, tokens, params());
+
+        assertThat(sql).doesNotContain("${_propTable}")
+                .contains("obj.fullobject->>'$.userName' = ${v1}")
+                .contains("CAST(obj.fullobject->>'$.age' AS DECIMAL(65,30)) > CAST(${v2} AS DECIMAL(65,30))")
+                .contains("JSON_TYPE(obj.fullobject->'$.mail') <> 'NULL'")
+                .contains("obj.fullobject->>'$.sn'");
+        assertThat(tokens).containsEntry("v1", "bjensen").containsEntry("v2", 30);
+    }
+
+    @Test
+    public void testOracleFilterSkipsPropertiesTable() {
+        OracleJsonTableHandler handler = new OracleJsonTableHandler(TABLE_CONFIG, "openidm", json(object()),
+                json(object()), 1, null);
+        Map<String, Object> tokens = new LinkedHashMap<>();
+
+        String sql = handler.renderQueryFilter(FILTER, tokens, params());
+
+        assertThat(sql).doesNotContain("${_propTable}")
+                .contains("JSON_VALUE(obj.fullobject, '$.userName') = ${v1}")
+                .contains("JSON_VALUE(obj.fullobject, '$.age' RETURNING NUMBER) > TO_NUMBER(${v2})")
+                .contains("JSON_VALUE(obj.fullobject, '$.mail') IS NOT NULL")
+                .contains("JSON_QUERY(obj.fullobject, '$.mail') IS NOT NULL")
+                .contains("ORDER BY JSON_VALUE(obj.fullobject, '$.sn')")
+                .contains("WHERE rn BETWEEN 1 AND 10");
+        assertThat(tokens).containsEntry("v1", "bjensen").containsEntry("v2", 30);
+    }
+
+    @Test
+    public void testMSSQLFilterSkipsPropertiesTable() {
+        MSSQLJsonTableHandler handler = new MSSQLJsonTableHandler(TABLE_CONFIG, "openidm", json(object()),
+                json(object()), 1, null);
+        Map<String, Object> tokens = new LinkedHashMap<>();
+
+        String sql = handler.renderQueryFilter(FILTER, tokens, params());
+
+        assertThat(sql).doesNotContain("${_propTable}")
+                .contains("JSON_VALUE(obj.fullobject, '$.userName') = ${v1}")
+                .contains("TRY_CAST(JSON_VALUE(obj.fullobject, '$.age') AS FLOAT) > CAST(${v2} AS FLOAT)")
+                .contains("JSON_VALUE(obj.fullobject, '$.mail') IS NOT NULL")
+                .contains("JSON_QUERY(obj.fullobject, '$.mail') IS NOT NULL")
+                .contains("ORDER BY JSON_VALUE(obj.fullobject, '$.sn')")
+                .contains("WHERE rowNo BETWEEN 1 AND 10");
+        assertThat(tokens).containsEntry("v1", "bjensen").containsEntry("v2", 30);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOracleRejectsUnsafeSortKey() {
+        OracleJsonTableHandler handler = new OracleJsonTableHandler(TABLE_CONFIG, "openidm", json(object()),
+                json(object()), 1, null);
+        Map<String, Object> params = params();
+        params.put(SORT_KEYS, Collections.singletonList(SortKey.ascendingOrder("sn') --")));
+
+        handler.renderQueryFilter(FILTER, new LinkedHashMap<String, Object>(), params);
+    }
+
+    private static Map<String, Object> params() {
+        Map<String, Object> params = new HashMap<>();
+        params.put(PAGED_RESULTS_OFFSET, "0");
+        params.put(PAGE_SIZE, "10");
+        params.put(SORT_KEYS, Collections.singletonList(SortKey.ascendingOrder("sn")));
+        params.put("_resource", "managed/user");
+        return params;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.SortKey;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link KeysetCookie}
+ */
+public class KeysetCookieTest {
+
+    private static final ResourceResponse LAST = newResourceResponse("user2", "0",
+            json(object(field("_id", "user2"), field("sn", "Jensen"), field("age", 42),
+                    field("address", object(field("city", "Berlin"))))));
+
+    @Test
+    public void testEncodeDecode() throws Exception {
+        List<SortKey> sortKeys = Arrays.asList(SortKey.ascendingOrder("sn"), SortKey.descendingOrder("age"));
+        String cookie = KeysetCookie.after(LAST, sortKeys, 20).encode();
+
+        assertThat(cookie).doesNotMatch("-?[0-9]+");
+        KeysetCookie keyset = KeysetCookie.decode(cookie, 2);
+        assertThat(keyset.getOffset()).isEqualTo(20);
+        assertThat(keyset.encode()).isEqualTo(cookie);
+    }
+
+    @Test
+    public void testNoKeysetForMissingOrStructuredSortValue() {
+        assertThat(KeysetCookie.after(LAST, Collections.singletonList(SortKey.ascendingOrder("mail")), 20)).isNull();
+        assertThat(KeysetCookie.after(LAST, Collections.singletonList(SortKey.ascendingOrder("address")), 20))
+                .isNull();
+        assertThat(KeysetCookie.after(LAST, Collections.singletonList(SortKey.ascendingOrder("address/city")), 20))
+                .isNotNull();
+    }
+
+    @Test(expectedExceptions = BadRequestException.class)
+    public void testDecodeRejectsGarbage() throws Exception {
+        KeysetCookie.decode("not a cookie", 0);
+    }
+
+    @Test(expectedExceptions = BadRequestException.class)
+    public void testDecodeRejectsOtherSortKeys() throws Exception {
+        String cookie = KeysetCookie.after(LAST, Collections.singletonList(SortKey.ascendingOrder("sn")), 20).encode();
+        KeysetCookie.decode(cookie, 2);
+    }
+
+    @Test
+    public void testSeekByObjectId() throws Exception {
+        Map<String, Object> tokens = new HashMap<>();
+        KeysetCookie keyset = KeysetCookie.after(LAST, Collections.<SortKey>emptyList(), 20);
+
+        assertThat(keyset.toClause(Collections.<String>emptyList(), Collections.<SortKey>emptyList(), "obj.objectid",
+                false, "", tokens).toSQL()).isEqualTo("obj.objectid > ${seek0}");
+        assertThat(tokens).containsEntry("seek0", "user2");
+    }
+
+    @Test
+    public void testSeekBySortKeys() throws Exception {
+        Map<String, Object> tokens = new HashMap<>();
+        List<SortKey> sortKeys = Arrays.asList(SortKey.ascendingOrder("sn"), SortKey.descendingOrder("age"));
+        KeysetCookie keyset = KeysetCookie.decode(KeysetCookie.after(LAST, sortKeys, 20).encode(), 2);
+
+        // Nulls sort low: the rows without an sn sort before the keyset, those without an age after it
+        assertThat(keyset.toClause(Arrays.asList("sn", "age"), sortKeys, "objectid", false, "", tokens).toSQL())
+                .isEqualTo("(sn > ${seek0}"
+                        + " OR (sn = ${seek0} AND (age < ${seek1} OR age IS NULL))"
+                        + " OR (sn = ${seek0} AND age = ${seek1} AND objectid > ${seek2}))");
+        assertThat(tokens).containsEntry("seek0", "Jensen").containsEntry("seek1", "42")
+                .containsEntry("seek2", "user2");
+    }
+
+    @Test
+    public void testSeekIncludesMissingSortValuesSortingHigh() throws Exception {
+        Map<String, Object> tokens = new HashMap<>();
+        List<SortKey> sortKeys = Arrays.asList(SortKey.ascendingOrder("sn"), SortKey.descendingOrder("age"));
+        KeysetCookie keyset = KeysetCookie.after(LAST, sortKeys, 20);
+
+        // Nulls sort high: the rows without an sn sort after the keyset, those without an age before it
+        assertThat(keyset.toClause(Arrays.asList("sn", "age"), sortKeys, "objectid", true, "", tokens).toSQL())
+                .isEqualTo("((sn > ${seek0} OR sn IS NULL)"
+                        + " OR (sn = ${seek0} AND age < ${seek1})"
+                        + " OR (sn = ${seek0} AND age = ${seek1} AND objectid > ${seek2}))");
+    }
+
+    @Test
+    public void testSeekAfterMissingSortValueContinuesByOffset() throws Exception {
+        List<SortKey> sortKeys = Collections.singletonList(SortKey.ascendingOrder("mail"));
+        ResourceResponse withoutMail = newResourceResponse("user3", "0", json(object(field("_id", "user3"))));
+
+        // The next page cannot seek past a null, so it resumes at the offset and keeps the rows without a mail
+        assertThat(KeysetCookie.after(withoutMail, sortKeys, 20)).isNull();
+    }
+
+    @Test
+    public void testSeekTokenPrefix() throws Exception {
+        Map<String, Object> tokens = new HashMap<>();
+        List<SortKey> sortKeys = Collections.singletonList(SortKey.ascendingOrder("age"));
+        KeysetCookie keyset = KeysetCookie.after(LAST, sortKeys, 20);
+
+        assertThat(keyset.toClause(Collections.singletonList("age"), sortKeys, "objectid", true, "untyped:", tokens)
+                .toSQL()).isEqualTo("((age > ${untyped:seek0} OR age IS NULL)"
+                        + " OR (age = ${untyped:seek0} AND objectid > ${untyped:seek1}))");
+        assertThat(tokens).containsEntry("seek0", "42").containsEntry("seek1", "user2");
+    }
+}
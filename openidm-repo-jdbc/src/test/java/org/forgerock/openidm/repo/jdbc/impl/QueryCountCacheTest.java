@@ -0,0 +1,76 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link QueryCountCache}
+ */
+public class QueryCountCacheTest {
+
+    private static final Map<String, String> NO_PARAMS = Collections.emptyMap();
+
+    @Test
+    public void testCachesCountsPerQueryAndParameters() {
+        QueryCountCache cache = new QueryCountCache(60);
+        cache.put(cache.key("managed/user", "query-all-ids-count", NO_PARAMS), 42);
+
+        assertThat(cache.get(cache.key("managed/user", "query-all-ids-count", NO_PARAMS))).isEqualTo(42);
+        assertThat(cache.get(cache.key("managed/user", "query-all-count", NO_PARAMS))).isNull();
+        assertThat(cache.get(cache.key("managed/user", "query-all-ids-count",
+                Collections.singletonMap("uid", "bjensen")))).isNull();
+        assertThat(cache.get(cache.key("managed/role", "query-all-ids-count", NO_PARAMS))).isNull();
+    }
+
+    @Test
+    public void testWriteInvalidatesCountsOfType() {
+        QueryCountCache cache = new QueryCountCache(60);
+        cache.put(cache.key("managed/user", "query-all-ids-count", NO_PARAMS), 42);
+        cache.put(cache.key("managed/role", "query-all-ids-count", NO_PARAMS), 7);
+
+        cache.invalidate("managed/user");
+
+        assertThat(cache.get(cache.key("managed/user", "query-all-ids-count", NO_PARAMS))).isNull();
+        assertThat(cache.get(cache.key("managed/role", "query-all-ids-count", NO_PARAMS))).isEqualTo(7);
+    }
+
+    @Test
+    public void testCountRacingWriteIsNotFound() {
+        QueryCountCache cache = new QueryCountCache(60);
+        List<Object> key = cache.key("managed/user", "query-all-ids-count", NO_PARAMS);
+        cache.invalidate("managed/user");
+        cache.put(key, 42);
+
+        assertThat(cache.get(cache.key("managed/user", "query-all-ids-count", NO_PARAMS))).isNull();
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        QueryCountCache cache = new QueryCountCache(60);
+        cache.put(cache.key("managed/user", "query-all-ids-count", NO_PARAMS), 42);
+
+        cache.invalidateAll();
+
+        assertThat(cache.get(cache.key("managed/user", "query-all-ids-count", NO_PARAMS))).isNull();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.resource.CountPolicy;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.services.context.RootContext;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests how {@link JDBCRepoService} counts the results of paged queries.
+ */
+public class QueryCountTest {
+
+    private static final String TYPE = "managed/user";
+
+    private JDBCRepoService repo;
+    private TableHandler tableHandler;
+
+    /** The total the count query returns */
+    private int total;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        total = 5;
+        tableHandler = mock(TableHandler.class);
+        when(tableHandler.queryIdExists(anyString())).thenReturn(true);
+        when(tableHandler.query(eq(TYPE), anyMapOf(String.class, Object.class), any(Connection.class))).thenAnswer(
+                new Answer<List<Map<String, Object>>>() {
+                    @Override
+                    public List<Map<String, Object>> answer(InvocationOnMock invocation) {
+                        Map<String, Object> count = new HashMap<>();
+                        count.put("total", total);
+                        return Collections.singletonList(count);
+                    }
+                });
+
+        repo = spy(new JDBCRepoService());
+        doAnswer(new Answer<Connection>() {
+            @Override
+            public Connection answer(InvocationOnMock invocation) {
+                return mock(Connection.class);
+            }
+        }).when(repo).getConnection();
+        repo.tableHandlers = new HashMap<>();
+        repo.tableHandlers.put(TYPE, tableHandler);
+        repo.countCache = new QueryCountCache(60);
+    }
+
+    @Test
+    public void testCachesCountUntilTypeIsWritten() throws Exception {
+        assertThat(query(queryId("query-all-ids"), CountPolicy.EXACT).getTotalPagedResults()).isEqualTo(5);
+        total = 6;
+        assertThat(query(queryId("query-all-ids"), CountPolicy.EXACT).getTotalPagedResults()).isEqualTo(5);
+        verify(tableHandler, times(1)).query(eq(TYPE), anyMapOf(String.class, Object.class), any(Connection.class));
+
+        repo.invalidateCounts(TYPE);
+
+        assertThat(query(queryId("query-all-ids"), CountPolicy.EXACT).getTotalPagedResults()).isEqualTo(6);
+        verify(tableHandler, times(2)).query(eq(TYPE), anyMapOf(String.class, Object.class), any(Connection.class));
+    }
+
+    @Test
+    public void testCachesCountPerQueryParameters() throws Exception {
+        query(queryId("query-by-name").setAdditionalParameter("name", "a"), CountPolicy.EXACT);
+        query(queryId("query-by-name").setAdditionalParameter("name", "b"), CountPolicy.EXACT);
+        query(queryId("query-by-name").setAdditionalParameter("name", "a"), CountPolicy.EXACT);
+
+        verify(tableHandler, times(2)).query(eq(TYPE), anyMapOf(String.class, Object.class), any(Connection.class));
+    }
+
+    @Test
+    public void testCountsEachTimeWithoutCache() throws Exception {
+        repo.countCache = null;
+
+        query(queryId("query-all-ids"), CountPolicy.EXACT);
+        query(queryId("query-all-ids"), CountPolicy.EXACT);
+
+        verify(tableHandler, times(2)).query(eq(TYPE), anyMapOf(String.class, Object.class), any(Connection.class));
+    }
+
+    @Test
+    public void testEstimatesCountOfAllObjects() throws Exception {
+        when(tableHandler.estimateCount(eq(TYPE), any(Connection.class))).thenReturn(1000);
+
+        QueryResponse response = query(Requests.newQueryRequest(TYPE).setQueryFilter(QueryFilters.parse("true")),
+                CountPolicy.ESTIMATE);
+
+        assertThat(response.getTotalPagedResultsPolicy()).isEqualTo(CountPolicy.ESTIMATE);
+        assertThat(response.getTotalPagedResults()).isEqualTo(1000);
+        verify(tableHandler, never()).query(eq(TYPE), anyMapOf(String.class, Object.class), any(Connection.class));
+    }
+
+    @Test
+    public void testCountsExactlyWithoutStatistics() throws Exception {
+        when(tableHandler.estimateCount(eq(TYPE), any(Connection.class))).thenReturn(null);
+
+        QueryResponse response = query(queryId("query-all-ids"), CountPolicy.ESTIMATE);
+
+        assertThat(response.getTotalPagedResultsPolicy()).isEqualTo(CountPolicy.EXACT);
+        assertThat(response.getTotalPagedResults()).isEqualTo(5);
+    }
+
+    @Test
+    public void testCountsSelectiveQueriesExactly() throws Exception {
+        QueryResponse response = query(queryId("query-by-name").setAdditionalParameter("name", "a"),
+                CountPolicy.ESTIMATE);
+
+        assertThat(response.getTotalPagedResultsPolicy()).isEqualTo(CountPolicy.EXACT);
+        assertThat(response.getTotalPagedResults()).isEqualTo(5);
+        verify(tableHandler, never()).estimateCount(anyString(), any(Connection.class));
+    }
+
+    @Test
+    public void testCountsQueryIdOnly() throws Exception {
+        // the queries of a filter have no -count query to count their results with
+        QueryResponse filtered = query(Requests.newQueryRequest(TYPE).setQueryFilter(QueryFilters.parse("true")),
+                CountPolicy.EXACT);
+        QueryResponse all = query(queryId("query-all-ids"), CountPolicy.EXACT);
+
+        assertThat(filtered.getTotalPagedResults()).isEqualTo(QueryResponse.NO_COUNT);
+        assertThat(all.getTotalPagedResults()).isEqualTo(5);
+        verify(tableHandler).queryIdExists("query-all-ids-count");
+    }
+
+    private static QueryRequest queryId(String queryId) {
+        return Requests.newQueryRequest(TYPE).setQueryId(queryId);
+    }
+
+    private QueryResponse query(QueryRequest request, CountPolicy countPolicy) throws Exception {
+        request.setPageSize(10).setTotalPagedResultsPolicy(countPolicy);
+        return repo.handleQuery(new RootContext(), request, mock(QueryResourceHandler.class)).getOrThrow();
+    }
+}
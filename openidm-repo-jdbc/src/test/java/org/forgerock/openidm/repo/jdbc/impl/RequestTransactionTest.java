@@ -0,0 +1,317 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.repo.jdbc.ErrorType;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.openidm.util.TransactionContext;
+import org.forgerock.services.context.RootContext;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link RequestTransaction}, and the requests of {@link JDBCRepoService} within a {@link TransactionContext}.
+ */
+public class RequestTransactionTest {
+
+    private static final String TYPE = "managed/user";
+
+    private JDBCRepoService repo;
+    private Connection connection;
+    private Savepoint savepoint;
+    private TableHandler handler;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        connection = mock(Connection.class);
+        savepoint = mock(Savepoint.class);
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_REPEATABLE_READ);
+
+        handler = mock(TableHandler.class);
+        when(handler.read(anyString(), eq(TYPE), anyString(), any(Connection.class))).thenAnswer(
+                new Answer<ResourceResponse>() {
+                    @Override
+                    public ResourceResponse answer(InvocationOnMock invocation) {
+                        String localId = (String) invocation.getArguments()[2];
+                        return newResourceResponse(localId, "1", json(object(field("_id", localId))));
+                    }
+                });
+
+        repo = spy(new JDBCRepoService());
+        doReturn(connection).when(repo).getConnection();
+        repo.tableHandlers = new HashMap<>();
+        repo.tableHandlers.put(TYPE, handler);
+        repo.requestTransactions = true;
+    }
+
+    @Test
+    public void testRequestsShareOneConnectionAndCommitTogether() throws Exception {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+
+        repo.handleCreate(transaction, Requests.newCreateRequest(TYPE, "0", json(object()))).getOrThrow();
+        repo.handleUpdate(transaction, Requests.newUpdateRequest(TYPE + "/0", json(object())).setRevision("1"))
+                .getOrThrow();
+        repo.handleRead(transaction, Requests.newReadRequest(TYPE + "/0")).getOrThrow();
+
+        verify(repo, times(1)).getConnection();
+        verify(connection).setAutoCommit(false);
+        verify(connection).setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        verify(handler).create(eq(TYPE), Matchers.<Map<String, Map<String, Object>>>any(),
+                eq(connection));
+        verify(handler).update(eq(TYPE + "/0"), eq(TYPE), eq("0"), eq("1"), anyMapOf(String.class, Object.class),
+                eq(connection));
+        verify(connection, never()).commit();
+
+        transaction.commit();
+
+        verify(connection).commit();
+        verify(connection, never()).rollback();
+        verify(connection).setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        verify(connection).close();
+    }
+
+    @Test
+    public void testRollbackDiscardsWrites() throws Exception {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+
+        repo.handleCreate(transaction, Requests.newCreateRequest(TYPE, "0", json(object()))).getOrThrow();
+        transaction.rollback();
+
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+        verify(connection).close();
+    }
+
+    @Test
+    public void testFailedOperationRollsBackToItsSavepoint() throws Exception {
+        doThrow(new SQLException("constraint violated")).when(handler).update(anyString(), eq(TYPE), anyString(),
+                anyString(), anyMapOf(String.class, Object.class), any(Connection.class));
+        TransactionContext transaction = new TransactionContext(new RootContext());
+
+        repo.handleCreate(transaction, Requests.newCreateRequest(TYPE, "0", json(object()))).getOrThrow();
+        try {
+            repo.handleUpdate(transaction, Requests.newUpdateRequest(TYPE + "/0", json(object())).setRevision("1"))
+                    .getOrThrow();
+            failBecauseExceptionWasNotThrown(InternalServerErrorException.class);
+        } catch (InternalServerErrorException e) {
+            assertThat(e.getMessage()).contains("constraint violated");
+        }
+        verify(connection).rollback(savepoint);
+
+        // The create is kept, and the transaction goes on
+        repo.handleRead(transaction, Requests.newReadRequest(TYPE + "/0")).getOrThrow();
+        transaction.commit();
+
+        verify(connection).commit();
+    }
+
+    @Test
+    public void testSucceededWritesReleaseTheirSavepoint() throws Exception {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+
+        repo.handleCreate(transaction, Requests.newCreateRequest(TYPE, "0", json(object()))).getOrThrow();
+        repo.handleCreate(transaction, Requests.newCreateRequest(TYPE, "1", json(object()))).getOrThrow();
+
+        verify(connection, times(2)).setSavepoint();
+        verify(connection, times(2)).releaseSavepoint(savepoint);
+        verify(connection, never()).rollback(savepoint);
+    }
+
+    @Test
+    public void testSavepointsAreNotReleasedOnceUnsupported() throws Exception {
+        doThrow(new SQLFeatureNotSupportedException("unsupported")).when(connection).releaseSavepoint(savepoint);
+        TransactionContext transaction = new TransactionContext(new RootContext());
+
+        repo.handleCreate(transaction, Requests.newCreateRequest(TYPE, "0", json(object()))).getOrThrow();
+        repo.handleCreate(transaction, Requests.newCreateRequest(TYPE, "1", json(object()))).getOrThrow();
+        transaction.commit();
+
+        verify(connection, times(1)).releaseSavepoint(savepoint);
+        verify(connection).commit();
+    }
+
+    @Test
+    public void testReadsRunWithoutSavepoint() throws Exception {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+
+        repo.handleRead(transaction, Requests.newReadRequest(TYPE + "/0")).getOrThrow();
+        transaction.commit();
+
+        verify(connection, never()).setSavepoint();
+        verify(connection).commit();
+    }
+
+    @Test
+    public void testFailedReadRollsBackTheWholeTransaction() throws Exception {
+        when(handler.read(anyString(), eq(TYPE), eq("1"), any(Connection.class)))
+                .thenThrow(new SQLException("statement failed"));
+        TransactionContext transaction = new TransactionContext(new RootContext());
+
+        repo.handleCreate(transaction, Requests.newCreateRequest(TYPE, "0", json(object()))).getOrThrow();
+        try {
+            repo.handleRead(transaction, Requests.newReadRequest(TYPE + "/1")).getOrThrow();
+            failBecauseExceptionWasNotThrown(InternalServerErrorException.class);
+        } catch (InternalServerErrorException e) {
+            // expected
+        }
+        try {
+            transaction.commit();
+            failBecauseExceptionWasNotThrown(ResourceException.class);
+        } catch (ResourceException e) {
+            // expected
+        }
+
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+    }
+
+    @Test
+    public void testDeadlockRollsBackTheWholeTransaction() throws Exception {
+        SQLException deadlock = new SQLException("deadlock detected");
+        doThrow(deadlock).when(handler).update(anyString(), eq(TYPE), anyString(), anyString(),
+                anyMapOf(String.class, Object.class), any(Connection.class));
+        when(handler.isErrorType(deadlock, ErrorType.DEADLOCK_OR_TIMEOUT)).thenReturn(true);
+        TransactionContext transaction = new TransactionContext(new RootContext());
+
+        repo.handleCreate(transaction, Requests.newCreateRequest(TYPE, "0", json(object()))).getOrThrow();
+        try {
+            repo.handleUpdate(transaction, Requests.newUpdateRequest(TYPE + "/0", json(object())).setRevision("1"))
+                    .getOrThrow();
+            failBecauseExceptionWasNotThrown(InternalServerErrorException.class);
+        } catch (InternalServerErrorException e) {
+            // expected
+        }
+
+        // The database may have rolled back the transaction, so nothing more runs on it
+        try {
+            repo.handleRead(transaction, Requests.newReadRequest(TYPE + "/0")).getOrThrow();
+            failBecauseExceptionWasNotThrown(InternalServerErrorException.class);
+        } catch (InternalServerErrorException e) {
+            // expected
+        }
+        try {
+            transaction.commit();
+            failBecauseExceptionWasNotThrown(ResourceException.class);
+        } catch (ResourceException e) {
+            // expected
+        }
+
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+        verify(connection).close();
+    }
+
+    @Test
+    public void testRequestsOutsideTransactionContextUseTheirOwnConnection() throws Exception {
+        repo.handleRead(new RootContext(), Requests.newReadRequest(TYPE + "/0")).getOrThrow();
+
+        verify(connection).setAutoCommit(true);
+        verify(connection, never()).setSavepoint();
+        verify(connection).close();
+    }
+
+    @Test
+    public void testRequestsWithinTransactionContextUseTheirOwnConnectionWhenDisabled() throws Exception {
+        repo.requestTransactions = false;
+        TransactionContext transaction = new TransactionContext(new RootContext());
+
+        repo.handleRead(transaction, Requests.newReadRequest(TYPE + "/0")).getOrThrow();
+
+        verify(connection, never()).setSavepoint();
+        verify(connection).close();
+        assertThat(transaction.getResource(repo)).isNull();
+    }
+
+    @Test
+    public void testPrepareCreateAfterWriteUsesConnectionOfItsOwn() throws Exception {
+        Connection preparation = mock(Connection.class);
+        RequestTransaction transaction = new RequestTransaction(repo, connection);
+        doReturn(preparation).when(repo).getConnection();
+
+        // Nothing written yet: the type may be registered on the connection of the transaction
+        transaction.prepareCreate(handler, TYPE);
+        verify(handler).prepareCreate(TYPE, connection);
+
+        transaction.execute(TYPE, new RequestTransaction.Operation<Void>() {
+            @Override
+            public Void execute(Connection connection) {
+                return null;
+            }
+        });
+        transaction.prepareCreate(handler, TYPE);
+
+        verify(handler).prepareCreate(TYPE, preparation);
+        verify(preparation).setAutoCommit(true);
+        verify(preparation).close();
+        verify(connection, never()).commit();
+    }
+
+    @Test
+    public void testCommitInvalidatesCountsOfWrittenTypes() throws Exception {
+        RequestTransaction transaction = new RequestTransaction(repo, connection);
+        transaction.execute(TYPE, new RequestTransaction.Operation<Void>() {
+            @Override
+            public Void execute(Connection connection) {
+                return null;
+            }
+        });
+        transaction.execute(null, new RequestTransaction.Operation<Void>() {
+            @Override
+            public Void execute(Connection connection) {
+                return null;
+            }
+        });
+
+        transaction.commit();
+
+        verify(repo).invalidateCounts(TYPE);
+        verify(repo, times(1)).invalidateCounts(anyString());
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
+import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
+import static org.forgerock.openidm.repo.jdbc.impl.KeysetCookie.PAGED_RESULTS_KEYSET;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.repo.jdbc.ObjectHandler;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.services.context.RootContext;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests how {@link JDBCRepoService} hands the results of a query over to its handler.
+ */
+public class StreamedQueryTest {
+
+    private static final String TYPE = "managed/user";
+
+    private JDBCRepoService repo;
+    private TableHandler tableHandler;
+
+    /** The number of connections borrowed and not yet released */
+    private int borrowed;
+
+    /** The batches the table handler returns, in order */
+    private LinkedList<List<String>> batches;
+
+    /** The query parameters of each batch read */
+    private List<Map<String, Object>> batchParams;
+
+    /** The fetch size each batch is read with */
+    private List<Integer> fetchSizes;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        borrowed = 0;
+        batches = new LinkedList<>();
+        batchParams = new ArrayList<>();
+        fetchSizes = new ArrayList<>();
+
+        tableHandler = mock(TableHandler.class);
+        when(tableHandler.isKeysetPagingSupported()).thenReturn(true);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> params = (Map<String, Object>) invocation.getArguments()[1];
+                batchParams.add(new HashMap<>(params));
+                fetchSizes.add((Integer) invocation.getArguments()[3]);
+                ObjectHandler handler = (ObjectHandler) invocation.getArguments()[4];
+                for (String id : batches.isEmpty() ? Collections.<String>emptyList() : batches.removeFirst()) {
+                    Map<String, Object> object = new HashMap<>();
+                    object.put("_id", id);
+                    object.put("_rev", "0");
+                    if (!handler.handleObject(object)) {
+                        break;
+                    }
+                }
+                return null;
+            }
+        }).when(tableHandler).query(eq(TYPE), anyMapOf(String.class, Object.class), Matchers.any(Connection.class),
+                anyInt(), Matchers.any(ObjectHandler.class));
+
+        repo = spy(new JDBCRepoService());
+        doAnswer(new Answer<Connection>() {
+            @Override
+            public Connection answer(InvocationOnMock invocation) throws Throwable {
+                borrowed++;
+                Connection connection = mock(Connection.class);
+                doAnswer(new Answer<Void>() {
+                    @Override
+                    public Void answer(InvocationOnMock invocation) {
+                        borrowed--;
+                        return null;
+                    }
+                }).when(connection).close();
+                return connection;
+            }
+        }).when(repo).getConnection();
+        repo.tableHandlers = new HashMap<>();
+        repo.tableHandlers.put(TYPE, tableHandler);
+        repo.queryFetchSize = 2;
+    }
+
+    @Test
+    public void testReadsQueryFiltersInBatchesWithoutHoldingConnection() throws Exception {
+        batches.add(Arrays.asList("a", "b"));
+        batches.add(Arrays.asList("c", "d"));
+        batches.add(Arrays.asList("e"));
+        Results results = new Results(-1);
+
+        repo.handleQuery(new RootContext(), queryFilter(), results).getOrThrow();
+
+        assertThat(results.ids).containsExactly("a", "b", "c", "d", "e");
+        assertThat(results.borrowedWhileHandling).isFalse();
+        assertThat(borrowed).isZero();
+        assertThat(batchParams).hasSize(3);
+        assertThat(batchParams.get(0).get(PAGE_SIZE)).isEqualTo(2);
+        assertThat(batchParams.get(0).get(PAGED_RESULTS_KEYSET)).isNull();
+        // each batch resumes after the last row of the previous one
+        assertThat(batchParams.get(1).get(PAGED_RESULTS_KEYSET)).isNotNull();
+        assertThat(batchParams.get(1).get(PAGED_RESULTS_OFFSET)).isEqualTo(0);
+        assertThat(batchParams.get(2).get(PAGED_RESULTS_KEYSET)).isNotNull();
+    }
+
+    @Test
+    public void testStopsReadingOnceHandlerDeclines() throws Exception {
+        batches.add(Arrays.asList("a", "b"));
+        batches.add(Arrays.asList("c", "d"));
+        batches.add(Arrays.asList("e"));
+        Results results = new Results(3);
+
+        repo.handleQuery(new RootContext(), queryFilter(), results).getOrThrow();
+
+        assertThat(results.ids).containsExactly("a", "b", "c");
+        assertThat(batchParams).hasSize(2);
+        assertThat(borrowed).isZero();
+    }
+
+    @Test
+    public void testLimitsLastBatchToPageSize() throws Exception {
+        batches.add(Arrays.asList("a", "b"));
+        batches.add(Arrays.asList("c"));
+        Results results = new Results(-1);
+
+        repo.handleQuery(new RootContext(), queryFilter().setPageSize(3), results).getOrThrow();
+
+        assertThat(results.ids).containsExactly("a", "b", "c");
+        assertThat(batchParams).hasSize(2);
+        assertThat(batchParams.get(1).get(PAGE_SIZE)).isEqualTo(1);
+    }
+
+    @Test
+    public void testStreamsQueryIdsAsTheyAreRead() throws Exception {
+        when(tableHandler.queryIdExists(anyString())).thenReturn(false);
+        batches.add(Arrays.asList("a", "b", "c"));
+        Results results = new Results(-1);
+
+        repo.handleQuery(new RootContext(), Requests.newQueryRequest(TYPE).setQueryId("query-all-ids"), results)
+                .getOrThrow();
+
+        // each row is handed over while the query is read, a fetch size at a time
+        assertThat(results.ids).containsExactly("a", "b", "c");
+        assertThat(results.borrowedWhileHandling).isTrue();
+        assertThat(borrowed).isZero();
+        assertThat(batchParams).hasSize(1);
+        assertThat(batchParams.get(0).get(PAGE_SIZE)).isEqualTo(0);
+        assertThat(fetchSizes).containsExactly(2);
+    }
+
+    @Test
+    public void testStopsStreamingQueryExpressionOnceHandlerDeclines() throws Exception {
+        batches.add(Arrays.asList("a", "b", "c"));
+        Results results = new Results(2);
+
+        repo.handleQuery(new RootContext(),
+                Requests.newQueryRequest(TYPE).setQueryExpression("SELECT objectid FROM managedobjects"), results)
+                .getOrThrow();
+
+        assertThat(results.ids).containsExactly("a", "b");
+        assertThat(borrowed).isZero();
+    }
+
+    private static QueryRequest queryFilter() {
+        return Requests.newQueryRequest(TYPE).setQueryFilter(QueryFilters.parse("true"));
+    }
+
+    /** Collects the ids of the results, and whether a connection was borrowed while handling them */
+    private class Results implements QueryResourceHandler {
+        private final int limit;
+        private final List<String> ids = new ArrayList<>();
+        private boolean borrowedWhileHandling = false;
+
+        Results(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean handleResource(ResourceResponse resource) {
+            borrowedWhileHandling |= borrowed > 0;
+            ids.add(resource.getId());
+            return limit < 0 || ids.size() < limit;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.forgerock.json.JsonValue;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests how {@link GenericTableHandler} brings the properties table in line with the searchable properties of an
+ * updated object.
+ */
+public class UpdateValuePropertiesTest {
+
+    private static final JsonValue TABLE_CONFIG = json(object(
+            field("mainTable", "managedobjects"),
+            field("propertiesTable", "managedobjectproperties"),
+            field("searchableDefault", true)));
+
+    private static final long DB_ID = 42L;
+
+    private Connection connection;
+    private PreparedStatement deletes;
+    private PreparedStatement inserts;
+    private PreparedStatement updates;
+
+    /** The propkey, proptype and propvalue of the properties stored */
+    private List<List<String>> stored;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        stored = new ArrayList<>();
+        final ResultSet rs = mock(ResultSet.class);
+        final int[] row = { -1 };
+        when(rs.next()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return ++row[0] < stored.size();
+            }
+        });
+        when(rs.getString(anyString())).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                List<String> property = stored.get(row[0]);
+                String column = (String) invocation.getArguments()[0];
+                return property.get(Arrays.asList("propkey", "proptype", "propvalue").indexOf(column));
+            }
+        });
+        PreparedStatement reads = mock(PreparedStatement.class);
+        when(reads.executeQuery()).thenReturn(rs);
+
+        deletes = statement();
+        inserts = statement();
+        updates = statement();
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(startsWith("SELECT"))).thenReturn(reads);
+        when(connection.prepareStatement(startsWith("DELETE"))).thenReturn(deletes);
+        when(connection.prepareStatement(startsWith("INSERT"))).thenReturn(inserts);
+        when(connection.prepareStatement(startsWith("UPDATE"))).thenReturn(updates);
+    }
+
+    @Test
+    public void testWritesOnlyAddedRemovedAndChangedProperties() throws Exception {
+        store("/userName", "java.lang.String", "bjensen");
+        store("/mail", "java.lang.String", "bjensen@example.com");
+        store("/description", "java.lang.String", "left");
+
+        update(json(object(
+                field("userName", "bjensen"),
+                field("mail", "babs@example.com"),
+                field("age", 30))), 1);
+
+        verify(deletes).setString(2, "/description");
+        verify(deletes, times(1)).executeUpdate();
+        verify(inserts).setString(2, "/age");
+        verify(inserts).setString(3, "java.lang.Integer");
+        verify(inserts).setString(4, "30");
+        verify(inserts, times(1)).executeUpdate();
+        verify(updates).setString(1, "java.lang.String");
+        verify(updates).setString(2, "babs@example.com");
+        verify(updates).setString(4, "/mail");
+        verify(updates, times(1)).executeUpdate();
+    }
+
+    @Test
+    public void testLeavesUnchangedPropertiesAlone() throws Exception {
+        store("/userName", "java.lang.String", "bjensen");
+        store("/age", "java.lang.Integer", "30");
+
+        update(json(object(field("userName", "bjensen"), field("age", 30))), 1);
+
+        verify(connection, never()).prepareStatement(startsWith("DELETE"));
+        verify(connection, never()).prepareStatement(startsWith("INSERT"));
+        verify(connection, never()).prepareStatement(startsWith("UPDATE"));
+    }
+
+    @Test
+    public void testUpdatesPropertyWhoseTypeChanged() throws Exception {
+        store("/age", "java.lang.String", "30");
+
+        update(json(object(field("age", 30))), 1);
+
+        verify(updates).setString(1, "java.lang.Integer");
+        verify(updates).setString(2, "30");
+        verify(updates).setString(4, "/age");
+        verify(connection, never()).prepareStatement(startsWith("INSERT"));
+    }
+
+    @Test
+    public void testReinsertsPropertiesStoredMoreThanOnceAfterDeletingThem() throws Exception {
+        store("/roles/0", "java.lang.String", "admin");
+        store("/roles/0", "java.lang.String", "admin");
+
+        update(json(object(field("roles", array("admin", "user")))), 1);
+
+        InOrder order = inOrder(deletes, inserts);
+        order.verify(deletes).setString(2, "/roles/0");
+        order.verify(deletes).executeUpdate();
+        order.verify(inserts).setString(2, "/roles/0");
+        verify(inserts).setString(2, "/roles/1");
+        verify(inserts, times(2)).executeUpdate();
+        verify(connection, never()).prepareStatement(startsWith("UPDATE"));
+    }
+
+    @Test
+    public void testBatchesStatementsOfEachKind() throws Exception {
+        store("/a", "java.lang.String", "a");
+        store("/b", "java.lang.String", "b");
+        store("/c", "java.lang.String", "c");
+
+        update(json(object(field("c", "changed"), field("d", "d"), field("e", "e"))), 100);
+
+        verify(deletes, times(2)).addBatch();
+        verify(deletes).executeBatch();
+        verify(inserts, times(2)).addBatch();
+        verify(inserts).executeBatch();
+        verify(updates, times(1)).addBatch();
+        verify(updates).executeBatch();
+        verify(inserts, never()).executeUpdate();
+    }
+
+    @Test
+    public void testFailsWhenPropertyIsNotWritten() throws Exception {
+        store("/mail", "java.lang.String", "bjensen@example.com");
+        when(updates.executeUpdate()).thenReturn(0);
+
+        try {
+            update(json(object(field("mail", "babs@example.com"))), 1);
+            failBecauseExceptionWasNotThrown(SQLException.class);
+        } catch (SQLException e) {
+            assertThat(e.getMessage()).contains("update count 0");
+        }
+    }
+
+    private void store(String propkey, String proptype, String propvalue) {
+        stored.add(Arrays.asList(propkey, proptype, propvalue));
+    }
+
+    private void update(JsonValue value, int maxBatchSize) throws SQLException {
+        GenericTableHandler handler = new GenericTableHandler(TABLE_CONFIG, "openidm", json(object()),
+                json(object()), maxBatchSize, null);
+        handler.updateValueProperties("managed/user/0", DB_ID, "0", value, connection);
+    }
+
+    private static PreparedStatement statement() throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeUpdate()).thenReturn(1);
+        when(statement.executeBatch()).thenReturn(new int[] { 1 });
+        return statement;
+    }
+}
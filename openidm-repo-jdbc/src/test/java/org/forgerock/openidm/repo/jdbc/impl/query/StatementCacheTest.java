@@ -0,0 +1,117 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.repo.jdbc.impl.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class StatementCacheTest {
+
+    private static final String SELECT_ONE = "SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS WHERE 1 = ?";
+    private static final String SELECT_TWO = "SELECT 2 FROM INFORMATION_SCHEMA.SYSTEM_USERS WHERE 2 = ?";
+
+    private HikariDataSource dataSource;
+
+    @BeforeMethod
+    public void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName("org.hsqldb.jdbcDriver");
+        config.setJdbcUrl("jdbc:hsqldb:mem:statementcachetestdb");
+        config.setMaximumPoolSize(1);
+        dataSource = new HikariDataSource(config);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    public void testReusesStatementAcrossPooledConnections() throws Exception {
+        StatementCache cache = new StatementCache(10);
+
+        PreparedStatement first = prepareAndExecute(cache, SELECT_ONE);
+        PreparedStatement second = prepareAndExecute(cache, SELECT_ONE);
+
+        // Both uses got the same statement, which survived the connection returning to the pool
+        assertThat(second.unwrap(PreparedStatement.class)).isSameAs(first.unwrap(PreparedStatement.class));
+        assertThat(second.unwrap(PreparedStatement.class).isClosed()).isFalse();
+        assertThat(second.isClosed()).isTrue();
+    }
+
+    @Test
+    public void testDoesNotShareStatementInUse() throws Exception {
+        StatementCache cache = new StatementCache(10);
+
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement outer = cache.getPreparedStatement(connection, SELECT_ONE, false, null);
+            PreparedStatement inner = cache.getPreparedStatement(connection, SELECT_ONE, false, null);
+
+            assertThat(inner.unwrap(PreparedStatement.class)).isNotSameAs(outer.unwrap(PreparedStatement.class));
+            inner.close();
+            outer.close();
+
+            // The uncached inner statement is really closed, the cached outer one is kept
+            assertThat(inner.isClosed()).isTrue();
+            assertThat(outer.unwrap(PreparedStatement.class).isClosed()).isFalse();
+        }
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedStatement() throws Exception {
+        StatementCache cache = new StatementCache(1);
+
+        PreparedStatement first = prepareAndExecute(cache, SELECT_ONE);
+        prepareAndExecute(cache, SELECT_TWO);
+
+        assertThat(first.unwrap(PreparedStatement.class).isClosed()).isTrue();
+    }
+
+    @Test
+    public void testClearClosesStatements() throws Exception {
+        StatementCache cache = new StatementCache(10);
+
+        PreparedStatement statement = prepareAndExecute(cache, SELECT_ONE);
+        cache.clear();
+
+        assertThat(statement.unwrap(PreparedStatement.class).isClosed()).isTrue();
+    }
+
+    private PreparedStatement prepareAndExecute(StatementCache cache, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement statement = cache.getPreparedStatement(connection, sql, false, null);
+            try {
+                statement.setInt(1, 1);
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                }
+            } finally {
+                statement.close();
+            }
+            return statement;
+        }
+    }
+}
@@ -36,6 +36,15 @@ public interface DataSourceService {
      */
     DataSource getDataSource();
 
+    /**
+     * Get the maximum number of prepared statements the repository may cache per connection of the DataSource.
+     *
+     * @return the statement cache size, or 0 if the repository does not cache prepared statements
+     */
+    default int getStatementCacheSize() {
+        return 0;
+    }
+
     /**
      * Shutdown the service - may close connection pools, etc.
      */
@@ -23,15 +23,19 @@
  */
 package org.forgerock.openidm.repo;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.forgerock.json.resource.BadRequestException;
 import org.forgerock.json.resource.CreateRequest;
 import org.forgerock.json.resource.DeleteRequest;
 import org.forgerock.json.resource.QueryRequest;
 import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.Request;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.util.promise.Promise;
 
 /**
  * Common OpenIDM repository interface
@@ -106,4 +110,39 @@ public interface RepositoryService {
      *             if an error was encountered during query
      */
     public List<ResourceResponse> query(QueryRequest request) throws ResourceException;
+
+    /**
+     * Creates, updates and deletes a list of resources, of any types.
+     * <p>
+     * Implementations may write the resources in batches within shared transactions. The outcome of each request
+     * is reported individually, so a failed request does not fail the others. By default the requests are
+     * performed one at a time.
+     *
+     * @param requests
+     *            the create, update and delete requests
+     * @return the resulting resource, or the error encountered, of each request in the same order
+     */
+    public default List<Promise<ResourceResponse, ResourceException>> bulk(List<? extends Request> requests) {
+        List<Promise<ResourceResponse, ResourceException>> results = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            try {
+                switch (request.getRequestType()) {
+                case CREATE:
+                    results.add(create((CreateRequest) request).asPromise());
+                    break;
+                case UPDATE:
+                    results.add(update((UpdateRequest) request).asPromise());
+                    break;
+                case DELETE:
+                    results.add(delete((DeleteRequest) request).asPromise());
+                    break;
+                default:
+                    throw new BadRequestException("Bulk " + request.getRequestType() + " requests are not supported");
+                }
+            } catch (ResourceException e) {
+                results.add(e.<ResourceResponse>asPromise());
+            }
+        }
+        return results;
+    }
 }
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2012-2015 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.scheduler.impl;
@@ -50,7 +51,7 @@ public class TaskScannerContext {
     private String scriptName;
     private JsonValue params;
     private Context context;
-    private boolean canceled = false;
+    private volatile boolean canceled = false;
     private TaskScannerStatistic statistics;
     private TaskScannerState state;
     private ScriptEntry scriptEntry;
@@ -201,6 +202,28 @@ public class TaskScannerContext {
         return numParams.asInteger();
     }
 
+    /**
+     * Returns the number of objects queried at a time, and the number of objects queued for the scan threads.
+     * A page size of 0 queries all objects at once.
+     *
+     * @return the page size, 0 by default
+     */
+    public int getPageSize() {
+        return params.get("pageSize").defaultTo(0).asInteger();
+    }
+
+    /**
+     * Returns whether the {@code _queryId} or {@code _queryExpression} of the scan honours the page size and paged
+     * results cookie of the request. Scans by {@code _queryFilter} are always paged when a page size is set; a
+     * predefined query is only paged when it declares the paging tokens, as the repository would otherwise return
+     * a cookie for a query which has already returned all of its results.
+     *
+     * @return true if the predefined query of the scan supports paging, false by default
+     */
+    public boolean isPagedQuery() {
+        return params.get("pagedQuery").defaultTo(false).asBoolean();
+    }
+
     public TaskScannerStatistic getStatistics() {
         return this.statistics;
     }
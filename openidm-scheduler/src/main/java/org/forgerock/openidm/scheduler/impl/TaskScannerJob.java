@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2012-2016 ForgeRock AS.
+ * Portions copyright 2026 3A Systems LLC.
  */
 
 package org.forgerock.openidm.scheduler.impl;
@@ -20,10 +21,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.Callable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.script.ScriptException;
 
@@ -31,10 +34,12 @@ import org.forgerock.services.context.Context;
 import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
+import org.forgerock.json.resource.Connection;
 import org.forgerock.json.resource.ConnectionFactory;
 import org.forgerock.json.resource.PreconditionFailedException;
 import org.forgerock.json.resource.QueryRequest;
 import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
@@ -55,6 +60,15 @@ public class TaskScannerJob {
     private final static Logger logger = LoggerFactory.getLogger(TaskScannerJob.class);
     private final static DateUtil DATE_UTIL = DateUtil.getDateUtil(ServerConstants.TIME_ZONE_UTC);
 
+    /** Marks the end of the scanned objects for the scan threads. */
+    private final static JsonValue END_OF_SCAN = new JsonValue(null);
+
+    /** How long the query waits for room in the work queue before checking whether the scan was cancelled. */
+    private final static long OFFER_TIMEOUT_MILLIS = 1000;
+
+    /** The number of objects queued for the scan threads when the query is not paged. */
+    private final static int DEFAULT_QUEUE_SIZE = 1000;
+
     private ConnectionFactory connectionFactory;
     private TaskScannerContext taskScannerContext;
 
@@ -105,7 +119,8 @@ public class TaskScannerJob {
 
     /**
      * Performs the task associated with the task scanner event.
-     * Runs the query and executes the script across each resulting object.
+     * Streams the query results, a page at a time, into a bounded queue from which the scan threads
+     * execute the script on each object, so that memory use does not depend on the number of objects scanned.
      *
      * @param executor ExecutorService in which to invoke this task.
      * @throws ExecutionException
@@ -116,48 +131,53 @@ public class TaskScannerJob {
         logger.info("Task {} started from {} with script {}",
                 new Object[] { taskScannerContext.getTaskScanID(), taskScannerContext.getInvokerName(), taskScannerContext.getScriptName() });
 
-        JsonValue results;
-        taskScannerContext.startQuery();
-        try {
-            results = fetchAllObjects();
-        } catch (ResourceException e1) {
-            throw new ExecutionException("Error during query", e1);
-        }
-        taskScannerContext.endQuery();
-        Integer maxRecords = taskScannerContext.getMaxRecords();
-        if (maxRecords == null) {
-            taskScannerContext.setNumberOfTasksToProcess(results.size());
-        } else {
-            taskScannerContext.setNumberOfTasksToProcess(Math.min(results.size(), maxRecords));
-        }
-        logger.debug("TaskScan {} query results: {}", taskScannerContext.getInvokerName(), results.size());
-        // TODO jump out early if it's empty?
-
-        // Split and prune the result set according to our max and if we're synchronous or not
-        List<JsonValue> resultSets = splitResultsOverThreads(results, taskScannerContext.getNumberOfThreads(), maxRecords);
-        logger.debug("Split result set into {} units", resultSets.size());
+        final int numberOfThreads = taskScannerContext.getNumberOfThreads();
+        final int pageSize = taskScannerContext.getPageSize();
+        final BlockingQueue<JsonValue> queue = new ArrayBlockingQueue<>(
+                Math.max(pageSize > 0 ? pageSize : DEFAULT_QUEUE_SIZE, numberOfThreads));
 
-        List<Callable<Object>> todo = new ArrayList<Callable<Object>>();
-        for (final JsonValue result : resultSets) {
-            Runnable command = new Runnable() {
+        List<Future<?>> scanThreads = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            scanThreads.add(executor.submit(new Runnable() {
                 @Override
                 public void run() {
-                    try {
-                        performTaskOverSet(result);
-                    } catch (Exception ex) {
-                        logger.warn("Taskscanner failed with unexpected exception", ex);
-                    }
+                    performTaskOverQueue(queue);
                 }
-            };
-            todo.add(Executors.callable(command));
+            }));
         }
 
+        ResourceException queryException = null;
+        taskScannerContext.startQuery();
         try {
-            executor.invokeAll(todo);
+            queryObjects(queue);
+        } catch (ResourceException e) {
+            // Let the scan threads finish the objects queued so far
+            queryException = e;
         } catch (InterruptedException e) {
             // Mark it interrupted
             taskScannerContext.interrupted();
             logger.warn("Task scan '" + taskScannerContext.getTaskScanID() + "' interrupted");
+            Thread.currentThread().interrupt();
+        } finally {
+            taskScannerContext.endQuery();
+            endScan(queue, numberOfThreads);
+        }
+        logger.debug("TaskScan {} query results: {}", taskScannerContext.getInvokerName(),
+                taskScannerContext.getStatistics().getNumberOfTasksToProcess());
+
+        try {
+            for (Future<?> scanThread : scanThreads) {
+                scanThread.get();
+            }
+        } catch (InterruptedException e) {
+            // Mark it interrupted
+            taskScannerContext.interrupted();
+            logger.warn("Task scan '" + taskScannerContext.getTaskScanID() + "' interrupted");
+        } catch (java.util.concurrent.ExecutionException e) {
+            logger.warn("Taskscanner failed with unexpected exception", e.getCause());
+        }
+        if (queryException != null) {
+            throw new ExecutionException("Error during query", queryException);
         }
         // Don't mark the job as completed if its been deactivated
         if (!taskScannerContext.isInactive()) {
@@ -172,95 +192,156 @@ public class TaskScannerJob {
         });
     }
 
-    private List<JsonValue> splitResultsOverThreads(JsonValue results, int numberOfThreads, Integer max) {
-        List<List<Object>> resultSets = new ArrayList<List<Object>>();
+    /**
+     * Tells each scan thread that there are no more objects to scan.
+     *
+     * @param queue the work queue
+     * @param numberOfThreads the number of scan threads
+     */
+    private void endScan(BlockingQueue<JsonValue> queue, int numberOfThreads) {
         for (int i = 0; i < numberOfThreads; i++) {
-            resultSets.add(new ArrayList<Object>());
-        }
-
-        int i = 0;
-        for (JsonValue obj : results) {
-            if (max != null && i >= max) {
-                break;
+            try {
+                queue.put(END_OF_SCAN);
+            } catch (InterruptedException e) {
+                // Make room rather than wait for the scan threads
+                Thread.currentThread().interrupt();
+                while (!queue.offer(END_OF_SCAN)) {
+                    queue.poll();
+                }
             }
-            resultSets.get(i % numberOfThreads).add(obj.getObject());
-            i++;
         }
-
-        List<JsonValue> jsonSets = new ArrayList<JsonValue>();
-        for (List<Object> set : resultSets) {
-            jsonSets.add(new JsonValue(set));
-        }
-
-        return jsonSets;
     }
 
-    private void performTaskOverSet(JsonValue results)
-                    throws ExecutionException {
-        for (JsonValue input : results) {
+    /**
+     * Executes the script on the objects taken from the queue, until the end of the scan.
+     *
+     * @param queue the work queue
+     */
+    private void performTaskOverQueue(BlockingQueue<JsonValue> queue) {
+        while (true) {
+            JsonValue input;
+            try {
+                input = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (input == END_OF_SCAN) {
+                return;
+            }
             if (taskScannerContext.isCanceled()) {
-                logger.info("Task '" + taskScannerContext.getTaskScanID() + "' cancelled. Terminating execution.");
-                break; // Jump out quick since we've cancelled the job
+                // Keep draining the queue so that the query is not left waiting for room
+                continue;
             }
-            // Check if this object has a STARTED time already
-            JsonValue startTime = input.get(taskScannerContext.getStartField());
-            String startTimeString = null;
-            if (startTime != null && !startTime.isNull()) {
-                startTimeString = startTime.asString();
-                DateTime startedTime = DATE_UTIL.parseTimestamp(startTimeString);
-
-                // Skip if the startTime + interval has not been passed
-                ReadablePeriod period = taskScannerContext.getRecoveryTimeout();
-                DateTime expirationDate = startedTime.plus(period);
-                if (expirationDate.isAfterNow()) {
-                    logger.debug("Object already started and has not expired. Started at: {}. Timeout: {}. Expires at: {}",
-                            new Object[] {
-                            DATE_UTIL.formatDateTime(startedTime),
-                            period,
-                            DATE_UTIL.formatDateTime(expirationDate)});
-                    continue;
-                }
+            try {
+                performTaskOverObject(input);
+            } catch (Exception ex) {
+                logger.warn("Taskscanner failed with unexpected exception", ex);
             }
+        }
+    }
 
-            try {
-                claimAndExecScript(input, startTimeString);
-            } catch (ResourceException e) {
-                throw new ExecutionException("Error during claim and execution phase", e);
+    private void performTaskOverObject(JsonValue input)
+                    throws ExecutionException {
+        // Check if this object has a STARTED time already
+        JsonValue startTime = input.get(taskScannerContext.getStartField());
+        String startTimeString = null;
+        if (startTime != null && !startTime.isNull()) {
+            startTimeString = startTime.asString();
+            DateTime startedTime = DATE_UTIL.parseTimestamp(startTimeString);
+
+            // Skip if the startTime + interval has not been passed
+            ReadablePeriod period = taskScannerContext.getRecoveryTimeout();
+            DateTime expirationDate = startedTime.plus(period);
+            if (expirationDate.isAfterNow()) {
+                logger.debug("Object already started and has not expired. Started at: {}. Timeout: {}. Expires at: {}",
+                        new Object[] {
+                        DATE_UTIL.formatDateTime(startedTime),
+                        period,
+                        DATE_UTIL.formatDateTime(expirationDate)});
+                return;
             }
         }
+
+        try {
+            claimAndExecScript(input, startTimeString);
+        } catch (ResourceException e) {
+            throw new ExecutionException("Error during claim and execution phase", e);
+        }
     }
 
     /**
-     * Flatten a list of parameters and perform a query to fetch all objects from storage.
+     * Flatten a list of parameters and query the objects to scan a page at a time, putting each object on the
+     * work queue. The query waits while the queue is full, and stops once maxRecords objects have been queued or
+     * the scan is cancelled.
+     * <p>
+     * Only {@code _queryFilter} scans, and predefined queries declared as paged, are queried a page at a time.
+     * Paging also stops if the resource returns more objects than the page size, as it then ignored the page size
+     * and has already returned every object.
      *
-     * @return JsonValue containing a list of all the retrieved objects
+     * @param queue the work queue
      * @throws ResourceException
+     * @throws InterruptedException if interrupted while waiting for room in the queue
      */
-    private JsonValue fetchAllObjects() throws ResourceException {
+    private void queryObjects(final BlockingQueue<JsonValue> queue) throws ResourceException, InterruptedException {
         JsonValue flatParams = flattenJson(taskScannerContext.getScanValue());
         ConfigMacroUtil.expand(flatParams);
-        return performQuery(taskScannerContext.getObjectID(), flatParams);
-    }
-
-    /**
-     * Performs a query on a resource and returns the result set
-     * @param resourceID the identifier of the resource to query
-     * @param params parameters to supply to the query
-     * @return the set of results from the performed query
-     * @throws ResourceException
-     */
-    private JsonValue performQuery(String resourceID, JsonValue params) throws ResourceException {
-        final JsonValue queryResults = new JsonValue(new ArrayList<Map<String, Object>>());;
 
-        QueryRequest request = RequestUtil.buildQueryRequestFromParameterMap(resourceID, params.asMap());
-        connectionFactory.getConnection().query(taskScannerContext.getContext(), request, new QueryResourceHandler() {
+        final String resourceID = taskScannerContext.getObjectID();
+        final int pageSize = taskScannerContext.getPageSize();
+        final Integer maxRecords = taskScannerContext.getMaxRecords();
+        final TaskScannerStatistic statistics = taskScannerContext.getStatistics();
+        final InterruptedException[] interrupted = new InterruptedException[1];
+        final int[] pageResults = new int[1];
+        final QueryResourceHandler handler = new QueryResourceHandler() {
             @Override
             public boolean handleResource(ResourceResponse resource) {
-                queryResults.add(resource.getContent().getObject());
-                return true;
+                pageResults[0]++;
+                if (maxRecords != null && statistics.getNumberOfTasksToProcess() >= maxRecords) {
+                    return false;
+                }
+                try {
+                    while (!queue.offer(resource.getContent(), OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (taskScannerContext.isCanceled()) {
+                            return false;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    interrupted[0] = e;
+                    return false;
+                }
+                statistics.taskQueued();
+                return !taskScannerContext.isCanceled();
             }
-        });
-        return queryResults;
+        };
+
+        final Connection connection = connectionFactory.getConnection();
+        boolean paged = false;
+        String pagedResultsCookie = null;
+        do {
+            QueryRequest request = RequestUtil.buildQueryRequestFromParameterMap(resourceID, flatParams.asMap());
+            paged = pageSize > 0 && (request.getQueryFilter() != null || taskScannerContext.isPagedQuery());
+            if (paged) {
+                request.setPageSize(pageSize);
+                request.setPagedResultsCookie(pagedResultsCookie);
+            }
+            pageResults[0] = 0;
+            QueryResponse response = connection.query(taskScannerContext.getContext(), request, handler);
+            if (interrupted[0] != null) {
+                throw interrupted[0];
+            }
+            pagedResultsCookie = response.getPagedResultsCookie();
+            if (paged && pageResults[0] > pageSize) {
+                logger.warn("TaskScan {} query returned {} objects for a page size of {}, ignoring its cookie",
+                        taskScannerContext.getInvokerName(), pageResults[0], pageSize);
+                paged = false;
+            }
+            logger.debug("TaskScan {} queried {} objects so far", taskScannerContext.getInvokerName(),
+                    statistics.getNumberOfTasksToProcess());
+        } while (paged
+                && pagedResultsCookie != null
+                && !taskScannerContext.isCanceled()
+                && (maxRecords == null || statistics.getNumberOfTasksToProcess() < maxRecords));
     }
 
     /**
@@ -20,6 +20,7 @@
 * with the fields enclosed by brackets [] replaced by
 * your own identifying information:
 * "Portions Copyrighted [year] [name of copyright owner]"
+* Portions Copyrighted 2026 3A Systems LLC.
 */
 package org.forgerock.openidm.scheduler.impl;
 
@@ -31,13 +32,14 @@ public class TaskScannerStatistic {
     private long jobEndTime;
     private long queryStartTime;
     private long queryEndTime;
-    private int numberToProcess = 0;
 
     // Note: These should be the only ones used during the thread executions
+    private AtomicInteger numberToProcess;
     private AtomicInteger numSuccessful;
     private AtomicInteger numFailed;
 
     public TaskScannerStatistic() {
+        numberToProcess = new AtomicInteger(0);
         numSuccessful = new AtomicInteger(0);
         numFailed = new AtomicInteger(0);
     }
@@ -94,15 +96,23 @@ public class TaskScannerStatistic {
         return numFailed.get();
     }
 
+    /**
+     * Counts an object queued for the scan threads. The number of tasks to process grows as the query streams
+     * the objects to scan.
+     */
+    public void taskQueued() {
+        numberToProcess.incrementAndGet();
+    }
+
     public int getNumberOfTasksToProcess() {
-        return numberToProcess;
+        return numberToProcess.get();
     }
 
     public int getNumberOfTasksRemaining() {
-        return numberToProcess - getNumberOfTasksProcessed();
+        return numberToProcess.get() - getNumberOfTasksProcessed();
     }
 
     public void setNumberOfTasksToProcess(int numberToProcess) {
-        this.numberToProcess = numberToProcess;
+        this.numberToProcess.set(numberToProcess);
     }
 }
@@ -0,0 +1,193 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+
+package org.forgerock.openidm.scheduler.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.services.context.Context;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TaskScannerJobTest {
+
+    private static final int NUMBER_OF_OBJECTS = 5;
+
+    private Connection connection;
+    private ConnectionFactory connectionFactory;
+    private List<String> cookies;
+    private boolean ignorePageSize;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        cookies = new ArrayList<>();
+        ignorePageSize = false;
+        connection = mock(Connection.class);
+        connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+
+        // Serves the objects a page at a time, with the offset of the next page as cookie. A repository which
+        // ignores the page size, as a predefined query without paging tokens does, returns every object and
+        // the offset of the next page whenever at least a full page was returned.
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenAnswer(new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) {
+                        QueryRequest request = (QueryRequest) invocation.getArguments()[1];
+                        QueryResourceHandler handler = (QueryResourceHandler) invocation.getArguments()[2];
+                        cookies.add(request.getPagedResultsCookie());
+                        int offset = request.getPagedResultsCookie() == null
+                                ? 0 : Integer.parseInt(request.getPagedResultsCookie());
+                        if (ignorePageSize) {
+                            for (int i = 0; i < NUMBER_OF_OBJECTS; i++) {
+                                handler.handleResource(newResourceResponse(String.valueOf(i), "0", user(i)));
+                            }
+                            return newQueryResponse(request.getPageSize() > 0
+                                    ? String.valueOf(offset + request.getPageSize()) : null);
+                        }
+                        int end = request.getPageSize() > 0
+                                ? Math.min(offset + request.getPageSize(), NUMBER_OF_OBJECTS) : NUMBER_OF_OBJECTS;
+                        for (int i = offset; i < end; i++) {
+                            if (!handler.handleResource(newResourceResponse(String.valueOf(i), "0", user(i)))) {
+                                break;
+                            }
+                        }
+                        return newQueryResponse(end < NUMBER_OF_OBJECTS ? String.valueOf(end) : null);
+                    }
+                });
+        when(connection.update(any(Context.class), any(UpdateRequest.class)))
+                .thenReturn(newResourceResponse("0", "1", json(object())));
+        when(connection.read(any(Context.class), any(ReadRequest.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                ReadRequest request = (ReadRequest) invocation.getArguments()[1];
+                int id = Integer.parseInt(request.getResourcePathObject().leaf());
+                return newResourceResponse(String.valueOf(id), "1", user(id));
+            }
+        });
+    }
+
+    @Test
+    public void testScansAllPages() throws Exception {
+        TaskScannerContext context = context(json(object(field("pageSize", 2))));
+
+        new TaskScannerJob(connectionFactory, context).startTask();
+
+        assertThat(cookies).containsExactly(null, "2", "4");
+        assertThat(context.getStatistics().getNumberOfTasksToProcess()).isEqualTo(NUMBER_OF_OBJECTS);
+        // Each object is claimed by setting its started and completed fields
+        verify(connection, times(2 * NUMBER_OF_OBJECTS)).update(any(Context.class), any(UpdateRequest.class));
+    }
+
+    @Test
+    public void testStopsAtMaxRecords() throws Exception {
+        TaskScannerContext context = context(json(object(field("pageSize", 2), field("maxRecords", 3))));
+
+        new TaskScannerJob(connectionFactory, context).startTask();
+
+        assertThat(cookies).containsExactly(null, "2");
+        assertThat(context.getStatistics().getNumberOfTasksToProcess()).isEqualTo(3);
+        verify(connection, times(2 * 3)).update(any(Context.class), any(UpdateRequest.class));
+    }
+
+    @Test
+    public void testQueriesAllAtOnceWithoutPageSize() throws Exception {
+        TaskScannerContext context = context(json(object(field("pageSize", 0))));
+
+        new TaskScannerJob(connectionFactory, context).startTask();
+
+        assertThat(cookies).containsExactly((String) null);
+        assertThat(context.getStatistics().getNumberOfTasksToProcess()).isEqualTo(NUMBER_OF_OBJECTS);
+    }
+
+    @Test
+    public void testQueriesAllAtOnceByDefault() throws Exception {
+        TaskScannerContext context = context(json(object()));
+
+        new TaskScannerJob(connectionFactory, context).startTask();
+
+        assertThat(cookies).containsExactly((String) null);
+        assertThat(context.getStatistics().getNumberOfTasksToProcess()).isEqualTo(NUMBER_OF_OBJECTS);
+    }
+
+    @Test
+    public void testDoesNotPagePredefinedQuery() throws Exception {
+        ignorePageSize = true;
+        TaskScannerContext context = context(json(object(field("pageSize", 2))), "_queryId", "scan-tasks");
+
+        new TaskScannerJob(connectionFactory, context).startTask();
+
+        assertThat(cookies).containsExactly((String) null);
+        assertThat(context.getStatistics().getNumberOfTasksToProcess()).isEqualTo(NUMBER_OF_OBJECTS);
+        verify(connection, times(2 * NUMBER_OF_OBJECTS)).update(any(Context.class), any(UpdateRequest.class));
+    }
+
+    @Test
+    public void testStopsPagingWhenPageSizeIsIgnored() throws Exception {
+        ignorePageSize = true;
+        TaskScannerContext context = context(json(object(field("pageSize", 2), field("pagedQuery", true))),
+                "_queryId", "scan-tasks");
+
+        new TaskScannerJob(connectionFactory, context).startTask();
+
+        // Each object is queued once, although the repository returned a cookie
+        assertThat(cookies).containsExactly((String) null);
+        assertThat(context.getStatistics().getNumberOfTasksToProcess()).isEqualTo(NUMBER_OF_OBJECTS);
+        verify(connection, times(2 * NUMBER_OF_OBJECTS)).update(any(Context.class), any(UpdateRequest.class));
+    }
+
+    private static TaskScannerContext context(JsonValue params) throws Exception {
+        return context(params, "_queryFilter", "true");
+    }
+
+    private static TaskScannerContext context(JsonValue params, String queryType, String query) throws Exception {
+        params.put("numberOfThreads", 2);
+        params.put("waitForCompletion", true);
+        params.put("scan", object(
+                field("object", "managed/user"),
+                field(queryType, query),
+                field("taskState", object(
+                        field("started", "/started"),
+                        field("completed", "/completed")))));
+        return new TaskScannerContext("test", "script", params, mock(Context.class), null);
+    }
+
+    private static JsonValue user(int id) {
+        return json(object(field("_id", String.valueOf(id)), field("_rev", "0")));
+    }
+}
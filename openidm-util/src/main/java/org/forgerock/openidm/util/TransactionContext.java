@@ -0,0 +1,294 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.util;
+
+import static org.forgerock.util.Reject.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.services.context.AbstractContext;
+import org.forgerock.services.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Context which groups the repository operations of a request into one unit of work. Repositories which support
+ * it enlist a {@link Resource}, such as a database connection and its transaction, the first time they handle a
+ * request within the context, and use it for every following request within the context, until the creator of the
+ * context commits or rolls back the unit of work.
+ * <p>
+ * A transaction context created within an active one joins it: committing or rolling back the inner context is
+ * left to the outer one. The resources are not committed atomically with each other; a unit of work is meant to
+ * span the operations of a single repository.
+ * <p>
+ * Work which must not run while the unit of work holds database locks, or which must only see its committed
+ * outcome, such as synchronizing a change to remote systems, is deferred with {@link #afterCommit(Runnable)}.
+ * <p>
+ * The enlisted resources are not part of the persisted state of the context. A context restored from its JSON
+ * representation is no longer active, so that repositories handle requests within it on their own.
+ * <p>
+ * Usage:
+ * <pre>
+ * final TransactionContext transaction = new TransactionContext(context);
+ * try {
+ *     connection.create(transaction, createRequest);
+ *     connection.create(transaction, relationshipRequest);
+ *     transaction.commit();
+ * } finally {
+ *     transaction.rollback(); // nothing left to roll back once committed
+ * }
+ * </pre>
+ */
+public class TransactionContext extends AbstractContext {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionContext.class);
+
+    private static final String CONTEXT_NAME = "transaction";
+
+    /**
+     * A resource taking part in a unit of work, which holds the changes of the operations until the unit of work
+     * is committed or rolled back, and is released either way.
+     */
+    public interface Resource {
+
+        /**
+         * Commits the changes and releases the resource.
+         *
+         * @throws ResourceException if the changes could not be committed, and were rolled back
+         */
+        void commit() throws ResourceException;
+
+        /**
+         * Rolls back the changes and releases the resource.
+         */
+        void rollback();
+    }
+
+    /** The transaction this one joined, or null if it is the outermost */
+    private final TransactionContext outer;
+
+    /** The enlisted resources, by the key of the repository that enlisted them */
+    private final Map<Object, Resource> resources = new LinkedHashMap<>();
+
+    /** The actions to run once the unit of work is committed */
+    private final List<Runnable> afterCommit = new ArrayList<>();
+
+    /** Whether this unit of work was committed or rolled back */
+    private boolean completed;
+
+    /**
+     * Creates a new unit of work, or joins the active one of the parent context.
+     *
+     * @param parent the parent context
+     */
+    public TransactionContext(final Context parent) {
+        super(checkNotNull(parent, "Cannot instantiate TransactionContext with null parent Context"), CONTEXT_NAME);
+        final TransactionContext enclosing = parent.containsContext(TransactionContext.class)
+                ? parent.asContext(TransactionContext.class)
+                : null;
+        this.outer = enclosing != null && enclosing.isActive() ? enclosing.outermost() : null;
+        this.completed = false;
+    }
+
+    /**
+     * Restore from JSON representation, as a unit of work which is no longer active.
+     *
+     * @param savedContext
+     *            The JSON representation from which this context's attributes
+     *            should be parsed.
+     * @param classLoader
+     *            The ClassLoader.
+     * @throws ResourceException
+     *             If the JSON representation could not be parsed.
+     */
+    public TransactionContext(final JsonValue savedContext, final ClassLoader classLoader)
+            throws ResourceException {
+        super(savedContext, classLoader);
+        this.outer = null;
+        this.completed = true;
+    }
+
+    private TransactionContext outermost() {
+        return outer != null ? outer : this;
+    }
+
+    /**
+     * Gets the transaction context of a context, if its unit of work is active.
+     *
+     * @param context the context
+     * @return the transaction context, or null if the context has no active unit of work
+     */
+    public static TransactionContext getActive(final Context context) {
+        if (context == null || !context.containsContext(TransactionContext.class)) {
+            return null;
+        }
+        final TransactionContext transaction = context.asContext(TransactionContext.class);
+        return transaction.isActive() ? transaction : null;
+    }
+
+    /**
+     * Whether the unit of work this context belongs to is neither committed nor rolled back yet, and resources may
+     * take part in it.
+     *
+     * @return true if the unit of work is active
+     */
+    public boolean isActive() {
+        if (outer != null) {
+            return outer.isActive();
+        }
+        synchronized (this) {
+            return !completed;
+        }
+    }
+
+    /**
+     * Gets the resource a repository enlisted in the unit of work.
+     *
+     * @param key the key of the repository
+     * @return the resource, or null if the repository did not enlist one
+     */
+    public Resource getResource(final Object key) {
+        if (outer != null) {
+            return outer.getResource(key);
+        }
+        synchronized (this) {
+            return resources.get(key);
+        }
+    }
+
+    /**
+     * Enlists the resource of a repository in the unit of work.
+     *
+     * @param key the key of the repository
+     * @param resource the resource
+     * @throws IllegalStateException if the unit of work is no longer active, or the repository already enlisted
+     *         a resource
+     */
+    public void enlist(final Object key, final Resource resource) {
+        if (outer != null) {
+            outer.enlist(key, resource);
+            return;
+        }
+        synchronized (this) {
+            if (completed) {
+                throw new IllegalStateException("The transaction is no longer active");
+            }
+            if (resources.containsKey(key)) {
+                throw new IllegalStateException("A resource is already enlisted for " + key);
+            }
+            resources.put(key, resource);
+        }
+    }
+
+    /**
+     * Defers an action until the unit of work is committed. The action is dropped if the unit of work is rolled
+     * back. Actions run in the order they were deferred, once every resource has committed; a failing action is
+     * logged, and does not affect the outcome of the unit of work.
+     *
+     * @param action the action
+     * @throws IllegalStateException if the unit of work is no longer active
+     */
+    public void afterCommit(final Runnable action) {
+        if (outer != null) {
+            outer.afterCommit(action);
+            return;
+        }
+        synchronized (this) {
+            if (completed) {
+                throw new IllegalStateException("The transaction is no longer active");
+            }
+            afterCommit.add(action);
+        }
+    }
+
+    /**
+     * Commits the unit of work, unless this context joined an outer one, which commits it. If a resource fails to
+     * commit, the remaining ones are rolled back. Once every resource has committed, the deferred actions run.
+     *
+     * @throws ResourceException if a resource failed to commit
+     */
+    public void commit() throws ResourceException {
+        final List<Runnable> actions;
+        final List<Resource> enlisted;
+        synchronized (this) {
+            actions = deferredActions();
+            enlisted = complete();
+        }
+        ResourceException failure = null;
+        for (Resource resource : enlisted) {
+            if (failure == null) {
+                try {
+                    resource.commit();
+                } catch (ResourceException e) {
+                    failure = e;
+                }
+            } else {
+                resource.rollback();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                logger.warn("Action deferred until the transaction committed failed", e);
+            }
+        }
+    }
+
+    /**
+     * Rolls back the unit of work, unless it is already committed or rolled back, or this context joined an outer
+     * one, which decides the outcome.
+     */
+    public void rollback() {
+        for (Resource resource : complete()) {
+            resource.rollback();
+        }
+    }
+
+    /**
+     * Gets the actions deferred until the commit of this unit of work, unless it is already completed or this
+     * context joined an outer one.
+     */
+    private synchronized List<Runnable> deferredActions() {
+        if (completed || outer != null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(afterCommit);
+    }
+
+    /**
+     * Completes this context, and gets the resources to commit or roll back. The deferred actions are dropped.
+     */
+    private synchronized List<Resource> complete() {
+        if (completed || outer != null) {
+            completed = true;
+            return new ArrayList<>();
+        }
+        completed = true;
+        afterCommit.clear();
+        final List<Resource> enlisted = new ArrayList<>(resources.values());
+        resources.clear();
+        return enlisted;
+    }
+}
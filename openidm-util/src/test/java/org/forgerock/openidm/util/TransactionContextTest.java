@@ -0,0 +1,208 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 3A Systems LLC.
+ */
+package org.forgerock.openidm.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.services.context.RootContext;
+import org.mockito.InOrder;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link TransactionContext}
+ */
+public class TransactionContextTest {
+
+    @Test
+    public void testCommitCommitsEnlistedResources() throws Exception {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+        TransactionContext.Resource resource = mock(TransactionContext.Resource.class);
+        transaction.enlist("repo", resource);
+
+        assertThat(transaction.getResource("repo")).isSameAs(resource);
+        transaction.commit();
+        transaction.rollback();
+
+        verify(resource).commit();
+        verify(resource, never()).rollback();
+        assertThat(transaction.isActive()).isFalse();
+    }
+
+    @Test
+    public void testRollbackRollsBackEnlistedResources() throws Exception {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+        TransactionContext.Resource resource = mock(TransactionContext.Resource.class);
+        transaction.enlist("repo", resource);
+
+        transaction.rollback();
+
+        verify(resource).rollback();
+        verify(resource, never()).commit();
+    }
+
+    @Test
+    public void testInnerContextJoinsOuterUnitOfWork() throws Exception {
+        TransactionContext outer = new TransactionContext(new RootContext());
+        TransactionContext inner = new TransactionContext(outer);
+        TransactionContext.Resource resource = mock(TransactionContext.Resource.class);
+        inner.enlist("repo", resource);
+
+        inner.commit();
+        inner.rollback();
+
+        assertThat(outer.getResource("repo")).isSameAs(resource);
+        assertThat(inner.isActive()).isTrue();
+        verify(resource, never()).commit();
+        verify(resource, never()).rollback();
+
+        outer.commit();
+
+        verify(resource).commit();
+        assertThat(inner.isActive()).isFalse();
+    }
+
+    @Test
+    public void testFailedCommitRollsBackRemainingResources() throws Exception {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+        TransactionContext.Resource failing = mock(TransactionContext.Resource.class);
+        TransactionContext.Resource remaining = mock(TransactionContext.Resource.class);
+        doThrow(new InternalServerErrorException("commit failed")).when(failing).commit();
+        transaction.enlist("first", failing);
+        transaction.enlist("second", remaining);
+
+        try {
+            transaction.commit();
+            failBecauseExceptionWasNotThrown(ResourceException.class);
+        } catch (ResourceException e) {
+            assertThat(e.getMessage()).isEqualTo("commit failed");
+        }
+
+        verify(remaining).rollback();
+        verify(remaining, never()).commit();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCannotEnlistOnceCompleted() {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+        transaction.rollback();
+
+        transaction.enlist("repo", mock(TransactionContext.Resource.class));
+    }
+
+    @Test
+    public void testDeferredActionsRunOnceCommitted() throws Exception {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+        TransactionContext.Resource resource = mock(TransactionContext.Resource.class);
+        Runnable action = mock(Runnable.class);
+        transaction.enlist("repo", resource);
+        transaction.afterCommit(action);
+
+        verify(action, never()).run();
+        transaction.commit();
+
+        InOrder order = inOrder(resource, action);
+        order.verify(resource).commit();
+        order.verify(action).run();
+    }
+
+    @Test
+    public void testDeferredActionsAreDroppedOnRollback() throws Exception {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+        Runnable action = mock(Runnable.class);
+        transaction.afterCommit(action);
+
+        transaction.rollback();
+        transaction.commit();
+
+        verify(action, never()).run();
+    }
+
+    @Test
+    public void testDeferredActionsAreDroppedOnFailedCommit() throws Exception {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+        TransactionContext.Resource failing = mock(TransactionContext.Resource.class);
+        doThrow(new InternalServerErrorException("commit failed")).when(failing).commit();
+        Runnable action = mock(Runnable.class);
+        transaction.enlist("repo", failing);
+        transaction.afterCommit(action);
+
+        try {
+            transaction.commit();
+            failBecauseExceptionWasNotThrown(ResourceException.class);
+        } catch (ResourceException e) {
+            // expected
+        }
+
+        verify(action, never()).run();
+    }
+
+    @Test
+    public void testFailingDeferredActionDoesNotStopOthers() throws Exception {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+        Runnable failing = mock(Runnable.class);
+        doThrow(new IllegalStateException("sync failed")).when(failing).run();
+        Runnable action = mock(Runnable.class);
+        transaction.afterCommit(failing);
+        transaction.afterCommit(action);
+
+        transaction.commit();
+
+        verify(action).run();
+    }
+
+    @Test
+    public void testInnerContextDefersActionsToOuterUnitOfWork() throws Exception {
+        TransactionContext outer = new TransactionContext(new RootContext());
+        TransactionContext inner = new TransactionContext(outer);
+        Runnable action = mock(Runnable.class);
+        inner.afterCommit(action);
+
+        inner.commit();
+        verify(action, never()).run();
+
+        outer.commit();
+        verify(action).run();
+    }
+
+    @Test
+    public void testGetActive() throws Exception {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+        TransactionContext inner = new TransactionContext(transaction);
+
+        assertThat(TransactionContext.getActive(new RootContext())).isNull();
+        assertThat(TransactionContext.getActive(inner)).isSameAs(inner);
+
+        transaction.commit();
+
+        assertThat(TransactionContext.getActive(inner)).isNull();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCannotDeferOnceCompleted() throws Exception {
+        TransactionContext transaction = new TransactionContext(new RootContext());
+        transaction.commit();
+
+        transaction.afterCommit(mock(Runnable.class));
+    }
+}
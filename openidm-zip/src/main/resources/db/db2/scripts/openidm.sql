@@ -201,6 +201,26 @@ CREATE INDEX SOPENIDM.IDX_RELATIONSHIPPROPERTIES_RELATIONSHIPS ON SOPENIDM.RELAT
 CREATE INDEX SOPENIDM.IDX_RELATIONSHIPPROPERTIES_PROPKEY ON SOPENIDM.RELATIONSHIPPROPERTIES (PROPKEY ASC);
 CREATE INDEX SOPENIDM.IDX_RELATIONSHIPPROPERTIES_PROPVALUE ON SOPENIDM.RELATIONSHIPPROPERTIES (PROPVALUE ASC);
 
+-- -----------------------------------------------------
+-- Table openidm.relationshipedges
+-- -----------------------------------------------------
+
+CREATE TABLESPACE SOIDM27 MANAGED BY AUTOMATIC STORAGE;
+CREATE TABLE SOPENIDM.RELATIONSHIPEDGES (
+    objectid                   VARCHAR(255)   NOT NULL,
+    rev                        VARCHAR(38)    NOT NULL,
+    firstid                    VARCHAR(255)   NOT NULL,
+    firstpropertyname          VARCHAR(100)   NOT NULL,
+    secondid                   VARCHAR(255)   NOT NULL,
+    secondpropertyname         VARCHAR(100),
+    properties                 CLOB(2M),
+    PRIMARY KEY (OBJECTID)
+) IN DOPENIDM.SOIDM27;
+COMMENT ON TABLE SOPENIDM.RELATIONSHIPEDGES IS 'OPENIDM - Relationships Between Objects';
+
+CREATE INDEX SOPENIDM.IDX_RELATIONSHIPEDGES_FIRST ON SOPENIDM.RELATIONSHIPEDGES (FIRSTID ASC, FIRSTPROPERTYNAME ASC);
+CREATE INDEX SOPENIDM.IDX_RELATIONSHIPEDGES_SECOND ON SOPENIDM.RELATIONSHIPEDGES (SECONDID ASC, SECONDPROPERTYNAME ASC);
+
 -- -----------------------------------------------------
 -- Table openidm.links
 -- -----------------------------------------------------
@@ -0,0 +1,19 @@
+CREATE TABLESPACE SOIDM27 MANAGED BY AUTOMATIC STORAGE;
+CREATE TABLE SOPENIDM.RELATIONSHIPEDGES (
+    objectid                   VARCHAR(255)   NOT NULL,
+    rev                        VARCHAR(38)    NOT NULL,
+    firstid                    VARCHAR(255)   NOT NULL,
+    firstpropertyname          VARCHAR(100)   NOT NULL,
+    secondid                   VARCHAR(255)   NOT NULL,
+    secondpropertyname         VARCHAR(100),
+    properties                 CLOB(2M),
+    PRIMARY KEY (OBJECTID)
+) IN DOPENIDM.SOIDM27;
+COMMENT ON TABLE SOPENIDM.RELATIONSHIPEDGES IS 'OPENIDM - Relationships Between Objects';
+
+CREATE INDEX SOPENIDM.IDX_RELATIONSHIPEDGES_FIRST ON SOPENIDM.RELATIONSHIPEDGES (FIRSTID ASC, FIRSTPROPERTYNAME ASC);
+CREATE INDEX SOPENIDM.IDX_RELATIONSHIPEDGES_SECOND ON SOPENIDM.RELATIONSHIPEDGES (SECONDID ASC, SECONDPROPERTYNAME ASC);
+
+INSERT INTO SOPENIDM.RELATIONSHIPEDGES (objectid, rev, firstid, firstpropertyname, secondid, secondpropertyname, properties)
+SELECT obj.objectid, obj.rev, JSON_VALUE(obj.fullobject, '$.firstId'), JSON_VALUE(obj.fullobject, '$.firstPropertyName'), JSON_VALUE(obj.fullobject, '$.secondId'), JSON_VALUE(obj.fullobject, '$.secondPropertyName'), JSON_QUERY(obj.fullobject, '$.properties')
+FROM SOPENIDM.RELATIONSHIPS obj;
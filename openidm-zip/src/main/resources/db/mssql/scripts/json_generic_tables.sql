@@ -0,0 +1,43 @@
+-- -----------------------------------------------------
+-- Prepares the generic tables for conf/repo.jdbc-mssql-json.json, which queries generic objects through the
+-- JSON functions of SQL Server 2017 or later rather than their properties tables. Run once OpenIDM is stopped,
+-- before switching to that configuration.
+-- -----------------------------------------------------
+SET ANSI_PADDING,ANSI_WARNINGS,CONCAT_NULL_YIELDS_NULL,ARITHABORT,QUOTED_IDENTIFIER,ANSI_NULLS ON
+GO
+USE [openidm]
+GO
+
+-- JSON_VALUE only reads NVARCHAR columns
+ALTER TABLE [openidm].[genericobjects] ALTER COLUMN fullobject NVARCHAR(MAX) NULL;
+ALTER TABLE [openidm].[managedobjects] ALTER COLUMN fullobject NVARCHAR(MAX) NULL;
+ALTER TABLE [openidm].[configobjects] ALTER COLUMN fullobject NVARCHAR(MAX) NULL;
+ALTER TABLE [openidm].[relationships] ALTER COLUMN fullobject NVARCHAR(MAX) NULL;
+ALTER TABLE [openidm].[schedulerobjects] ALTER COLUMN fullobject NVARCHAR(MAX) NULL;
+ALTER TABLE [openidm].[clusterobjects] ALTER COLUMN fullobject NVARCHAR(MAX) NULL;
+ALTER TABLE [openidm].[updateobjects] ALTER COLUMN fullobject NVARCHAR(MAX) NULL;
+GO
+
+-- Index the properties searched most through computed columns. The optimizer uses the index of a computed
+-- column for queries on the same expression, here JSON_VALUE(obj.fullobject, '$.userName'). Values longer than
+-- the 1700 bytes of an index key fail to be written, hence the warnings when creating the indexes.
+ALTER TABLE [openidm].[managedobjects] ADD
+  json_username AS JSON_VALUE(fullobject, '$.userName'),
+  json_mail AS JSON_VALUE(fullobject, '$.mail'),
+  json_givenname AS JSON_VALUE(fullobject, '$.givenName'),
+  json_sn AS JSON_VALUE(fullobject, '$.sn');
+GO
+CREATE INDEX idx_json_managedobjects_username ON [openidm].[managedobjects] (objecttypes_id ASC, json_username ASC);
+CREATE INDEX idx_json_managedobjects_mail ON [openidm].[managedobjects] (objecttypes_id ASC, json_mail ASC);
+CREATE INDEX idx_json_managedobjects_givenname ON [openidm].[managedobjects] (objecttypes_id ASC, json_givenname ASC);
+CREATE INDEX idx_json_managedobjects_sn ON [openidm].[managedobjects] (objecttypes_id ASC, json_sn ASC);
+GO
+
+-- The properties tables are no longer read once queries go through the JSON functions. Uncomment to reclaim
+-- their space once the JSON configuration is in use.
+-- TRUNCATE TABLE [openidm].[genericobjectproperties];
+-- TRUNCATE TABLE [openidm].[managedobjectproperties];
+-- TRUNCATE TABLE [openidm].[configobjectproperties];
+-- TRUNCATE TABLE [openidm].[schedulerobjectproperties];
+-- TRUNCATE TABLE [openidm].[clusterobjectproperties];
+-- TRUNCATE TABLE [openidm].[updateobjectproperties];
@@ -238,6 +238,27 @@ CREATE INDEX idx_relationshipproperties_propkey ON [openidm].[relationshipproper
 CREATE INDEX idx_relationshipproperties_propvalue ON [openidm].[relationshipproperties] (propvalue ASC);
 END
 
+-- -----------------------------------------------------
+-- Table `openidm`.`relationshipedges`
+-- -----------------------------------------------------
+IF NOT EXISTS (SELECT name FROM sysobjects where name='relationshipedges' AND xtype='U')
+BEGIN
+CREATE  TABLE  [openidm].[relationshipedges]
+(
+  objectid NVARCHAR(255) NOT NULL ,
+  rev NVARCHAR(38) NOT NULL ,
+  firstid NVARCHAR(255) NOT NULL ,
+  firstpropertyname NVARCHAR(100) NOT NULL ,
+  secondid NVARCHAR(255) NOT NULL ,
+  secondpropertyname NVARCHAR(100) NULL ,
+  properties NVARCHAR(MAX) NULL ,
+  PRIMARY KEY CLUSTERED (objectid)
+);
+CREATE INDEX idx_relationshipedges_first ON [openidm].[relationshipedges] (firstid ASC, firstpropertyname ASC);
+CREATE INDEX idx_relationshipedges_second ON [openidm].[relationshipedges] (secondid ASC, secondpropertyname ASC);
+END
+
+
 -- -----------------------------------------------------
 -- Table `openidm`.`links`
 -- -----------------------------------------------------
@@ -0,0 +1,17 @@
+CREATE  TABLE  [openidm].[relationshipedges]
+(
+  objectid NVARCHAR(255) NOT NULL ,
+  rev NVARCHAR(38) NOT NULL ,
+  firstid NVARCHAR(255) NOT NULL ,
+  firstpropertyname NVARCHAR(100) NOT NULL ,
+  secondid NVARCHAR(255) NOT NULL ,
+  secondpropertyname NVARCHAR(100) NULL ,
+  properties NVARCHAR(MAX) NULL ,
+  PRIMARY KEY CLUSTERED (objectid)
+);
+CREATE INDEX idx_relationshipedges_first ON [openidm].[relationshipedges] (firstid ASC, firstpropertyname ASC);
+CREATE INDEX idx_relationshipedges_second ON [openidm].[relationshipedges] (secondid ASC, secondpropertyname ASC);
+
+INSERT INTO [openidm].[relationshipedges] (objectid, rev, firstid, firstpropertyname, secondid, secondpropertyname, properties)
+SELECT obj.objectid, obj.rev, JSON_VALUE(obj.fullobject, '$.firstId'), JSON_VALUE(obj.fullobject, '$.firstPropertyName'), JSON_VALUE(obj.fullobject, '$.secondId'), JSON_VALUE(obj.fullobject, '$.secondPropertyName'), JSON_QUERY(obj.fullobject, '$.properties')
+FROM (SELECT objectid, rev, CAST(fullobject AS NVARCHAR(MAX)) AS fullobject FROM [openidm].[relationships]) obj;
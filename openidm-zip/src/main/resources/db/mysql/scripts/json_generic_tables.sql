@@ -0,0 +1,37 @@
+-- -----------------------------------------------------
+-- Prepares the generic tables for conf/repo.jdbc-mysql-json.json, which queries generic objects through the
+-- JSON functions of MySQL 8.0 rather than their properties tables. Run once OpenIDM is stopped, before switching
+-- to that configuration.
+-- -----------------------------------------------------
+
+-- Store the objects as JSON, which is validated once on write and read without parsing the text on every query
+ALTER TABLE `openidm`.`genericobjects` MODIFY `fullobject` JSON NULL;
+ALTER TABLE `openidm`.`managedobjects` MODIFY `fullobject` JSON NULL;
+ALTER TABLE `openidm`.`configobjects` MODIFY `fullobject` JSON NULL;
+ALTER TABLE `openidm`.`relationships` MODIFY `fullobject` JSON NULL;
+ALTER TABLE `openidm`.`schedulerobjects` MODIFY `fullobject` JSON NULL;
+ALTER TABLE `openidm`.`clusterobjects` MODIFY `fullobject` JSON NULL;
+ALTER TABLE `openidm`.`updateobjects` MODIFY `fullobject` JSON NULL;
+
+-- Index the properties searched most through generated columns. The optimizer uses the index of a generated
+-- column for queries on the same expression, here obj.fullobject->>'$.mail', and a utf8mb4_bin column matches
+-- the collation of the ->> operator. User names are matched regardless of case by the credential-query and
+-- for-userName queries, so their column and those queries share a case-insensitive collation.
+ALTER TABLE `openidm`.`managedobjects`
+  ADD COLUMN `json_username` VARCHAR(255) COLLATE utf8mb4_general_ci GENERATED ALWAYS AS ((`fullobject`->>'$.userName') COLLATE utf8mb4_general_ci) VIRTUAL ,
+  ADD COLUMN `json_mail` VARCHAR(255) COLLATE utf8mb4_bin GENERATED ALWAYS AS (`fullobject`->>'$.mail') VIRTUAL ,
+  ADD COLUMN `json_givenname` VARCHAR(255) COLLATE utf8mb4_bin GENERATED ALWAYS AS (`fullobject`->>'$.givenName') VIRTUAL ,
+  ADD COLUMN `json_sn` VARCHAR(255) COLLATE utf8mb4_bin GENERATED ALWAYS AS (`fullobject`->>'$.sn') VIRTUAL ,
+  ADD INDEX `idx_json_managedobjects_username` (`objecttypes_id` ASC, `json_username` ASC) ,
+  ADD INDEX `idx_json_managedobjects_mail` (`objecttypes_id` ASC, `json_mail` ASC) ,
+  ADD INDEX `idx_json_managedobjects_givenname` (`objecttypes_id` ASC, `json_givenname` ASC) ,
+  ADD INDEX `idx_json_managedobjects_sn` (`objecttypes_id` ASC, `json_sn` ASC);
+
+-- The properties tables are no longer read once queries go through the JSON functions. Uncomment to reclaim
+-- their space once the JSON configuration is in use.
+-- TRUNCATE TABLE `openidm`.`genericobjectproperties`;
+-- TRUNCATE TABLE `openidm`.`managedobjectproperties`;
+-- TRUNCATE TABLE `openidm`.`configobjectproperties`;
+-- TRUNCATE TABLE `openidm`.`schedulerobjectproperties`;
+-- TRUNCATE TABLE `openidm`.`clusterobjectproperties`;
+-- TRUNCATE TABLE `openidm`.`updateobjectproperties`;
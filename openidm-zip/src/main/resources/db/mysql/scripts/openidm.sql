@@ -171,6 +171,22 @@ CREATE  TABLE IF NOT EXISTS `openidm`.`relationshipproperties` (
     ON UPDATE NO ACTION)
   ENGINE = InnoDB;
 
+-- -----------------------------------------------------
+-- Table `openidm`.`relationshipedges`
+-- -----------------------------------------------------
+CREATE  TABLE IF NOT EXISTS `openidm`.`relationshipedges` (
+  `objectid` VARCHAR(255) NOT NULL ,
+  `rev` VARCHAR(38) NOT NULL ,
+  `firstid` VARCHAR(255) NOT NULL ,
+  `firstpropertyname` VARCHAR(100) NOT NULL ,
+  `secondid` VARCHAR(255) NOT NULL ,
+  `secondpropertyname` VARCHAR(100) NULL ,
+  `properties` MEDIUMTEXT NULL ,
+  PRIMARY KEY (`objectid`) ,
+  INDEX `idx_relationshipedges_first` (`firstid` ASC, `firstpropertyname` ASC) ,
+  INDEX `idx_relationshipedges_second` (`secondid` ASC, `secondpropertyname` ASC) )
+ENGINE = InnoDB;
+
 -- -----------------------------------------------------
 -- Table `openidm`.`links`
 -- -----------------------------------------------------
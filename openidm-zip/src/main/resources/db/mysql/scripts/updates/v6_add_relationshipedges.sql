@@ -0,0 +1,20 @@
+CREATE  TABLE IF NOT EXISTS `openidm`.`relationshipedges` (
+  `objectid` VARCHAR(255) NOT NULL ,
+  `rev` VARCHAR(38) NOT NULL ,
+  `firstid` VARCHAR(255) NOT NULL ,
+  `firstpropertyname` VARCHAR(100) NOT NULL ,
+  `secondid` VARCHAR(255) NOT NULL ,
+  `secondpropertyname` VARCHAR(100) NULL ,
+  `properties` MEDIUMTEXT NULL ,
+  PRIMARY KEY (`objectid`) ,
+  INDEX `idx_relationshipedges_first` (`firstid` ASC, `firstpropertyname` ASC) ,
+  INDEX `idx_relationshipedges_second` (`secondid` ASC, `secondpropertyname` ASC) )
+ENGINE = InnoDB;
+
+INSERT INTO `openidm`.`relationshipedges` (`objectid`, `rev`, `firstid`, `firstpropertyname`, `secondid`, `secondpropertyname`, `properties`)
+SELECT obj.objectid, obj.rev, firstId.propvalue, firstPropertyName.propvalue, secondId.propvalue, secondPropertyName.propvalue, JSON_EXTRACT(obj.fullobject, '$.properties')
+FROM `openidm`.`relationships` obj
+INNER JOIN `openidm`.`relationshipproperties` firstId ON firstId.relationships_id = obj.id AND firstId.propkey = '/firstId'
+INNER JOIN `openidm`.`relationshipproperties` firstPropertyName ON firstPropertyName.relationships_id = obj.id AND firstPropertyName.propkey = '/firstPropertyName'
+INNER JOIN `openidm`.`relationshipproperties` secondId ON secondId.relationships_id = obj.id AND secondId.propkey = '/secondId'
+LEFT OUTER JOIN `openidm`.`relationshipproperties` secondPropertyName ON secondPropertyName.relationships_id = obj.id AND secondPropertyName.propkey = '/secondPropertyName';
@@ -0,0 +1,53 @@
+-- -----------------------------------------------------
+-- Prepares the generic tables for conf/repo.jdbc-oracle-json.json, which queries generic objects through
+-- JSON_VALUE rather than their properties tables. Requires Oracle 12.1.0.2 or later. Run once OpenIDM is
+-- stopped, before switching to that configuration.
+-- -----------------------------------------------------
+
+PROMPT Adding JSON constraints on the generic tables ...
+ALTER TABLE genericobjects ADD CONSTRAINT ck_genericobjects_json CHECK (fullobject IS JSON);
+ALTER TABLE managedobjects ADD CONSTRAINT ck_managedobjects_json CHECK (fullobject IS JSON);
+ALTER TABLE configobjects ADD CONSTRAINT ck_configobjects_json CHECK (fullobject IS JSON);
+ALTER TABLE relationships ADD CONSTRAINT ck_relationships_json CHECK (fullobject IS JSON);
+ALTER TABLE schedulerobjects ADD CONSTRAINT ck_schedulerobjects_json CHECK (fullobject IS JSON);
+ALTER TABLE clusterobjects ADD CONSTRAINT ck_clusterobjects_json CHECK (fullobject IS JSON);
+ALTER TABLE updateobjects ADD CONSTRAINT ck_updateobjects_json CHECK (fullobject IS JSON);
+
+-- Index the properties searched most. The optimizer uses a function-based index for queries on the same
+-- expression, here JSON_VALUE(obj.fullobject, '$.userName').
+PROMPT Creating JSON indexes on the generic tables ...
+CREATE INDEX idx_json_managedobjects_user ON managedobjects
+(
+  objecttypes_id,
+  JSON_VALUE(fullobject, '$.userName')
+)
+;
+CREATE INDEX idx_json_managedobjects_mail ON managedobjects
+(
+  objecttypes_id,
+  JSON_VALUE(fullobject, '$.mail')
+)
+;
+CREATE INDEX idx_json_managedobjects_given ON managedobjects
+(
+  objecttypes_id,
+  JSON_VALUE(fullobject, '$.givenName')
+)
+;
+CREATE INDEX idx_json_managedobjects_sn ON managedobjects
+(
+  objecttypes_id,
+  JSON_VALUE(fullobject, '$.sn')
+)
+;
+
+-- Only the properties the configuration still declares searchable, for the queries taking the path of a property
+-- as a parameter, are written to the properties tables. Uncomment to remove the other properties once the JSON
+-- configuration is in use.
+-- DELETE FROM genericobjectproperties;
+-- DELETE FROM managedobjectproperties WHERE propkey <> '/id' AND propkey NOT LIKE '/sunset%';
+-- DELETE FROM configobjectproperties;
+-- DELETE FROM schedobjectproperties;
+-- DELETE FROM clusterobjectproperties;
+-- DELETE FROM updateobjectproperties;
+-- COMMIT;
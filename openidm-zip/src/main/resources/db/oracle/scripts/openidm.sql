@@ -575,6 +575,44 @@ ADD CONSTRAINT PRIMARY_2 PRIMARY KEY
 ENABLE
 ;
 
+-- DROP TABLE relationshipedges CASCADE CONSTRAINTS;
+
+
+PROMPT Creating Table relationshipedges ...
+CREATE TABLE relationshipedges (
+  objectid VARCHAR2(255 CHAR) NOT NULL,
+  rev VARCHAR2(38 CHAR) NOT NULL,
+  firstid VARCHAR2(255 CHAR) NOT NULL,
+  firstpropertyname VARCHAR2(100 CHAR) NOT NULL,
+  secondid VARCHAR2(255 CHAR) NOT NULL,
+  secondpropertyname VARCHAR2(100 CHAR),
+  properties CLOB
+);
+
+
+PROMPT Creating Primary Key Constraint pk_relationshipedges on table relationshipedges ...
+ALTER TABLE relationshipedges
+ADD CONSTRAINT pk_relationshipedges PRIMARY KEY
+(
+  objectid
+)
+ENABLE
+;
+PROMPT Creating Index idx_relationshipedges_first on relationshipedges ...
+CREATE INDEX idx_relationshipedges_first ON relationshipedges
+(
+  firstid,
+  firstpropertyname
+)
+;
+PROMPT Creating Index idx_relationshipedges_second on relationshipedges ...
+CREATE INDEX idx_relationshipedges_second ON relationshipedges
+(
+  secondid,
+  secondpropertyname
+)
+;
+
 -- DROP TABLE links CASCADE CONSTRAINTS;
 
 
@@ -0,0 +1,34 @@
+CREATE TABLE relationshipedges (
+  objectid VARCHAR2(255 CHAR) NOT NULL,
+  rev VARCHAR2(38 CHAR) NOT NULL,
+  firstid VARCHAR2(255 CHAR) NOT NULL,
+  firstpropertyname VARCHAR2(100 CHAR) NOT NULL,
+  secondid VARCHAR2(255 CHAR) NOT NULL,
+  secondpropertyname VARCHAR2(100 CHAR),
+  properties CLOB
+);
+
+ALTER TABLE relationshipedges
+ADD CONSTRAINT pk_relationshipedges PRIMARY KEY
+(
+  objectid
+)
+ENABLE
+;
+CREATE INDEX idx_relationshipedges_first ON relationshipedges
+(
+  firstid,
+  firstpropertyname
+)
+;
+CREATE INDEX idx_relationshipedges_second ON relationshipedges
+(
+  secondid,
+  secondpropertyname
+)
+;
+
+INSERT INTO relationshipedges (objectid, rev, firstid, firstpropertyname, secondid, secondpropertyname, properties)
+SELECT obj.objectid, obj.rev, JSON_VALUE(obj.fullobject, '$.firstId'), JSON_VALUE(obj.fullobject, '$.firstPropertyName'), JSON_VALUE(obj.fullobject, '$.secondId'), JSON_VALUE(obj.fullobject, '$.secondPropertyName'), JSON_QUERY(obj.fullobject, '$.properties')
+FROM relationships obj;
+COMMIT;
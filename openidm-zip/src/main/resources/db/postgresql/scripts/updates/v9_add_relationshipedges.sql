@@ -0,0 +1,18 @@
+CREATE TABLE openidm.relationshipedges (
+  objectid VARCHAR(255) NOT NULL,
+  rev VARCHAR(38) NOT NULL,
+  firstid VARCHAR(255) NOT NULL,
+  firstpropertyname VARCHAR(100) NOT NULL,
+  secondid VARCHAR(255) NOT NULL,
+  secondpropertyname VARCHAR(100),
+  properties JSON,
+  PRIMARY KEY (objectid)
+);
+
+CREATE INDEX idx_relationshipedges_first ON openidm.relationshipedges (firstid, firstpropertyname);
+CREATE INDEX idx_relationshipedges_second ON openidm.relationshipedges (secondid, secondpropertyname);
+
+INSERT INTO openidm.relationshipedges (objectid, rev, firstid, firstpropertyname, secondid, secondpropertyname, properties)
+SELECT obj.objectid, obj.rev, json_extract_path_text(obj.fullobject, 'firstId'), json_extract_path_text(obj.fullobject, 'firstPropertyName'), json_extract_path_text(obj.fullobject, 'secondId'), json_extract_path_text(obj.fullobject, 'secondPropertyName'), json_extract_path(obj.fullobject, 'properties')
+FROM openidm.relationships obj;
+ANALYZE openidm.relationshipedges;